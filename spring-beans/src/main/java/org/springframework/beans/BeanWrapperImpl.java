@@ -267,7 +267,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 					}
 				} else {
 					if (pd.getReadMethod() != null || pd.getWriteMethod() != null) {
-						return new TypeDescriptor(property(pd));
+						return nestedBw.getTypeDescriptor(pd);
 					}
 				}
 			}
@@ -352,13 +352,22 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 			throw new InvalidPropertyException(getRootClass(), this.nestedPath + propertyName,
 					"No property '" + propertyName + "' found");
 		}
-		return convertForProperty(propertyName, null, value, new TypeDescriptor(property(pd)));
+		return convertForProperty(propertyName, null, value, getTypeDescriptor(pd));
 	}
 	private Object convertForProperty(String propertyName, Object oldValue, Object newValue, TypeDescriptor td) throws TypeMismatchException {
 
 		return convertIfNecessary(propertyName, oldValue, newValue, td.getType(), td);
 	}
 
+	// 获取属性对应的TypeDescriptor：创建Property/TypeDescriptor的代价不小，按PropertyDescriptor缓存在CachedIntrospectionResults中
+	private TypeDescriptor getTypeDescriptor(PropertyDescriptor pd) {
+		CachedIntrospectionResults cachedIntrospectionResults = getCachedIntrospectionResults();
+		TypeDescriptor td = cachedIntrospectionResults.getTypeDescriptor(pd);
+		if (td == null) {
+			td = cachedIntrospectionResults.addTypeDescriptor(pd, new TypeDescriptor(property(pd)));
+		}
+		return td;
+	}
 	private Property property(PropertyDescriptor pd) {
 		GenericTypeAwarePropertyDescriptor typeAware = (GenericTypeAwarePropertyDescriptor) pd;
 		return new Property(typeAware.getBeanClass(), typeAware.getReadMethod(), typeAware.getWriteMethod(), typeAware.getName());
@@ -388,32 +397,58 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 	 */
 	protected BeanWrapperImpl getBeanWrapperForPropertyPath(String propertyPath) {
 		int pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(propertyPath);// 返回嵌套属性path的第一个分割符索引
-		// Handle nested properties recursively.
+		// Handle nested properties, using the cached tokens for each path element.
 		if (pos > -1) {
-			String nestedProperty = propertyPath.substring(0, pos);
-			String nestedPath = propertyPath.substring(pos + 1);
-			BeanWrapperImpl nestedBw = getNestedBeanWrapper(nestedProperty);
-			return nestedBw.getBeanWrapperForPropertyPath(nestedPath);
+			BeanWrapperImpl nestedBw = this;
+			for (PropertyTokenHolder tokens : getPropertyPath(propertyPath).nestedTokens) {
+				nestedBw = nestedBw.getNestedBeanWrapper(tokens);
+			}
+			return nestedBw;
 		}
 		else {
 			return this;
 		}
 	}
 
+	/**
+	 * Return the tokenized form of the given property path, cached per wrapped class
+	 * in its {@link CachedIntrospectionResults}.
+	 * @param propertyPath property path, which may be nested
+	 */
+	private PropertyPath getPropertyPath(String propertyPath) {
+		// 随CachedIntrospectionResults一起缓存，由CachedIntrospectionResults.clearClassLoader清除，
+		// 避免 "a.b[0].c" 这样的路径每次访问都重新解析
+		CachedIntrospectionResults results = getCachedIntrospectionResults();
+		PropertyPath path = (PropertyPath) results.getPropertyPath(propertyPath);
+		if (path == null) {
+			List<PropertyTokenHolder> nestedTokens = new ArrayList<PropertyTokenHolder>(2);
+			String remainingPath = propertyPath;
+			int pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(remainingPath);
+			while (pos > -1) {
+				nestedTokens.add(getPropertyNameTokens(remainingPath.substring(0, pos)));
+				remainingPath = remainingPath.substring(pos + 1);
+				pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(remainingPath);
+			}
+			path = new PropertyPath(nestedTokens.toArray(new PropertyTokenHolder[nestedTokens.size()]),
+					getPropertyNameTokens(remainingPath));
+			results.addPropertyPath(propertyPath, path);
+		}
+		return path;
+	}
+
 	/**
 	 * Retrieve a BeanWrapper for the given nested property.
 	 * Create a new one if not found in the cache.
 	 * <p>Note: Caching nested BeanWrappers is necessary now,
 	 * to keep registered custom editors for nested properties.
-	 * @param nestedProperty property to create the BeanWrapper for
+	 * @param tokens the tokens of the property to create the BeanWrapper for
 	 * @return the BeanWrapper instance, either cached or newly created
 	 */
-	private BeanWrapperImpl getNestedBeanWrapper(String nestedProperty) {
+	private BeanWrapperImpl getNestedBeanWrapper(PropertyTokenHolder tokens) {
 		if (this.nestedBeanWrappers == null) {
 			this.nestedBeanWrappers = new HashMap<String, BeanWrapperImpl>();
 		}
 		// Get value of bean property.
-		PropertyTokenHolder tokens = getPropertyNameTokens(nestedProperty);
 		String canonicalName = tokens.canonicalName;
 		Object propertyValue = getPropertyValue(tokens);
 		if (propertyValue == null) {
@@ -583,7 +618,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 	@Override
 	public Object getPropertyValue(String propertyName) throws BeansException {
 		BeanWrapperImpl nestedBw = getBeanWrapperForPropertyPath(propertyName);
-		PropertyTokenHolder tokens = getPropertyNameTokens(getFinalPath(nestedBw, propertyName));
+		PropertyTokenHolder tokens = getPropertyPath(propertyName).finalTokens;
 		return nestedBw.getPropertyValue(tokens);
 	}
     @SuppressWarnings("unchecked")
@@ -729,7 +764,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 		catch (NotReadablePropertyException ex) {
 			throw new NotWritablePropertyException(getRootClass(), this.nestedPath + propertyName, "Nested property in path '" + propertyName + "' does not exist", ex);
 		}
-		PropertyTokenHolder tokens = getPropertyNameTokens(getFinalPath(nestedBw, propertyName));
+		PropertyTokenHolder tokens = getPropertyPath(propertyName).finalTokens;
 		nestedBw.setPropertyValue(tokens, new PropertyValue(propertyName, value));
 	}
 	@Override
@@ -745,7 +780,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 				throw new NotWritablePropertyException(getRootClass(), this.nestedPath + propertyName,
 						"Nested property in path '" + propertyName + "' does not exist", ex);
 			}
-			tokens = getPropertyNameTokens(getFinalPath(nestedBw, propertyName));
+			tokens = getPropertyPath(propertyName).finalTokens;
 			if (nestedBw == this) {
 				pv.getOriginalPropertyValue().resolvedTokens = tokens;
 			}
@@ -944,7 +979,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 							}
 						}
 						valueToApply = convertForProperty(
-								propertyName, oldValue, originalValue, new TypeDescriptor(property(pd)));
+								propertyName, oldValue, originalValue, getTypeDescriptor(pd));
 					}
 					pv.getOriginalPropertyValue().conversionNecessary = (valueToApply != originalValue);
 				}
@@ -1010,6 +1045,17 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 		public String[] keys;// {"0","luckyNumber"}
 	}
 
+	// 解析好的属性路径：比如 "a.b[0].c" 对应的 nestedTokens 是 a、b[0]，finalTokens 是 c（缓存共享，不能修改）
+	private static class PropertyPath {
+		public final PropertyTokenHolder[] nestedTokens;
+		public final PropertyTokenHolder finalTokens;
+
+		public PropertyPath(PropertyTokenHolder[] nestedTokens, PropertyTokenHolder finalTokens) {
+			this.nestedTokens = nestedTokens;
+			this.finalTokens = finalTokens;
+		}
+	}
+
 
 	@Override
 	public String toString() {
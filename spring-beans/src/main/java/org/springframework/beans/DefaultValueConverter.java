@@ -0,0 +1,245 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.springframework.util.NumberUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Stateless, thread-safe counterpart of one of the default
+ * {@link java.beans.PropertyEditor PropertyEditors} that
+ * {@link PropertyEditorRegistrySupport} registers for common value types
+ * (primitives and their wrappers, {@code BigDecimal}/{@code BigInteger},
+ * {@code Charset}, {@code Currency}, {@code Locale}, {@code Pattern},
+ * {@code TimeZone} and {@code UUID}), performing exactly the same conversion.
+ *
+ * <p>A single shared instance per type is used by {@link TypeConverterDelegate},
+ * so that converting such values does not require the (stateful, hence
+ * per-registry) default editors to be created at all.
+ *
+ * @since 3.2.9
+ * @see PropertyEditorRegistrySupport#getDefaultValueConverter
+ */
+abstract class DefaultValueConverter {
+
+	private static final Map<Class<?>, DefaultValueConverter> converters =
+			new HashMap<Class<?>, DefaultValueConverter>(64);
+
+	static {
+		// 与 PropertyEditorRegistrySupport#createDefaultEditors 中注册的默认编辑器一一对应
+		converters.put(boolean.class, new BooleanConverter(false));
+		converters.put(Boolean.class, new BooleanConverter(true));
+		converters.put(char.class, new CharacterConverter(false));
+		converters.put(Character.class, new CharacterConverter(true));
+		converters.put(byte.class, new NumberConverter(Byte.class, false));
+		converters.put(Byte.class, new NumberConverter(Byte.class, true));
+		converters.put(short.class, new NumberConverter(Short.class, false));
+		converters.put(Short.class, new NumberConverter(Short.class, true));
+		converters.put(int.class, new NumberConverter(Integer.class, false));
+		converters.put(Integer.class, new NumberConverter(Integer.class, true));
+		converters.put(long.class, new NumberConverter(Long.class, false));
+		converters.put(Long.class, new NumberConverter(Long.class, true));
+		converters.put(float.class, new NumberConverter(Float.class, false));
+		converters.put(Float.class, new NumberConverter(Float.class, true));
+		converters.put(double.class, new NumberConverter(Double.class, false));
+		converters.put(Double.class, new NumberConverter(Double.class, true));
+		converters.put(BigDecimal.class, new NumberConverter(BigDecimal.class, true));
+		converters.put(BigInteger.class, new NumberConverter(BigInteger.class, true));
+		converters.put(Charset.class, new DefaultValueConverter() {
+			@Override
+			protected Object convertText(String text) {
+				return (StringUtils.hasText(text) ? Charset.forName(text) : null);
+			}
+		});
+		converters.put(Currency.class, new DefaultValueConverter() {
+			@Override
+			protected Object convertText(String text) {
+				return Currency.getInstance(text);
+			}
+		});
+		converters.put(Locale.class, new DefaultValueConverter() {
+			@Override
+			protected Object convertText(String text) {
+				return StringUtils.parseLocaleString(text);
+			}
+		});
+		converters.put(Pattern.class, new DefaultValueConverter() {
+			@Override
+			protected Object convertText(String text) {
+				return Pattern.compile(text);
+			}
+		});
+		converters.put(TimeZone.class, new DefaultValueConverter() {
+			@Override
+			protected Object convertText(String text) {
+				return TimeZone.getTimeZone(text);
+			}
+		});
+		converters.put(UUID.class, new DefaultValueConverter() {
+			@Override
+			protected Object convertText(String text) {
+				return (StringUtils.hasText(text) ? UUID.fromString(text) : null);
+			}
+		});
+	}
+
+
+	/**
+	 * Return the shared converter for the given type, if any.
+	 */
+	public static DefaultValueConverter forType(Class<?> requiredType) {
+		return converters.get(requiredType);
+	}
+
+
+	/**
+	 * Determine whether the given value can be converted by this converter:
+	 * that is, whether it is a String or String array - or another value that
+	 * the corresponding editor's {@code setValue} method would convert.
+	 */
+	public boolean canConvert(Object value) {
+		return (value instanceof String || value instanceof String[]);
+	}
+
+	/**
+	 * Convert the given value, just like the corresponding default editor.
+	 * @param value the value to convert (as accepted by {@link #canConvert})
+	 * @return the converted value (may be {@code null})
+	 * @throws IllegalArgumentException if the value is not valid for the target type
+	 */
+	public Object convert(Object value) throws IllegalArgumentException {
+		if (value instanceof String[]) {
+			// 与 TypeConverterDelegate#doConvertValue 相同：字符串数组先转为逗号分隔的字符串
+			return convertText(StringUtils.arrayToCommaDelimitedString((String[]) value));
+		}
+		return convertText((String) value);
+	}
+
+	/**
+	 * Convert the given text, as the corresponding editor's {@code setAsText} method does.
+	 */
+	protected abstract Object convertText(String text) throws IllegalArgumentException;
+
+
+	/**
+	 * Counterpart of {@link org.springframework.beans.propertyeditors.CustomNumberEditor}
+	 * without a NumberFormat.
+	 */
+	private static class NumberConverter extends DefaultValueConverter {
+
+		private final Class<? extends Number> numberClass;
+
+		private final boolean allowEmpty;
+
+		public NumberConverter(Class<? extends Number> numberClass, boolean allowEmpty) {
+			this.numberClass = numberClass;
+			this.allowEmpty = allowEmpty;
+		}
+
+		@Override
+		public boolean canConvert(Object value) {
+			return (value instanceof Number || super.canConvert(value));
+		}
+
+		@Override
+		public Object convert(Object value) {
+			if (value instanceof Number) {
+				return NumberUtils.convertNumberToTargetClass((Number) value, this.numberClass);
+			}
+			return super.convert(value);
+		}
+
+		@Override
+		protected Object convertText(String text) {
+			if (this.allowEmpty && !StringUtils.hasText(text)) {
+				return null;
+			}
+			return NumberUtils.parseNumber(text, this.numberClass);
+		}
+	}
+
+
+	/**
+	 * Counterpart of {@link org.springframework.beans.propertyeditors.CustomBooleanEditor}
+	 * without custom true/false Strings.
+	 */
+	private static class BooleanConverter extends DefaultValueConverter {
+
+		private final boolean allowEmpty;
+
+		public BooleanConverter(boolean allowEmpty) {
+			this.allowEmpty = allowEmpty;
+		}
+
+		@Override
+		protected Object convertText(String text) {
+			String input = text.trim();
+			if (this.allowEmpty && input.length() == 0) {
+				return null;
+			}
+			if (input.equalsIgnoreCase("true") || input.equalsIgnoreCase("on") ||
+					input.equalsIgnoreCase("yes") || input.equals("1")) {
+				return Boolean.TRUE;
+			}
+			if (input.equalsIgnoreCase("false") || input.equalsIgnoreCase("off") ||
+					input.equalsIgnoreCase("no") || input.equals("0")) {
+				return Boolean.FALSE;
+			}
+			throw new IllegalArgumentException("Invalid boolean value [" + text + "]");
+		}
+	}
+
+
+	/**
+	 * Counterpart of {@link org.springframework.beans.propertyeditors.CharacterEditor}.
+	 */
+	private static class CharacterConverter extends DefaultValueConverter {
+
+		private final boolean allowEmpty;
+
+		public CharacterConverter(boolean allowEmpty) {
+			this.allowEmpty = allowEmpty;
+		}
+
+		@Override
+		protected Object convertText(String text) {
+			if (this.allowEmpty && text.length() == 0) {
+				return null;
+			}
+			if (text.startsWith("\\u") && text.length() == 6) {
+				return (char) Integer.parseInt(text.substring(2), 16);
+			}
+			if (text.length() != 1) {
+				throw new IllegalArgumentException("String [" + text + "] with length " +
+						text.length() + " cannot be converted to char type");
+			}
+			return text.charAt(0);
+		}
+	}
+
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.cglib.reflect.FastMethod;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * {@link BeanWrapperImpl} variant with a fast path for top-level properties,
+ * as accessed by data binding, {@code BeanPropertyRowMapper} and
+ * {@code BeanPropertySqlParameterSource} for every single value.
+ *
+ * <p>For a simple property name (no nested or indexed path), the getter and
+ * setter are invoked through per-class accessor handles that are resolved once
+ * and shared by all instances, without any path parsing or descriptor lookup.
+ * Public accessors of public classes are invoked through a CGLIB
+ * {@link FastClass}, i.e. through generated code that calls the method
+ * directly instead of through {@link Method#invoke}; other accessors (or
+ * classes that CGLIB cannot generate a FastClass for) fall back to reflection.
+ * A value that is already an instance of the
+ * property type is passed to the setter as-is, skipping the
+ * {@link TypeConverterDelegate} and any ConversionService entirely - unless
+ * a custom editor has been registered for the property, or the property is
+ * an array, Collection or Map (which may need element conversion).
+ *
+ * <p>Everything else - nested and indexed paths, unknown properties, values that
+ * need conversion, and access under a SecurityManager - falls back to the
+ * standard {@code BeanWrapperImpl} algorithm, with identical semantics.
+ *
+ * @since 3.2.9
+ * @see PropertyAccessorFactory#forFastBeanPropertyAccess
+ * @see PropertyAccessorFactory#FAST_PROPERTY_ACCESS_PROPERTY_NAME
+ */
+public class FastBeanWrapperImpl extends BeanWrapperImpl {
+
+	// bean class -> (property name -> PropertyHandle)，以bean class为key的软引用缓存，被所有实例共享
+	private static final ConcurrentReferenceHashMap<Class<?>, Map<String, PropertyHandle>> propertyHandleCache =
+			new ConcurrentReferenceHashMap<Class<?>, Map<String, PropertyHandle>>(64);
+
+	// 标记一个不存在（或者无法走快速路径）的属性
+	private static final PropertyHandle NO_HANDLE = new PropertyHandle(null, null, null, null, null);
+
+	private static final Object[] NO_ARGS = new Object[0];
+
+
+	private Map<String, PropertyHandle> propertyHandles;
+
+
+	public FastBeanWrapperImpl() {
+		super();
+	}
+
+	public FastBeanWrapperImpl(boolean registerDefaultEditors) {
+		super(registerDefaultEditors);
+	}
+
+	public FastBeanWrapperImpl(Object object) {
+		super(object);
+	}
+
+	public FastBeanWrapperImpl(Class<?> clazz) {
+		super(clazz);
+	}
+
+	public FastBeanWrapperImpl(Object object, String nestedPath, Object rootObject) {
+		super(object, nestedPath, rootObject);
+	}
+
+
+	@Override
+	protected void setIntrospectionClass(Class<?> clazz) {
+		super.setIntrospectionClass(clazz);
+		this.propertyHandles = null;
+	}
+
+	@Override
+	public Object getPropertyValue(String propertyName) throws BeansException {
+		PropertyHandle handle = getPropertyHandle(propertyName);
+		if (handle == null || handle.readMethod == null) {
+			return super.getPropertyValue(propertyName);
+		}
+		try {
+			return handle.read(getWrappedInstance());
+		}
+		catch (InvocationTargetException ex) {
+			throw new InvalidPropertyException(getRootClass(), getNestedPath() + propertyName,
+					"Getter for property '" + propertyName + "' threw exception", ex);
+		}
+		catch (Exception ex) {
+			throw new InvalidPropertyException(getRootClass(), getNestedPath() + propertyName,
+					"Illegal attempt to get property '" + propertyName + "' threw exception", ex);
+		}
+	}
+
+	@Override
+	public void setPropertyValue(String propertyName, Object value) throws BeansException {
+		if (!setPropertyValueDirectly(propertyName, value)) {
+			super.setPropertyValue(propertyName, value);
+		}
+	}
+
+	@Override
+	public void setPropertyValue(PropertyValue pv) throws BeansException {
+		Object value = (pv.isConverted() ? pv.getConvertedValue() : pv.getValue());
+		if (!setPropertyValueDirectly(pv.getName(), value)) {
+			super.setPropertyValue(pv);
+		}
+	}
+
+	/**
+	 * Invoke the setter for the given property directly if the value does not
+	 * need any conversion.
+	 * @return {@code true} if the value has been applied, {@code false} if the
+	 * standard algorithm needs to take care of it
+	 */
+	private boolean setPropertyValueDirectly(String propertyName, Object value) {
+		PropertyHandle handle = getPropertyHandle(propertyName);
+		if (handle == null || handle.writeMethod == null || !handle.isAssignableValue(value) ||
+				findCustomEditor(handle.propertyType, propertyName) != null) {
+			return false;
+		}
+		try {
+			handle.write(getWrappedInstance(), value);
+			return true;
+		}
+		catch (InvocationTargetException ex) {
+			PropertyChangeEvent pce =
+					new PropertyChangeEvent(getRootInstance(), getNestedPath() + propertyName, null, value);
+			if (ex.getTargetException() instanceof ClassCastException) {
+				throw new TypeMismatchException(pce, handle.propertyType, ex.getTargetException());
+			}
+			else {
+				throw new MethodInvocationException(pce, ex.getTargetException());
+			}
+		}
+		catch (Exception ex) {
+			PropertyChangeEvent pce =
+					new PropertyChangeEvent(getRootInstance(), getNestedPath() + propertyName, null, value);
+			throw new MethodInvocationException(pce, ex);
+		}
+	}
+
+	/**
+	 * Return the accessor handle for the given top-level property,
+	 * or {@code null} if the fast path does not apply.
+	 */
+	private PropertyHandle getPropertyHandle(String propertyName) {
+		if (propertyName == null || PropertyAccessorUtils.isNestedOrIndexedProperty(propertyName) ||
+				getWrappedInstance() == null || System.getSecurityManager() != null) {
+			return null;
+		}
+		Map<String, PropertyHandle> handles = this.propertyHandles;
+		if (handles == null) {
+			handles = getPropertyHandles(getWrappedClass());
+			this.propertyHandles = handles;
+		}
+		PropertyHandle handle = handles.get(propertyName);
+		if (handle == null) {
+			handle = createPropertyHandle(propertyName);
+			handles.put(propertyName, handle);
+		}
+		return (handle != NO_HANDLE ? handle : null);
+	}
+
+	private PropertyHandle createPropertyHandle(String propertyName) {
+		PropertyDescriptor pd = CachedIntrospectionResults.forClass(getWrappedClass()).getPropertyDescriptor(propertyName);
+		if (pd == null) {
+			return NO_HANDLE;
+		}
+		Method readMethod = pd.getReadMethod();
+		Method writeMethod = (pd instanceof GenericTypeAwarePropertyDescriptor ?
+				((GenericTypeAwarePropertyDescriptor) pd).getWriteMethodForActualAccess() : pd.getWriteMethod());
+		return new PropertyHandle(makeAccessible(readMethod), makeAccessible(writeMethod),
+				getFastMethod(readMethod), getFastMethod(writeMethod), pd.getPropertyType());
+	}
+
+	private static Method makeAccessible(Method method) {
+		if (method != null && !Modifier.isPublic(method.getDeclaringClass().getModifiers()) && !method.isAccessible()) {
+			method.setAccessible(true);
+		}
+		return method;
+	}
+
+	// 公共类的公共方法通过CGLIB生成的FastClass直接调用；无法生成FastClass时（例如类加载器不允许定义新的类）退回反射调用
+	private static FastMethod getFastMethod(Method method) {
+		if (method == null || !Modifier.isPublic(method.getModifiers()) ||
+				!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+			return null;
+		}
+		try {
+			return FastClass.create(method.getDeclaringClass()).getMethod(method);
+		}
+		catch (Throwable ex) {
+			return null;
+		}
+	}
+
+	private static Map<String, PropertyHandle> getPropertyHandles(Class<?> beanClass) {
+		Map<String, PropertyHandle> handles = propertyHandleCache.get(beanClass);
+		if (handles == null) {
+			handles = new ConcurrentHashMap<String, PropertyHandle>(16);
+			Map<String, PropertyHandle> existing = propertyHandleCache.putIfAbsent(beanClass, handles);
+			if (existing != null) {
+				handles = existing;
+			}
+		}
+		return handles;
+	}
+
+	/**
+	 * Clear the shared accessor handle cache, e.g. when a ClassLoader gets
+	 * discarded (analogous to {@link CachedIntrospectionResults#clearClassLoader}).
+	 */
+	public static void clearPropertyHandleCache() {
+		propertyHandleCache.clear();
+	}
+
+
+	/**
+	 * Resolved getter and setter of a single property, ready for invocation.
+	 */
+	private static class PropertyHandle {
+
+		private final Method readMethod;
+
+		private final Method writeMethod;
+
+		// readMethod/writeMethod对应的FastMethod，为null时通过反射调用
+		private final FastMethod fastReadMethod;
+
+		private final FastMethod fastWriteMethod;
+
+		private final Class<?> propertyType;
+
+		// 可以直接传给setter的值类型（基本类型对应的包装类型）；null表示必须经过类型转换
+		private final Class<?> directValueType;
+
+		public PropertyHandle(Method readMethod, Method writeMethod, FastMethod fastReadMethod,
+				FastMethod fastWriteMethod, Class<?> propertyType) {
+			this.readMethod = readMethod;
+			this.writeMethod = writeMethod;
+			this.fastReadMethod = fastReadMethod;
+			this.fastWriteMethod = fastWriteMethod;
+			this.propertyType = propertyType;
+			if (propertyType == null || propertyType.isArray() ||
+					Collection.class.isAssignableFrom(propertyType) || Map.class.isAssignableFrom(propertyType)) {
+				this.directValueType = null;
+			}
+			else {
+				this.directValueType = ClassUtils.resolvePrimitiveIfNecessary(propertyType);
+			}
+		}
+
+		public Object read(Object target) throws Exception {
+			if (this.fastReadMethod != null) {
+				return this.fastReadMethod.invoke(target, NO_ARGS);
+			}
+			return this.readMethod.invoke(target);
+		}
+
+		public void write(Object target, Object value) throws Exception {
+			if (this.fastWriteMethod != null) {
+				this.fastWriteMethod.invoke(target, new Object[] {value});
+			}
+			else {
+				this.writeMethod.invoke(target, value);
+			}
+		}
+
+		public boolean isAssignableValue(Object value) {
+			if (this.directValueType == null) {
+				return false;
+			}
+			if (value == null) {
+				return !this.propertyType.isPrimitive();
+			}
+			return this.directValueType.isInstance(value);
+		}
+	}
+
+}
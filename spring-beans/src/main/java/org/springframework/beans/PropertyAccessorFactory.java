@@ -16,6 +16,8 @@
 
 package org.springframework.beans;
 
+import org.springframework.core.SpringProperties;
+
 /**
  * Simple factory facade for obtaining {@link PropertyAccessor} instances,
  * in particular for {@link BeanWrapper} instances. Conceals the actual
@@ -26,9 +28,35 @@ package org.springframework.beans;
  */
 public abstract class PropertyAccessorFactory {
 
+	/**
+	 * System property that instructs Spring to use a {@link FastBeanWrapperImpl}
+	 * for all {@link #forBeanPropertyAccess} calls, i.e. to invoke top-level
+	 * getters and setters directly and to skip type conversion for values that
+	 * already match the property type: "spring.beanwrapper.fast".
+	 * <p>The default is "false", using the standard {@link BeanWrapperImpl}.
+	 * @since 3.2.9
+	 */
+	public static final String FAST_PROPERTY_ACCESS_PROPERTY_NAME = "spring.beanwrapper.fast";
+
+	private static final boolean fastPropertyAccess = SpringProperties.getFlag(FAST_PROPERTY_ACCESS_PROPERTY_NAME);
+
+
 	// 返回一个 BeanWrapper ，这样可以使用JavaBean风格的形式访问对象属性
 	public static BeanWrapper forBeanPropertyAccess(Object target) {
-		return new BeanWrapperImpl(target);
+		return (fastPropertyAccess ? new FastBeanWrapperImpl(target) : new BeanWrapperImpl(target));
+	}
+
+	/**
+	 * Obtain a BeanWrapper for the given target object, accessing properties
+	 * in JavaBeans style through cached accessor handles and skipping type
+	 * conversion where the value already matches the property type.
+	 * @param target the target object to wrap
+	 * @return the property accessor
+	 * @since 3.2.9
+	 * @see FastBeanWrapperImpl
+	 */
+	public static BeanWrapper forFastBeanPropertyAccess(Object target) {
+		return new FastBeanWrapperImpl(target);
 	}
 
 	/**
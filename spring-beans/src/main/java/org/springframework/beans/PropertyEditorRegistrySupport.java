@@ -128,6 +128,16 @@ public class PropertyEditorRegistrySupport implements PropertyEditorRegistry {
 		}
 		return this.defaultEditors.get(requiredType);
 	}
+	// 返回指定类型的共享无状态默认转换器（该类型的默认编辑器没有被覆盖时），使用它就不必创建默认属性编辑器
+	DefaultValueConverter getDefaultValueConverter(Class<?> requiredType) {
+		if (!this.defaultEditorsActive || requiredType == null) {
+			return null;
+		}
+		if (this.overriddenDefaultEditors != null && this.overriddenDefaultEditors.containsKey(requiredType)) {
+			return null;
+		}
+		return DefaultValueConverter.forType(requiredType);
+	}
 	// 创建一个默认的属性编辑器
 	private void createDefaultEditors() {
 		this.defaultEditors = new HashMap<Class<?>, PropertyEditor>(64);
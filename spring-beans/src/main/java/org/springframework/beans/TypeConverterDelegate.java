@@ -78,6 +78,7 @@ class TypeConverterDelegate {
 		PropertyEditor editor = this.propertyEditorRegistry.findCustomEditor(requiredType, propertyName);
 
 		ConversionFailedException firstAttemptEx = null;
+		boolean defaultConversion = false;
 
 		// No custom editor but custom ConversionService specified?
 		ConversionService conversionService = this.propertyEditorRegistry.getConversionService();
@@ -103,10 +104,19 @@ class TypeConverterDelegate {
 					convertedValue = StringUtils.commaDelimitedListToStringArray((String) convertedValue);
 				}
 			}
-			if (editor == null) {
-				editor = findDefaultEditor(requiredType);
+			// 常用类型优先使用共享的无状态转换器，不必为此创建（有状态的）默认属性编辑器
+			DefaultValueConverter defaultConverter = (editor == null ?
+					this.propertyEditorRegistry.getDefaultValueConverter(requiredType) : null);
+			if (defaultConverter != null && defaultConverter.canConvert(convertedValue)) {
+				convertedValue = defaultConverter.convert(convertedValue);
+				defaultConversion = true;
+			}
+			else {
+				if (editor == null) {
+					editor = findDefaultEditor(requiredType);
+				}
+				convertedValue = doConvertValue(oldValue, convertedValue, requiredType, editor);
 			}
-			convertedValue = doConvertValue(oldValue, convertedValue, requiredType, editor);
 		}
 
 		boolean standardConversion = false;
@@ -198,7 +208,8 @@ class TypeConverterDelegate {
 		}
 
 		if (firstAttemptEx != null) {
-			if (editor == null && !standardConversion && requiredType != null && !Object.class.equals(requiredType)) {
+			if (editor == null && !defaultConversion && !standardConversion &&
+					requiredType != null && !Object.class.equals(requiredType)) {
 				throw firstAttemptEx;
 			}
 			logger.debug("Original ConversionService attempt failed - ignored since " +
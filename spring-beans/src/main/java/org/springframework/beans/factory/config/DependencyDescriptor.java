@@ -40,6 +40,12 @@ import org.springframework.util.Assert;
 @SuppressWarnings("serial")
 public class DependencyDescriptor implements Serializable {
 
+	private static final int COLLECTION_ELEMENT_TYPE = 0;
+	private static final int MAP_KEY_TYPE = 1;
+	private static final int MAP_VALUE_TYPE = 2;
+	// 标记已解析但没有泛型类型信息
+	private static final Object NO_TYPE = new Object();
+
 	private transient MethodParameter methodParameter;
 	private transient Field field;
 	private Class<?> declaringClass;
@@ -51,6 +57,8 @@ public class DependencyDescriptor implements Serializable {
 	private final boolean eager;
 	private int nestingLevel = 1;
 	private transient Annotation[] fieldAnnotations;
+	// 字段的泛型集合元素类型/Map键值类型只取决于字段和嵌套级别，解析一次后缓存（描述符会在原型bean的每次注入时复用）
+	private transient Object[] fieldCollectionTypes;
 
 	// 构造器
 	public DependencyDescriptor(MethodParameter methodParameter, boolean required) {
@@ -100,6 +108,7 @@ public class DependencyDescriptor implements Serializable {
 	// 增加这个描述符的嵌套级别。
 	public void increaseNestingLevel() {
 		this.nestingLevel++;
+		this.fieldCollectionTypes = null;
 		if (this.methodParameter != null) {
 			this.methodParameter.increaseNestingLevel();
 		}
@@ -148,23 +157,43 @@ public class DependencyDescriptor implements Serializable {
 
 	// 返回封装的集合参数/字段的通用元素类型
 	public Class<?> getCollectionType() {
-		return (this.field != null ?
-				GenericCollectionTypeResolver.getCollectionFieldType(this.field, this.nestingLevel) :
+		return (this.field != null ? getFieldCollectionType(COLLECTION_ELEMENT_TYPE) :
 				GenericCollectionTypeResolver.getCollectionParameterType(this.methodParameter));
 	}
 
 	// 返回包装映射参数/字段的通用键类型
 	public Class<?> getMapKeyType() {
-		return (this.field != null ?
-				GenericCollectionTypeResolver.getMapKeyFieldType(this.field, this.nestingLevel) :
+		return (this.field != null ? getFieldCollectionType(MAP_KEY_TYPE) :
 				GenericCollectionTypeResolver.getMapKeyParameterType(this.methodParameter));
 	}
 	// 返回包装映射参数/字段的通用值类型
 	public Class<?> getMapValueType() {
-		return (this.field != null ?
-				GenericCollectionTypeResolver.getMapValueFieldType(this.field, this.nestingLevel) :
+		return (this.field != null ? getFieldCollectionType(MAP_VALUE_TYPE) :
 				GenericCollectionTypeResolver.getMapValueParameterType(this.methodParameter));
 	}
+	// 解析（并缓存）字段的泛型集合元素类型、Map键类型或Map值类型
+	private Class<?> getFieldCollectionType(int kind) {
+		Object[] types = this.fieldCollectionTypes;
+		if (types == null) {
+			types = new Object[3];
+			this.fieldCollectionTypes = types;
+		}
+		Object type = types[kind];
+		if (type == null) {
+			switch (kind) {
+				case COLLECTION_ELEMENT_TYPE:
+					type = GenericCollectionTypeResolver.getCollectionFieldType(this.field, this.nestingLevel);
+					break;
+				case MAP_KEY_TYPE:
+					type = GenericCollectionTypeResolver.getMapKeyFieldType(this.field, this.nestingLevel);
+					break;
+				default:
+					type = GenericCollectionTypeResolver.getMapValueFieldType(this.field, this.nestingLevel);
+			}
+			types[kind] = (type != null ? type : NO_TYPE);
+		}
+		return (type != NO_TYPE ? (Class<?>) type : null);
+	}
 
 	// 获取与包装参数/字段相关的注解
 	public Annotation[] getAnnotations() {
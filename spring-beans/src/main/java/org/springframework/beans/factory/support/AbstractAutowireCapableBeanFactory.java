@@ -41,6 +41,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.FastBeanWrapperImpl;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.MutablePropertyValues;
 import org.springframework.beans.PropertyAccessorUtils;
@@ -131,6 +132,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	private final Map<String, BeanWrapper> factoryBeanInstanceCache = new ConcurrentHashMap<String, BeanWrapper>(16);
 	//** Cache of filtered PropertyDescriptors: bean Class -> PropertyDescriptor array */
 	private final Map<Class<?>, PropertyDescriptor[]> filteredPropertyDescriptorsCache = new ConcurrentHashMap<Class<?>, PropertyDescriptor[]>(64);
+	// 记录bean创建各阶段耗时的启动时间线，为null表示不记录
+	private volatile StartupTimeline startupTimeline;
 
 	// 构造器
 	public AbstractAutowireCapableBeanFactory() {
@@ -292,6 +295,21 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	// ------------------------- 实例化Bean的实现，真正的实现方法请看doCreateBean()方法 ------------------------------------------------------------
 	@Override
 	protected Object createBean(final String beanName, final RootBeanDefinition mbd, final Object[] args) throws BeanCreationException {
+		StartupTimeline timeline = this.startupTimeline;
+		if (timeline == null) {
+			return resolveAndCreateBean(beanName, mbd, args, null);
+		}
+		// 记录这个bean的创建过程，由当前线程上正在创建的bean触发（如果有的话）
+		StartupTimeline.BeanCreation creation = timeline.startBeanCreation(beanName);
+		try {
+			return resolveAndCreateBean(beanName, mbd, args, creation);
+		}
+		finally {
+			creation.finish();
+		}
+	}
+	private Object resolveAndCreateBean(String beanName, RootBeanDefinition mbd, Object[] args,
+			StartupTimeline.BeanCreation creation) throws BeanCreationException {
 		//////////////////////步骤一：根据设置的class属性或者根据className来解析Class
 		if (logger.isDebugEnabled()) {
 			logger.debug("Creating instance of bean '" + beanName + "'");
@@ -313,6 +331,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		try {
 			// 给 BeanPostProcessors 一个机会来返回代理来替代真正的实例，如果bean配置了PostProcessor，那么这里返回的是一个proxy
 			Object bean = resolveBeforeInstantiation(beanName, mbd);
+			if (creation != null) {
+				creation.markPostProcessed();
+			}
 			if (bean != null) {
 				return bean;
 			}
@@ -332,6 +353,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	}
 	// 进行常规bean的创建
 	protected Object doCreateBean(final String beanName, final RootBeanDefinition mbd, final Object[] args) {
+		StartupTimeline.BeanCreation creation = getCurrentBeanCreation(beanName);
 
 		//////////////////////步骤一：如果单例则需要首先清除缓存
 		BeanWrapper instanceWrapper = null;
@@ -348,6 +370,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		}
 		final Object bean = (instanceWrapper != null ? instanceWrapper.getWrappedInstance() : null);
 		Class<?> beanType = (instanceWrapper != null ? instanceWrapper.getWrappedClass() : null);
+		if (creation != null) {
+			creation.markInstantiated(beanType);
+		}
 
 
 		//////////////////////步骤三：MergedBeanDefinitionPostProcessor 的应用
@@ -359,6 +384,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 				mbd.postProcessed = true;
 			}
 		}
+		if (creation != null) {
+			creation.markPostProcessed();
+		}
 
 
 		//////////////////////步骤四：依赖处理，代码理解详见《Spring源码深度解析》113页
@@ -387,6 +415,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		try {
 			//对bean进行填充，将各个属性值注入，其中，可能存在依赖于其他bean的属性，则会递归初始化依赖bean
 			populateBean(beanName, mbd, instanceWrapper);
+			if (creation != null) {
+				creation.markPopulated();
+			}
 			if (exposedObject != null) {
 				//调用初始化方法，比如init-method
 				exposedObject = initializeBean(beanName, exposedObject, mbd);
@@ -533,7 +564,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			else {
 				beanInstance = getInstantiationStrategy().instantiate(mbd, beanName, parent);
 			}
-			BeanWrapper bw = new BeanWrapperImpl(beanInstance);
+			BeanWrapperImpl bw = newBeanWrapper(mbd);
+			bw.setWrappedInstance(beanInstance);
 			initBeanWrapper(bw);
 			return bw;
 		}
@@ -541,6 +573,12 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			throw new BeanCreationException(mbd.getResourceDescription(), beanName, "Instantiation of bean failed", ex);
 		}
 	}
+
+	// 为要创建的bean实例准备一个（尚未包装实例的）BeanWrapper：非单例bean（prototype、request等作用域）会被反复创建，
+	// 因此使用FastBeanWrapperImpl，已经解析、转换好的属性值会直接通过缓存的（CGLIB FastClass生成的）setter调用注入
+	protected BeanWrapperImpl newBeanWrapper(RootBeanDefinition mbd) {
+		return (mbd.isSingleton() ? new BeanWrapperImpl() : new FastBeanWrapperImpl());
+	}
 	//---------------------------------------------- Spring 构造BeanWrapper时使用以上三种方式的一种--------------------------------------------
 
 
@@ -769,7 +807,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 * that we couldn't obtain a shortcut FactoryBean instance
 	 */
 	private FactoryBean<?> getSingletonFactoryBeanForTypeCheck(String beanName, RootBeanDefinition mbd) {
-		synchronized (getSingletonMutex()) {
+		// Don't wait for (or interfere with) a creation of this bean in another thread.
+		if (!lockSingletonCreation(beanName, false)) {
+			return null;
+		}
+		try {
 			BeanWrapper bw = this.factoryBeanInstanceCache.get(beanName);
 			if (bw != null) {
 				return (FactoryBean<?>) bw.getWrappedInstance();
@@ -798,6 +840,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			}
 			return fb;
 		}
+		finally {
+			unlockSingletonCreation(beanName);
+		}
 	}
 
 	/**
@@ -1300,6 +1345,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	// 初始化这个bean实例，如果Spring配置文件中Bean有配置init-method属性，则该方法会被调用，并在populateBean方法后被调用
 	// 执行相应的工厂回调，初始化方法和后处理器：
 	protected Object initializeBean(final String beanName, final Object bean, RootBeanDefinition mbd) {
+		// 外部bean的初始化（没有RootBeanDefinition）不属于任何一次bean创建
+		StartupTimeline.BeanCreation creation = (mbd != null ? getCurrentBeanCreation(beanName) : null);
 		if (System.getSecurityManager() != null) {
 			AccessController.doPrivileged(new PrivilegedAction<Object>() {
 				public Object run() {
@@ -1315,11 +1362,17 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			// 为这个bean执行相应的自动注入方法，比如自动生成beanName，bean实例化的类加载器，工厂容器的注入
 			invokeAwareMethods(beanName, bean);
 		}
+		if (creation != null) {
+			creation.markInitialized();
+		}
 
 		Object wrappedBean = bean;
 		if (mbd == null || !mbd.isSynthetic()) {
 			// 应用后处理器（Bean 调用构造函数，实例化之前执行后处理器方法）
 			wrappedBean = applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName);
+			if (creation != null) {
+				creation.markPostProcessed();
+			}
 		}
 
 		try {
@@ -1331,13 +1384,28 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					(mbd != null ? mbd.getResourceDescription() : null),
 					beanName, "Invocation of init method failed", ex);
 		}
+		if (creation != null) {
+			creation.markInitialized();
+		}
 
 		if (mbd == null || !mbd.isSynthetic()) {
 			// 应用后处理器（Bean 调用构造函数，实例化之后执行后处理器方法）
 			wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+			if (creation != null) {
+				creation.markPostProcessed();
+			}
 		}
 		return wrappedBean;
 	}
+	// 返回当前线程上正在记录的指定bean的创建过程，没有启动时间线时返回null
+	private StartupTimeline.BeanCreation getCurrentBeanCreation(String beanName) {
+		StartupTimeline timeline = this.startupTimeline;
+		if (timeline == null) {
+			return null;
+		}
+		StartupTimeline.BeanCreation creation = timeline.getCurrentBeanCreation();
+		return (creation != null && creation.getBeanName().equals(beanName) ? creation : null);
+	}
 
 	// 为这个bean执行相应的自动注入方法，比如自动生成beanName，bean实例化的类加载器，工厂容器的注入
 	private void invokeAwareMethods(final String beanName, final Object bean) {
@@ -1498,6 +1566,20 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	public void setAllowRawInjectionDespiteWrapping(boolean allowRawInjectionDespiteWrapping) {
 		this.allowRawInjectionDespiteWrapping = allowRawInjectionDespiteWrapping;
 	}
+	/**
+	 * Set a {@link StartupTimeline} to record the creation of bean instances in:
+	 * the time spent instantiating, populating, initializing and post-processing
+	 * each bean, as well as the bean creations that triggered it.
+	 * <p>Default is none, not recording anything. May be changed at any time,
+	 * e.g. reset to {@code null} once a context has been refreshed.
+	 * @since 3.2.9
+	 */
+	public void setStartupTimeline(StartupTimeline startupTimeline) {
+		this.startupTimeline = startupTimeline;
+	}
+	public StartupTimeline getStartupTimeline() {
+		return this.startupTimeline;
+	}
 
 	/**
 	 * Special DependencyDescriptor variant for Spring's good old autowire="byType" mode.
@@ -0,0 +1,886 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.BeanMetadataAttributeAccessor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Compact binary snapshot of the bean definitions (and aliases) held by a
+ * {@link BeanDefinitionRegistry}, tagged with a fingerprint of the configuration
+ * that they have been derived from. Allows an application context to skip XML
+ * parsing and registry post-processing on subsequent starts as long as the
+ * fingerprint remains the same and none of the resources that the definitions
+ * have been loaded from (see {@link AbstractBeanDefinition#getResource()})
+ * has been modified since.
+ *
+ * <p>The snapshot uses its own gzipped binary format rather than Java
+ * serialization: definitions are written property by property and restored as
+ * plain {@link RootBeanDefinition}, {@link GenericBeanDefinition} or
+ * {@link ChildBeanDefinition} instances. Supported values are the ones produced
+ * by the standard readers - Strings, {@link TypedStringValue}, bean references,
+ * inner beans, managed collections, primitive wrappers, enums and classes.
+ * Definition sources are not retained.
+ *
+ * <p>{@link AnnotatedBeanDefinition}s that are {@link GenericBeanDefinition}s
+ * with a public constructor taking a {@link MetadataReader} or an
+ * {@link AnnotationMetadata} (such as scanned components and
+ * {@link org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition})
+ * are written with the name of their class, and their annotation metadata is
+ * read from the class file again (through a {@link MetadataReaderFactory}) when
+ * they are restored. Besides the class file itself, its directory is checked
+ * for modifications, so that classes added to or removed from the package of
+ * a scanned component make the snapshot out of date; classes added to
+ * packages without any component so far are not noticed.
+ *
+ * <p>Anything else - including other bean definition subclasses, e.g. those of
+ * {@code @Bean} methods - makes {@link #write} fail with a
+ * {@link NotSerializableException}, in which case no snapshot should be used
+ * for the given configuration at all.
+ *
+ * @since 3.2.9
+ */
+public class BeanDefinitionSnapshot {
+
+	private static final int MAGIC = 0x53424453;
+
+	// 格式有变化时递增，旧快照会被当作不匹配
+	private static final int FORMAT_VERSION = 3;
+
+	private static final byte KIND_ROOT = 1;
+
+	private static final byte KIND_GENERIC = 2;
+
+	private static final byte KIND_CHILD = 3;
+
+	private static final byte KIND_ANNOTATED = 4;
+
+	private static final byte NULL = 0;
+
+	private static final byte STRING = 1;
+
+	private static final byte TYPED_STRING = 2;
+
+	private static final byte BEAN_REFERENCE = 3;
+
+	private static final byte BEAN_NAME_REFERENCE = 4;
+
+	private static final byte BEAN_DEFINITION_HOLDER = 5;
+
+	private static final byte BEAN_DEFINITION = 6;
+
+	private static final byte MANAGED_LIST = 7;
+
+	private static final byte MANAGED_ARRAY = 8;
+
+	private static final byte MANAGED_SET = 9;
+
+	private static final byte MANAGED_MAP = 10;
+
+	private static final byte MANAGED_PROPERTIES = 11;
+
+	private static final byte BOOLEAN = 12;
+
+	private static final byte INTEGER = 13;
+
+	private static final byte LONG = 14;
+
+	private static final byte CLASS = 15;
+
+	private static final byte ENUM = 16;
+
+	private static final int NULL_STRING = -1;
+
+	private static final int NEW_STRING = -2;
+
+
+	private final String fingerprint;
+
+
+	/**
+	 * Create a new BeanDefinitionSnapshot for the given configuration fingerprint.
+	 * @param fingerprint a digest of everything that the bean definitions have
+	 * been derived from (configuration resources, classpath, active profiles...)
+	 */
+	public BeanDefinitionSnapshot(String fingerprint) {
+		Assert.hasText(fingerprint, "Fingerprint must not be empty");
+		this.fingerprint = fingerprint;
+	}
+
+
+	/**
+	 * Return the configuration fingerprint of this snapshot.
+	 */
+	public String getFingerprint() {
+		return this.fingerprint;
+	}
+
+	/**
+	 * Write all bean definitions and aliases of the given registry to the given
+	 * stream, in registration order. The stream is not closed.
+	 * @throws NotSerializableException if a bean definition contains
+	 * a value that cannot be represented in a snapshot
+	 * @throws IOException in case of I/O errors
+	 */
+	public void write(BeanDefinitionRegistry registry, OutputStream out) throws IOException {
+		GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(out));
+		SnapshotWriter writer = new SnapshotWriter(new DataOutputStream(gzip));
+		writer.out.writeInt(MAGIC);
+		writer.out.writeInt(FORMAT_VERSION);
+		writer.out.writeUTF(this.fingerprint);
+		String[] beanNames = registry.getBeanDefinitionNames();
+		// 记录BeanDefinition的来源资源（例如XML文件），读取时逐个检查是否被修改过
+		Map<String, Resource> sources = new LinkedHashMap<String, Resource>();
+		for (String beanName : beanNames) {
+			BeanDefinition bd = registry.getBeanDefinition(beanName);
+			Resource resource = (bd instanceof AbstractBeanDefinition ? ((AbstractBeanDefinition) bd).getResource() : null);
+			if (resource != null) {
+				addSource(sources, resource);
+				if (bd instanceof AnnotatedBeanDefinition) {
+					// 类文件所在的目录：包中增加或删除类时目录的修改时间会变化
+					Resource directory = getDirectory(resource);
+					if (directory != null) {
+						addSource(sources, directory);
+					}
+				}
+			}
+		}
+		writer.out.writeInt(sources.size());
+		for (Map.Entry<String, Resource> entry : sources.entrySet()) {
+			writer.out.writeUTF(entry.getKey());
+			writer.out.writeLong(entry.getValue().lastModified());
+			writer.out.writeLong(entry.getValue().contentLength());
+		}
+		writer.out.writeInt(beanNames.length);
+		for (String beanName : beanNames) {
+			writer.writeString(beanName);
+			writer.writeBeanDefinition(registry.getBeanDefinition(beanName));
+		}
+		for (String beanName : beanNames) {
+			String[] aliases = registry.getAliases(beanName);
+			writer.out.writeInt(aliases.length);
+			for (String alias : aliases) {
+				writer.writeString(alias);
+			}
+		}
+		writer.out.flush();
+		gzip.finish();
+		gzip.flush();
+	}
+
+	/**
+	 * Register the bean definitions and aliases from the given snapshot stream
+	 * with the given registry - provided that the stream has been written with
+	 * the same fingerprint and that the source resources of the definitions
+	 * have not been modified since. Nothing is registered if this method returns
+	 * {@code false} or throws an exception. The stream is not closed.
+	 * @param in the stream to read the snapshot from
+	 * @param registry the registry to populate
+	 * @param classLoader the ClassLoader to resolve class values with
+	 * @return {@code true} if the definitions have been registered,
+	 * {@code false} if the snapshot belongs to a different configuration
+	 * or is out of date
+	 * @throws IOException in case of I/O errors or a corrupt snapshot
+	 */
+	public boolean read(InputStream in, BeanDefinitionRegistry registry, ClassLoader classLoader) throws IOException {
+		SnapshotReader reader = new SnapshotReader(
+				new DataInputStream(new GZIPInputStream(new BufferedInputStream(in))), classLoader);
+		if (reader.in.readInt() != MAGIC || reader.in.readInt() != FORMAT_VERSION ||
+				!this.fingerprint.equals(reader.in.readUTF())) {
+			return false;
+		}
+		int sourceCount = reader.in.readInt();
+		for (int i = 0; i < sourceCount; i++) {
+			if (!isUnmodified(reader.in.readUTF(), reader.in.readLong(), reader.in.readLong())) {
+				return false;
+			}
+		}
+		// 先完整解码再注册：快照损坏时注册表保持不变
+		int count = reader.in.readInt();
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>(count);
+		for (int i = 0; i < count; i++) {
+			String beanName = reader.readString();
+			beanDefinitions.put(beanName, reader.readBeanDefinition());
+		}
+		Map<String, String> aliases = new LinkedHashMap<String, String>();
+		for (String beanName : beanDefinitions.keySet()) {
+			int aliasCount = reader.in.readInt();
+			for (int i = 0; i < aliasCount; i++) {
+				aliases.put(reader.readString(), beanName);
+			}
+		}
+		for (Map.Entry<String, BeanDefinition> entry : beanDefinitions.entrySet()) {
+			registry.registerBeanDefinition(entry.getKey(), entry.getValue());
+		}
+		for (Map.Entry<String, String> entry : aliases.entrySet()) {
+			registry.registerAlias(entry.getValue(), entry.getKey());
+		}
+		return true;
+	}
+
+	private static void addSource(Map<String, Resource> sources, Resource resource) throws IOException {
+		try {
+			sources.put(resource.getURL().toExternalForm(), resource);
+		}
+		catch (IOException ex) {
+			throw new NotSerializableException("Bean definition source not locatable: " + resource.getDescription());
+		}
+	}
+
+	private static Resource getDirectory(Resource resource) {
+		try {
+			File directory = resource.getFile().getParentFile();
+			return (directory != null ? new FileSystemResource(directory) : null);
+		}
+		catch (IOException ex) {
+			// 不在文件系统中（例如jar包中的类），jar包本身的修改由资源URL覆盖
+			return null;
+		}
+	}
+
+	/**
+	 * Return the public constructor through which an annotated bean definition
+	 * of the given class can be rebuilt from a {@link MetadataReader} or an
+	 * {@link AnnotationMetadata}, or {@code null} if there is none.
+	 */
+	private static Constructor<?> getAnnotatedDefinitionConstructor(Class<?> bdClass) {
+		if (!GenericBeanDefinition.class.isAssignableFrom(bdClass) ||
+				!AnnotatedBeanDefinition.class.isAssignableFrom(bdClass)) {
+			return null;
+		}
+		Constructor<?> ctor = ClassUtils.getConstructorIfAvailable(bdClass, MetadataReader.class);
+		return (ctor != null ? ctor : ClassUtils.getConstructorIfAvailable(bdClass, AnnotationMetadata.class));
+	}
+
+	private static boolean isUnmodified(String url, long lastModified, long contentLength) {
+		try {
+			Resource resource = new UrlResource(url);
+			return (resource.lastModified() == lastModified && resource.contentLength() == contentLength);
+		}
+		catch (IOException ex) {
+			// 来源资源已不存在或者无法访问
+			return false;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "BeanDefinitionSnapshot [" + this.fingerprint + "]";
+	}
+
+
+	/**
+	 * Encodes bean definitions and their values; repeated strings
+	 * (class names, bean names...) are written only once.
+	 */
+	private static class SnapshotWriter {
+
+		private final DataOutputStream out;
+
+		private final Map<String, Integer> strings = new HashMap<String, Integer>(256);
+
+		public SnapshotWriter(DataOutputStream out) {
+			this.out = out;
+		}
+
+		public void writeBeanDefinition(BeanDefinition bd) throws IOException {
+			Class<?> bdClass = bd.getClass();
+			if (bd instanceof AnnotatedBeanDefinition) {
+				if (getAnnotatedDefinitionConstructor(bdClass) == null) {
+					// 无法由类的元数据重建（例如@Bean方法的BeanDefinition），这样的配置不使用快照
+					throw new NotSerializableException("Annotated bean definition not supported: " + bdClass.getName());
+				}
+				// 只记录类名，注解元数据在读取时重新从类文件中解析
+				this.out.writeByte(KIND_ANNOTATED);
+				writeString(bdClass.getName());
+				writeString(((AnnotatedBeanDefinition) bd).getMetadata().getClassName());
+				writeString(bd.getParentName());
+				writeAbstractBeanDefinition((AbstractBeanDefinition) bd);
+			}
+			else if (bdClass == RootBeanDefinition.class) {
+				RootBeanDefinition rbd = (RootBeanDefinition) bd;
+				this.out.writeByte(KIND_ROOT);
+				writeAbstractBeanDefinition(rbd);
+				this.out.writeBoolean(rbd.allowCaching);
+				this.out.writeBoolean(rbd.isFactoryMethodUnique);
+				writeString(rbd.getTargetType() != null ? rbd.getTargetType().getName() : null);
+				BeanDefinitionHolder decorated = rbd.getDecoratedDefinition();
+				writeValue(decorated);
+			}
+			else if (bdClass == GenericBeanDefinition.class) {
+				this.out.writeByte(KIND_GENERIC);
+				writeString(bd.getParentName());
+				writeAbstractBeanDefinition((AbstractBeanDefinition) bd);
+			}
+			else if (bdClass == ChildBeanDefinition.class) {
+				this.out.writeByte(KIND_CHILD);
+				writeString(bd.getParentName());
+				writeAbstractBeanDefinition((AbstractBeanDefinition) bd);
+			}
+			else {
+				throw new NotSerializableException("Unsupported bean definition type: " + bdClass.getName());
+			}
+		}
+
+		private void writeAbstractBeanDefinition(AbstractBeanDefinition bd) throws IOException {
+			writeString(bd.getBeanClassName());
+			writeString(bd.getScope());
+			this.out.writeBoolean(bd.isAbstract());
+			this.out.writeBoolean(bd.isLazyInit());
+			this.out.writeInt(bd.getAutowireMode());
+			this.out.writeInt(bd.getDependencyCheck());
+			writeStrings(bd.getDependsOn());
+			this.out.writeBoolean(bd.isAutowireCandidate());
+			this.out.writeBoolean(bd.isPrimary());
+			this.out.writeInt(bd.getQualifiers().size());
+			for (AutowireCandidateQualifier qualifier : bd.getQualifiers()) {
+				writeString(qualifier.getTypeName());
+				writeAttributes(qualifier);
+			}
+			this.out.writeBoolean(bd.isNonPublicAccessAllowed());
+			this.out.writeBoolean(bd.isLenientConstructorResolution());
+			writeConstructorArgumentValues(bd.getConstructorArgumentValues());
+			this.out.writeInt(bd.getPropertyValues().size());
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValueList()) {
+				writeString(pv.getName());
+				writeValue(pv.getValue());
+				this.out.writeBoolean(pv.isOptional());
+			}
+			this.out.writeInt(bd.getMethodOverrides().getOverrides().size());
+			for (MethodOverride override : bd.getMethodOverrides().getOverrides()) {
+				if (override instanceof LookupOverride) {
+					this.out.writeBoolean(true);
+					writeString(override.getMethodName());
+					writeString(((LookupOverride) override).getBeanName());
+				}
+				else if (override instanceof ReplaceOverride) {
+					this.out.writeBoolean(false);
+					writeString(override.getMethodName());
+					writeString(((ReplaceOverride) override).getMethodReplacerBeanName());
+					List<String> typeIdentifiers = ((ReplaceOverride) override).getTypeIdentifiers();
+					writeStrings(typeIdentifiers.toArray(new String[typeIdentifiers.size()]));
+				}
+				else {
+					throw new NotSerializableException("Unsupported method override: " + override.getClass().getName());
+				}
+			}
+			writeString(bd.getFactoryBeanName());
+			writeString(bd.getFactoryMethodName());
+			writeString(bd.getInitMethodName());
+			this.out.writeBoolean(bd.isEnforceInitMethod());
+			writeString(bd.getDestroyMethodName());
+			this.out.writeBoolean(bd.isEnforceDestroyMethod());
+			this.out.writeBoolean(bd.isSynthetic());
+			this.out.writeInt(bd.getRole());
+			writeString(bd.getDescription());
+			writeString(bd.getResourceDescription());
+			writeAttributes(bd);
+		}
+
+		private void writeConstructorArgumentValues(ConstructorArgumentValues cargs) throws IOException {
+			this.out.writeInt(cargs.getIndexedArgumentValues().size());
+			for (Map.Entry<Integer, ConstructorArgumentValues.ValueHolder> entry : cargs.getIndexedArgumentValues().entrySet()) {
+				this.out.writeInt(entry.getKey());
+				writeValueHolder(entry.getValue());
+			}
+			this.out.writeInt(cargs.getGenericArgumentValues().size());
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+				writeValueHolder(valueHolder);
+			}
+		}
+
+		private void writeValueHolder(ConstructorArgumentValues.ValueHolder valueHolder) throws IOException {
+			writeValue(valueHolder.getValue());
+			writeString(valueHolder.getType());
+			writeString(valueHolder.getName());
+		}
+
+		private void writeAttributes(BeanMetadataAttributeAccessor accessor) throws IOException {
+			String[] names = accessor.attributeNames();
+			this.out.writeInt(names.length);
+			for (String name : names) {
+				writeString(name);
+				writeValue(accessor.getAttribute(name));
+			}
+		}
+
+		@SuppressWarnings("rawtypes")
+		public void writeValue(Object value) throws IOException {
+			if (value == null) {
+				this.out.writeByte(NULL);
+			}
+			else if (value instanceof String) {
+				this.out.writeByte(STRING);
+				writeString((String) value);
+			}
+			else if (value instanceof TypedStringValue) {
+				TypedStringValue typedValue = (TypedStringValue) value;
+				this.out.writeByte(TYPED_STRING);
+				writeString(typedValue.getValue());
+				writeString(typedValue.hasTargetType() ?
+						typedValue.getTargetType().getName() : typedValue.getTargetTypeName());
+				writeString(typedValue.getSpecifiedTypeName());
+				this.out.writeBoolean(typedValue.isDynamic());
+			}
+			else if (value instanceof RuntimeBeanReference) {
+				this.out.writeByte(BEAN_REFERENCE);
+				writeString(((RuntimeBeanReference) value).getBeanName());
+				this.out.writeBoolean(((RuntimeBeanReference) value).isToParent());
+			}
+			else if (value instanceof RuntimeBeanNameReference) {
+				this.out.writeByte(BEAN_NAME_REFERENCE);
+				writeString(((RuntimeBeanNameReference) value).getBeanName());
+			}
+			else if (value instanceof BeanDefinitionHolder) {
+				BeanDefinitionHolder holder = (BeanDefinitionHolder) value;
+				this.out.writeByte(BEAN_DEFINITION_HOLDER);
+				writeString(holder.getBeanName());
+				writeStrings(holder.getAliases());
+				writeBeanDefinition(holder.getBeanDefinition());
+			}
+			else if (value instanceof BeanDefinition) {
+				this.out.writeByte(BEAN_DEFINITION);
+				writeBeanDefinition((BeanDefinition) value);
+			}
+			else if (value instanceof ManagedArray) {
+				ManagedArray array = (ManagedArray) value;
+				this.out.writeByte(MANAGED_ARRAY);
+				writeString(array.getElementTypeName());
+				this.out.writeBoolean(array.isMergeEnabled());
+				writeElements(array);
+			}
+			else if (value instanceof ManagedList) {
+				ManagedList list = (ManagedList) value;
+				this.out.writeByte(MANAGED_LIST);
+				writeString(list.getElementTypeName());
+				this.out.writeBoolean(list.isMergeEnabled());
+				writeElements(list);
+			}
+			else if (value instanceof ManagedSet) {
+				ManagedSet set = (ManagedSet) value;
+				this.out.writeByte(MANAGED_SET);
+				writeString(set.getElementTypeName());
+				this.out.writeBoolean(set.isMergeEnabled());
+				writeElements(set);
+			}
+			else if (value instanceof ManagedMap) {
+				ManagedMap<?, ?> map = (ManagedMap) value;
+				this.out.writeByte(MANAGED_MAP);
+				writeString(map.getKeyTypeName());
+				writeString(map.getValueTypeName());
+				this.out.writeBoolean(map.isMergeEnabled());
+				writeEntries(map);
+			}
+			else if (value instanceof ManagedProperties) {
+				ManagedProperties props = (ManagedProperties) value;
+				this.out.writeByte(MANAGED_PROPERTIES);
+				this.out.writeBoolean(props.isMergeEnabled());
+				writeEntries(props);
+			}
+			else if (value instanceof Boolean) {
+				this.out.writeByte(BOOLEAN);
+				this.out.writeBoolean((Boolean) value);
+			}
+			else if (value instanceof Integer) {
+				this.out.writeByte(INTEGER);
+				this.out.writeInt((Integer) value);
+			}
+			else if (value instanceof Long) {
+				this.out.writeByte(LONG);
+				this.out.writeLong((Long) value);
+			}
+			else if (value instanceof Class) {
+				this.out.writeByte(CLASS);
+				writeString(((Class) value).getName());
+			}
+			else if (value instanceof Enum) {
+				this.out.writeByte(ENUM);
+				writeString(((Enum) value).getDeclaringClass().getName());
+				writeString(((Enum) value).name());
+			}
+			else {
+				throw new NotSerializableException("Unsupported bean definition value type: " + value.getClass().getName());
+			}
+		}
+
+		private void writeElements(Collection<?> elements) throws IOException {
+			this.out.writeInt(elements.size());
+			for (Object element : elements) {
+				writeValue(element);
+			}
+		}
+
+		private void writeEntries(Map<?, ?> map) throws IOException {
+			this.out.writeInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeValue(entry.getKey());
+				writeValue(entry.getValue());
+			}
+		}
+
+		private void writeStrings(String[] values) throws IOException {
+			if (values == null) {
+				this.out.writeInt(-1);
+				return;
+			}
+			this.out.writeInt(values.length);
+			for (String value : values) {
+				writeString(value);
+			}
+		}
+
+		public void writeString(String value) throws IOException {
+			if (value == null) {
+				this.out.writeInt(NULL_STRING);
+				return;
+			}
+			Integer index = this.strings.get(value);
+			if (index != null) {
+				this.out.writeInt(index);
+				return;
+			}
+			this.strings.put(value, this.strings.size());
+			// writeUTF最多只能写64K：长字符串（例如内联脚本）按字节数组写出
+			byte[] bytes = value.getBytes("UTF-8");
+			this.out.writeInt(NEW_STRING);
+			this.out.writeInt(bytes.length);
+			this.out.write(bytes);
+		}
+	}
+
+
+	/**
+	 * Decodes what {@link SnapshotWriter} has written.
+	 */
+	private static class SnapshotReader {
+
+		private final DataInputStream in;
+
+		private final ClassLoader classLoader;
+
+		private final List<String> strings = new ArrayList<String>(256);
+
+		private MetadataReaderFactory metadataReaderFactory;
+
+		public SnapshotReader(DataInputStream in, ClassLoader classLoader) {
+			this.in = in;
+			this.classLoader = classLoader;
+		}
+
+		public BeanDefinition readBeanDefinition() throws IOException {
+			byte kind = this.in.readByte();
+			switch (kind) {
+				case KIND_ROOT:
+					RootBeanDefinition rbd = new RootBeanDefinition();
+					readAbstractBeanDefinition(rbd);
+					rbd.allowCaching = this.in.readBoolean();
+					rbd.isFactoryMethodUnique = this.in.readBoolean();
+					String targetType = readString();
+					if (targetType != null) {
+						rbd.setTargetType(resolveClass(targetType));
+					}
+					rbd.setDecoratedDefinition((BeanDefinitionHolder) readValue());
+					return rbd;
+				case KIND_GENERIC:
+					GenericBeanDefinition gbd = new GenericBeanDefinition();
+					gbd.setParentName(readString());
+					readAbstractBeanDefinition(gbd);
+					return gbd;
+				case KIND_CHILD:
+					ChildBeanDefinition cbd = new ChildBeanDefinition(readString());
+					readAbstractBeanDefinition(cbd);
+					return cbd;
+				case KIND_ANNOTATED:
+					Class<?> bdClass = resolveClass(readString());
+					GenericBeanDefinition abd = createAnnotatedBeanDefinition(bdClass, readString());
+					abd.setParentName(readString());
+					readAbstractBeanDefinition(abd);
+					return abd;
+				default:
+					throw new IOException("Corrupt bean definition snapshot: unknown definition kind " + kind);
+			}
+		}
+
+		private void readAbstractBeanDefinition(AbstractBeanDefinition bd) throws IOException {
+			bd.setBeanClassName(readString());
+			bd.setScope(readString());
+			bd.setAbstract(this.in.readBoolean());
+			bd.setLazyInit(this.in.readBoolean());
+			bd.setAutowireMode(this.in.readInt());
+			bd.setDependencyCheck(this.in.readInt());
+			bd.setDependsOn(readStrings());
+			bd.setAutowireCandidate(this.in.readBoolean());
+			bd.setPrimary(this.in.readBoolean());
+			int qualifierCount = this.in.readInt();
+			for (int i = 0; i < qualifierCount; i++) {
+				AutowireCandidateQualifier qualifier = new AutowireCandidateQualifier(readString());
+				readAttributes(qualifier);
+				bd.addQualifier(qualifier);
+			}
+			bd.setNonPublicAccessAllowed(this.in.readBoolean());
+			bd.setLenientConstructorResolution(this.in.readBoolean());
+			readConstructorArgumentValues(bd.getConstructorArgumentValues());
+			int pvCount = this.in.readInt();
+			MutablePropertyValues pvs = bd.getPropertyValues();
+			for (int i = 0; i < pvCount; i++) {
+				PropertyValue pv = new PropertyValue(readString(), readValue());
+				pv.setOptional(this.in.readBoolean());
+				pvs.addPropertyValue(pv);
+			}
+			int overrideCount = this.in.readInt();
+			for (int i = 0; i < overrideCount; i++) {
+				if (this.in.readBoolean()) {
+					bd.getMethodOverrides().addOverride(new LookupOverride(readString(), readString()));
+				}
+				else {
+					ReplaceOverride override = new ReplaceOverride(readString(), readString());
+					for (String typeIdentifier : readStrings()) {
+						override.addTypeIdentifier(typeIdentifier);
+					}
+					bd.getMethodOverrides().addOverride(override);
+				}
+			}
+			bd.setFactoryBeanName(readString());
+			bd.setFactoryMethodName(readString());
+			bd.setInitMethodName(readString());
+			bd.setEnforceInitMethod(this.in.readBoolean());
+			bd.setDestroyMethodName(readString());
+			bd.setEnforceDestroyMethod(this.in.readBoolean());
+			bd.setSynthetic(this.in.readBoolean());
+			bd.setRole(this.in.readInt());
+			bd.setDescription(readString());
+			bd.setResourceDescription(readString());
+			readAttributes(bd);
+		}
+
+		private void readConstructorArgumentValues(ConstructorArgumentValues cargs) throws IOException {
+			int indexedCount = this.in.readInt();
+			for (int i = 0; i < indexedCount; i++) {
+				int index = this.in.readInt();
+				cargs.addIndexedArgumentValue(index, readValueHolder());
+			}
+			int genericCount = this.in.readInt();
+			for (int i = 0; i < genericCount; i++) {
+				cargs.addGenericArgumentValue(readValueHolder());
+			}
+		}
+
+		private ConstructorArgumentValues.ValueHolder readValueHolder() throws IOException {
+			return new ConstructorArgumentValues.ValueHolder(readValue(), readString(), readString());
+		}
+
+		private void readAttributes(BeanMetadataAttributeAccessor accessor) throws IOException {
+			int count = this.in.readInt();
+			for (int i = 0; i < count; i++) {
+				accessor.setAttribute(readString(), readValue());
+			}
+		}
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		public Object readValue() throws IOException {
+			byte type = this.in.readByte();
+			switch (type) {
+				case NULL:
+					return null;
+				case STRING:
+					return readString();
+				case TYPED_STRING:
+					TypedStringValue typedValue = new TypedStringValue(readString());
+					String targetTypeName = readString();
+					if (targetTypeName != null) {
+						typedValue.setTargetTypeName(targetTypeName);
+					}
+					typedValue.setSpecifiedTypeName(readString());
+					if (this.in.readBoolean()) {
+						typedValue.setDynamic();
+					}
+					return typedValue;
+				case BEAN_REFERENCE:
+					return new RuntimeBeanReference(readString(), this.in.readBoolean());
+				case BEAN_NAME_REFERENCE:
+					return new RuntimeBeanNameReference(readString());
+				case BEAN_DEFINITION_HOLDER:
+					String beanName = readString();
+					String[] aliases = readStrings();
+					return new BeanDefinitionHolder(readBeanDefinition(), beanName, aliases);
+				case BEAN_DEFINITION:
+					return readBeanDefinition();
+				case MANAGED_ARRAY:
+					String elementTypeName = readString();
+					boolean arrayMergeEnabled = this.in.readBoolean();
+					int size = this.in.readInt();
+					ManagedArray array = new ManagedArray(elementTypeName, size);
+					array.setMergeEnabled(arrayMergeEnabled);
+					readElements(array, size);
+					return array;
+				case MANAGED_LIST:
+					ManagedList list = new ManagedList();
+					list.setElementTypeName(readString());
+					list.setMergeEnabled(this.in.readBoolean());
+					readElements(list, this.in.readInt());
+					return list;
+				case MANAGED_SET:
+					ManagedSet set = new ManagedSet();
+					set.setElementTypeName(readString());
+					set.setMergeEnabled(this.in.readBoolean());
+					readElements(set, this.in.readInt());
+					return set;
+				case MANAGED_MAP:
+					ManagedMap map = new ManagedMap();
+					map.setKeyTypeName(readString());
+					map.setValueTypeName(readString());
+					map.setMergeEnabled(this.in.readBoolean());
+					readEntries(map);
+					return map;
+				case MANAGED_PROPERTIES:
+					ManagedProperties props = new ManagedProperties();
+					props.setMergeEnabled(this.in.readBoolean());
+					readEntries(props);
+					return props;
+				case BOOLEAN:
+					return this.in.readBoolean();
+				case INTEGER:
+					return this.in.readInt();
+				case LONG:
+					return this.in.readLong();
+				case CLASS:
+					return resolveClass(readString());
+				case ENUM:
+					Class enumType = resolveClass(readString());
+					return Enum.valueOf(enumType, readString());
+				default:
+					throw new IOException("Corrupt bean definition snapshot: unknown value type " + type);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void readElements(Collection collection, int size) throws IOException {
+			for (int i = 0; i < size; i++) {
+				collection.add(readValue());
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void readEntries(Map map) throws IOException {
+			int size = this.in.readInt();
+			for (int i = 0; i < size; i++) {
+				map.put(readValue(), readValue());
+			}
+		}
+
+		private String[] readStrings() throws IOException {
+			int length = this.in.readInt();
+			if (length < 0) {
+				return null;
+			}
+			String[] values = new String[length];
+			for (int i = 0; i < length; i++) {
+				values[i] = readString();
+			}
+			return values;
+		}
+
+		public String readString() throws IOException {
+			int index = this.in.readInt();
+			if (index == NULL_STRING) {
+				return null;
+			}
+			if (index == NEW_STRING) {
+				byte[] bytes = new byte[this.in.readInt()];
+				this.in.readFully(bytes);
+				String value = new String(bytes, "UTF-8");
+				this.strings.add(value);
+				return value;
+			}
+			if (index < 0 || index >= this.strings.size()) {
+				throw new IOException("Corrupt bean definition snapshot: invalid string reference " + index);
+			}
+			return this.strings.get(index);
+		}
+
+		private GenericBeanDefinition createAnnotatedBeanDefinition(Class<?> bdClass, String className) throws IOException {
+			Constructor<?> ctor = getAnnotatedDefinitionConstructor(bdClass);
+			if (ctor == null) {
+				throw new IOException("Corrupt bean definition snapshot: unsupported annotated bean definition type " +
+						bdClass.getName());
+			}
+			if (this.metadataReaderFactory == null) {
+				this.metadataReaderFactory = new SimpleMetadataReaderFactory(this.classLoader);
+			}
+			MetadataReader metadataReader = this.metadataReaderFactory.getMetadataReader(className);
+			try {
+				return (GenericBeanDefinition) BeanUtils.instantiateClass(ctor,
+						(ctor.getParameterTypes()[0] == MetadataReader.class ? metadataReader :
+								metadataReader.getAnnotationMetadata()));
+			}
+			catch (BeanInstantiationException ex) {
+				throw new IOException("Could not restore bean definition for class [" + className + "]", ex);
+			}
+		}
+
+		private Class<?> resolveClass(String className) throws IOException {
+			try {
+				return ClassUtils.forName(className, this.classLoader);
+			}
+			catch (ClassNotFoundException ex) {
+				throw new IOException("Class [" + className + "] referenced by bean definition snapshot not found", ex);
+			}
+			catch (LinkageError err) {
+				throw new IOException("Class [" + className + "] referenced by bean definition snapshot not loadable", err);
+			}
+		}
+	}
+
+}
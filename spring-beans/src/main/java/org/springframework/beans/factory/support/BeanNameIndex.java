@@ -0,0 +1,265 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.util.StringUtils;
+
+/**
+ * Incrementally maintained index of matching bean names per lookup key
+ * (a bean type or an annotation type), as used by {@link DefaultListableBeanFactory}
+ * for its by-type and by-annotation lookups.
+ *
+ * <p>Every entry is tagged with the registry version it reflects. Registrations
+ * and removals of bean definitions and manual singletons are recorded in a
+ * change log, so that an outdated entry only needs to check the beans that
+ * changed in the meantime - instead of matching every single bean again after
+ * each registration. Changes that may affect other beans as well (e.g. the
+ * overriding of a bean definition) clear the entire index, as does a change
+ * log that has grown beyond {@link #MAX_LOGGED_CHANGES} entries.
+ *
+ * <p>Each entry keeps bean definition matches and manual singleton matches
+ * apart, both in registration order, matching the order of a full scan.
+ *
+ * @since 3.2.9
+ * @see DefaultListableBeanFactory#getBeanNamesForType(Class, boolean, boolean)
+ * @see DefaultListableBeanFactory#getBeansWithAnnotation
+ */
+class BeanNameIndex {
+
+	/**
+	 * Maximum number of changes to keep track of: beyond that, rescanning all
+	 * beans once is cheaper than checking every changed bean for every key.
+	 */
+	static final int MAX_LOGGED_CHANGES = 1024;
+
+
+	private final Map<Object, Entry> entries = new ConcurrentHashMap<Object, Entry>(64);
+
+	// 最近的注册表变化，第i个元素对应版本号 changeLogBase + i + 1
+	private final List<Change> changeLog = new ArrayList<Change>();
+
+	private long changeLogBase;
+
+	private long version;
+
+
+	/**
+	 * Return the current registry version, to be passed to {@link #putEntry}
+	 * for an entry computed from here on.
+	 */
+	public synchronized long getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Return the entry for the given key, or {@code null} if none.
+	 * The entry may be outdated: see {@link #getChangesSince}.
+	 */
+	public Entry getEntry(Object key) {
+		return this.entries.get(key);
+	}
+
+	/**
+	 * Store the given entry, unless the index has been cleared since the
+	 * entry's version.
+	 */
+	public synchronized void putEntry(Object key, Entry entry) {
+		if (entry.version >= this.changeLogBase) {
+			this.entries.put(key, entry);
+		}
+	}
+
+	/**
+	 * Return the changes since the given version, in the order they happened.
+	 * @return the changes (empty if the given version is current), or {@code null}
+	 * if they are not known anymore and a full scan is required
+	 */
+	public synchronized List<Change> getChangesSince(long version) {
+		if (version < this.changeLogBase) {
+			return null;
+		}
+		int from = (int) (version - this.changeLogBase);
+		return new ArrayList<Change>(this.changeLog.subList(from, this.changeLog.size()));
+	}
+
+	/**
+	 * Record the registration of a new bean definition.
+	 */
+	public void definitionAdded(String beanName) {
+		addChange(new Change(beanName, true, true));
+	}
+
+	/**
+	 * Record the registration of a new manual singleton.
+	 */
+	public void singletonAdded(String beanName) {
+		addChange(new Change(beanName, true, false));
+	}
+
+	/**
+	 * Record the removal of a bean definition or manual singleton.
+	 */
+	public void beanRemoved(String beanName) {
+		addChange(new Change(beanName, false, false));
+	}
+
+	private synchronized void addChange(Change change) {
+		this.version++;
+		if (this.entries.isEmpty()) {
+			// 没有需要增量更新的缓存项，变化不必记录
+			this.changeLog.clear();
+			this.changeLogBase = this.version;
+		}
+		else if (this.changeLog.size() >= MAX_LOGGED_CHANGES) {
+			clear();
+		}
+		else {
+			this.changeLog.add(change);
+		}
+	}
+
+	/**
+	 * Remove all entries, e.g. after a change that may affect any bean.
+	 */
+	public synchronized void clear() {
+		this.version++;
+		this.entries.clear();
+		this.changeLog.clear();
+		this.changeLogBase = this.version;
+	}
+
+
+	/**
+	 * The matching bean names for a single key, as of a specific registry version.
+	 */
+	public static class Entry {
+
+		private final long version;
+
+		private final String[] definitionMatches;
+
+		private final String[] singletonMatches;
+
+		private final String[] beanNames;
+
+		public Entry(long version, String[] definitionMatches, String[] singletonMatches) {
+			this.version = version;
+			this.definitionMatches = definitionMatches;
+			this.singletonMatches = singletonMatches;
+			this.beanNames = StringUtils.concatenateStringArrays(definitionMatches, singletonMatches);
+		}
+
+		public long getVersion() {
+			return this.version;
+		}
+
+		/**
+		 * Return the matching bean definition names, in registration order
+		 * (or the FactoryBean names, if the FactoryBean itself matched).
+		 */
+		public String[] getDefinitionMatches() {
+			return this.definitionMatches;
+		}
+
+		/**
+		 * Return the matching manual singleton names, in registration order.
+		 */
+		public String[] getSingletonMatches() {
+			return this.singletonMatches;
+		}
+
+		/**
+		 * Return all matching bean names: bean definitions first, then manual singletons.
+		 */
+		public String[] getBeanNames() {
+			return this.beanNames;
+		}
+
+		/**
+		 * Apply the given changes to the bean names of this entry.
+		 * @param changes the changes to apply, in the order they happened
+		 * @param matches the matching bean name for each changed bean as determined
+		 * by the caller ({@code null} for no match or a removed bean)
+		 * @param version the registry version that the new entry reflects
+		 * @return the updated entry
+		 */
+		public Entry apply(List<Change> changes, List<String> matches, long version) {
+			List<String> definitions = new ArrayList<String>(Arrays.asList(this.definitionMatches));
+			List<String> singletons = new ArrayList<String>(Arrays.asList(this.singletonMatches));
+			for (int i = 0; i < changes.size(); i++) {
+				Change change = changes.get(i);
+				String beanName = change.getBeanName();
+				String factoryBeanName = BeanFactory.FACTORY_BEAN_PREFIX + beanName;
+				// 先移除旧的位置：重新注册的bean排在最后，与完整扫描的顺序一致
+				definitions.remove(beanName);
+				definitions.remove(factoryBeanName);
+				singletons.remove(beanName);
+				singletons.remove(factoryBeanName);
+				String match = matches.get(i);
+				if (match != null) {
+					(change.isDefinition() ? definitions : singletons).add(match);
+				}
+			}
+			return new Entry(version, StringUtils.toStringArray(definitions), StringUtils.toStringArray(singletons));
+		}
+	}
+
+
+	/**
+	 * A single registry change.
+	 */
+	public static class Change {
+
+		private final String beanName;
+
+		private final boolean added;
+
+		private final boolean definition;
+
+		public Change(String beanName, boolean added, boolean definition) {
+			this.beanName = beanName;
+			this.added = added;
+			this.definition = definition;
+		}
+
+		public String getBeanName() {
+			return this.beanName;
+		}
+
+		/**
+		 * Return whether the bean has been added (rather than removed).
+		 */
+		public boolean isAdded() {
+			return this.added;
+		}
+
+		/**
+		 * Return whether a bean definition (rather than a manual singleton) has been added.
+		 */
+		public boolean isDefinition() {
+			return this.definition;
+		}
+	}
+
+}
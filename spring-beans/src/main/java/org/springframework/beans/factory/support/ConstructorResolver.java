@@ -75,7 +75,7 @@ class ConstructorResolver {
 	public BeanWrapper instantiateUsingFactoryMethod(final String beanName, final RootBeanDefinition mbd, final Object[] explicitArgs) {
 
 		// ①初始化一个BeanWrapper：给这个BeanWrapper 设置类型转换器，并设置自定义属性编辑器
-		BeanWrapperImpl bw = new BeanWrapperImpl();
+		BeanWrapperImpl bw = this.beanFactory.newBeanWrapper(mbd);
 		this.beanFactory.initBeanWrapper(bw);
 
 		// 获取factory-bean 配置的factoryBean对象
@@ -373,7 +373,7 @@ class ConstructorResolver {
 
 
 		// ①初始化一个BeanWrapper：给这个BeanWrapper 设置类型转换器，并设置自定义属性编辑器
-		BeanWrapperImpl bw = new BeanWrapperImpl();
+		BeanWrapperImpl bw = this.beanFactory.newBeanWrapper(mbd);
 		this.beanFactory.initBeanWrapper(bw);
 
 		// ②确定最终要用来实例化bean的，构造器参数argsToUse
@@ -774,10 +774,21 @@ class ConstructorResolver {
 				}
 				try {
 					MethodParameter param = MethodParameter.forMethodOrConstructor(methodOrCtor, paramIndex);
-					Object autowiredArgument = resolveAutowiredArgument(param, beanName, autowiredBeanNames, converter);
+					Set<String> paramBeanNames = new LinkedHashSet<String>(1);
+					Object autowiredArgument = resolveAutowiredArgument(param, beanName, paramBeanNames, converter);
+					autowiredBeanNames.addAll(paramBeanNames);
 					args.rawArguments[paramIndex] = autowiredArgument;
 					args.arguments[paramIndex] = autowiredArgument;
-					args.preparedArguments[paramIndex] = new AutowiredArgumentMarker();
+					// 参数正好解析为一个bean时，记住它的名字：后续创建（prototype/request等作用域）直接getBean，不用再按类型查找候选者
+					String shortcutBeanName = null;
+					if (autowiredArgument != null && paramBeanNames.size() == 1) {
+						String autowiredBeanName = paramBeanNames.iterator().next();
+						if (this.beanFactory.containsBean(autowiredBeanName) &&
+								this.beanFactory.isTypeMatch(autowiredBeanName, paramType)) {
+							shortcutBeanName = autowiredBeanName;
+						}
+					}
+					args.preparedArguments[paramIndex] = new AutowiredArgumentMarker(shortcutBeanName);
 					args.resolveNecessary = true;
 				}
 				catch (BeansException ex) {
@@ -813,7 +824,8 @@ class ConstructorResolver {
 			MethodParameter methodParam = MethodParameter.forMethodOrConstructor(methodOrCtor, argIndex);
 			GenericTypeResolver.resolveParameterType(methodParam, methodOrCtor.getDeclaringClass());
 			if (argValue instanceof AutowiredArgumentMarker) {
-				argValue = resolveAutowiredArgument(methodParam, beanName, null, converter);
+				argValue = resolvePreparedAutowiredArgument(
+						methodParam, beanName, (AutowiredArgumentMarker) argValue, converter);
 			}
 			else if (argValue instanceof BeanMetadataElement) {
 				argValue = valueResolver.resolveValueIfNecessary("constructor argument", argValue);
@@ -843,6 +855,19 @@ class ConstructorResolver {
 		return this.beanFactory.resolveDependency(new DependencyDescriptor(param, true), beanName, autowiredBeanNames, typeConverter);
 	}
 
+	// 解析缓存中标记为autowired的参数：优先使用第一次解析时记住的bean名称，类型不再匹配时退回完整的依赖解析
+	private Object resolvePreparedAutowiredArgument(MethodParameter param, String beanName,
+			AutowiredArgumentMarker marker, TypeConverter typeConverter) {
+
+		if (marker.shortcutBeanName != null) {
+			Object shortcut = this.beanFactory.getBean(marker.shortcutBeanName);
+			if (param.getParameterType().isInstance(shortcut)) {
+				return shortcut;
+			}
+		}
+		return resolveAutowiredArgument(param, beanName, null, typeConverter);
+	}
+
 	// 用于持有参数组合的私有内部类。
 	private static class ArgumentsHolder {
 
@@ -899,7 +924,15 @@ class ConstructorResolver {
 	}
 
 	// 在缓存的参数数组中，标记那些autowired形式的注入的参数
-	private static class AutowiredArgumentMarker {}
+	private static class AutowiredArgumentMarker {
+
+		// 第一次解析得到的唯一bean名称（可能为null）
+		public final String shortcutBeanName;
+
+		public AutowiredArgumentMarker(String shortcutBeanName) {
+			this.shortcutBeanName = shortcutBeanName;
+		}
+	}
 
 	// 内部类以避免Java 6依赖。
 	private static class ConstructorPropertiesChecker {
@@ -35,6 +35,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeansException;
@@ -93,16 +95,25 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	// 而使用@Controller、@Service和@Repository等注解的bean会以ScannedGenericBeanDefinition的类型存放；
 	// 一些默认没有通过显示配置的bean会以RootBeanDefinition的类型缓存到这个map中
 	private final Map<String, BeanDefinition> beanDefinitionMap = new ConcurrentHashMap<String, BeanDefinition>(64);
-	// 保存bean类型到beanName的映射关系（beanName包括单例和非单例的所有bean）
-	private final Map<Class<?>, String[]> allBeanNamesByType = new ConcurrentHashMap<Class<?>, String[]>(64);
+	// 保存bean类型到beanName的映射关系（beanName包括单例和非单例的所有bean），注册或移除bean时增量更新
+	private final BeanNameIndex allBeanNamesByType = new BeanNameIndex();
 	// 保存bean类型到beanName的映射关系（beanName仅包括单例bean）
-	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<Class<?>, String[]>(64);
+	private final BeanNameIndex singletonBeanNamesByType = new BeanNameIndex();
+	// 保存注解类型到beanName的映射关系，供getBeansWithAnnotation使用
+	private final BeanNameIndex beanNamesByAnnotation = new BeanNameIndex();
+	// 按注入点缓存的自动装配候选beanName（已经过限定符过滤）以及@Primary的判断结果，仅在配置冻结后使用
+	private final Map<AutowireCandidateKey, AutowireCandidates> autowireCandidateCache =
+			new ConcurrentHashMap<AutowireCandidateKey, AutowireCandidates>(64);
+	// 自动装配候选项缓存的版本号：bean definition、单例、别名、可解析依赖或候选项解析器发生变化时递增
+	private final AtomicLong autowireCandidateCacheVersion = new AtomicLong();
 	// 按注册顺序保存BeanDefinition
 	private final List<String> beanDefinitionNames = new ArrayList<String>();
 	// 标识该工厂是否被冻结，冻结所有的BeanDefinition意味着已注册的bean定义将不再被修改或后处理
 	private boolean configurationFrozen = false;
 	// 在冻结配置的情况下，将所有已注册的beanName存放到这里
 	private String[] frozenBeanDefinitionNames;
+	// 用于并行预实例化单例bean的Executor（为null时在当前线程中按注册顺序依次实例化）
+	private Executor bootstrapExecutor;
 
 
 	public DefaultListableBeanFactory() {
@@ -149,10 +160,18 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 		}
 		this.autowireCandidateResolver = autowireCandidateResolver;
+		clearAutowireCandidateCache();
 	}
 	public AutowireCandidateResolver getAutowireCandidateResolver() {
 		return this.autowireCandidateResolver;
 	}
+	// 设置用于并行预实例化单例bean的Executor，相互独立的单例bean会按照依赖关系图并行创建
+	public void setBootstrapExecutor(Executor bootstrapExecutor) {
+		this.bootstrapExecutor = bootstrapExecutor;
+	}
+	public Executor getBootstrapExecutor() {
+		return this.bootstrapExecutor;
+	}
 	// 从另一个工厂复制相关的配置信息
 	@Override
 	public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
@@ -162,6 +181,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.autowireCandidateResolver = otherListableFactory.autowireCandidateResolver;
+			this.bootstrapExecutor = otherListableFactory.bootstrapExecutor;
 			this.resolvableDependencies.putAll(otherListableFactory.resolvableDependencies);
 		}
 	}
@@ -243,17 +263,11 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		if (!isConfigurationFrozen() || type == null || !allowEagerInit) {
 			return doGetBeanNamesForType(type, includeNonSingletons, allowEagerInit);
 		}
-		Map<Class<?>, String[]> cache =
-				(includeNonSingletons ? this.allBeanNamesByType : this.singletonBeanNamesByType);
-		String[] resolvedBeanNames = cache.get(type);
-		if (resolvedBeanNames != null) {
-			return resolvedBeanNames;
-		}
-		resolvedBeanNames = doGetBeanNamesForType(type, includeNonSingletons, allowEagerInit);
-		if (ClassUtils.isCacheSafe(type, getBeanClassLoader())) {
-			cache.put(type, resolvedBeanNames);
+		if (!ClassUtils.isCacheSafe(type, getBeanClassLoader())) {
+			return doGetBeanNamesForType(type, includeNonSingletons, allowEagerInit);
 		}
-		return resolvedBeanNames;
+		BeanNameIndex index = (includeNonSingletons ? this.allBeanNamesByType : this.singletonBeanNamesByType);
+		return getIndexedBeanNames(index, type, new BeanTypeMatcher(type, includeNonSingletons, allowEagerInit));
 	}
 	// 根据Type返回beanName到Bean的映射关系
 	public <T> Map<String, T> getBeansOfType(Class<T> type) throws BeansException {
@@ -291,18 +305,21 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return result;
 	}
 	// 返回带有annotationType注解的bean（返回的是beanName到Bean的映射关系）
+	// 配置冻结后，匹配的beanName由beanNamesByAnnotation缓存，并随bean的注册和移除增量更新
 	public Map<String, Object> getBeansWithAnnotation(Class<? extends Annotation> annotationType) {
-		Map<String, Object> results = new LinkedHashMap<String, Object>();
-		for (String beanName : getBeanDefinitionNames()) {
-			BeanDefinition beanDefinition = getBeanDefinition(beanName);
-			if (!beanDefinition.isAbstract() && findAnnotationOnBean(beanName, annotationType) != null) {
-				results.put(beanName, getBean(beanName));
-			}
+		BeanNameMatcher matcher = new BeanAnnotationMatcher(annotationType);
+		String[] beanNames;
+		if (isConfigurationFrozen() && ClassUtils.isCacheSafe(annotationType, getBeanClassLoader())) {
+			beanNames = getIndexedBeanNames(this.beanNamesByAnnotation, annotationType, matcher);
 		}
-		for (String beanName : getSingletonNames()) {
-			if (!results.containsKey(beanName) && findAnnotationOnBean(beanName, annotationType) != null) {
-				results.put(beanName, getBean(beanName));
-			}
+		else {
+			List<String> result = new ArrayList<String>();
+			collectBeanNames(matcher, result, result);
+			beanNames = StringUtils.toStringArray(result);
+		}
+		Map<String, Object> results = new LinkedHashMap<String, Object>(beanNames.length);
+		for (String beanName : beanNames) {
+			results.put(beanName, getBean(beanName));
 		}
 		return results;
 	}
@@ -336,6 +353,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			Assert.isTrue((autowiredValue instanceof ObjectFactory || dependencyType.isInstance(autowiredValue)),
 					"Value [" + autowiredValue + "] does not implement specified type [" + dependencyType.getName() + "]");
 			this.resolvableDependencies.put(dependencyType, autowiredValue);
+			clearAutowireCandidateCache();
 		}
 	}
 	// 判断这个bean是否可以被自动注入到其他的bean
@@ -419,36 +437,58 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			beanNames = new ArrayList<String>(this.beanDefinitionNames);
 		}
 
+		Executor executor = getBootstrapExecutor();
+		if (executor != null) {
+			// 按依赖关系图在Executor上并行实例化相互独立的单实例Bean
+			List<String> singletonNames = new ArrayList<String>(beanNames.size());
+			for (String beanName : beanNames) {
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					singletonNames.add(beanName);
+				}
+			}
+			new ParallelSingletonInstantiator(this, executor).preInstantiate(singletonNames);
+			return;
+		}
+
 		// 遍历所有的单实例Bean，并一个一个的实例化
 		for (String beanName : beanNames) {
 			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
 			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				// 判断是否为工厂bean
-				if (isFactoryBean(beanName)) {
-					final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
-					boolean isEagerInit;
-					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-						isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
-							public Boolean run() {
-								return ((SmartFactoryBean<?>) factory).isEagerInit();
-							}
-						}, getAccessControlContext());
-					}
-					else {
-						isEagerInit = (factory instanceof SmartFactoryBean && ((SmartFactoryBean<?>) factory).isEagerInit());
-					}
-					if (isEagerInit) {
-						getBean(beanName);
-					}
-				}
-				else {
-					getBean(beanName);
-				}
+				preInstantiateSingleton(beanName);
 			}
 		}
 
 	}
 
+	/**
+	 * Instantiate the given non-lazy singleton, or the FactoryBean for it
+	 * (and its object as well if the FactoryBean asks for eager initialization).
+	 */
+	void preInstantiateSingleton(String beanName) {
+		// 判断是否为工厂bean
+		if (isFactoryBean(beanName)) {
+			final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
+			boolean isEagerInit;
+			if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+				isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+					public Boolean run() {
+						return ((SmartFactoryBean<?>) factory).isEagerInit();
+					}
+				}, getAccessControlContext());
+			}
+			else {
+				isEagerInit = (factory instanceof SmartFactoryBean && ((SmartFactoryBean<?>) factory).isEagerInit());
+			}
+			if (isEagerInit) {
+				getBean(beanName);
+			}
+		}
+		else {
+			getBean(beanName);
+		}
+	}
+
 	// Implementation of BeanDefinitionRegistry interface
 	// 注册BeanDefinition到注册表
 	public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition) throws BeanDefinitionStoreException {
@@ -466,8 +506,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 		}
 
+		Object oldBeanDefinition;
 		synchronized (this.beanDefinitionMap) {
-			Object oldBeanDefinition = this.beanDefinitionMap.get(beanName);
+			oldBeanDefinition = this.beanDefinitionMap.get(beanName);
 			if (oldBeanDefinition != null) {
 				if (!this.allowBeanDefinitionOverriding) {
 					throw new BeanDefinitionStoreException(beanDefinition.getResourceDescription(), beanName,
@@ -488,7 +529,15 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.beanDefinitionMap.put(beanName, beanDefinition);
 		}
 
-		resetBeanDefinition(beanName);
+		if (oldBeanDefinition != null || containsSingleton(beanName) ||
+				(getParentBeanFactory() != null && getParentBeanFactory().containsBean(beanName))) {
+			resetBeanDefinition(beanName);
+		}
+		else {
+			// 全新的beanName：不存在需要重置的合并定义和单例（子bean在父bean注册之前无法合并），
+			// 只需把这个bean增量加入by-type/by-annotation索引，而不必清空缓存并遍历所有bean definition
+			recordBeanAdded(beanName, true);
+		}
 	}
 	// 将对应的bean从BeanDefinition注册表中移除
 	public void removeBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
@@ -516,42 +565,130 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		// Remove corresponding bean from singleton cache, if any. Shouldn't usually
 		// be necessary, rather just meant for overriding a context's default beans
 		// (e.g. the default StaticMessageSource in a StaticApplicationContext).
+		// Also removes any assumptions about by-type mappings for the given bean.
 		destroySingleton(beanName);
 
-		// Remove any assumptions about by-type mappings.
-		clearByTypeCache();
-
 		// Reset all bean definitions that have the given bean as parent (recursively).
+		boolean referenced = false;
 		for (String bdName : this.beanDefinitionNames) {
 			if (!beanName.equals(bdName)) {
 				BeanDefinition bd = this.beanDefinitionMap.get(bdName);
 				if (beanName.equals(bd.getParentName())) {
 					resetBeanDefinition(bdName);
 				}
+				else if (beanName.equals(bd.getFactoryBeanName())) {
+					referenced = true;
+				}
 			}
 		}
+		// 其他bean通过factory-bean引用了它：这些bean的类型可能随之改变
+		if (referenced) {
+			clearByTypeCache();
+		}
 	}
 	// 是否允许同名的不同bean definition再次进行注册
 	@Override
 	protected boolean allowAliasOverriding() {
 		return this.allowBeanDefinitionOverriding;
 	}
-	// 注册单例bean，并清除所有beanType到bean实例的映射关系
+	// 注册单例bean，并更新beanType到beanName的映射关系
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		super.registerSingleton(beanName, singletonObject);
-		clearByTypeCache();
+		if (containsBeanDefinition(beanName)) {
+			clearByTypeCache();
+		}
+		else {
+			recordBeanAdded(beanName, false);
+		}
 	}
-	// 销毁单例bean，并清除所有beanType到bean实例的映射关系
+	// 销毁单例bean，并更新beanType到beanName的映射关系
 	@Override
 	public void destroySingleton(String beanName) {
 		super.destroySingleton(beanName);
-		clearByTypeCache();
+		if (containsBeanDefinition(beanName)) {
+			// bean definition依然存在（比如被覆盖），而它的类型可能与单例实例的类型不同
+			clearByTypeCache();
+		}
+		else {
+			recordBeanRemoved(beanName);
+		}
+	}
+	// 注册别名：别名会影响限定符和@Primary回退（按依赖名称匹配）的判断
+	@Override
+	public void registerAlias(String name, String alias) {
+		super.registerAlias(name, alias);
+		clearAutowireCandidateCache();
 	}
-	// 清除所有beanType到bean实例的映射关系
+	@Override
+	public void removeAlias(String alias) {
+		super.removeAlias(alias);
+		clearAutowireCandidateCache();
+	}
+	// 清除所有beanType（以及注解类型）到beanName的映射关系
 	private void clearByTypeCache() {
 		this.allBeanNamesByType.clear();
 		this.singletonBeanNamesByType.clear();
+		this.beanNamesByAnnotation.clear();
+		clearAutowireCandidateCache();
+	}
+	// 记录新注册的bean definition或手动注册的单例：缓存的映射关系在下次查找时只需检查这个bean
+	private void recordBeanAdded(String beanName, boolean definition) {
+		// 与移除时相同：已有的bean通过parent或factory-bean引用了这个名称时，它们的合并定义和类型都可能随之改变，
+		// 此时不能只增量检查新bean，而是清空这些缓存
+		boolean referenced = false;
+		for (String bdName : this.beanDefinitionNames) {
+			if (!beanName.equals(bdName)) {
+				BeanDefinition bd = this.beanDefinitionMap.get(bdName);
+				if ((beanName.equals(bd.getParentName()) || beanName.equals(bd.getFactoryBeanName()))) {
+					clearMergedBeanDefinition(bdName);
+					referenced = true;
+				}
+			}
+		}
+		if (referenced) {
+			clearByTypeCache();
+			return;
+		}
+		if (definition) {
+			this.allBeanNamesByType.definitionAdded(beanName);
+			this.singletonBeanNamesByType.definitionAdded(beanName);
+			this.beanNamesByAnnotation.definitionAdded(beanName);
+		}
+		else {
+			this.allBeanNamesByType.singletonAdded(beanName);
+			this.singletonBeanNamesByType.singletonAdded(beanName);
+			this.beanNamesByAnnotation.singletonAdded(beanName);
+		}
+		clearAutowireCandidateCache();
+	}
+	// 记录被移除的bean definition或手动注册的单例
+	private void recordBeanRemoved(String beanName) {
+		this.allBeanNamesByType.beanRemoved(beanName);
+		this.singletonBeanNamesByType.beanRemoved(beanName);
+		this.beanNamesByAnnotation.beanRemoved(beanName);
+		clearAutowireCandidateCache();
+	}
+	// 清除按注入点缓存的自动装配候选项（先清空再递增版本号：并发计算出的旧版本结果不会再被使用）
+	private void clearAutowireCandidateCache() {
+		this.autowireCandidateCache.clear();
+		this.autowireCandidateCacheVersion.incrementAndGet();
+	}
+	// 返回自动装配候选项缓存的当前版本号（包括父BeanFactory的变化），返回-1表示当前不能使用缓存
+	private long getAutowireCandidateCacheVersion() {
+		if (!isConfigurationFrozen()) {
+			return -1;
+		}
+		long version = this.autowireCandidateCacheVersion.get();
+		BeanFactory parentBeanFactory = getParentBeanFactory();
+		if (parentBeanFactory == null) {
+			return version;
+		}
+		if (parentBeanFactory instanceof DefaultListableBeanFactory) {
+			long parentVersion = ((DefaultListableBeanFactory) parentBeanFactory).getAutowireCandidateCacheVersion();
+			return (parentVersion >= 0 ? version + parentVersion : -1);
+		}
+		return -1;
 	}
 
 
@@ -665,7 +802,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 				return null;
 			}
 			if (matchingBeans.size() > 1) {
-				String primaryBeanName = determinePrimaryCandidate(matchingBeans, descriptor);
+				String primaryBeanName = determinePrimaryCandidate(beanName, type, matchingBeans, descriptor);
 				if (primaryBeanName == null) {
 					throw new NoUniqueBeanDefinitionException(type, matchingBeans.keySet());
 				}
@@ -685,8 +822,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	// 返回所有符合自动注入的bean的结合（返回 beanName -> bean对象 的映射关系）
 	protected Map<String, Object> findAutowireCandidates(String beanName, Class<?> requiredType, DependencyDescriptor descriptor) {
 
-		String[] candidateNames = BeanFactoryUtils.beanNamesForTypeIncludingAncestors(
-				this, requiredType, true, descriptor.isEager());
+		String[] candidateNames = getAutowireCandidates(beanName, requiredType, descriptor).getCandidateNames();
 		Map<String, Object> result = new LinkedHashMap<String, Object>(candidateNames.length);
 		for (Class<?> autowiringType : this.resolvableDependencies.keySet()) {
 			if (autowiringType.isAssignableFrom(requiredType)) {
@@ -698,13 +834,53 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 				}
 			}
 		}
+		for (String candidateName : candidateNames) {
+			result.put(candidateName, getBean(candidateName));
+		}
+		return result;
+	}
+	// 返回注入点的候选beanName（已排除请求注入的bean自身以及不符合限定符的bean），配置冻结后按注入点缓存
+	private AutowireCandidates getAutowireCandidates(String beanName, Class<?> requiredType, DependencyDescriptor descriptor) {
+		long version = getAutowireCandidateCacheVersion();
+		AutowireCandidateKey cacheKey = null;
+		if (version >= 0) {
+			cacheKey = new AutowireCandidateKey(beanName, requiredType, descriptor);
+			AutowireCandidates cached = this.autowireCandidateCache.get(cacheKey);
+			if (cached != null && cached.version == version) {
+				return cached;
+			}
+		}
+		String[] candidateNames = BeanFactoryUtils.beanNamesForTypeIncludingAncestors(
+				this, requiredType, true, descriptor.isEager());
+		List<String> autowireCandidates = new ArrayList<String>(candidateNames.length);
 		for (String candidateName : candidateNames) {
 			if (!candidateName.equals(beanName) && isAutowireCandidate(candidateName, descriptor)) {
-				result.put(candidateName, getBean(candidateName));
+				autowireCandidates.add(candidateName);
 			}
 		}
+		AutowireCandidates result = new AutowireCandidates(version, StringUtils.toStringArray(autowireCandidates));
+		if (cacheKey != null && ClassUtils.isCacheSafe(requiredType, getBeanClassLoader())) {
+			this.autowireCandidateCache.put(cacheKey, result);
+		}
 		return result;
 	}
+	// 从多个候选项中确定主要候选项：结果与候选beanName一起按注入点缓存
+	// （候选项中包含通过registerResolvableDependency注册的对象时，仍然每次重新判断）
+	private String determinePrimaryCandidate(String beanName, Class<?> type, Map<String, Object> candidateBeans,
+			DependencyDescriptor descriptor) {
+
+		long version = getAutowireCandidateCacheVersion();
+		AutowireCandidates cached = (version >= 0 ?
+				this.autowireCandidateCache.get(new AutowireCandidateKey(beanName, type, descriptor)) : null);
+		if (cached == null || cached.version != version || !cached.matches(candidateBeans.keySet())) {
+			return determinePrimaryCandidate(candidateBeans, descriptor);
+		}
+		if (!cached.primaryCandidateResolved) {
+			cached.primaryCandidate = determinePrimaryCandidate(candidateBeans, descriptor);
+			cached.primaryCandidateResolved = true;
+		}
+		return cached.primaryCandidate;
+	}
 	// 从一组自动注入候选项中选出一个主要的候选项（判断依据：根据bean的primary配置属性）
 	protected String determinePrimaryCandidate(Map<String, Object> candidateBeans, DependencyDescriptor descriptor) {
 		String primaryBeanName = null;
@@ -764,53 +940,17 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	// 根据给定的type返回对应的beanName
 	private String[] doGetBeanNamesForType(Class<?> type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<String>();
-
+		collectBeanNames(new BeanTypeMatcher(type, includeNonSingletons, allowEagerInit), result, result);
+		return StringUtils.toStringArray(result);
+	}
+	// 遍历所有bean definition和手动注册的单例，分别收集匹配的beanName
+	private void collectBeanNames(BeanNameMatcher matcher, List<String> definitionMatches, List<String> singletonMatches) {
 		// Check all bean definitions.
 		String[] beanDefinitionNames = getBeanDefinitionNames();
 		for (String beanName : beanDefinitionNames) {
-			// Only consider bean as eligible if the bean name
-			// is not defined as alias for some other bean.
-			if (!isAlias(beanName)) {
-				try {
-					RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
-					// Only check bean definition if it is complete.
-					if (!mbd.isAbstract() && (allowEagerInit ||
-						((mbd.hasBeanClass() || !mbd.isLazyInit() || this.allowEagerClassLoading)) &&
-							!requiresEagerInitForType(mbd.getFactoryBeanName()))) {
-						// In case of FactoryBean, match object created by FactoryBean.
-						boolean isFactoryBean = isFactoryBean(beanName, mbd);
-						boolean matchFound = (allowEagerInit || !isFactoryBean || containsSingleton(beanName)) &&
-							(includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type);
-						if (!matchFound && isFactoryBean) {
-							// In case of FactoryBean, try to match FactoryBean instance itself next.
-							beanName = FACTORY_BEAN_PREFIX + beanName;
-							matchFound = (includeNonSingletons || mbd.isSingleton()) && isTypeMatch(beanName, type);
-						}
-						if (matchFound) {
-							result.add(beanName);
-						}
-					}
-				}
-				catch (CannotLoadBeanClassException ex) {
-					if (allowEagerInit) {
-						throw ex;
-					}
-					// Probably contains a placeholder: let's ignore it for type matching purposes.
-					if (this.logger.isDebugEnabled()) {
-						this.logger.debug("Ignoring bean class loading failure for bean '" + beanName + "'", ex);
-					}
-					onSuppressedException(ex);
-				}
-				catch (BeanDefinitionStoreException ex) {
-					if (allowEagerInit) {
-						throw ex;
-					}
-					// Probably contains a placeholder: let's ignore it for type matching purposes.
-					if (this.logger.isDebugEnabled()) {
-						this.logger.debug("Ignoring unresolvable metadata in bean definition '" + beanName + "'", ex);
-					}
-					onSuppressedException(ex);
-				}
+			String match = matcher.matchBeanDefinition(beanName);
+			if (match != null) {
+				definitionMatches.add(match);
 			}
 		}
 
@@ -819,24 +959,49 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		for (String beanName : singletonNames) {
 			// Only check if manually registered.
 			if (!containsBeanDefinition(beanName)) {
-				// In case of FactoryBean, match object created by FactoryBean.
-				if (isFactoryBean(beanName)) {
-					if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
-						result.add(beanName);
-						// Match found for this bean: do not match FactoryBean itself anymore.
-						continue;
-					}
-					// In case of FactoryBean, try to match FactoryBean itself next.
-					beanName = FACTORY_BEAN_PREFIX + beanName;
-				}
-				// Match raw bean instance (might be raw FactoryBean).
-				if (isTypeMatch(beanName, type)) {
-					result.add(beanName);
+				String match = matcher.matchSingleton(beanName);
+				if (match != null) {
+					singletonMatches.add(match);
 				}
 			}
 		}
-
-		return StringUtils.toStringArray(result);
+	}
+	// 从索引中获取匹配的beanName：索引项过期时只检查之后注册或移除的bean，没有可用的索引项时才遍历所有bean
+	private String[] getIndexedBeanNames(BeanNameIndex index, Object key, BeanNameMatcher matcher) {
+		long version = index.getVersion();
+		BeanNameIndex.Entry entry = index.getEntry(key);
+		List<BeanNameIndex.Change> changes = (entry != null ? index.getChangesSince(entry.getVersion()) : null);
+		if (changes == null) {
+			List<String> definitionMatches = new ArrayList<String>();
+			List<String> singletonMatches = new ArrayList<String>();
+			collectBeanNames(matcher, definitionMatches, singletonMatches);
+			entry = new BeanNameIndex.Entry(version,
+					StringUtils.toStringArray(definitionMatches), StringUtils.toStringArray(singletonMatches));
+		}
+		else if (!changes.isEmpty()) {
+			List<String> matches = new ArrayList<String>(changes.size());
+			for (BeanNameIndex.Change change : changes) {
+				matches.add(matchChangedBean(matcher, change));
+			}
+			entry = entry.apply(changes, matches, entry.getVersion() + changes.size());
+		}
+		else {
+			return entry.getBeanNames();
+		}
+		index.putEntry(key, entry);
+		return entry.getBeanNames();
+	}
+	// 按照bean当前的状态检查一个发生过变化的bean（之后可能又被移除或重新注册）
+	private String matchChangedBean(BeanNameMatcher matcher, BeanNameIndex.Change change) {
+		String beanName = change.getBeanName();
+		if (!change.isAdded()) {
+			return null;
+		}
+		if (change.isDefinition()) {
+			return (containsBeanDefinition(beanName) ? matcher.matchBeanDefinition(beanName) : null);
+		}
+		return (containsSingleton(beanName) && !containsBeanDefinition(beanName) ?
+				matcher.matchSingleton(beanName) : null);
 	}
 	// 判断指定的bean是否需要被急切地初始化以确定它的类型，比如工厂bean
 	private boolean requiresEagerInitForType(String factoryBeanName) {
@@ -882,6 +1047,222 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			return result;
 		}
 	}
+	/**
+	 * Strategy for checking a single bean against the criteria of a
+	 * by-type or by-annotation lookup.
+	 */
+	private interface BeanNameMatcher {
+
+		/**
+		 * Check the given bean definition.
+		 * @return the matching bean name (possibly the FactoryBean name),
+		 * or {@code null} if not matching
+		 */
+		String matchBeanDefinition(String beanName);
+
+		/**
+		 * Check the given manually registered singleton.
+		 * @return the matching bean name (possibly the FactoryBean name),
+		 * or {@code null} if not matching
+		 */
+		String matchSingleton(String beanName);
+	}
+
+
+	/**
+	 * BeanNameMatcher for {@link #getBeanNamesForType(Class, boolean, boolean)}.
+	 */
+	private class BeanTypeMatcher implements BeanNameMatcher {
+
+		private final Class<?> type;
+
+		private final boolean includeNonSingletons;
+
+		private final boolean allowEagerInit;
+
+		public BeanTypeMatcher(Class<?> type, boolean includeNonSingletons, boolean allowEagerInit) {
+			this.type = type;
+			this.includeNonSingletons = includeNonSingletons;
+			this.allowEagerInit = allowEagerInit;
+		}
+
+		public String matchBeanDefinition(String beanName) {
+			// Only consider bean as eligible if the bean name
+			// is not defined as alias for some other bean.
+			if (isAlias(beanName)) {
+				return null;
+			}
+			try {
+				RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+				// Only check bean definition if it is complete.
+				if (!mbd.isAbstract() && (this.allowEagerInit ||
+					((mbd.hasBeanClass() || !mbd.isLazyInit() || allowEagerClassLoading)) &&
+						!requiresEagerInitForType(mbd.getFactoryBeanName()))) {
+					// In case of FactoryBean, match object created by FactoryBean.
+					boolean isFactoryBean = isFactoryBean(beanName, mbd);
+					boolean matchFound = (this.allowEagerInit || !isFactoryBean || containsSingleton(beanName)) &&
+						(this.includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, this.type);
+					if (!matchFound && isFactoryBean) {
+						// In case of FactoryBean, try to match FactoryBean instance itself next.
+						beanName = FACTORY_BEAN_PREFIX + beanName;
+						matchFound = (this.includeNonSingletons || mbd.isSingleton()) && isTypeMatch(beanName, this.type);
+					}
+					if (matchFound) {
+						return beanName;
+					}
+				}
+			}
+			catch (CannotLoadBeanClassException ex) {
+				if (this.allowEagerInit) {
+					throw ex;
+				}
+				// Probably contains a placeholder: let's ignore it for type matching purposes.
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring bean class loading failure for bean '" + beanName + "'", ex);
+				}
+				onSuppressedException(ex);
+			}
+			catch (BeanDefinitionStoreException ex) {
+				if (this.allowEagerInit) {
+					throw ex;
+				}
+				// Probably contains a placeholder: let's ignore it for type matching purposes.
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring unresolvable metadata in bean definition '" + beanName + "'", ex);
+				}
+				onSuppressedException(ex);
+			}
+			return null;
+		}
+
+		public String matchSingleton(String beanName) {
+			// In case of FactoryBean, match object created by FactoryBean.
+			if (isFactoryBean(beanName)) {
+				if ((this.includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, this.type)) {
+					// Match found for this bean: do not match FactoryBean itself anymore.
+					return beanName;
+				}
+				// In case of FactoryBean, try to match FactoryBean itself next.
+				beanName = FACTORY_BEAN_PREFIX + beanName;
+			}
+			// Match raw bean instance (might be raw FactoryBean).
+			return (isTypeMatch(beanName, this.type) ? beanName : null);
+		}
+	}
+
+
+	/**
+	 * BeanNameMatcher for {@link #getBeansWithAnnotation}.
+	 */
+	private class BeanAnnotationMatcher implements BeanNameMatcher {
+
+		private final Class<? extends Annotation> annotationType;
+
+		public BeanAnnotationMatcher(Class<? extends Annotation> annotationType) {
+			this.annotationType = annotationType;
+		}
+
+		public String matchBeanDefinition(String beanName) {
+			BeanDefinition beanDefinition = getBeanDefinition(beanName);
+			return (!beanDefinition.isAbstract() && findAnnotationOnBean(beanName, this.annotationType) != null ?
+					beanName : null);
+		}
+
+		public String matchSingleton(String beanName) {
+			return (findAnnotationOnBean(beanName, this.annotationType) != null ? beanName : null);
+		}
+	}
+
+
+	/**
+	 * Cache key for the autowire candidates of a specific injection point,
+	 * as requested by a specific bean.
+	 */
+	private static class AutowireCandidateKey {
+
+		private final String beanName;
+
+		private final Class<?> requiredType;
+
+		private final Class<?> descriptorClass;
+
+		private final Object member;
+
+		private final boolean eager;
+
+		public AutowireCandidateKey(String beanName, Class<?> requiredType, DependencyDescriptor descriptor) {
+			this.beanName = beanName;
+			this.requiredType = requiredType;
+			this.descriptorClass = descriptor.getClass();
+			this.member = (descriptor.getField() != null ? descriptor.getField() : descriptor.getMethodParameter());
+			this.eager = descriptor.isEager();
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof AutowireCandidateKey)) {
+				return false;
+			}
+			AutowireCandidateKey otherKey = (AutowireCandidateKey) other;
+			return (ObjectUtils.nullSafeEquals(this.beanName, otherKey.beanName) &&
+					this.requiredType.equals(otherKey.requiredType) &&
+					this.descriptorClass.equals(otherKey.descriptorClass) &&
+					this.member.equals(otherKey.member) && this.eager == otherKey.eager);
+		}
+
+		@Override
+		public int hashCode() {
+			return (ObjectUtils.nullSafeHashCode(this.beanName) * 29 + this.requiredType.hashCode()) * 29 +
+					this.member.hashCode();
+		}
+	}
+
+
+	/**
+	 * The resolved autowire candidates for an injection point, as of a specific
+	 * version of the bean factory's configuration.
+	 */
+	private static class AutowireCandidates {
+
+		private final long version;
+
+		private final String[] candidateNames;
+
+		private volatile String primaryCandidate;
+
+		private volatile boolean primaryCandidateResolved;
+
+		public AutowireCandidates(long version, String[] candidateNames) {
+			this.version = version;
+			this.candidateNames = candidateNames;
+		}
+
+		public String[] getCandidateNames() {
+			return this.candidateNames;
+		}
+
+		/**
+		 * Check whether the given candidates are exactly the cached ones,
+		 * i.e. do not include any resolvable dependency.
+		 */
+		public boolean matches(Set<String> candidates) {
+			if (candidates.size() != this.candidateNames.length) {
+				return false;
+			}
+			int i = 0;
+			for (String candidate : candidates) {
+				if (!candidate.equals(this.candidateNames[i++])) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+
 	/**
 	 * Serializable ObjectFactory for lazy resolution of a dependency.
 	 */
@@ -8,6 +8,9 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -18,6 +21,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
@@ -29,6 +33,8 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 	// 一个空对象内部标记：用于标记concurrent Maps的值（不支持空值）
 	protected static final Object NULL_OBJECT = new Object();
+	// 等待其他线程释放单例创建锁时，每隔多少毫秒检查一次是否出现跨线程的循环等待（死锁）
+	private static final long CREATION_LOCK_CHECK_INTERVAL = 100;
 	// BeanName --> beanInstance ：单例bean的缓存池（或称单例注册表），被实例化后的单例都会缓存到 singletonObjects
 	private final Map<String, Object> singletonObjects = new ConcurrentHashMap<String, Object>(64);
 	// BeanName --> ObjectFactory ：表示BeanName对应的Bean是由ObjectFactory创建的，对于singletonFactories的理解请参考《Spring源码深度解析》113页
@@ -43,15 +49,24 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 	// Spring 中一个bean A 正在被实例化的过程中可能会引用其他的bean B，这种情况下，这个A会暂时存放到这里，表示这个bean正在被创建
 	// 这个bean A 在创建结束后会被移除（请看beforeSingletonCreation()和afterSingletonCreation()方法）
-	private final Map<String, Boolean> singletonsCurrentlyInCreation = new ConcurrentHashMap<String, Boolean>(16);
+	// value 为正在创建这个bean的线程：提前曝光的bean引用只提供给创建它的线程，其他线程需等待创建完成
+	private final Map<String, Thread> singletonsCurrentlyInCreation = new ConcurrentHashMap<String, Thread>(16);
 	// bean在被创建前的时候会被缓存到 singletonsCurrentlyInCreation 表示这个当前正在被创建，Spring创建bean的时候会去检查这个bean是否正在被创建，
 	// 而这个 inCreationCheckExclusions 用来存放不被检查的bean
 	private final Map<String, Boolean> inCreationCheckExclusions = new ConcurrentHashMap<String, Boolean>(16);
 
-	// 存放异常出现的相关的原因的集合
-	private Set<Exception> suppressedExceptions;
+	// 每个单例bean各自的创建锁：创建一个bean时只锁住这个bean，不会阻塞其他线程获取或创建无关的bean（单例被移除时一起移除）
+	private final ConcurrentMap<String, SingletonCreationLock> singletonCreationLocks =
+			new ConcurrentHashMap<String, SingletonCreationLock>(64);
+	// 线程 --> 该线程正在等待的单例创建锁，用于检测跨线程的循环等待
+	private final Map<Thread, SingletonCreationLock> threadsAwaitingCreationLock =
+			new ConcurrentHashMap<Thread, SingletonCreationLock>(16);
+
+	// 存放当前线程创建单例过程中出现的相关的原因的集合
+	private final ThreadLocal<Set<Exception>> suppressedExceptions =
+			new NamedThreadLocal<Set<Exception>>("Suppressed exceptions of singleton creation");
 	// 状态标识，表示当前的单例注册表是否正在销毁单例
-	private boolean singletonsCurrentlyInDestruction = false;
+	private volatile boolean singletonsCurrentlyInDestruction = false;
 	// 存放一次性bean的缓存（实现了 DisposableBean 接口的bean都会放到这里）
 	private final Map<String, Object> disposableBeans = new LinkedHashMap<String, Object>();
 	// 用于表示bean之间的内部包含关系
@@ -105,35 +120,64 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		 * {@Link getSingleton(String beanName, ObjectFactory<?> singletonFactory)}由ObjectFactory工厂创建的，
 		 *  调用方法，详见{@Link AbstractBeanFactory)的{@Link doGetBean}方法
 		 * */
-		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
-			synchronized (this.singletonObjects) {
-				// earlySingletonObjects 是缓存由 FactoryBean 产生的单例bean的缓存
-				singletonObject = this.earlySingletonObjects.get(beanName);
-
-				if (singletonObject == null && allowEarlyReference) {
-					// singletonFactories 是用来缓存FactoryBean 的，（singletonFactories 其实是用来解析循环依赖的，
-					// 它的作用请参考《Spring源码深度解析》113页
-					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-					// 如果存在指定beanName的singletonFactory对象
-					if (singletonFactory != null) {
-						singletonObject = singletonFactory.getObject();
-						// 这里可以看出earlySingletonObjects缓存是存放singletonFactory产生的singleton
-						this.earlySingletonObjects.put(beanName, singletonObject);
-						// 这里表示指定的beanName已被占用，所以要在singletonFactories移除该名称
-						this.singletonFactories.remove(beanName);
-					}
-				}
-			}
+		// 只有正在创建这个bean的线程才能拿到提前曝光的引用，其他线程应等待创建完成（见 getSingleton(String, ObjectFactory)）
+		if (singletonObject == null && this.singletonsCurrentlyInCreation.get(beanName) == Thread.currentThread()) {
+			singletonObject = getEarlySingleton(beanName, allowEarlyReference);
 		}
 
 		return (singletonObject != NULL_OBJECT ? singletonObject : null);
 	}
 
+	// 从 earlySingletonObjects 或 singletonFactories 中获取提前曝光的单例引用
+	private Object getEarlySingleton(String beanName, boolean allowEarlyReference) {
+		ObjectFactory<?> singletonFactory;
+		synchronized (this.singletonObjects) {
+			// earlySingletonObjects 是缓存由 FactoryBean 产生的单例bean的缓存
+			Object singletonObject = this.earlySingletonObjects.get(beanName);
+			if (singletonObject != null || !allowEarlyReference) {
+				return singletonObject;
+			}
+			// singletonFactories 是用来缓存FactoryBean 的，（singletonFactories 其实是用来解析循环依赖的，
+			// 它的作用请参考《Spring源码深度解析》113页
+			singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory == null) {
+				return null;
+			}
+		}
+		// 在锁外调用 singletonFactory：getEarlyBeanReference 可能会触发其他bean的创建（比如AOP的advisor）
+		Object earlyReference = singletonFactory.getObject();
+		synchronized (this.singletonObjects) {
+			Object singletonObject = this.earlySingletonObjects.get(beanName);
+			if (singletonObject == null && this.singletonFactories.get(beanName) == singletonFactory) {
+				// 这里可以看出earlySingletonObjects缓存是存放singletonFactory产生的singleton
+				this.earlySingletonObjects.put(beanName, earlyReference);
+				// 这里表示指定的beanName已被占用，所以要在singletonFactories移除该名称
+				this.singletonFactories.remove(beanName);
+				singletonObject = earlyReference;
+			}
+			return (singletonObject != null ? singletonObject : this.singletonObjects.get(beanName));
+		}
+	}
+
 	// 根据这个beanName返回一个单例对象，如果没有注册，就创建和注册一个新对象。
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "'beanName' must not be null");
-		synchronized (this.singletonObjects) {
-			Object singletonObject = this.singletonObjects.get(beanName);
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject != null) {
+			return (singletonObject != NULL_OBJECT ? singletonObject : null);
+		}
+		// 只锁住当前bean的创建锁：其他线程仍然可以获取或创建无关的bean
+		if (!lockSingletonCreation(beanName, true)) {
+			// 持有创建锁的线程反过来在等待当前线程：这是跨线程的循环引用，
+			// 像单线程时一样使用提前曝光的引用来打破循环
+			singletonObject = getEarlySingleton(beanName, true);
+			if (singletonObject == null) {
+				throw new BeanCurrentlyInCreationException(beanName);
+			}
+			return (singletonObject != NULL_OBJECT ? singletonObject : null);
+		}
+		try {
+			singletonObject = this.singletonObjects.get(beanName);
 			// 如果singetonObjects缓存不存在名称为beanName的对象
 			if (singletonObject == null) {
 				// 如果目前在销毁singellton
@@ -149,10 +193,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				// ①、单例对象创建前的回调
 				beforeSingletonCreation(beanName);
 
-				// 判断存储异常相关原因的集合是否已存在，若没有，则创建异常集合的实例
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
+				// 判断当前线程存储异常相关原因的集合是否已存在，若没有，则创建异常集合的实例
+				boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
 				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<Exception>();
+					this.suppressedExceptions.set(new LinkedHashSet<Exception>());
 				}
 
 				try {
@@ -162,7 +206,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				catch (BeanCreationException ex) {
 					// 如果异常被抓取，在这里将出现异常的原因抛出
 					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
+						for (Exception suppressedException : this.suppressedExceptions.get()) {
 							ex.addRelatedCause(suppressedException);
 						}
 					}
@@ -171,7 +215,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				finally {
 					// 结束前，将异常集合销毁掉
 					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
+						this.suppressedExceptions.remove();
 					}
 					// ②、单例bean创建之后的回调,默认的实现标志单例不要在创建了。
 					afterSingletonCreation(beanName);
@@ -183,14 +227,124 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			// 如果单例已经被注册，则直接返回这个单例对象
 			return (singletonObject != NULL_OBJECT ? singletonObject : null);
 		}
+		finally {
+			unlockSingletonCreation(beanName);
+		}
+	}
+
+	/**
+	 * Acquire the creation lock for the given singleton, held by the current
+	 * thread while creating the singleton (or, e.g., the object exposed by a
+	 * singleton FactoryBean). The lock is reentrant.
+	 * <p>Waiting for the lock is given up if the thread that holds it is, directly
+	 * or transitively, waiting for a creation lock held by the current thread:
+	 * that is, for a circular reference between beans created by different threads.
+	 * @param beanName the name of the bean
+	 * @param wait whether to wait for the lock if currently held by another thread
+	 * @return {@code true} if the lock has been acquired and needs to be released
+	 * through {@link #unlockSingletonCreation}; {@code false} if it is held by another
+	 * thread and either {@code wait} is {@code false} or waiting would cause a deadlock
+	 * @since 3.2.9
+	 */
+	protected boolean lockSingletonCreation(String beanName, boolean wait) {
+		while (true) {
+			SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+			if (lock == null) {
+				SingletonCreationLock newLock = new SingletonCreationLock();
+				lock = this.singletonCreationLocks.putIfAbsent(beanName, newLock);
+				if (lock == null) {
+					lock = newLock;
+				}
+			}
+			if (!acquireSingletonCreationLock(beanName, lock, wait)) {
+				return false;
+			}
+			if (this.singletonCreationLocks.get(beanName) == lock) {
+				return true;
+			}
+			// 等待期间这个锁已经随单例一起被移除了：释放旧锁，换用当前的锁重试
+			lock.unlock();
+		}
+	}
+
+	private boolean acquireSingletonCreationLock(String beanName, SingletonCreationLock lock, boolean wait) {
+		if (lock.tryLock()) {
+			return true;
+		}
+		if (!wait) {
+			return false;
+		}
+		Thread currentThread = Thread.currentThread();
+		this.threadsAwaitingCreationLock.put(currentThread, lock);
+		try {
+			while (!isAwaitingCurrentThread(lock, currentThread)) {
+				if (lock.tryLock(CREATION_LOCK_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Singleton bean '" + beanName + "' is being created by thread [" + lock.getOwnerThread() +
+						"] which waits for a bean currently in creation by this thread - a circular reference");
+			}
+			return false;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new BeanCreationException(beanName, "Interrupted while waiting for singleton creation in another thread");
+		}
+		finally {
+			this.threadsAwaitingCreationLock.remove(currentThread);
+		}
+	}
+
+	/**
+	 * Release the creation lock for the given singleton.
+	 * @param beanName the name of the bean
+	 * @since 3.2.9
+	 * @see #lockSingletonCreation
+	 */
+	protected void unlockSingletonCreation(String beanName) {
+		this.singletonCreationLocks.get(beanName).unlock();
+	}
+
+	// 移除单例的创建锁：只在当前线程能够独占这个锁时移除，持有或之后获取到旧锁的线程会发现锁已被移除
+	private void removeSingletonCreationLock(String beanName) {
+		SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+		if (lock != null && lock.tryLock()) {
+			try {
+				// 当前线程本来就持有这个锁（例如创建失败后销毁这个bean）时保留，解锁时还要用到
+				if (lock.getHoldCount() == 1) {
+					this.singletonCreationLocks.remove(beanName, lock);
+				}
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	// 判断持有该创建锁的线程是否（直接或间接地）在等待当前线程持有的创建锁
+	private boolean isAwaitingCurrentThread(SingletonCreationLock lock, Thread currentThread) {
+		Set<Thread> visitedThreads = new LinkedHashSet<Thread>(4);
+		Thread owner = lock.getOwnerThread();
+		while (owner != null && visitedThreads.add(owner)) {
+			if (owner == currentThread) {
+				return true;
+			}
+			SingletonCreationLock awaitedLock = this.threadsAwaitingCreationLock.get(owner);
+			if (awaitedLock == null) {
+				return false;
+			}
+			owner = awaitedLock.getOwnerThread();
+		}
+		return false;
 	}
 
 	// 注册 发生在singeton bean 实例创建之间发生的异常
 	protected void onSuppressedException(Exception ex) {
-		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null) {
-				this.suppressedExceptions.add(ex);
-			}
+		Set<Exception> suppressedExceptions = this.suppressedExceptions.get();
+		if (suppressedExceptions != null) {
+			suppressedExceptions.add(ex);
 		}
 	}
 
@@ -202,6 +356,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			this.earlySingletonObjects.remove(beanName);
 			this.registeredSingletons.remove(beanName);
 		}
+		removeSingletonCreationLock(beanName);
 	}
 
 	// 判断this.singletonObjects 是否包含这个bean
@@ -253,7 +408,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	protected void beforeSingletonCreation(String beanName) {
 		// 创建单例bean前，如果 inCreationCheckExclusions 里面没有这个这个bean，则把bean加入到 singletonsCurrentlyInCreation
 		if (!this.inCreationCheckExclusions.containsKey(beanName) &&
-				this.singletonsCurrentlyInCreation.put(beanName, Boolean.TRUE) != null) {
+				this.singletonsCurrentlyInCreation.put(beanName, Thread.currentThread()) != null) {
 			throw new BeanCurrentlyInCreationException(beanName);
 		}
 	}
@@ -261,7 +416,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	protected void afterSingletonCreation(String beanName) {
 		// 创建完单例bean后，如果 inCreationCheckExclusions 里面没有这个这个bean，则把这个bean从 singletonsCurrentlyInCreation 移除
 		if (!this.inCreationCheckExclusions.containsKey(beanName) &&
-				!this.singletonsCurrentlyInCreation.remove(beanName)) {
+				this.singletonsCurrentlyInCreation.remove(beanName) == null) {
 			throw new IllegalStateException("Singleton '" + beanName + "' isn't currently in creation");
 		}
 	}
@@ -368,6 +523,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			this.singletonFactories.clear();
 			this.earlySingletonObjects.clear();
 			this.registeredSingletons.clear();
+			for (String beanName : this.singletonCreationLocks.keySet()) {
+				removeSingletonCreationLock(beanName);
+			}
 			// 单例目前正在销毁标志为结束
 			this.singletonsCurrentlyInDestruction = false;
 		}
@@ -432,10 +590,12 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 	/**
 	 * Expose the singleton mutex to subclasses.
-	 * <p>Subclasses should synchronize on the given Object if they perform
-	 * any sort of extended singleton creation phase. In particular, subclasses
-	 * should <i>not</i> have their own mutexes involved in singleton creation,
-	 * to avoid the potential for deadlocks in lazy-init situations.
+	 * <p>The mutex only guards the singleton caches and must not be held while
+	 * creating a bean: subclasses that perform any sort of extended singleton
+	 * creation phase should use {@link #lockSingletonCreation} for the bean in
+	 * question instead. In particular, subclasses should <i>not</i> have their own
+	 * mutexes involved in singleton creation, to avoid the potential for deadlocks
+	 * in lazy-init situations.
 	 */
 	protected final Object getSingletonMutex() {
 		return this.singletonObjects;
@@ -453,4 +613,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			}
 		}
 	}
+
+
+	/**
+	 * Reentrant lock guarding the creation of a single singleton bean,
+	 * exposing its owner for deadlock detection.
+	 */
+	@SuppressWarnings("serial")
+	private static class SingletonCreationLock extends ReentrantLock {
+
+		public Thread getOwnerThread() {
+			return getOwner();
+		}
+	}
+
 }
@@ -21,8 +21,8 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanCreationException;
@@ -34,7 +34,7 @@ import org.springframework.beans.factory.FactoryBeanNotInitializedException;
 public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanRegistry {
 
 	// 缓存被工厂bean创建的单例对象，Map：FactoryBean name --> object
-	private final Map<String, Object> factoryBeanObjectCache = new ConcurrentHashMap<String, Object>(16);
+	private final ConcurrentMap<String, Object> factoryBeanObjectCache = new ConcurrentHashMap<String, Object>(16);
 
 	// 判断这个工厂bean创建的bean的类型
 	protected Class<?> getTypeForFactoryBean(final FactoryBean<?> factoryBean) {
@@ -66,14 +66,28 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 	// 根据beanName从给定的工厂bean中获取一个bean
 	protected Object getObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
 		if (factory.isSingleton() && containsSingleton(beanName)) {
-			synchronized (getSingletonMutex()) {
-				Object object = this.factoryBeanObjectCache.get(beanName);
-				if (object == null) {
-					object = doGetObjectFromFactoryBean(factory, beanName, shouldPostProcess);
-					this.factoryBeanObjectCache.put(beanName, (object != null ? object : NULL_OBJECT));
+			Object object = this.factoryBeanObjectCache.get(beanName);
+			if (object == null) {
+				// 只锁住这个FactoryBean的创建锁，而不是整个单例注册表
+				boolean locked = lockSingletonCreation(beanName, true);
+				try {
+					object = this.factoryBeanObjectCache.get(beanName);
+					if (object == null) {
+						object = doGetObjectFromFactoryBean(factory, beanName, shouldPostProcess);
+						Object alreadyThere = this.factoryBeanObjectCache.putIfAbsent(
+								beanName, (object != null ? object : NULL_OBJECT));
+						if (alreadyThere != null) {
+							object = alreadyThere;
+						}
+					}
+				}
+				finally {
+					if (locked) {
+						unlockSingletonCreation(beanName);
+					}
 				}
-				return (object != NULL_OBJECT ? object : null);
 			}
+			return (object != NULL_OBJECT ? object : null);
 		}
 		else {
 			return doGetObjectFromFactoryBean(factory, beanName, shouldPostProcess);
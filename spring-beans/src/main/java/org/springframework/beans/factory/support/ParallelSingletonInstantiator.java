@@ -0,0 +1,415 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+/**
+ * Pre-instantiates the non-lazy singletons of a {@link DefaultListableBeanFactory}
+ * concurrently on a given {@link Executor}, following the dependency graph
+ * declared by their bean definitions.
+ *
+ * <p>Dependencies are derived from "depends-on" declarations, factory bean
+ * names, bean references in property values and constructor arguments
+ * (including inner beans and collections) and the dependencies registered so
+ * far. Beans that form a cycle are grouped and created on a single thread in
+ * registration order, just like in sequential mode, so that circular references
+ * are resolved through early singleton references as usual. Dependencies that
+ * only show up at runtime (e.g. autowired fields) are simply created on demand
+ * by the thread that needs them.
+ *
+ * <p>{@link #preInstantiate} does not return before every singleton has been
+ * created, or every running task has finished after a failure, so that the
+ * caller's subsequent steps (e.g. publishing the context refresh event or
+ * destroying the singletons on failure) never overlap with bean creation.
+ *
+ * @since 3.2.9
+ * @see DefaultListableBeanFactory#setBootstrapExecutor
+ */
+class ParallelSingletonInstantiator {
+
+	private static final Log logger = LogFactory.getLog(ParallelSingletonInstantiator.class);
+
+	private final DefaultListableBeanFactory beanFactory;
+
+	private final Executor executor;
+
+	private final Object monitor = new Object();
+
+	private int pendingUnits;
+
+	private int runningTasks;
+
+	private Throwable failure;
+
+
+	public ParallelSingletonInstantiator(DefaultListableBeanFactory beanFactory, Executor executor) {
+		this.beanFactory = beanFactory;
+		this.executor = executor;
+	}
+
+
+	/**
+	 * Create the given singletons, honoring their declared dependencies.
+	 * @param beanNames the names of the non-lazy singletons, in registration order
+	 * @throws BeansException if any of the singletons could not be created
+	 */
+	public void preInstantiate(List<String> beanNames) throws BeansException {
+		List<Unit> units = buildUnits(beanNames);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pre-instantiating " + beanNames.size() + " singletons in " + units.size() +
+					" independent units on " + this.executor);
+		}
+		synchronized (this.monitor) {
+			this.pendingUnits = units.size();
+		}
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		for (Unit unit : units) {
+			if (unit.pendingDependencies.get() == 0) {
+				submit(unit, classLoader);
+			}
+		}
+		synchronized (this.monitor) {
+			while (this.pendingUnits > 0 && (this.failure == null || this.runningTasks > 0)) {
+				try {
+					this.monitor.wait();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					if (this.failure == null) {
+						this.failure = new FatalBeanException("Interrupted while pre-instantiating singletons", ex);
+					}
+				}
+			}
+			if (this.failure instanceof RuntimeException) {
+				throw (RuntimeException) this.failure;
+			}
+			if (this.failure instanceof Error) {
+				throw (Error) this.failure;
+			}
+			if (this.failure != null) {
+				throw new FatalBeanException("Singleton pre-instantiation failed", this.failure);
+			}
+		}
+	}
+
+	private void submit(final Unit unit, final ClassLoader classLoader) {
+		synchronized (this.monitor) {
+			if (this.failure != null) {
+				return;
+			}
+			this.runningTasks++;
+		}
+		try {
+			this.executor.execute(new Runnable() {
+				public void run() {
+					Thread currentThread = Thread.currentThread();
+					ClassLoader originalClassLoader = currentThread.getContextClassLoader();
+					currentThread.setContextClassLoader(classLoader);
+					try {
+						instantiate(unit);
+					}
+					catch (Throwable ex) {
+						onFailure(ex);
+						return;
+					}
+					finally {
+						currentThread.setContextClassLoader(originalClassLoader);
+					}
+					onCompletion(unit, classLoader);
+				}
+			});
+		}
+		catch (RuntimeException ex) {
+			// e.g. RejectedExecutionException from a saturated executor
+			onFailure(ex);
+		}
+	}
+
+	private void instantiate(Unit unit) {
+		for (String beanName : unit.beanNames) {
+			this.beanFactory.preInstantiateSingleton(beanName);
+		}
+	}
+
+	private void onCompletion(Unit unit, ClassLoader classLoader) {
+		for (Unit dependent : unit.dependents) {
+			if (dependent.pendingDependencies.decrementAndGet() == 0) {
+				submit(dependent, classLoader);
+			}
+		}
+		synchronized (this.monitor) {
+			this.pendingUnits--;
+			this.runningTasks--;
+			this.monitor.notifyAll();
+		}
+	}
+
+	private void onFailure(Throwable ex) {
+		synchronized (this.monitor) {
+			if (this.failure == null) {
+				this.failure = ex;
+			}
+			else if (logger.isDebugEnabled()) {
+				logger.debug("Singleton pre-instantiation failed in parallel as well", ex);
+			}
+			this.runningTasks--;
+			this.monitor.notifyAll();
+		}
+	}
+
+
+	/**
+	 * Group the given singletons into units along the strongly connected
+	 * components of their dependency graph, and link the units.
+	 */
+	private List<Unit> buildUnits(List<String> beanNames) {
+		Map<String, Set<String>> graph = new LinkedHashMap<String, Set<String>>(beanNames.size());
+		for (String beanName : beanNames) {
+			graph.put(beanName, null);
+		}
+		for (String beanName : beanNames) {
+			Set<String> dependencies = new LinkedHashSet<String>();
+			for (String dependency : collectDependencies(beanName)) {
+				if (!beanName.equals(dependency) && graph.containsKey(dependency)) {
+					dependencies.add(dependency);
+				}
+			}
+			graph.put(beanName, dependencies);
+		}
+
+		List<Unit> units = new ComponentFinder(graph).findComponents();
+		Map<String, Unit> unitsByBeanName = new HashMap<String, Unit>(beanNames.size());
+		for (Unit unit : units) {
+			for (String beanName : unit.beanNames) {
+				unitsByBeanName.put(beanName, unit);
+			}
+		}
+		for (Unit unit : units) {
+			Set<Unit> dependencyUnits = new LinkedHashSet<Unit>();
+			for (String beanName : unit.beanNames) {
+				for (String dependency : graph.get(beanName)) {
+					Unit dependencyUnit = unitsByBeanName.get(dependency);
+					if (dependencyUnit != unit) {
+						dependencyUnits.add(dependencyUnit);
+					}
+				}
+			}
+			unit.pendingDependencies.set(dependencyUnits.size());
+			for (Unit dependencyUnit : dependencyUnits) {
+				dependencyUnit.dependents.add(unit);
+			}
+		}
+		return units;
+	}
+
+	private Set<String> collectDependencies(String beanName) {
+		Set<String> dependencies = new LinkedHashSet<String>();
+		collectReferences(this.beanFactory.getMergedLocalBeanDefinition(beanName), dependencies);
+		for (String dependency : this.beanFactory.getDependenciesForBean(beanName)) {
+			dependencies.add(dependency);
+		}
+		Set<String> canonicalNames = new LinkedHashSet<String>(dependencies.size());
+		for (String dependency : dependencies) {
+			canonicalNames.add(this.beanFactory.canonicalName(BeanFactoryUtils.transformedBeanName(dependency)));
+		}
+		return canonicalNames;
+	}
+
+	private void collectReferences(Object value, Set<String> references) {
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference reference = (RuntimeBeanReference) value;
+			if (!reference.isToParent()) {
+				references.add(reference.getBeanName());
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectReferences(((BeanDefinitionHolder) value).getBeanDefinition(), references);
+		}
+		else if (value instanceof BeanDefinition) {
+			BeanDefinition bd = (BeanDefinition) value;
+			if (bd instanceof AbstractBeanDefinition && ((AbstractBeanDefinition) bd).getDependsOn() != null) {
+				for (String dependsOn : ((AbstractBeanDefinition) bd).getDependsOn()) {
+					references.add(dependsOn);
+				}
+			}
+			if (bd.getFactoryBeanName() != null) {
+				references.add(bd.getFactoryBeanName());
+			}
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				collectReferences(pv.getValue(), references);
+			}
+			ConstructorArgumentValues args = bd.getConstructorArgumentValues();
+			for (ConstructorArgumentValues.ValueHolder valueHolder : args.getIndexedArgumentValues().values()) {
+				collectReferences(valueHolder.getValue(), references);
+			}
+			for (ConstructorArgumentValues.ValueHolder valueHolder : args.getGenericArgumentValues()) {
+				collectReferences(valueHolder.getValue(), references);
+			}
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectReferences(element, references);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectReferences(entry.getKey(), references);
+				collectReferences(entry.getValue(), references);
+			}
+		}
+		else if (value instanceof Object[]) {
+			for (Object element : (Object[]) value) {
+				collectReferences(element, references);
+			}
+		}
+	}
+
+
+	/**
+	 * A group of singletons to be created on the same thread, in registration order.
+	 */
+	private static class Unit {
+
+		private final List<String> beanNames = new ArrayList<String>(1);
+
+		private final List<Unit> dependents = new ArrayList<Unit>(2);
+
+		private final AtomicInteger pendingDependencies = new AtomicInteger();
+	}
+
+
+	/**
+	 * Tarjan's algorithm for the strongly connected components of the
+	 * dependency graph, i.e. the groups of beans that depend on each other.
+	 */
+	private static class ComponentFinder {
+
+		private final Map<String, Set<String>> graph;
+
+		private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+		private final Map<String, Integer> lowLinks = new HashMap<String, Integer>();
+
+		private final List<String> stack = new ArrayList<String>();
+
+		private final Set<String> onStack = new LinkedHashSet<String>();
+
+		private final List<Unit> components = new ArrayList<Unit>();
+
+		private int index = 0;
+
+		public ComponentFinder(Map<String, Set<String>> graph) {
+			this.graph = graph;
+		}
+
+		public List<Unit> findComponents() {
+			for (String beanName : this.graph.keySet()) {
+				if (!this.indexes.containsKey(beanName)) {
+					visit(beanName);
+				}
+			}
+			return this.components;
+		}
+
+		// 迭代实现：依赖链很长时递归会导致栈溢出，这里用显式的栈保存每个bean尚未遍历的依赖
+		private void visit(String rootBeanName) {
+			List<String> path = new ArrayList<String>();
+			List<Iterator<String>> pendingDependencies = new ArrayList<Iterator<String>>();
+			push(rootBeanName, path, pendingDependencies);
+			while (!path.isEmpty()) {
+				int top = path.size() - 1;
+				String beanName = path.get(top);
+				Iterator<String> it = pendingDependencies.get(top);
+				if (it.hasNext()) {
+					String dependency = it.next();
+					if (!this.indexes.containsKey(dependency)) {
+						push(dependency, path, pendingDependencies);
+					}
+					else if (this.onStack.contains(dependency)) {
+						this.lowLinks.put(beanName, Math.min(this.lowLinks.get(beanName), this.indexes.get(dependency)));
+					}
+					continue;
+				}
+				path.remove(top);
+				pendingDependencies.remove(top);
+				if (top > 0) {
+					String caller = path.get(top - 1);
+					this.lowLinks.put(caller, Math.min(this.lowLinks.get(caller), this.lowLinks.get(beanName)));
+				}
+				if (this.lowLinks.get(beanName).equals(this.indexes.get(beanName))) {
+					popComponent(beanName);
+				}
+			}
+		}
+
+		private void push(String beanName, List<String> path, List<Iterator<String>> pendingDependencies) {
+			this.indexes.put(beanName, this.index);
+			this.lowLinks.put(beanName, this.index);
+			this.index++;
+			this.stack.add(beanName);
+			this.onStack.add(beanName);
+			path.add(beanName);
+			pendingDependencies.add(this.graph.get(beanName).iterator());
+		}
+
+		private void popComponent(String beanName) {
+			Unit unit = new Unit();
+			String member;
+			do {
+				member = this.stack.remove(this.stack.size() - 1);
+				this.onStack.remove(member);
+				unit.beanNames.add(member);
+			}
+			while (!member.equals(beanName));
+			if (unit.beanNames.size() > 1) {
+				// Create the members of a cycle in registration order, as in sequential mode
+				Set<String> members = new LinkedHashSet<String>(unit.beanNames);
+				unit.beanNames.clear();
+				for (String name : this.graph.keySet()) {
+					if (members.contains(name)) {
+						unit.beanNames.add(name);
+					}
+				}
+			}
+			this.components.add(unit);
+		}
+	}
+
+}
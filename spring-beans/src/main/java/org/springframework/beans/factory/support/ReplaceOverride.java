@@ -49,6 +49,11 @@ public class ReplaceOverride extends MethodOverride {
 		this.typeIdentifiers.add(identifier);
 	}
 
+	// 参数类型标识，供BeanDefinitionSnapshot写出
+	List<String> getTypeIdentifiers() {
+		return this.typeIdentifiers;
+	}
+
 
 	@Override
 	public boolean matches(Method method) {
@@ -43,6 +43,9 @@ public class RootBeanDefinition extends AbstractBeanDefinition {
 	// 表示bean实例创建时要使用的构造器
 	Object resolvedConstructorOrFactoryMethod;
 
+	// 非单例bean实例化时使用的构造器对应的FastConstructor（不能使用FastClass时为构造器本身）
+	volatile Object resolvedFastConstructor;
+
 	// 标识是否已经知道使用哪个构造器来进行实例化了
 	boolean constructorArgumentsResolved = false;
 
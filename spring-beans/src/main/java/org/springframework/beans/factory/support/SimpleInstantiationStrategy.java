@@ -19,6 +19,7 @@ package org.springframework.beans.factory.support;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedExceptionAction;
@@ -27,6 +28,8 @@ import org.springframework.beans.BeanInstantiationException;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.cglib.reflect.FastConstructor;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
@@ -86,7 +89,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 			}
 			// 通过BeanUtils进行实例化，这个BeanUtils的实例化通过Constructor来实例化bean，
 			// 在beanUtils中可以到具体的调用ctor.newInstance(args)
-			return BeanUtils.instantiateClass(constructorToUse);
+			return instantiateClass(beanDefinition, constructorToUse);
 		}
 		else {
 			// 使用cglib实例化对象
@@ -105,7 +108,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 					}
 				});
 			}
-			return BeanUtils.instantiateClass(ctor, args);
+			return instantiateClass(beanDefinition, ctor, args);
 		}
 		else {
 			return instantiateWithMethodInjection(beanDefinition, beanName, owner, ctor, args);
@@ -151,6 +154,47 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 		}
 	}
 
+	// 非单例bean（prototype、request等作用域）会被反复创建：公共类的公共构造器通过CGLIB生成的FastClass直接调用，
+	// 而不是通过Constructor.newInstance反射调用
+	private Object instantiateClass(RootBeanDefinition beanDefinition, Constructor<?> ctor, Object... args) {
+		if (!beanDefinition.isSingleton() && System.getSecurityManager() == null) {
+			FastConstructor fastConstructor = getFastConstructor(beanDefinition, ctor);
+			if (fastConstructor != null) {
+				try {
+					return fastConstructor.newInstance(args);
+				}
+				catch (InvocationTargetException ex) {
+					throw new BeanInstantiationException(ctor.getDeclaringClass(), "Constructor threw exception",
+							ex.getTargetException());
+				}
+			}
+		}
+		return BeanUtils.instantiateClass(ctor, args);
+	}
+	// 返回（缓存在bean definition中的）给定构造器的FastConstructor；不能使用时缓存构造器本身作为标记并返回null
+	private FastConstructor getFastConstructor(RootBeanDefinition beanDefinition, Constructor<?> ctor) {
+		Object cached = beanDefinition.resolvedFastConstructor;
+		if (cached instanceof FastConstructor && ((FastConstructor) cached).getJavaConstructor().equals(ctor)) {
+			return (FastConstructor) cached;
+		}
+		if (ctor.equals(cached)) {
+			return null;
+		}
+		FastConstructor fastConstructor = null;
+		Class<?> clazz = ctor.getDeclaringClass();
+		if (Modifier.isPublic(ctor.getModifiers()) && Modifier.isPublic(clazz.getModifiers()) &&
+				!Modifier.isAbstract(clazz.getModifiers())) {
+			try {
+				fastConstructor = FastClass.create(clazz).getConstructor(ctor);
+			}
+			catch (Throwable ex) {
+				// 无法生成FastClass（例如类加载器不允许定义新的类）：使用反射
+			}
+		}
+		beanDefinition.resolvedFastConstructor = (fastConstructor != null ? fastConstructor : ctor);
+		return fastConstructor;
+	}
+
 	// 使用无参构造器来实例化，使用给定的RootBeanDefinition中指定的方法注入一个实例化对象，默认抛出一个异常，子类可以覆盖这个方法。
 	protected Object instantiateWithMethodInjection(RootBeanDefinition beanDefinition, String beanName, BeanFactory owner) {
 		throw new UnsupportedOperationException("Method Injection not supported in SimpleInstantiationStrategy");
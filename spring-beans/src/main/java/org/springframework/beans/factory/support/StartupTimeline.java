@@ -0,0 +1,471 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Timeline of a container startup: the phases of a context refresh (or any
+ * other named steps, possibly nested) and every bean instance created by an
+ * {@link AbstractAutowireCapableBeanFactory} that the timeline has been
+ * {@link AbstractAutowireCapableBeanFactory#setStartupTimeline set on}.
+ *
+ * <p>For each bean creation, the time spent instantiating the bean, populating
+ * its properties, invoking its initialization callbacks and applying
+ * post-processors is recorded, along with the chain of bean creations that
+ * triggered it on the same thread. Note that all of these durations include
+ * the creation of any beans that were created as a consequence (typically
+ * dependencies resolved while populating the bean); the total duration of
+ * those is available as {@link BeanCreation#getNestedNanos() nested} time.
+ *
+ * <p>Recording is thread-safe and cheap, but every step is kept in memory:
+ * a timeline is meant to be attached for the duration of a startup, not
+ * for the entire lifetime of a factory with many prototype beans.
+ * Without a timeline, the factory does not record anything at all.
+ *
+ * @since 3.2.9
+ * @see AbstractAutowireCapableBeanFactory#setStartupTimeline
+ * @see #toJson()
+ */
+public class StartupTimeline {
+
+	// 时间线的起点：所有步骤的开始时间都是相对于这个时刻的偏移量
+	private final long startNanos = System.nanoTime();
+
+	private final long startTime = System.currentTimeMillis();
+
+	private final List<Phase> phases = new ArrayList<Phase>();
+
+	private final List<BeanCreation> beanCreations = new ArrayList<BeanCreation>();
+
+	// 每个线程上当前正在进行的阶段和bean创建，用于记录嵌套关系和触发创建的依赖链
+	private final ThreadLocal<Phase> currentPhase = new ThreadLocal<Phase>();
+
+	private final ThreadLocal<BeanCreation> currentBeanCreation = new ThreadLocal<BeanCreation>();
+
+
+	/**
+	 * Return the wall clock time that this timeline started at.
+	 */
+	public long getStartTime() {
+		return this.startTime;
+	}
+
+	/**
+	 * Start a new phase, nested within the phase currently running on this thread (if any).
+	 * @param name the name of the phase
+	 * @return the phase, to be {@link Phase#end() ended} by the caller
+	 */
+	public Phase startPhase(String name) {
+		return startPhase(name, null);
+	}
+
+	/**
+	 * Start a new phase, nested within the phase currently running on this thread (if any).
+	 * @param name the name of the phase
+	 * @param detail further detail, such as the post-processor or base packages
+	 * that the phase applies to (may be {@code null})
+	 * @return the phase, to be {@link Phase#end() ended} by the caller
+	 */
+	public Phase startPhase(String name, String detail) {
+		Phase parent = this.currentPhase.get();
+		synchronized (this.phases) {
+			Phase phase = new Phase(this.phases.size(), name, detail, parent, System.nanoTime());
+			this.phases.add(phase);
+			this.currentPhase.set(phase);
+			return phase;
+		}
+	}
+
+	/**
+	 * Return all phases recorded so far, in the order they have been started.
+	 */
+	public List<Phase> getPhases() {
+		synchronized (this.phases) {
+			return new ArrayList<Phase>(this.phases);
+		}
+	}
+
+	/**
+	 * Start recording the creation of the given bean, triggered by the
+	 * creation currently running on this thread (if any).
+	 * @return the bean creation, to be {@link BeanCreation#finish() finished} by the caller
+	 */
+	BeanCreation startBeanCreation(String beanName) {
+		BeanCreation triggeredBy = this.currentBeanCreation.get();
+		BeanCreation creation = new BeanCreation(beanName, triggeredBy, System.nanoTime());
+		synchronized (this.beanCreations) {
+			this.beanCreations.add(creation);
+		}
+		this.currentBeanCreation.set(creation);
+		return creation;
+	}
+
+	/**
+	 * Return the bean creation currently running on this thread, if any.
+	 */
+	BeanCreation getCurrentBeanCreation() {
+		return this.currentBeanCreation.get();
+	}
+
+	/**
+	 * Return all bean creations recorded so far, in the order they have been started.
+	 */
+	public List<BeanCreation> getBeanCreations() {
+		synchronized (this.beanCreations) {
+			return new ArrayList<BeanCreation>(this.beanCreations);
+		}
+	}
+
+	private long toMicros(long nanos) {
+		return (nanos >= 0 ? nanos / 1000 : -1);
+	}
+
+
+	/**
+	 * Render this timeline as a JSON document.
+	 * <p>Produces an object with a {@code startTime} attribute (in milliseconds
+	 * since the epoch) as well as a {@code phases} and a {@code beans} attribute
+	 * with nested step objects. All times within those are in microseconds,
+	 * relative to the start of the timeline; steps that have not completed yet
+	 * have a {@code duration} of {@code null}. A phase refers to the phase that
+	 * it is nested in by the parent's index in the {@code phases} array; a bean
+	 * creation lists the names of the beans that triggered it, starting with
+	 * the outermost one, as its {@code triggeredBy} attribute.
+	 */
+	public String toJson() {
+		StringBuilder result = new StringBuilder("{\n\"startTime\": ").append(this.startTime).append(",\n");
+		result.append("\"phases\": [");
+		List<Phase> phases = getPhases();
+		for (int i = 0; i < phases.size(); i++) {
+			Phase phase = phases.get(i);
+			result.append(i > 0 ? ",\n" : "\n");
+			result.append("{\"name\": ").append(quote(phase.getName()));
+			result.append(", \"detail\": ").append(quote(phase.getDetail()));
+			result.append(", \"parent\": ").append(phase.getParent() != null ? phase.getParent().index : null);
+			result.append(", \"thread\": ").append(quote(phase.getThreadName()));
+			result.append(", \"start\": ").append(toMicros(phase.getStartNanos()));
+			result.append(", \"duration\": ").append(phase.isEnded() ? toMicros(phase.getDurationNanos()) : null);
+			result.append("}");
+		}
+		result.append("\n],\n\"beans\": [");
+		List<BeanCreation> beanCreations = getBeanCreations();
+		for (int i = 0; i < beanCreations.size(); i++) {
+			BeanCreation creation = beanCreations.get(i);
+			boolean finished = creation.isFinished();
+			result.append(i > 0 ? ",\n" : "\n");
+			result.append("{\"bean\": ").append(quote(creation.getBeanName()));
+			result.append(", \"type\": ").append(quote(creation.getBeanType() != null ? creation.getBeanType().getName() : null));
+			result.append(", \"thread\": ").append(quote(creation.getThreadName()));
+			result.append(", \"start\": ").append(toMicros(creation.getStartNanos()));
+			result.append(", \"duration\": ").append(finished ? toMicros(creation.getDurationNanos()) : null);
+			result.append(", \"instantiate\": ").append(toMicros(creation.getInstantiateNanos()));
+			result.append(", \"populate\": ").append(toMicros(creation.getPopulateNanos()));
+			result.append(", \"initialize\": ").append(toMicros(creation.getInitializeNanos()));
+			result.append(", \"postProcess\": ").append(toMicros(creation.getPostProcessNanos()));
+			result.append(", \"nested\": ").append(toMicros(creation.getNestedNanos()));
+			result.append(", \"triggeredBy\": [");
+			List<String> chain = creation.getDependencyChain();
+			for (int j = 0; j < chain.size(); j++) {
+				result.append(j > 0 ? ", " : "").append(quote(chain.get(j)));
+			}
+			result.append("]}");
+		}
+		result.append("\n]\n}");
+		return result.toString();
+	}
+
+	private static String quote(String value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + ": " + getPhases().size() + " phases, " +
+				getBeanCreations().size() + " bean creations";
+	}
+
+
+	/**
+	 * A named step of the startup, e.g. a phase of a context refresh.
+	 */
+	public class Phase {
+
+		private final int index;
+
+		private final String name;
+
+		private final String detail;
+
+		private final Phase parent;
+
+		private final String threadName;
+
+		private final long start;
+
+		private volatile long duration = -1;
+
+		private Phase(int index, String name, String detail, Phase parent, long start) {
+			this.index = index;
+			this.name = name;
+			this.detail = detail;
+			this.parent = parent;
+			this.threadName = Thread.currentThread().getName();
+			this.start = start;
+		}
+
+		/**
+		 * End this phase, unless it has been ended already.
+		 * To be called on the thread that started it.
+		 */
+		public void end() {
+			if (this.duration < 0) {
+				this.duration = System.nanoTime() - this.start;
+			}
+			currentPhase.set(this.parent);
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public String getDetail() {
+			return this.detail;
+		}
+
+		/**
+		 * Return the phase that this phase is nested in, if any.
+		 */
+		public Phase getParent() {
+			return this.parent;
+		}
+
+		public String getThreadName() {
+			return this.threadName;
+		}
+
+		/**
+		 * Return the start of this phase, in nanoseconds since the start of the timeline.
+		 */
+		public long getStartNanos() {
+			return this.start - startNanos;
+		}
+
+		public boolean isEnded() {
+			return (this.duration >= 0);
+		}
+
+		/**
+		 * Return the duration of this phase in nanoseconds, or -1 if it has not ended yet.
+		 */
+		public long getDurationNanos() {
+			return this.duration;
+		}
+	}
+
+
+	/**
+	 * The creation of a single bean instance.
+	 */
+	public class BeanCreation {
+
+		private final String beanName;
+
+		private final BeanCreation triggeredBy;
+
+		private final String threadName;
+
+		private final long start;
+
+		// 上一个阶段结束的时刻：各阶段耗时都是与它的差值，只在创建bean的线程上访问
+		private long lastMark;
+
+		private volatile Class<?> beanType;
+
+		private volatile long instantiate;
+
+		private volatile long populate;
+
+		private volatile long initialize;
+
+		private volatile long postProcess;
+
+		private volatile long nested;
+
+		private volatile long duration = -1;
+
+		private BeanCreation(String beanName, BeanCreation triggeredBy, long start) {
+			this.beanName = beanName;
+			this.triggeredBy = triggeredBy;
+			this.threadName = Thread.currentThread().getName();
+			this.start = start;
+			this.lastMark = start;
+		}
+
+		private long lap() {
+			long now = System.nanoTime();
+			long elapsed = now - this.lastMark;
+			this.lastMark = now;
+			return elapsed;
+		}
+
+		/**
+		 * Mark the end of the instantiation of the bean, attributing the time since
+		 * the previous mark to it.
+		 */
+		void markInstantiated(Class<?> beanType) {
+			this.beanType = beanType;
+			this.instantiate += lap();
+		}
+
+		/**
+		 * Mark the end of the population of the bean, attributing the time since
+		 * the previous mark to it.
+		 */
+		void markPopulated() {
+			this.populate += lap();
+		}
+
+		/**
+		 * Mark the end of (a part of) the initialization of the bean, attributing
+		 * the time since the previous mark to it.
+		 */
+		void markInitialized() {
+			this.initialize += lap();
+		}
+
+		/**
+		 * Mark the end of (a part of) the post-processing of the bean, attributing
+		 * the time since the previous mark to it.
+		 */
+		void markPostProcessed() {
+			this.postProcess += lap();
+		}
+
+		/**
+		 * Finish this bean creation, successfully or not. To be called on the
+		 * thread that started it.
+		 */
+		void finish() {
+			this.duration = System.nanoTime() - this.start;
+			if (this.triggeredBy != null) {
+				this.triggeredBy.nested += this.duration;
+			}
+			currentBeanCreation.set(this.triggeredBy);
+		}
+
+		public String getBeanName() {
+			return this.beanName;
+		}
+
+		/**
+		 * Return the type of the bean instance, or {@code null} if it has not been
+		 * instantiated (yet), or has been provided by a post-processor instead.
+		 */
+		public Class<?> getBeanType() {
+			return this.beanType;
+		}
+
+		/**
+		 * Return the creation that triggered this one on the same thread, if any.
+		 */
+		public BeanCreation getTriggeredBy() {
+			return this.triggeredBy;
+		}
+
+		/**
+		 * Return the names of the beans whose creation triggered this one,
+		 * starting with the outermost one.
+		 */
+		public List<String> getDependencyChain() {
+			if (this.triggeredBy == null) {
+				return Collections.emptyList();
+			}
+			LinkedList<String> chain = new LinkedList<String>();
+			for (BeanCreation creation = this.triggeredBy; creation != null; creation = creation.triggeredBy) {
+				chain.addFirst(creation.beanName);
+			}
+			return chain;
+		}
+
+		public String getThreadName() {
+			return this.threadName;
+		}
+
+		/**
+		 * Return the start of this creation, in nanoseconds since the start of the timeline.
+		 */
+		public long getStartNanos() {
+			return this.start - startNanos;
+		}
+
+		public boolean isFinished() {
+			return (this.duration >= 0);
+		}
+
+		/**
+		 * Return the total duration of this creation in nanoseconds,
+		 * or -1 if it has not finished yet.
+		 */
+		public long getDurationNanos() {
+			return this.duration;
+		}
+
+		public long getInstantiateNanos() {
+			return this.instantiate;
+		}
+
+		public long getPopulateNanos() {
+			return this.populate;
+		}
+
+		public long getInitializeNanos() {
+			return this.initialize;
+		}
+
+		public long getPostProcessNanos() {
+			return this.postProcess;
+		}
+
+		/**
+		 * Return the total duration of the creations triggered by this one, in nanoseconds.
+		 */
+		public long getNestedNanos() {
+			return this.nested;
+		}
+	}
+
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.validation.ValidatorHandler;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link DefaultBeanDefinitionDocumentReader} that pulls the top-level elements
+ * of the root {@code <beans>} element from a StAX stream one at a time, rather
+ * than iterating over a fully loaded DOM. Used by {@link StaxXmlBeanDefinitionReader}.
+ *
+ * <p>The stream events are passed through an (optional) schema
+ * {@link ValidatorHandler} - validating the document in a single pass and adding
+ * XSD default attributes, just like a validating DOM parser - and then turned into
+ * DOM nodes. Each top-level element is materialized underneath a childless copy of
+ * the root element (so that namespace declarations and {@code default-*} attributes
+ * of the root remain visible), processed by the standard algorithm and detached
+ * again right away.
+ *
+ * @since 3.2.9
+ */
+class StaxBeanDefinitionDocumentReader extends DefaultBeanDefinitionDocumentReader {
+
+	private final XMLStreamReader streamReader;
+
+	private final DomFragmentBuilder fragmentBuilder = new DomFragmentBuilder();
+
+	// StAX事件的接收方：有校验时先经过ValidatorHandler，再由它转交给fragmentBuilder
+	private final ContentHandler contentHandler;
+
+	// 流式解析的根元素：只有属性和命名空间声明，子元素在解析时逐个挂上去、处理完后再摘掉
+	private Element streamRoot;
+
+
+	/**
+	 * Create a new StaxBeanDefinitionDocumentReader.
+	 * @param streamReader the StAX reader, positioned at the root element
+	 * @param validatorHandler the schema ValidatorHandler to pass all stream
+	 * events through (may be {@code null} for no validation)
+	 */
+	public StaxBeanDefinitionDocumentReader(XMLStreamReader streamReader, ValidatorHandler validatorHandler) {
+		this.streamReader = streamReader;
+		if (validatorHandler != null) {
+			validatorHandler.setContentHandler(this.fragmentBuilder);
+			this.contentHandler = validatorHandler;
+		}
+		else {
+			this.contentHandler = this.fragmentBuilder;
+		}
+	}
+
+
+	/**
+	 * Read the root element from the stream into the given (empty) document and
+	 * register the bean definitions found in the rest of the stream.
+	 */
+	@Override
+	public void registerBeanDefinitions(Document doc, XmlReaderContext readerContext) {
+		this.fragmentBuilder.setDocument(doc);
+		try {
+			this.contentHandler.setDocumentLocator(new StreamLocator());
+			this.contentHandler.startDocument();
+			fireEvent(XMLStreamConstants.START_ELEMENT);
+			Element root = doc.getDocumentElement();
+			if (BeanDefinitionParserDelegate.BEANS_NAMESPACE_URI.equals(root.getNamespaceURI())) {
+				this.streamRoot = root;
+			}
+			else {
+				// 根元素属于自定义命名空间：整个文档交给对应的NamespaceHandler，只能完整构建DOM
+				while (this.fragmentBuilder.isOpen()) {
+					fireEvent(this.streamReader.next());
+				}
+				this.contentHandler.endDocument();
+			}
+		}
+		catch (XMLStreamException ex) {
+			throw streamFailure(ex, readerContext);
+		}
+		catch (SAXException ex) {
+			throw validationFailure(ex, readerContext);
+		}
+		super.registerBeanDefinitions(doc, readerContext);
+	}
+
+	@Override
+	protected void parseBeanDefinitions(Element root, BeanDefinitionParserDelegate delegate) {
+		if (root != this.streamRoot) {
+			super.parseBeanDefinitions(root, delegate);
+			return;
+		}
+		try {
+			while (this.fragmentBuilder.isOpen()) {
+				fireEvent(this.streamReader.next());
+				if (this.fragmentBuilder.takeCompletedElement() != null) {
+					try {
+						super.parseBeanDefinitions(root, delegate);
+					}
+					finally {
+						while (root.hasChildNodes()) {
+							root.removeChild(root.getFirstChild());
+						}
+					}
+				}
+			}
+			this.contentHandler.endDocument();
+		}
+		catch (XMLStreamException ex) {
+			throw streamFailure(ex, getReaderContext());
+		}
+		catch (SAXException ex) {
+			throw validationFailure(ex, getReaderContext());
+		}
+	}
+
+
+	/**
+	 * Translate the current StAX event into the corresponding SAX event(s).
+	 */
+	private void fireEvent(int eventType) throws SAXException {
+		XMLStreamReader reader = this.streamReader;
+		switch (eventType) {
+			case XMLStreamConstants.START_ELEMENT:
+				for (int i = 0; i < reader.getNamespaceCount(); i++) {
+					this.contentHandler.startPrefixMapping(
+							nullToEmpty(reader.getNamespacePrefix(i)), nullToEmpty(reader.getNamespaceURI(i)));
+				}
+				AttributesImpl attributes = new AttributesImpl();
+				for (int i = 0; i < reader.getAttributeCount(); i++) {
+					attributes.addAttribute(nullToEmpty(reader.getAttributeNamespace(i)), reader.getAttributeLocalName(i),
+							qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+							reader.getAttributeType(i), reader.getAttributeValue(i));
+				}
+				this.contentHandler.startElement(nullToEmpty(reader.getNamespaceURI()), reader.getLocalName(),
+						qualifiedName(reader.getPrefix(), reader.getLocalName()), attributes);
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				this.contentHandler.endElement(nullToEmpty(reader.getNamespaceURI()), reader.getLocalName(),
+						qualifiedName(reader.getPrefix(), reader.getLocalName()));
+				for (int i = 0; i < reader.getNamespaceCount(); i++) {
+					this.contentHandler.endPrefixMapping(nullToEmpty(reader.getNamespacePrefix(i)));
+				}
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.SPACE:
+			case XMLStreamConstants.CDATA:
+				this.contentHandler.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				break;
+			default:
+				// comments, processing instructions etc. are not relevant for bean definitions
+		}
+	}
+
+	private BeanDefinitionStoreException streamFailure(XMLStreamException ex, XmlReaderContext readerContext) {
+		String line = (ex.getLocation() != null ? "Line " + ex.getLocation().getLineNumber() + " in " : "");
+		return new BeanDefinitionStoreException(readerContext.getResource().getDescription(),
+				line + "XML document from " + readerContext.getResource() + " is invalid", ex);
+	}
+
+	private BeanDefinitionStoreException validationFailure(SAXException ex, XmlReaderContext readerContext) {
+		String line = (ex instanceof SAXParseException ?
+				"Line " + ((SAXParseException) ex).getLineNumber() + " in " : "");
+		return new XmlBeanDefinitionStoreException(readerContext.getResource().getDescription(),
+				line + "XML document from " + readerContext.getResource() + " is invalid", ex);
+	}
+
+	private static String qualifiedName(String prefix, String localName) {
+		return (StringUtils.hasLength(prefix) ? prefix + ":" + localName : localName);
+	}
+
+	private static String nullToEmpty(String value) {
+		return (value != null ? value : "");
+	}
+
+
+	/**
+	 * SAX ContentHandler that builds DOM nodes for the (validated) events,
+	 * keeping track of completed top-level elements.
+	 */
+	private static class DomFragmentBuilder extends DefaultHandler {
+
+		private Document document;
+
+		private Node current;
+
+		private Element completedElement;
+
+		// 当前元素上新声明的命名空间，作为xmlns属性保留在DOM中（自定义NamespaceHandler可能会用到）
+		private final AttributesImpl pendingNamespaces = new AttributesImpl();
+
+		public void setDocument(Document document) {
+			this.document = document;
+			this.current = document;
+		}
+
+		/**
+		 * Return whether the root element has been started but not ended yet.
+		 */
+		public boolean isOpen() {
+			return (this.current != null && this.current != this.document);
+		}
+
+		/**
+		 * Return the top-level element that has been completed by the last event, if any.
+		 */
+		public Element takeCompletedElement() {
+			Element ele = this.completedElement;
+			this.completedElement = null;
+			return ele;
+		}
+
+		@Override
+		public void startPrefixMapping(String prefix, String uri) {
+			this.pendingNamespaces.addAttribute(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, prefix,
+					(prefix.length() > 0 ? XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix : XMLConstants.XMLNS_ATTRIBUTE),
+					"CDATA", uri);
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes) {
+			Element ele = this.document.createElementNS((uri.length() > 0 ? uri : null), qName);
+			for (int i = 0; i < this.pendingNamespaces.getLength(); i++) {
+				ele.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+						this.pendingNamespaces.getQName(i), this.pendingNamespaces.getValue(i));
+			}
+			this.pendingNamespaces.clear();
+			for (int i = 0; i < attributes.getLength(); i++) {
+				String attrUri = attributes.getURI(i);
+				String attrName = attributes.getQName(i);
+				ele.setAttributeNS((attrUri.length() > 0 ? attrUri : null),
+						(attrName.length() > 0 ? attrName : attributes.getLocalName(i)), attributes.getValue(i));
+			}
+			this.current.appendChild(ele);
+			this.current = ele;
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) {
+			Node parent = this.current.getParentNode();
+			if (parent == this.document.getDocumentElement()) {
+				this.completedElement = (Element) this.current;
+			}
+			this.current = parent;
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			this.current.appendChild(this.document.createTextNode(new String(ch, start, length)));
+		}
+	}
+
+
+	/**
+	 * SAX Locator view on the current position of the StAX stream,
+	 * for line numbers in validation errors.
+	 */
+	private class StreamLocator implements Locator {
+
+		public String getPublicId() {
+			return streamReader.getLocation().getPublicId();
+		}
+
+		public String getSystemId() {
+			return streamReader.getLocation().getSystemId();
+		}
+
+		public int getLineNumber() {
+			return streamReader.getLocation().getLineNumber();
+		}
+
+		public int getColumnNumber() {
+			return streamReader.getLocation().getColumnNumber();
+		}
+	}
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.ValidatorHandler;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSInput;
+import org.w3c.dom.ls.LSResourceResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link XmlBeanDefinitionReader} variant that streams XML bean definition files
+ * through StAX instead of loading them into a complete DOM first.
+ *
+ * <p>The document is read one top-level element at a time: each {@code <bean>},
+ * {@code <alias>}, {@code <import>}, nested {@code <beans>} or custom namespace
+ * element is turned into a small DOM fragment, handed to the regular
+ * {@link BeanDefinitionParserDelegate} / {@link NamespaceHandler} infrastructure
+ * and discarded again. Custom namespace handlers therefore still receive DOM
+ * elements - but only for their own elements, and never the whole document.
+ *
+ * <p>XSD validation is performed on the fly, in the same single pass over the
+ * stream, against schemas that are compiled once per distinct
+ * {@code xsi:schemaLocation} and cached by this reader - instead of being
+ * re-parsed for every document (including all imported ones).
+ *
+ * <p>DTD-based documents, documents that are not namespace-aware, and documents
+ * with a root element outside of the "beans" namespace are loaded via the
+ * standard DOM-based algorithm. A custom
+ * {@link #setDocumentReaderClass document reader class} only applies to those.
+ *
+ * @since 3.2.9
+ * @see XmlBeanDefinitionReader
+ */
+public class StaxXmlBeanDefinitionReader extends XmlBeanDefinitionReader {
+
+	private static final String SCHEMA_INSTANCE_NS = XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI;
+
+	private static final String SCHEMA_LOCATION_ATTRIBUTE = "schemaLocation";
+
+
+	private final XMLInputFactory inputFactory;
+
+	private final DocumentBuilderFactory documentBuilderFactory;
+
+	// 编译好的schema，按xsi:schemaLocation缓存：同一个reader加载的所有（import的）配置文件共享
+	private final Map<String, Schema> schemaCache = new ConcurrentHashMap<String, Schema>(8);
+
+
+	/**
+	 * Create new StaxXmlBeanDefinitionReader for the given bean factory.
+	 * @param registry the BeanFactory to load bean definitions into,
+	 * in the form of a BeanDefinitionRegistry
+	 */
+	public StaxXmlBeanDefinitionReader(BeanDefinitionRegistry registry) {
+		super(registry);
+		this.inputFactory = XMLInputFactory.newInstance();
+		this.inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		this.inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		this.inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		this.documentBuilderFactory = DocumentBuilderFactory.newInstance();
+		this.documentBuilderFactory.setNamespaceAware(true);
+	}
+
+
+	@Override
+	protected int doLoadBeanDefinitions(InputSource inputSource, Resource resource) throws BeanDefinitionStoreException {
+		int validationMode = getValidationModeForResource(resource);
+		if (validationMode == VALIDATION_DTD || (validationMode == VALIDATION_NONE && !isNamespaceAware())) {
+			return super.doLoadBeanDefinitions(inputSource, resource);
+		}
+		try {
+			XMLStreamReader streamReader = createStreamReader(inputSource);
+			try {
+				Document document = this.documentBuilderFactory.newDocumentBuilder().newDocument();
+				StaxBeanDefinitionDocumentReader documentReader = new StaxBeanDefinitionDocumentReader(
+						streamReader, (validationMode == VALIDATION_XSD ? createValidatorHandler(streamReader) : null));
+				documentReader.setEnvironment(getEnvironment());
+				int countBefore = getRegistry().getBeanDefinitionCount();
+				documentReader.registerBeanDefinitions(document, createReaderContext(resource));
+				return getRegistry().getBeanDefinitionCount() - countBefore;
+			}
+			finally {
+				streamReader.close();
+			}
+		}
+		catch (BeanDefinitionStoreException ex) {
+			throw ex;
+		}
+		catch (XMLStreamException ex) {
+			String line = (ex.getLocation() != null ? "Line " + ex.getLocation().getLineNumber() + " in " : "");
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					line + "XML document from " + resource + " is invalid", ex);
+		}
+		catch (SAXException ex) {
+			throw new XmlBeanDefinitionStoreException(resource.getDescription(),
+					"XML document from " + resource + " is invalid", ex);
+		}
+		catch (ParserConfigurationException ex) {
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					"Parser configuration exception parsing XML from " + resource, ex);
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					"IOException parsing XML document from " + resource, ex);
+		}
+		catch (Throwable ex) {
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					"Unexpected exception parsing XML document from " + resource, ex);
+		}
+	}
+
+	/**
+	 * Create a namespace-aware StAX reader for the given input source,
+	 * positioned at the start of the root element.
+	 */
+	private XMLStreamReader createStreamReader(InputSource inputSource) throws XMLStreamException {
+		XMLStreamReader streamReader;
+		Reader characterStream = inputSource.getCharacterStream();
+		InputStream byteStream = inputSource.getByteStream();
+		if (characterStream != null) {
+			streamReader = this.inputFactory.createXMLStreamReader(characterStream);
+		}
+		else if (byteStream != null) {
+			streamReader = (inputSource.getEncoding() != null ?
+					this.inputFactory.createXMLStreamReader(byteStream, inputSource.getEncoding()) :
+					this.inputFactory.createXMLStreamReader(byteStream));
+		}
+		else {
+			streamReader = this.inputFactory.createXMLStreamReader(new StreamSource(inputSource.getSystemId()));
+		}
+		streamReader.nextTag();
+		return streamReader;
+	}
+
+	/**
+	 * Create a ValidatorHandler for the schemas referenced by the root element
+	 * that the given stream reader is positioned at.
+	 */
+	private ValidatorHandler createValidatorHandler(XMLStreamReader streamReader) throws SAXException, IOException {
+		String schemaLocation = streamReader.getAttributeValue(SCHEMA_INSTANCE_NS, SCHEMA_LOCATION_ATTRIBUTE);
+		String[] tokens = StringUtils.tokenizeToStringArray(schemaLocation, " \t\r\n");
+		if (tokens.length == 0) {
+			// 没有声明schema：与DOM方式一样，没有可以用来校验的语法
+			return null;
+		}
+		String cacheKey = StringUtils.arrayToDelimitedString(tokens, " ");
+		Schema schema = this.schemaCache.get(cacheKey);
+		if (schema == null) {
+			schema = compileSchema(tokens);
+			this.schemaCache.put(cacheKey, schema);
+		}
+		ValidatorHandler validatorHandler = schema.newValidatorHandler();
+		validatorHandler.setErrorHandler(getErrorHandler());
+		return validatorHandler;
+	}
+
+	private Schema compileSchema(String[] schemaLocationTokens) throws SAXException, IOException {
+		List<Source> sources = new ArrayList<Source>(schemaLocationTokens.length / 2);
+		for (int i = 1; i < schemaLocationTokens.length; i += 2) {
+			String systemId = schemaLocationTokens[i];
+			InputSource inputSource = getEntityResolver().resolveEntity(null, systemId);
+			if (inputSource != null && inputSource.getByteStream() != null) {
+				sources.add(new StreamSource(inputSource.getByteStream(), systemId));
+			}
+			else {
+				sources.add(new StreamSource(systemId));
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Compiling XML schemas " + StringUtils.arrayToCommaDelimitedString(schemaLocationTokens));
+		}
+		SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		schemaFactory.setErrorHandler(getErrorHandler());
+		schemaFactory.setResourceResolver(new EntityResolverResourceResolver());
+		return schemaFactory.newSchema(sources.toArray(new Source[sources.size()]));
+	}
+
+
+	/**
+	 * Adapts this reader's EntityResolver to the LSResourceResolver contract,
+	 * resolving schemas imported by other schemas (e.g. "spring-tool.xsd").
+	 */
+	private class EntityResolverResourceResolver implements LSResourceResolver {
+
+		public LSInput resolveResource(String type, String namespaceURI, String publicId, String systemId, String baseURI) {
+			if (systemId == null) {
+				return null;
+			}
+			try {
+				InputSource inputSource = getEntityResolver().resolveEntity(publicId, systemId);
+				if (inputSource == null || inputSource.getByteStream() == null) {
+					return null;
+				}
+				DOMImplementationLS domImplementation = (DOMImplementationLS)
+						documentBuilderFactory.newDocumentBuilder().getDOMImplementation().getFeature("LS", "3.0");
+				LSInput input = domImplementation.createLSInput();
+				input.setByteStream(inputSource.getByteStream());
+				input.setPublicId(publicId);
+				input.setSystemId(systemId);
+				input.setBaseURI(baseURI);
+				return input;
+			}
+			catch (Exception ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Could not resolve XML schema [" + systemId + "] locally", ex);
+				}
+				return null;
+			}
+		}
+	}
+
+}
@@ -282,6 +282,9 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 	public void setErrorHandler(ErrorHandler errorHandler) {
 		this.errorHandler = errorHandler;
 	}
+	protected ErrorHandler getErrorHandler() {
+		return this.errorHandler;
+	}
 	public void setDocumentReaderClass(Class<?> documentReaderClass) {
 		if (documentReaderClass == null || !BeanDefinitionDocumentReader.class.isAssignableFrom(documentReaderClass)) {
 			throw new IllegalArgumentException("documentReaderClass must be an implementation of the BeanDefinitionDocumentReader interface");
@@ -0,0 +1,173 @@
+package com.whz.beanwrapper;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.FastBeanWrapperImpl;
+import org.springframework.beans.MethodInvocationException;
+import org.springframework.beans.PropertyValue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * FastBeanWrapperImpl 的属性读写：快速路径（直接调用getter/setter）与回退到 BeanWrapperImpl 的路径结果应当一致
+ */
+public class Test {
+
+    @org.junit.Test
+    public void readAndWriteTopLevelProperties() {
+        Row row = new Row();
+        BeanWrapper bw = new FastBeanWrapperImpl(row);
+        bw.setPropertyValue("id", 42L);
+        bw.setPropertyValue("name", "row");
+        bw.setPropertyValue("active", Boolean.TRUE);
+        assertEquals(42L, row.getId());
+        assertEquals("row", row.getName());
+        assertTrue(row.isActive());
+        assertEquals(42L, bw.getPropertyValue("id"));
+        assertEquals("row", bw.getPropertyValue("name"));
+        assertEquals(Boolean.TRUE, bw.getPropertyValue("active"));
+    }
+
+    @org.junit.Test
+    public void convertValuesOfOtherTypes() {
+        Row row = new Row();
+        BeanWrapper bw = new FastBeanWrapperImpl(row);
+        bw.setPropertyValue("amount", "17");
+        bw.setPropertyValue("tags", new String[] {"a", "b"});
+        assertEquals(17, row.getAmount());
+        assertEquals(Arrays.asList("a", "b"), row.getTags());
+    }
+
+    @org.junit.Test
+    public void setNullValues() {
+        Row row = new Row();
+        row.setName("row");
+        BeanWrapper bw = new FastBeanWrapperImpl(row);
+        bw.setPropertyValue("name", null);
+        assertNull(row.getName());
+        bw.setPropertyValue(new PropertyValue("name", "again"));
+        assertEquals("again", row.getName());
+    }
+
+    @org.junit.Test
+    public void nestedPropertiesUseStandardPath() {
+        Row row = new Row();
+        row.setParent(new Row());
+        BeanWrapper bw = new FastBeanWrapperImpl(row);
+        bw.setPropertyValue("parent.name", "parent");
+        assertEquals("parent", row.getParent().getName());
+        assertEquals("parent", bw.getPropertyValue("parent.name"));
+    }
+
+    @org.junit.Test
+    public void rewrapInstanceOfOtherClass() {
+        FastBeanWrapperImpl bw = new FastBeanWrapperImpl(new Row());
+        bw.setPropertyValue("name", "row");
+        Other other = new Other();
+        bw.setWrappedInstance(other);
+        bw.setPropertyValue("name", "other");
+        assertEquals("other", other.getName());
+        assertSame(other, bw.getWrappedInstance());
+    }
+
+    @org.junit.Test
+    public void setterExceptionIsPropagated() {
+        BeanWrapper bw = new FastBeanWrapperImpl(new Row());
+        try {
+            bw.setPropertyValue("failing", "x");
+            fail("Should have thrown MethodInvocationException");
+        }
+        catch (MethodInvocationException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+        assertFalse(bw.isWritableProperty("unknown"));
+    }
+
+    public static class Row {
+
+        private long id;
+
+        private String name;
+
+        private int amount;
+
+        private boolean active;
+
+        private List<String> tags;
+
+        private Row parent;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+
+        public void setAmount(int amount) {
+            this.amount = amount;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public Row getParent() {
+            return parent;
+        }
+
+        public void setParent(Row parent) {
+            this.parent = parent;
+        }
+
+        public void setFailing(String failing) {
+            throw new IllegalStateException(failing);
+        }
+    }
+
+    public static class Other {
+
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+}
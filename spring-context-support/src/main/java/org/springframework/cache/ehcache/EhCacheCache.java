@@ -16,10 +16,17 @@
 
 package org.springframework.cache.ehcache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
 import net.sf.ehcache.Status;
 
+import org.springframework.cache.BulkCache;
 import org.springframework.cache.Cache;
 import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.util.Assert;
@@ -27,11 +34,14 @@ import org.springframework.util.Assert;
 /**
  * {@link Cache} implementation on top of an {@link Ehcache} instance.
  *
+ * <p>As of 3.2.9, this cache is a {@link BulkCache}, delegating to the bulk
+ * operations of Ehcache.
+ *
  * @author Costin Leau
  * @author Juergen Hoeller
  * @since 3.1
  */
-public class EhCacheCache implements Cache {
+public class EhCacheCache implements BulkCache {
 
 	private final Ehcache cache;
 
@@ -74,4 +84,29 @@ public class EhCacheCache implements Cache {
 		this.cache.removeAll();
 	}
 
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, Element> elements = this.cache.getAll(keys);
+		Map<Object, ValueWrapper> result = new LinkedHashMap<Object, ValueWrapper>(elements.size());
+		for (Map.Entry<Object, Element> entry : elements.entrySet()) {
+			// Ehcache maps keys without (unexpired) element to null
+			Element element = entry.getValue();
+			if (element != null) {
+				result.put(entry.getKey(), new SimpleValueWrapper(element.getObjectValue()));
+			}
+		}
+		return result;
+	}
+
+	public void putAll(Map<?, ?> entries) {
+		List<Element> elements = new ArrayList<Element>(entries.size());
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			elements.add(new Element(entry.getKey(), entry.getValue()));
+		}
+		this.cache.putAll(elements);
+	}
+
+	public void evictAll(Collection<?> keys) {
+		this.cache.removeAll(keys);
+	}
+
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.ehcache;
+
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.event.CacheEventListener;
+
+import org.springframework.cache.support.CacheInvalidationChannel;
+import org.springframework.util.Assert;
+
+/**
+ * EhCache {@link CacheEventListener} that announces the elements that EhCache
+ * evicts or expires by itself through a {@link CacheInvalidationChannel},
+ * e.g. to drop the near copies of a
+ * {@link org.springframework.cache.support.TieredCache} whose far cache is
+ * an {@link EhCacheCache}.
+ *
+ * <p>Puts and removals are not announced: they are made by the callers of the
+ * cache, which announce them themselves (as {@code TieredCache} does).
+ *
+ * <p>To be registered with the Ehcache, e.g. through
+ * {@link EhCacheFactoryBean#setCacheEventListeners}.
+ *
+ * @since 3.2.9
+ */
+public class EhCacheInvalidationPublisher implements CacheEventListener {
+
+	private final CacheInvalidationChannel invalidationChannel;
+
+
+	/**
+	 * Create a new EhCacheInvalidationPublisher.
+	 * @param invalidationChannel the channel to announce evicted and expired elements through
+	 */
+	public EhCacheInvalidationPublisher(CacheInvalidationChannel invalidationChannel) {
+		Assert.notNull(invalidationChannel, "CacheInvalidationChannel must not be null");
+		this.invalidationChannel = invalidationChannel;
+	}
+
+
+	public void notifyElementEvicted(Ehcache cache, Element element) {
+		this.invalidationChannel.invalidate(cache.getName(), element.getObjectKey(), null);
+	}
+
+	public void notifyElementExpired(Ehcache cache, Element element) {
+		this.invalidationChannel.invalidate(cache.getName(), element.getObjectKey(), null);
+	}
+
+	public void notifyElementPut(Ehcache cache, Element element) {
+	}
+
+	public void notifyElementUpdated(Ehcache cache, Element element) {
+	}
+
+	public void notifyElementRemoved(Ehcache cache, Element element) {
+	}
+
+	public void notifyRemoveAll(Ehcache cache) {
+	}
+
+	public void dispose() {
+	}
+
+	@Override
+	public Object clone() throws CloneNotSupportedException {
+		// 无状态（通道是共享的），克隆的缓存可以使用同一个通道
+		return super.clone();
+	}
+
+}
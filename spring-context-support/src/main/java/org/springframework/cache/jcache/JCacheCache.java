@@ -17,9 +17,15 @@
 package org.springframework.cache.jcache;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 import javax.cache.Status;
 
+import org.springframework.cache.BulkCache;
 import org.springframework.cache.Cache;
 import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.util.Assert;
@@ -28,10 +34,13 @@ import org.springframework.util.Assert;
  * {@link org.springframework.cache.Cache} implementation on top of a
  * {@link javax.cache.Cache} instance.
  *
+ * <p>As of 3.2.9, this cache is a {@link BulkCache}, delegating to the bulk
+ * operations of the JCache Cache.
+ *
  * @author Juergen Hoeller
  * @since 3.2
  */
-public class JCacheCache implements Cache {
+public class JCacheCache implements BulkCache {
 
 	private static final Object NULL_HOLDER = new NullHolder();
 
@@ -96,6 +105,36 @@ public class JCacheCache implements Cache {
 		this.cache.removeAll();
 	}
 
+	@SuppressWarnings("unchecked")
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, Object> values = this.cache.getAll(toSet(keys));
+		Map<Object, ValueWrapper> result = new LinkedHashMap<Object, ValueWrapper>(values.size());
+		for (Map.Entry<Object, Object> entry : values.entrySet()) {
+			if (entry.getValue() != null) {
+				result.put(entry.getKey(), new SimpleValueWrapper(fromStoreValue(entry.getValue())));
+			}
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void putAll(Map<?, ?> entries) {
+		Map<Object, Object> storeValues = new LinkedHashMap<Object, Object>(entries.size());
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			storeValues.put(entry.getKey(), toStoreValue(entry.getValue()));
+		}
+		this.cache.putAll(storeValues);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void evictAll(Collection<?> keys) {
+		this.cache.removeAll(toSet(keys));
+	}
+
+	private Set<?> toSet(Collection<?> keys) {
+		return (keys instanceof Set ? (Set<?>) keys : new LinkedHashSet<Object>(keys));
+	}
+
 
 	/**
 	 * Convert the given value from the internal store to a user value
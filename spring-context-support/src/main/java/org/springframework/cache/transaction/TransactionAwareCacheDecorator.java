@@ -16,7 +16,14 @@
 
 package org.springframework.cache.transaction;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.cache.BulkCache;
 import org.springframework.cache.Cache;
+import org.springframework.cache.support.CacheUtils;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
@@ -28,11 +35,14 @@ import org.springframework.util.Assert;
  * successful transaction. If no transaction is active, {@link #put} and {@link #evict}
  * operations will be performed immediately, as usual.
  *
+ * <p>As of 3.2.9, the same applies to the {@link BulkCache} operations
+ * {@link #putAll} and {@link #evictAll}, which work with any target Cache.
+ *
  * @author Juergen Hoeller
  * @since 3.2
  * @see TransactionAwareCacheManagerProxy
  */
-public class TransactionAwareCacheDecorator implements Cache {
+public class TransactionAwareCacheDecorator implements BulkCache {
 
 	private final Cache targetCache;
 
@@ -91,4 +101,38 @@ public class TransactionAwareCacheDecorator implements Cache {
 		this.targetCache.clear();
 	}
 
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		return CacheUtils.getAll(this.targetCache, keys);
+	}
+
+	public void putAll(Map<?, ?> entries) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			final Map<Object, Object> entriesToPut = new LinkedHashMap<Object, Object>(entries);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					CacheUtils.putAll(targetCache, entriesToPut);
+				}
+			});
+		}
+		else {
+			CacheUtils.putAll(this.targetCache, entries);
+		}
+	}
+
+	public void evictAll(Collection<?> keys) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			final Collection<Object> keysToEvict = new ArrayList<Object>(keys);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					CacheUtils.evictAll(targetCache, keysToEvict);
+				}
+			});
+		}
+		else {
+			CacheUtils.evictAll(this.targetCache, keys);
+		}
+	}
+
 }
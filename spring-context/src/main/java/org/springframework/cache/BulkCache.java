@@ -0,0 +1,61 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Extension of the {@link Cache} interface for caches that can read, write
+ * and remove several entries at once - typically in a single round trip to
+ * the underlying store, instead of one per key.
+ *
+ * <p>The bulk operations are declared on a separate interface rather than on
+ * {@link Cache} itself so that existing {@code Cache} implementations, written
+ * and compiled against the 3.2 API, keep working without any changes.
+ *
+ * <p>Callers that deal with plain {@link Cache} instances as well may use
+ * {@link org.springframework.cache.support.CacheUtils}, which falls back to
+ * single-key operations for caches that do not implement this interface.
+ *
+ * @since 3.2.9
+ * @see org.springframework.cache.annotation.Cacheable#bulk()
+ */
+public interface BulkCache extends Cache {
+
+	/**
+	 * Return the values to which this cache maps the given keys.
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a map from each key that has a mapping in this cache to its
+	 * {@link ValueWrapper}; keys without mapping are not contained
+	 */
+	Map<Object, ValueWrapper> getAll(Collection<?> keys);
+
+	/**
+	 * Associate the given values with their keys in this cache.
+	 * @param entries the keys and values to store
+	 */
+	void putAll(Map<?, ?> entries);
+
+	/**
+	 * Evict the mappings for the given keys from this cache, if present.
+	 * @param keys the keys whose mappings are to be removed
+	 */
+	void evictAll(Collection<?> keys);
+
+}
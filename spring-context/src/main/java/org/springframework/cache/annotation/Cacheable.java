@@ -130,4 +130,31 @@ public @interface Cacheable {
 
 	*/
 	String unless() default "";
+
+	/**
+		是否同步加载：缓存未命中时，同一个key同时只有一个调用者执行业务方法，其他调用者等待并直接得到它的返回值，
+		以避免热点key过期的瞬间大量并发请求同时访问数据库（缓存击穿）。
+		只有同一个缓存中的同一个key之间才会互相等待，执行业务方法时不持有锁，适用于任何Cache实现；等待的超时时间可以
+		通过CacheInterceptor的syncTimeout属性配置，超时后调用者将直接执行业务方法。
+			@Cacheable(value="products", key="#id", sync=true)
+			public Product find(long id) {
+				//load from db
+			}
+		@since 3.2.9
+	*/
+	boolean sync() default false;
+
+	/**
+		是否批量加载：用于参数为key的集合、返回值为Map（key到value的映射）的方法。集合中的每个元素替换该集合参数后（与其余参数
+		一起）交给KeyGenerator生成缓存key，单参数方法默认即以元素本身作为缓存key。先在缓存中批量查找所有的key，只有缓存中
+		不存在的key才会（通过一次方法调用）交给业务方法加载，加载的结果批量放入缓存，最后返回缓存的值和加载的值合并后的Map。
+		方法的第一个集合类型的参数作为key的集合；不能同时指定key属性或sync属性，该方法上也不能再有其他缓存注解。condition
+		在调用前针对整个调用计算一次，unless中的#result表示业务方法返回的Map。
+			@Cacheable(value="prices", bulk=true)
+			public Map<Long, Price> findPrices(Collection<Long> productIds) {
+				//load from db, e.g. "select ... where product_id in (...)"
+			}
+		@since 3.2.9
+	*/
+	boolean bulk() default false;
 }
@@ -84,6 +84,8 @@ public class SpringCacheAnnotationParser implements CacheAnnotationParser, Seria
 		cuo.setCacheNames(caching.value());
 		cuo.setCondition(caching.condition());
 		cuo.setUnless(caching.unless());
+		cuo.setSync(caching.sync());
+		cuo.setBulk(caching.bulk());
 		cuo.setKey(caching.key());
 		cuo.setName(ae.toString());
 		return cuo;
@@ -0,0 +1,550 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.concurrent;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cache.BulkCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.CacheStatistics;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * {@link Cache} implementation based on a {@link ConcurrentHashMap}, like
+ * {@link ConcurrentMapCache}, but bounded in size and with expiration of entries.
+ *
+ * <p>The cache may be bounded by the number of entries ({@link #setMaximumSize})
+ * and/or by their total weight ({@link #setMaximumWeight}, as determined by a
+ * {@link Weigher}). Once a bound has been exceeded, entries are evicted by a
+ * frequency-aware policy: the access frequencies of all keys (including keys
+ * that are not cached) are approximated by a compact sketch whose counts are
+ * periodically halved, so that past popularity fades. A clock hand sweeps over
+ * the entries, sampling a few at a time and choosing the least frequently used
+ * one among them as victim; a newly added entry only replaces the victim if its
+ * key has been used at least as frequently, otherwise the new entry is dropped
+ * right away. This keeps frequently used entries in the cache even when many
+ * keys are requested just once (e.g. on a scan). Entries may also expire a given time
+ * after they have been written ({@link #setExpireAfterWrite}) or last read
+ * ({@link #setExpireAfterAccess}); expired entries are removed when accessed or
+ * encountered by the clock hand, or on {@link #cleanUp()}.
+ *
+ * <p>Bounds are enforced right after each put, so the cache may exceed them
+ * briefly under concurrent writes. Hit, miss, put, eviction and expiration
+ * counts are exposed through {@link #getStatistics()}.
+ *
+ * <p>Configuration properties are to be set before the cache is used.
+ *
+ * @since 3.2.9
+ * @see ConcurrentMapCacheManager
+ */
+public class BoundedConcurrentMapCache implements BulkCache {
+
+	// 当缓存对象为null是，则使用该对象缓存
+	private static final Object NULL_HOLDER = new NullHolder();
+	// 每次淘汰时由时钟指针采样的缓存项数量
+	private static final int EVICTION_SAMPLE_SIZE = 8;
+
+	// 用于表示这个Cache的名字
+	private final String name;
+	// 所有的缓存项都将被放到这个store
+	private final ConcurrentMap<Object, CacheEntry> store = new ConcurrentHashMap<Object, CacheEntry>(256);
+	// 是否允许缓存null值
+	private final boolean allowNullValues;
+
+	private long maximumSize = 0;
+	private long maximumWeight = 0;
+	private Weigher weigher;
+	private long expireAfterWriteNanos = 0;
+	private long expireAfterAccessNanos = 0;
+
+	// 当前缓存项的数量和总权重（ConcurrentHashMap#size()需要遍历所有分段）
+	private final AtomicLong size = new AtomicLong();
+	private final AtomicLong weight = new AtomicLong();
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong putCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	private final AtomicLong expirationCount = new AtomicLong();
+
+	// 近似统计各个key的访问频率，仅在有容量限制时创建
+	private volatile FrequencySketch frequencySketch;
+
+	// 时钟指针：在多次淘汰之间持续向前遍历缓存项（弱一致性迭代器，不会抛出ConcurrentModificationException）
+	private Iterator<CacheEntry> evictionHand;
+	private final Object evictionMonitor = new Object();
+
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name.
+	 * @param name the name of the cache
+	 */
+	public BoundedConcurrentMapCache(String name) {
+		this(name, true);
+	}
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name.
+	 * @param name the name of the cache
+	 * @param allowNullValues whether to accept and convert {@code null} values for this cache
+	 */
+	public BoundedConcurrentMapCache(String name, boolean allowNullValues) {
+		this.name = name;
+		this.allowNullValues = allowNullValues;
+	}
+
+
+	/**
+	 * Set the maximum number of entries. Default is 0: no limit.
+	 */
+	public void setMaximumSize(long maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	public long getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Set the maximum total weight of the entries, as determined by the
+	 * {@link #setWeigher Weigher}. Default is 0: no limit.
+	 */
+	public void setMaximumWeight(long maximumWeight) {
+		this.maximumWeight = maximumWeight;
+	}
+
+	public long getMaximumWeight() {
+		return this.maximumWeight;
+	}
+
+	/**
+	 * Set the Weigher that determines the weight of each entry, for the
+	 * {@link #setMaximumWeight maximum weight}. Default is a weight of 1 per entry.
+	 */
+	public void setWeigher(Weigher weigher) {
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Set the time (in milliseconds) after which an entry expires once it has
+	 * been written. Default is 0: no expiration.
+	 */
+	public void setExpireAfterWrite(long expireAfterWrite) {
+		this.expireAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(expireAfterWrite);
+	}
+
+	/**
+	 * Set the time (in milliseconds) after which an entry expires once it has
+	 * last been read or written. Default is 0: no expiration.
+	 */
+	public void setExpireAfterAccess(long expireAfterAccess) {
+		this.expireAfterAccessNanos = TimeUnit.MILLISECONDS.toNanos(expireAfterAccess);
+	}
+
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Return the internal map of cache entries.
+	 */
+	public ConcurrentMap getNativeCache() {
+		return this.store;
+	}
+
+	public ValueWrapper get(Object key) {
+		recordAccess(key);
+		CacheEntry entry = this.store.get(key);
+		if (entry != null) {
+			if (!isExpiring()) {
+				this.hitCount.incrementAndGet();
+				return new SimpleValueWrapper(fromStoreValue(entry.value));
+			}
+			long now = System.nanoTime();
+			if (!isExpired(entry, now)) {
+				entry.accessTime = now;
+				this.hitCount.incrementAndGet();
+				return new SimpleValueWrapper(fromStoreValue(entry.value));
+			}
+			if (removeEntry(entry)) {
+				this.expirationCount.incrementAndGet();
+			}
+		}
+		this.missCount.incrementAndGet();
+		return null;
+	}
+
+	public void put(Object key, Object value) {
+		recordAccess(key);
+		int entryWeight = (this.weigher != null ? this.weigher.weigh(key, value) : 1);
+		CacheEntry entry = new CacheEntry(key, toStoreValue(value), entryWeight, System.nanoTime());
+		CacheEntry previous = this.store.put(key, entry);
+		if (previous != null) {
+			this.weight.addAndGet(entryWeight - previous.weight);
+		}
+		else {
+			this.size.incrementAndGet();
+			this.weight.addAndGet(entryWeight);
+		}
+		this.putCount.incrementAndGet();
+		// 只有新增的缓存项才需要经过准入判断，覆盖已有的缓存项不需要
+		evictIfNecessary(previous == null ? entry : null);
+	}
+
+	public void evict(Object key) {
+		CacheEntry entry = this.store.remove(key);
+		if (entry != null) {
+			entryRemoved(entry);
+		}
+	}
+
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> result = new LinkedHashMap<Object, ValueWrapper>(keys.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	public void putAll(Map<?, ?> entries) {
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	public void evictAll(Collection<?> keys) {
+		for (Object key : keys) {
+			evict(key);
+		}
+	}
+
+	public void clear() {
+		for (CacheEntry entry : this.store.values()) {
+			removeEntry(entry);
+		}
+	}
+
+	/**
+	 * Remove all expired entries right away.
+	 */
+	public void cleanUp() {
+		if (isExpiring()) {
+			long now = System.nanoTime();
+			for (CacheEntry entry : this.store.values()) {
+				if (isExpired(entry, now) && removeEntry(entry)) {
+					this.expirationCount.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the current number of entries (including expired entries that
+	 * have not been removed yet).
+	 */
+	public long getSize() {
+		return this.size.get();
+	}
+
+	/**
+	 * Return the current total weight of the entries.
+	 */
+	public long getWeight() {
+		return this.weight.get();
+	}
+
+	/**
+	 * Return a snapshot of the statistics of this cache.
+	 */
+	public CacheStatistics getStatistics() {
+		return new CacheStatistics(this.hitCount.get(), this.missCount.get(), this.putCount.get(),
+				this.evictionCount.get(), this.expirationCount.get());
+	}
+
+	public boolean isAllowNullValues() {
+		return this.allowNullValues;
+	}
+
+
+	// 记录一次对key的访问（包括未命中的访问）
+	private void recordAccess(Object key) {
+		FrequencySketch sketch = getFrequencySketch();
+		if (sketch != null) {
+			sketch.increment(key);
+		}
+	}
+
+	private FrequencySketch getFrequencySketch() {
+		FrequencySketch sketch = this.frequencySketch;
+		if (sketch == null && (this.maximumSize > 0 || this.maximumWeight > 0)) {
+			synchronized (this.evictionMonitor) {
+				sketch = this.frequencySketch;
+				if (sketch == null) {
+					// 只限制总权重时无法预知缓存项数量，按一个适中的数量估计
+					sketch = new FrequencySketch(this.maximumSize > 0 ? this.maximumSize : 4096);
+					this.frequencySketch = sketch;
+				}
+			}
+		}
+		return sketch;
+	}
+
+	// 超出容量时淘汰缓存项，直到满足容量限制
+	private void evictIfNecessary(CacheEntry justAdded) {
+		if (!isOverCapacity()) {
+			return;
+		}
+		FrequencySketch sketch = getFrequencySketch();
+		synchronized (this.evictionMonitor) {
+			while (isOverCapacity()) {
+				long now = (isExpiring() ? System.nanoTime() : 0);
+				CacheEntry victim = selectVictim(justAdded, sketch, now);
+				if (victim == null) {
+					break;
+				}
+				if (justAdded != null && victim != justAdded && !(isExpiring() && isExpired(victim, now)) &&
+						sketch.frequency(justAdded.key) < sketch.frequency(victim.key)) {
+					// 准入判断：新缓存项的访问频率低于淘汰候选者，则淘汰新缓存项
+					victim = justAdded;
+				}
+				if (victim == justAdded) {
+					justAdded = null;
+				}
+				if (removeEntry(victim)) {
+					if (isExpiring() && isExpired(victim, now)) {
+						this.expirationCount.incrementAndGet();
+					}
+					else {
+						this.evictionCount.incrementAndGet();
+					}
+				}
+			}
+		}
+	}
+
+	// 时钟指针向前采样若干个缓存项，选出访问频率最低的一个（已过期的缓存项直接选中）
+	private CacheEntry selectVictim(CacheEntry justAdded, FrequencySketch sketch, long now) {
+		CacheEntry victim = null;
+		int victimFrequency = 0;
+		for (int i = 0; i < EVICTION_SAMPLE_SIZE; i++) {
+			if (this.evictionHand == null || !this.evictionHand.hasNext()) {
+				this.evictionHand = this.store.values().iterator();
+				if (!this.evictionHand.hasNext()) {
+					break;
+				}
+			}
+			CacheEntry candidate = this.evictionHand.next();
+			if (isExpiring() && isExpired(candidate, now)) {
+				return candidate;
+			}
+			if (candidate == justAdded && this.size.get() > 1) {
+				// 新写入的缓存项由准入判断决定去留
+				continue;
+			}
+			int candidateFrequency = sketch.frequency(candidate.key);
+			if (victim == null || candidateFrequency < victimFrequency) {
+				victim = candidate;
+				victimFrequency = candidateFrequency;
+			}
+		}
+		return victim;
+	}
+
+	private boolean isOverCapacity() {
+		return ((this.maximumSize > 0 && this.size.get() > this.maximumSize) ||
+				(this.maximumWeight > 0 && this.weight.get() > this.maximumWeight));
+	}
+
+	private boolean isExpiring() {
+		return (this.expireAfterWriteNanos > 0 || this.expireAfterAccessNanos > 0);
+	}
+
+	private boolean isExpired(CacheEntry entry, long now) {
+		return ((this.expireAfterWriteNanos > 0 && now - entry.writeTime >= this.expireAfterWriteNanos) ||
+				(this.expireAfterAccessNanos > 0 && now - entry.accessTime >= this.expireAfterAccessNanos));
+	}
+
+	// 仅当缓存项未被替换时才移除，避免误删并发写入的新值
+	private boolean removeEntry(CacheEntry entry) {
+		if (this.store.remove(entry.key, entry)) {
+			entryRemoved(entry);
+			return true;
+		}
+		return false;
+	}
+
+	private void entryRemoved(CacheEntry entry) {
+		this.size.decrementAndGet();
+		this.weight.addAndGet(-entry.weight);
+	}
+
+	// 如果 storeValue 是 NULL_HOLDER，则返回 null
+	protected Object fromStoreValue(Object storeValue) {
+		if (this.allowNullValues && storeValue == NULL_HOLDER) {
+			return null;
+		}
+		return storeValue;
+	}
+	// 如果 storeValue 是 null，则返回 NULL_HOLDER
+	protected Object toStoreValue(Object userValue) {
+		if (this.allowNullValues && userValue == null) {
+			return NULL_HOLDER;
+		}
+		return userValue;
+	}
+
+
+	/**
+	 * Strategy for determining the weight of a cache entry,
+	 * e.g. the approximate size of its value in bytes.
+	 */
+	public interface Weigher {
+
+		// 返回缓存项的权重（不能为负数），value 可能为null
+		int weigh(Object key, Object value);
+	}
+
+
+	/**
+	 * A cache entry with its weight and timestamps.
+	 */
+	private static class CacheEntry {
+
+		public final Object key;
+
+		public final Object value;
+
+		public final int weight;
+
+		public final long writeTime;
+
+		public volatile long accessTime;
+
+		public CacheEntry(Object key, Object value, int weight, long writeTime) {
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.writeTime = writeTime;
+			this.accessTime = writeTime;
+		}
+	}
+
+
+	/**
+	 * Count-min sketch approximating the access frequencies of keys, with 4-bit
+	 * counters (packed eight per {@code int}) that are halved once the number of
+	 * recorded accesses reaches ten times the expected number of entries.
+	 * <p>Counter updates are not atomic: concurrent updates may get lost, which
+	 * does not matter for an approximation.
+	 */
+	private static class FrequencySketch {
+
+		private static final int[] SEEDS = {0x97cb3127, 0xb492b66f, 0x9ae16a3b, 0xc3a5c85c};
+
+		private static final int MAX_COUNT = 15;
+
+		// 4行计数器依次存放在一个数组中，每个int存放8个4位的计数器
+		private final int[] table;
+
+		private final int width;
+
+		private final int resetThreshold;
+
+		private int additions;
+
+		public FrequencySketch(long expectedSize) {
+			int capacity = (int) Math.min(Math.max(expectedSize, 64), 1 << 24);
+			this.width = Integer.highestOneBit(capacity - 1) << 1;
+			this.table = new int[SEEDS.length * this.width / 8];
+			this.resetThreshold = capacity * 10;
+		}
+
+		public int frequency(Object key) {
+			int hash = spread(key);
+			int frequency = MAX_COUNT;
+			for (int i = 0; i < SEEDS.length; i++) {
+				int index = indexOf(hash, i);
+				frequency = Math.min(frequency, (this.table[index >>> 3] >>> counterShift(index)) & MAX_COUNT);
+			}
+			return frequency;
+		}
+
+		public void increment(Object key) {
+			int hash = spread(key);
+			boolean added = false;
+			for (int i = 0; i < SEEDS.length; i++) {
+				int index = indexOf(hash, i);
+				int shift = counterShift(index);
+				if (((this.table[index >>> 3] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+					this.table[index >>> 3] += (1 << shift);
+					added = true;
+				}
+			}
+			if (added && ++this.additions >= this.resetThreshold) {
+				reset();
+			}
+		}
+
+		// 所有计数减半，使过去的访问频率逐渐失去影响
+		private synchronized void reset() {
+			if (this.additions < this.resetThreshold) {
+				return;
+			}
+			for (int i = 0; i < this.table.length; i++) {
+				// 8个计数器同时减半：移位后清除从相邻计数器移入的最高位
+				this.table[i] = (this.table[i] >>> 1) & 0x77777777;
+			}
+			this.additions = this.resetThreshold / 2;
+		}
+
+		private static int counterShift(int index) {
+			return (index & 7) << 2;
+		}
+
+		private int indexOf(int hash, int row) {
+			int h = (hash + SEEDS[row]) * SEEDS[row];
+			h += (h >>> 16);
+			return row * this.width + (h & (this.width - 1));
+		}
+
+		private static int spread(Object key) {
+			int h = (key != null ? key.hashCode() : 0);
+			h ^= (h >>> 17);
+			h *= 0xed5ad4bb;
+			h ^= (h >>> 11);
+			return h;
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class NullHolder implements Serializable {}
+
+}
@@ -16,10 +16,14 @@
 
 package org.springframework.cache.concurrent;
 
+import org.springframework.cache.BulkCache;
 import org.springframework.cache.Cache;
 import org.springframework.cache.support.SimpleValueWrapper;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -36,11 +40,13 @@ import java.util.concurrent.ConcurrentMap;
  * them with a predefined internal object. This behavior can be changed through the
  * {@link #ConcurrentMapCache(String, ConcurrentMap, boolean)} constructor.
  *
+ * <p>As of 3.2.9, this cache is a {@link BulkCache}.
+ *
  * @author Costin Leau
  * @author Juergen Hoeller
  * @since 3.1
  */
-public class ConcurrentMapCache implements Cache {
+public class ConcurrentMapCache implements BulkCache {
 	// 当缓存对象为null是，则使用该对象缓存
 	private static final Object NULL_HOLDER = new NullHolder();
 	// 用于表示这个Cache的名字
@@ -82,6 +88,26 @@ public class ConcurrentMapCache implements Cache {
 	public void clear() {
 		this.store.clear();
 	}
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> result = new LinkedHashMap<Object, ValueWrapper>(keys.size());
+		for (Object key : keys) {
+			Object value = this.store.get(key);
+			if (value != null) {
+				result.put(key, new SimpleValueWrapper(fromStoreValue(value)));
+			}
+		}
+		return result;
+	}
+	public void putAll(Map<?, ?> entries) {
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			this.store.put(entry.getKey(), toStoreValue(entry.getValue()));
+		}
+	}
+	public void evictAll(Collection<?> keys) {
+		for (Object key : keys) {
+			this.store.remove(key);
+		}
+	}
 
 	public boolean isAllowNullValues() {
 		return this.allowNullValues;
@@ -19,11 +19,13 @@ package org.springframework.cache.concurrent;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.util.Assert;
 
 /**
  * {@link CacheManager} implementation that lazily builds {@link ConcurrentMapCache}
@@ -31,6 +33,11 @@ import org.springframework.cache.CacheManager;
  * the set of cache names is pre-defined through {@link #setCacheNames}, with no
  * dynamic creation of further cache regions at runtime.
  *
+ * <p>As of 3.2.9, caches may be bounded in size and expire their entries: if any
+ * of the corresponding properties is set, {@link BoundedConcurrentMapCache}
+ * instances are built instead. All configuration properties need to be set before
+ * the first cache is obtained; existing caches are never rebuilt.
+ *
  * @author Juergen Hoeller
  * @since 3.1
  */
@@ -45,7 +52,16 @@ import org.springframework.cache.CacheManager;
 public class ConcurrentMapCacheManager implements CacheManager {
 
 	private final ConcurrentMap<String, Cache> cacheMap = new ConcurrentHashMap<String, Cache>(16);
+	// 'static' 模式下预定义的缓存名，对应的缓存在第一次访问时才创建
+	private final Set<String> cacheNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>(16));
 	private boolean dynamic = true;
+	private boolean allowNullValues = true;
+	// 以下属性只要设置了其中之一，就会创建有界的 BoundedConcurrentMapCache
+	private long maximumSize = 0;
+	private long maximumWeight = 0;
+	private BoundedConcurrentMapCache.Weigher weigher;
+	private long expireAfterWrite = 0;
+	private long expireAfterAccess = 0;
 
 
 	public ConcurrentMapCacheManager() {
@@ -59,23 +75,94 @@ public class ConcurrentMapCacheManager implements CacheManager {
 	 * Specify the set of cache names for this CacheManager's 'static' mode.
 	 * <p>The number of caches and their names will be fixed after a call to this method,
 	 * with no creation of further cache regions at runtime.
+	 * <p>The caches themselves are created on first access, so that the other
+	 * configuration properties apply to them regardless of the order of calls.
 	 */
 	public void setCacheNames(Collection<String> cacheNames) {
 		if (cacheNames != null) {
-			for (String name : cacheNames) {
-				this.cacheMap.put(name, createConcurrentMapCache(name));
-			}
+			this.cacheNames.addAll(cacheNames);
 			this.dynamic = false;
 		}
 	}
 
+	/**
+	 * Specify whether to accept and convert {@code null} values for all caches
+	 * in this cache manager. Default is "true".
+	 * @throws IllegalStateException if caches have already been created
+	 * @since 3.2.9
+	 */
+	public void setAllowNullValues(boolean allowNullValues) {
+		if (allowNullValues != this.allowNullValues) {
+			assertNoCachesCreated();
+			this.allowNullValues = allowNullValues;
+		}
+	}
+
+	/**
+	 * Set the maximum number of entries per cache. Default is 0: no limit.
+	 * @throws IllegalStateException if caches have already been created
+	 * @since 3.2.9
+	 * @see BoundedConcurrentMapCache#setMaximumSize
+	 */
+	public void setMaximumSize(long maximumSize) {
+		assertNoCachesCreated();
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * Set the maximum total weight of the entries per cache. Default is 0: no limit.
+	 * @throws IllegalStateException if caches have already been created
+	 * @since 3.2.9
+	 * @see BoundedConcurrentMapCache#setMaximumWeight
+	 */
+	public void setMaximumWeight(long maximumWeight) {
+		assertNoCachesCreated();
+		this.maximumWeight = maximumWeight;
+	}
+
+	/**
+	 * Set the Weigher that determines the weight of each entry.
+	 * Default is a weight of 1 per entry.
+	 * @throws IllegalStateException if caches have already been created
+	 * @since 3.2.9
+	 * @see BoundedConcurrentMapCache#setWeigher
+	 */
+	public void setWeigher(BoundedConcurrentMapCache.Weigher weigher) {
+		assertNoCachesCreated();
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Set the time (in milliseconds) after which entries expire once they have
+	 * been written. Default is 0: no expiration.
+	 * @throws IllegalStateException if caches have already been created
+	 * @since 3.2.9
+	 * @see BoundedConcurrentMapCache#setExpireAfterWrite
+	 */
+	public void setExpireAfterWrite(long expireAfterWrite) {
+		assertNoCachesCreated();
+		this.expireAfterWrite = expireAfterWrite;
+	}
+
+	/**
+	 * Set the time (in milliseconds) after which entries expire once they have
+	 * last been read or written. Default is 0: no expiration.
+	 * @throws IllegalStateException if caches have already been created
+	 * @since 3.2.9
+	 * @see BoundedConcurrentMapCache#setExpireAfterAccess
+	 */
+	public void setExpireAfterAccess(long expireAfterAccess) {
+		assertNoCachesCreated();
+		this.expireAfterAccess = expireAfterAccess;
+	}
+
 	public Collection<String> getCacheNames() {
-		return Collections.unmodifiableSet(this.cacheMap.keySet());
+		return Collections.unmodifiableSet(this.dynamic ? this.cacheMap.keySet() : this.cacheNames);
 	}
 
 	public Cache getCache(String name) {
 		Cache cache = this.cacheMap.get(name);
-		if (cache == null && this.dynamic) {
+		if (cache == null && (this.dynamic || this.cacheNames.contains(name))) {
 			synchronized (this.cacheMap) {
 				cache = this.cacheMap.get(name);
 				if (cache == null) {
@@ -93,7 +180,25 @@ public class ConcurrentMapCacheManager implements CacheManager {
 	 * @return the ConcurrentMapCache (or a decorator thereof)
 	 */
 	protected Cache createConcurrentMapCache(String name) {
-		return new ConcurrentMapCache(name);
+		if (isBounded()) {
+			BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(name, this.allowNullValues);
+			cache.setMaximumSize(this.maximumSize);
+			cache.setMaximumWeight(this.maximumWeight);
+			cache.setWeigher(this.weigher);
+			cache.setExpireAfterWrite(this.expireAfterWrite);
+			cache.setExpireAfterAccess(this.expireAfterAccess);
+			return cache;
+		}
+		return new ConcurrentMapCache(name, this.allowNullValues);
+	}
+
+	private boolean isBounded() {
+		return (this.maximumSize > 0 || this.maximumWeight > 0 || this.expireAfterWrite > 0 || this.expireAfterAccess > 0);
+	}
+
+	// 已有缓存不会被重新创建（那样会丢失其中的数据），因此缓存创建之后不允许再修改配置
+	private void assertNoCachesCreated() {
+		Assert.state(this.cacheMap.isEmpty(), "Cache configuration cannot be changed once caches have been created");
 	}
 
 }
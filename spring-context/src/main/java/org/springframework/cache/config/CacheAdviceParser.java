@@ -159,6 +159,8 @@ class CacheAdviceParser extends AbstractSingleBeanDefinitionParser {
 			nameHolder.setSource(parserContext.extractSource(opElement));
 			CacheableOperation op = prop.merge(opElement, parserContext.getReaderContext(), new CacheableOperation());
 			op.setUnless(getAttributeValue(opElement, "unless", ""));
+			op.setSync(Boolean.valueOf(getAttributeValue(opElement, "sync", "false")));
+			op.setBulk(Boolean.valueOf(getAttributeValue(opElement, "bulk", "false")));
 
 			Collection<CacheOperation> col = cacheOpMap.get(nameHolder);
 			if (col == null) {
@@ -32,7 +32,7 @@ import org.w3c.dom.Element;
  * @author Costin Leau
  * @since 3.1
  */
-// 用于解析<cache:annotation-driven/>和<cache:advice>标签
+// 用于解析<cache:annotation-driven/>、<cache:advice>和<cache:concurrent-map-cache-manager/>标签
 public class CacheNamespaceHandler extends NamespaceHandlerSupport {
 
 	static final String CACHE_MANAGER_ATTRIBUTE = "cache-manager";
@@ -58,5 +58,6 @@ public class CacheNamespaceHandler extends NamespaceHandlerSupport {
 	public void init() {
 		registerBeanDefinitionParser("annotation-driven", new AnnotationDrivenCacheBeanDefinitionParser());
 		registerBeanDefinitionParser("advice", new CacheAdviceParser());
+		registerBeanDefinitionParser("concurrent-map-cache-manager", new ConcurrentMapCacheManagerBeanDefinitionParser());
 	}
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.config;
+
+import org.w3c.dom.Element;
+
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.xml.AbstractSingleBeanDefinitionParser;
+import org.springframework.beans.factory.xml.ParserContext;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.util.StringUtils;
+
+/**
+ * Parser for the &lt;cache:concurrent-map-cache-manager/&gt; element, registering
+ * a {@link ConcurrentMapCacheManager} - named "cacheManager" unless specified
+ * otherwise, so that it is picked up by &lt;cache:annotation-driven/&gt; by default.
+ *
+ * @since 3.2.9
+ */
+// 用来解析<cache:concurrent-map-cache-manager>标签
+class ConcurrentMapCacheManagerBeanDefinitionParser extends AbstractSingleBeanDefinitionParser {
+
+	@Override
+	protected Class<?> getBeanClass(Element element) {
+		return ConcurrentMapCacheManager.class;
+	}
+
+	// 没有配置id时默认使用“cacheManager”
+	@Override
+	protected String resolveId(Element element, AbstractBeanDefinition definition, ParserContext parserContext) {
+		String id = element.getAttribute(ID_ATTRIBUTE);
+		return (StringUtils.hasText(id) ? id : CacheNamespaceHandler.DEFAULT_CACHE_MANAGER_BEAN_NAME);
+	}
+
+	@Override
+	protected void doParse(Element element, ParserContext parserContext, BeanDefinitionBuilder builder) {
+		addPropertyIfPresent(element, "allow-null-values", "allowNullValues", builder);
+		addPropertyIfPresent(element, "maximum-size", "maximumSize", builder);
+		addPropertyIfPresent(element, "maximum-weight", "maximumWeight", builder);
+		addPropertyIfPresent(element, "expire-after-write", "expireAfterWrite", builder);
+		addPropertyIfPresent(element, "expire-after-access", "expireAfterAccess", builder);
+		String weigher = element.getAttribute("weigher");
+		if (StringUtils.hasText(weigher)) {
+			builder.addPropertyValue("weigher", new RuntimeBeanReference(weigher.trim()));
+		}
+		String cacheNames = element.getAttribute("cache-names");
+		if (StringUtils.hasText(cacheNames)) {
+			builder.addPropertyValue("cacheNames", StringUtils.commaDelimitedListToSet(
+					StringUtils.trimAllWhitespace(cacheNames)));
+		}
+	}
+
+	private void addPropertyIfPresent(Element element, String attributeName, String propertyName,
+			BeanDefinitionBuilder builder) {
+
+		String value = element.getAttribute(attributeName);
+		if (StringUtils.hasText(value)) {
+			builder.addPropertyValue(propertyName, value);
+		}
+	}
+
+}
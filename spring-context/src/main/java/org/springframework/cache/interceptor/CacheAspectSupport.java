@@ -19,9 +19,13 @@ package org.springframework.cache.interceptor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,10 +34,15 @@ import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.CacheUtils;
+import org.springframework.cache.support.InFlightCacheLoads;
+import org.springframework.core.CollectionFactory;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -54,6 +63,28 @@ import org.springframework.util.StringUtils;
  * <p>A cache aspect is serializable if its {@code CacheManager} and
  * {@code CacheOperationSource} are serializable.
  *
+ * <p>As of 3.2.9, {@link CacheableOperation#isSync() synchronized} cacheable
+ * operations let only one caller at a time invoke the method on a cache miss
+ * for a given key, while concurrent callers for the same key wait for its
+ * result. Loads in progress are tracked per key through
+ * {@link InFlightCacheLoads}, without holding a lock while the method runs,
+ * so this works with any {@link Cache} implementation.
+ *
+ * <p>As of 3.2.9, the cache operations of a method are resolved once, on its
+ * first invocation, into {@link CacheOperationMetadata}: the caches to operate
+ * on, the parsed SpEL expressions and the method's parameter names. For methods
+ * with cacheable operations only and no expressions, a cache hit then amounts to
+ * key generation plus a lookup in each cache. Call {@link #clearMetadataCache()}
+ * after changing the caches of the {@code CacheManager} at runtime.
+ *
+ * <p>As of 3.2.9, {@link CacheableOperation#isBulk() bulk} cacheable operations
+ * look up a collection of keys at once and pass only the missing keys to the
+ * method, in a single invocation. The cache key of each element is generated by
+ * the {@link KeyGenerator} from the method arguments, with the element in place
+ * of the key collection. Passing only the missing keys relies on the
+ * {@link Invoker} proceeding with the given (modified) argument array, as
+ * {@link CacheInterceptor} does.
+ *
  * @author Costin Leau
  * @author Juergen Hoeller
  * @author Chris Beams
@@ -69,11 +100,21 @@ public abstract class CacheAspectSupport implements InitializingBean {
 	private static final String UPDATE = "cacheupdate";
 	// 作为 @CacheEvict 注解配置信息的key
 	private static final String EVICT = "cacheevict";
+	// 没有缓存注解的业务方法对应的执行计划
+	private static final CacheOperationPlan NO_CACHING = new CacheOperationPlan(
+			Collections.<CacheOperationMetadata>emptyList(), Collections.<CacheOperationMetadata>emptyList(),
+			Collections.<CacheOperationMetadata>emptyList(), -1);
 
 	private final ExpressionEvaluator evaluator = new ExpressionEvaluator();
 	private CacheManager cacheManager;
 	private CacheOperationSource cacheOperationSource;
-	private KeyGenerator keyGenerator = new DefaultKeyGenerator();
+	private KeyGenerator keyGenerator = new SimpleKeyGenerator();
+	// 同步加载（@Cacheable(sync=true)）时正在加载的key，以及等待其他调用者加载的超时时间（毫秒，0表示一直等待）
+	private final InFlightCacheLoads inFlightLoads = new InFlightCacheLoads();
+	private long syncTimeout = 0;
+	// 业务方法（及目标类型）对应的缓存操作执行计划，在业务方法第一次被调用时创建
+	private final Map<CacheOperationCacheKey, CacheOperationPlan> planCache =
+			new ConcurrentHashMap<CacheOperationCacheKey, CacheOperationPlan>(1024);
 	// 用于标记this.cacheManager和this.cacheOperationSource是否已经被注入，在this.afterPropertiesSet()方法中会校验
 	private boolean initialized = false;
 
@@ -103,42 +144,71 @@ public abstract class CacheAspectSupport implements InitializingBean {
 		if (targetClass == null && target != null) {
 			targetClass = target.getClass();
 		}
-		// 获取这个业务方法配置的缓存注解信息
-		Collection<CacheOperation> cacheOp = getCacheOperationSource().getCacheOperations(method, targetClass);
+		// 获取这个业务方法的缓存操作执行计划（第一次调用时根据缓存注解信息创建）
+		CacheOperationPlan plan = getCacheOperationPlan(method, targetClass);
 
 		// 存在缓存注解，则解析并执行一系列对应的操作，否则直接调用业务方法
-		if (!CollectionUtils.isEmpty(cacheOp)) {
+		if (plan != null) {
+			// 批量@Cacheable：只有缓存中不存在的key才交给业务方法加载
+			if (plan.bulkKeysIndex >= 0) {
+				return executeBulk(plan, invoker, target, args);
+			}
+			// 只有@Cacheable且没有SpEL表达式：直接生成key查找缓存，命中时不再创建任何上下文对象
+			if (plan.cacheableOnly) {
+				Cache.ValueWrapper cached = findCachedItem(plan, target, method, args);
+				if (cached != null) {
+					return cached.get();
+				}
+			}
 			// 将配置信息进行分类
-			Map<String, Collection<CacheOperationContext>> ops =
-				createOperationContext(cacheOp, method, args, target, targetClass);
+			Map<String, Collection<CacheOperationContext>> ops = createOperationContext(plan, args, target);
 			// start with evictions
 			inspectBeforeCacheEvicts(ops.get(EVICT));
 			// follow up with cacheable
 			CacheStatus status = inspectCacheables(ops.get(CACHEABLE));
-			Object retVal;
-			Map<CacheOperationContext, Object> updates = inspectCacheUpdates(ops.get(UPDATE));
-			if (status != null) {
-				if (status.updateRequired) {
-					updates.putAll(status.cacheUpdates);
-				}
-				// return cached object
-				else {
-					return status.retVal;
-				}
+			// 缓存未命中且配置了同步加载：同一个key同时只有一个调用者执行业务方法，其他调用者等待它的结果
+			Map.Entry<CacheOperationContext, Object> syncCacheable =
+					(status != null && status.updateRequired ? findSyncCacheable(status.cacheUpdates) : null);
+			if (syncCacheable != null) {
+				return loadSynchronized(syncCacheable, ops, status, invoker);
 			}
-			// 调用业务方法，retVal表示业务方法的返回值
-			retVal = invoker.invoke();
-			inspectAfterCacheEvicts(ops.get(EVICT), retVal);
-			if (!updates.isEmpty()) {
-				update(updates, retVal);
-			}
-			return retVal;
+			return invokeAndUpdate(ops, status, invoker);
 		}
 
 		return invoker.invoke();
 	}
+	// 调用业务方法（缓存未命中或没有@Cacheable时），然后执行@CacheEvict和缓存更新
+	private Object invokeAndUpdate(Map<String, Collection<CacheOperationContext>> ops, CacheStatus status,
+			Invoker invoker) {
+		Object retVal;
+		Map<CacheOperationContext, Object> updates = inspectCacheUpdates(ops.get(UPDATE));
+		if (status != null) {
+			if (status.updateRequired) {
+				updates.putAll(status.cacheUpdates);
+			}
+			// return cached object
+			else {
+				return status.retVal;
+			}
+		}
+		// 调用业务方法，retVal表示业务方法的返回值
+		retVal = invoker.invoke();
+		inspectAfterCacheEvicts(ops.get(EVICT), retVal);
+		if (!updates.isEmpty()) {
+			update(updates, retVal);
+		}
+		return retVal;
+	}
 
-
+	/**
+	 * Clear the cached cache operation metadata, so that it is resolved again
+	 * on the next invocation of each method: for example after caches of the
+	 * {@code CacheManager} have been replaced at runtime.
+	 * @since 3.2.9
+	 */
+	public void clearMetadataCache() {
+		this.planCache.clear();
+	}
 
 	/**
 	 * Convenience method to return a String representation of this Method
@@ -176,6 +246,116 @@ public abstract class CacheAspectSupport implements InitializingBean {
 		return new CacheOperationContext(operation, method, args, target, targetClass);
 	}
 
+	/**
+	 * Create the context for an invocation of a method with the given,
+	 * pre-resolved cache operation metadata.
+	 * @param metadata the metadata of the cache operation
+	 * @param args the method arguments
+	 * @param target the target object
+	 * @since 3.2.9
+	 */
+	protected CacheOperationContext getOperationContext(CacheOperationMetadata metadata, Object[] args, Object target) {
+		return new CacheOperationContext(metadata, args, target);
+	}
+
+	/**
+	 * Return the cache operation plan of the given method, creating it on its first invocation.
+	 * @return the plan, or {@code null} if the method has no cache operations
+	 */
+	private CacheOperationPlan getCacheOperationPlan(Method method, Class<?> targetClass) {
+		CacheOperationCacheKey cacheKey = new CacheOperationCacheKey(method, targetClass);
+		CacheOperationPlan plan = this.planCache.get(cacheKey);
+		if (plan == null) {
+			Collection<CacheOperation> cacheOps = getCacheOperationSource().getCacheOperations(method, targetClass);
+			plan = (CollectionUtils.isEmpty(cacheOps) ? NO_CACHING : createCacheOperationPlan(cacheOps, method, targetClass));
+			this.planCache.put(cacheKey, plan);
+		}
+		return (plan != NO_CACHING ? plan : null);
+	}
+	private CacheOperationPlan createCacheOperationPlan(Collection<CacheOperation> cacheOperations,
+			Method method, Class<?> targetClass) {
+
+		// 只有声明了SpEL表达式时才需要参数名（读取字节码），同一个方法的所有操作共用
+		String[] parameterNames = null;
+		for (CacheOperation cacheOperation : cacheOperations) {
+			if (hasExpressions(cacheOperation)) {
+				parameterNames = this.evaluator.getParameterNames(method, targetClass);
+				break;
+			}
+		}
+		Collection<CacheOperationMetadata> cacheables = new ArrayList<CacheOperationMetadata>();
+		Collection<CacheOperationMetadata> evicts = new ArrayList<CacheOperationMetadata>();
+		Collection<CacheOperationMetadata> updates = new ArrayList<CacheOperationMetadata>();
+		for (CacheOperation cacheOperation : cacheOperations) {
+			CacheOperationMetadata metadata = createOperationMetadata(cacheOperation, method, targetClass, parameterNames);
+			if (cacheOperation instanceof CacheableOperation) {
+				cacheables.add(metadata);
+			}
+			if (cacheOperation instanceof CacheEvictOperation) {
+				evicts.add(metadata);
+			}
+			if (cacheOperation instanceof CachePutOperation) {
+				updates.add(metadata);
+			}
+		}
+		int bulkKeysIndex = -1;
+		for (CacheOperation cacheOperation : cacheOperations) {
+			if (cacheOperation instanceof CacheableOperation && ((CacheableOperation) cacheOperation).isBulk()) {
+				bulkKeysIndex = determineBulkKeysIndex((CacheableOperation) cacheOperation, method, cacheOperations.size());
+			}
+		}
+		return new CacheOperationPlan(cacheables, evicts, updates, bulkKeysIndex);
+	}
+	// 校验批量@Cacheable的配置，并返回作为key集合的参数的位置（第一个集合类型的参数）
+	private int determineBulkKeysIndex(CacheableOperation operation, Method method, int operationCount) {
+		if (operationCount > 1) {
+			throw new IllegalStateException("A bulk cacheable operation must be the only cache operation " +
+					"on its method: " + operation);
+		}
+		if (operation.isSync() || StringUtils.hasText(operation.getKey())) {
+			throw new IllegalStateException("A bulk cacheable operation uses the elements of the key collection " +
+					"as keys and cannot be synchronized or declare a key: " + operation);
+		}
+		if (!Map.class.isAssignableFrom(method.getReturnType())) {
+			throw new IllegalStateException("A bulk cacheable operation requires its method to return " +
+					"a Map: " + operation);
+		}
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (Collection.class.isAssignableFrom(parameterTypes[i])) {
+				return i;
+			}
+		}
+		throw new IllegalStateException("A bulk cacheable operation requires its method to take " +
+				"a Collection of keys: " + operation);
+	}
+	// 解析缓存注解配置的缓存对象和SpEL表达式
+	private CacheOperationMetadata createOperationMetadata(CacheOperation operation, Method method,
+			Class<?> targetClass, String[] parameterNames) {
+
+		Collection<Cache> caches = Collections.unmodifiableCollection(getCaches(operation));
+		String unless = getUnless(operation);
+		return new CacheOperationMetadata(operation, method, targetClass, caches,
+				parseExpression(operation.getKey()), parseExpression(operation.getCondition()),
+				parseExpression(unless), parameterNames);
+	}
+	private Expression parseExpression(String expression) {
+		return (StringUtils.hasText(expression) ? this.evaluator.parseExpression(expression) : null);
+	}
+	private static boolean hasExpressions(CacheOperation operation) {
+		return (StringUtils.hasText(operation.getKey()) || StringUtils.hasText(operation.getCondition()) ||
+				StringUtils.hasText(getUnless(operation)));
+	}
+	private static String getUnless(CacheOperation operation) {
+		if (operation instanceof CacheableOperation) {
+			return ((CacheableOperation) operation).getUnless();
+		}
+		if (operation instanceof CachePutOperation) {
+			return ((CachePutOperation) operation).getUnless();
+		}
+		return null;
+	}
+
 	// evictions表示@CacheEvict注解配置的信息
 	private void inspectBeforeCacheEvicts(Collection<CacheOperationContext> evictions) {
 		inspectCacheEvicts(evictions, true, ExpressionEvaluator.NO_RESULT);
@@ -270,6 +450,149 @@ public abstract class CacheAspectSupport implements InitializingBean {
 
 		return null;
 	}
+	// 批量@Cacheable：批量查找所有的key，缓存中不存在的key通过一次方法调用加载，结果批量放入缓存，返回合并后的Map。
+	// 通过替换args中的key集合参数来只加载缺失的key：依赖于Invoker使用这个（被修改的）参数数组继续调用，
+	// CacheInterceptor即是如此（MethodInvocation.getArguments()返回的就是调用时使用的数组）
+	@SuppressWarnings("unchecked")
+	private Object executeBulk(CacheOperationPlan plan, Invoker invoker, Object target, Object[] args) {
+		CacheOperationContext context = getOperationContext(plan.cacheables.iterator().next(), args, target);
+		Collection<Object> keys = (Collection<Object>) args[plan.bulkKeysIndex];
+		if (keys == null || !context.isConditionPassing()) {
+			return invoker.invoke();
+		}
+		boolean log = logger.isTraceEnabled();
+		// 每个元素的缓存key：用该元素替换key集合参数后由KeyGenerator生成，其余参数也因此参与缓存key
+		// （单参数方法使用默认的SimpleKeyGenerator时，缓存key就是元素本身）
+		Map<Object, Object> elementsByCacheKey = new LinkedHashMap<Object, Object>(keys.size());
+		for (Object key : keys) {
+			elementsByCacheKey.put(generateBulkKey(plan, context, key), key);
+		}
+		Map<Object, Object> cachedValues = new LinkedHashMap<Object, Object>(keys.size());
+		Set<Object> missingCacheKeys = new LinkedHashSet<Object>(elementsByCacheKey.keySet());
+		for (Cache cache : context.getCaches()) {
+			if (missingCacheKeys.isEmpty()) {
+				break;
+			}
+			for (Map.Entry<Object, Cache.ValueWrapper> entry : CacheUtils.getAll(cache, missingCacheKeys).entrySet()) {
+				cachedValues.put(elementsByCacheKey.get(entry.getKey()), entry.getValue().get());
+				missingCacheKeys.remove(entry.getKey());
+			}
+		}
+		if (log) {
+			logger.trace("Found " + cachedValues.size() + " of " + keys.size() + " keys in cache for operation " +
+					context.operation);
+		}
+
+		Map<Object, Object> loadedValues = null;
+		if (!missingCacheKeys.isEmpty()) {
+			// 用只包含缺失key的集合替换原参数调用业务方法，调用之后恢复原参数
+			Collection<Object> keysToLoad = CollectionFactory.createCollection(
+					context.method.getParameterTypes()[plan.bulkKeysIndex], missingCacheKeys.size());
+			for (Object cacheKey : missingCacheKeys) {
+				keysToLoad.add(elementsByCacheKey.get(cacheKey));
+			}
+			args[plan.bulkKeysIndex] = keysToLoad;
+			try {
+				loadedValues = (Map<Object, Object>) invoker.invoke();
+			}
+			finally {
+				args[plan.bulkKeysIndex] = keys;
+			}
+			if (loadedValues != null && context.canPutToCache(loadedValues)) {
+				Map<Object, Object> entries = new LinkedHashMap<Object, Object>(loadedValues.size());
+				for (Map.Entry<Object, Object> entry : loadedValues.entrySet()) {
+					entries.put(generateBulkKey(plan, context, entry.getKey()), entry.getValue());
+				}
+				for (Cache cache : context.getCaches()) {
+					CacheUtils.putAll(cache, entries);
+				}
+			}
+		}
+
+		// 按给定key的顺序合并缓存的值和加载的值
+		Map<Object, Object> result = CollectionFactory.createMap(context.method.getReturnType(), keys.size());
+		for (Object key : keys) {
+			if (cachedValues.containsKey(key)) {
+				result.put(key, cachedValues.get(key));
+			}
+			else if (loadedValues != null && loadedValues.containsKey(key)) {
+				result.put(key, loadedValues.get(key));
+			}
+		}
+		return result;
+	}
+	// 生成批量@Cacheable中单个元素的缓存key：参数与调用时相同，只是key集合参数替换为这个元素
+	private Object generateBulkKey(CacheOperationPlan plan, CacheOperationContext context, Object element) {
+		Object[] keyArgs = context.args.clone();
+		keyArgs[plan.bulkKeysIndex] = element;
+		return this.keyGenerator.generate(context.target, context.method, keyArgs);
+	}
+	// 返回第一个有缓存的同步加载@Cacheable操作及其key，没有则返回null
+	private Map.Entry<CacheOperationContext, Object> findSyncCacheable(Map<CacheOperationContext, Object> cacheables) {
+		for (Map.Entry<CacheOperationContext, Object> entry : cacheables.entrySet()) {
+			CacheOperationContext context = entry.getKey();
+			if (((CacheableOperation) context.operation).isSync() && !context.getCaches().isEmpty()) {
+				return entry;
+			}
+		}
+		return null;
+	}
+	// 以（第一个缓存中的）key同步加载：正在加载这个key的调用者不持有任何锁，等待它的调用者直接得到它的返回值；
+	// 等待超时（或同一线程嵌套加载同一个key）时则自己调用业务方法
+	private Object loadSynchronized(Map.Entry<CacheOperationContext, Object> syncCacheable,
+			final Map<String, Collection<CacheOperationContext>> ops, final CacheStatus status, final Invoker invoker) {
+		Cache cache = syncCacheable.getKey().getCaches().iterator().next();
+		try {
+			return this.inFlightLoads.load(cache.getName(), syncCacheable.getValue(), new Callable<Object>() {
+				public Object call() {
+					// 再次检查缓存：其他调用者可能在这次查找之后刚刚加载完这个值
+					Cache.ValueWrapper loaded = findCachedItem(status.cacheUpdates);
+					if (loaded != null) {
+						return loaded.get();
+					}
+					return invokeAndUpdate(ops, status, invoker);
+				}
+			}, this.syncTimeout);
+		}
+		catch (RuntimeException ex) {
+			throw ex;
+		}
+		catch (Exception ex) {
+			// 业务方法的调用只会抛出运行时异常（CacheInterceptor将受检异常包装为ThrowableWrapper）
+			throw new IllegalStateException(ex);
+		}
+	}
+	// 仅用于只有@Cacheable且没有SpEL表达式的执行计划：条件总是满足，key由KeyGenerator生成
+	private Cache.ValueWrapper findCachedItem(CacheOperationPlan plan, Object target, Method method, Object[] args) {
+		for (CacheOperationMetadata metadata : plan.cacheables) {
+			Object key = this.keyGenerator.generate(target, method, args);
+			if (key == null) {
+				// 交给完整的处理流程报错
+				return null;
+			}
+			for (Cache cache : metadata.caches) {
+				Cache.ValueWrapper wrapper = cache.get(key);
+				if (wrapper != null) {
+					if (logger.isTraceEnabled()) {
+						logger.trace("Cache hit for key " + key + " for operation " + metadata.operation);
+					}
+					return wrapper;
+				}
+			}
+		}
+		return null;
+	}
+	private Cache.ValueWrapper findCachedItem(Map<CacheOperationContext, Object> cacheables) {
+		for (Map.Entry<CacheOperationContext, Object> entry : cacheables.entrySet()) {
+			for (Cache cache : entry.getKey().getCaches()) {
+				Cache.ValueWrapper wrapper = cache.get(entry.getValue());
+				if (wrapper != null) {
+					return wrapper;
+				}
+			}
+		}
+		return null;
+	}
 	private Map<CacheOperationContext, Object> inspectCacheUpdates(Collection<CacheOperationContext> updates) {
 		Map<CacheOperationContext, Object> cacheUpdates = new LinkedHashMap<CacheOperationContext, Object>(updates.size());
 		if (!updates.isEmpty()) {
@@ -307,35 +630,28 @@ public abstract class CacheAspectSupport implements InitializingBean {
 		}
 	}
 
-	// 将配置的注解信息分类保存
-	// cacheOperations：表示业务方法配置的所有缓存注解配置信息；method：表示当前调用的业务方法；
-	// args：表示业务方法入参；target：业务方法的所在Bean；targetClass：目标对象类型
+	// 根据执行计划创建本次调用的上下文，按注解类型分类保存
+	// plan：表示业务方法的缓存操作执行计划；args：表示业务方法入参；target：业务方法的所在Bean
 	private Map<String, Collection<CacheOperationContext>> createOperationContext(
-			Collection<CacheOperation> cacheOperations, Method method, Object[] args, Object target, Class<?> targetClass) {
+			CacheOperationPlan plan, Object[] args, Object target) {
 
 		Map<String, Collection<CacheOperationContext>> result = new LinkedHashMap<String, Collection<CacheOperationContext>>(3);
-		Collection<CacheOperationContext> cacheables = new ArrayList<CacheOperationContext>();
-		Collection<CacheOperationContext> evicts = new ArrayList<CacheOperationContext>();
-		Collection<CacheOperationContext> updates = new ArrayList<CacheOperationContext>();
-
+		result.put(CACHEABLE, createOperationContexts(plan.cacheables, args, target));
+		result.put(EVICT, createOperationContexts(plan.evicts, args, target));
+		result.put(UPDATE, createOperationContexts(plan.updates, args, target));
+		return result;
+	}
+	private Collection<CacheOperationContext> createOperationContexts(
+			Collection<CacheOperationMetadata> metadataList, Object[] args, Object target) {
 
-		for (CacheOperation cacheOperation : cacheOperations) {
-			CacheOperationContext opContext = getOperationContext(cacheOperation, method, args, target, targetClass);
-			if (cacheOperation instanceof CacheableOperation) {
-				cacheables.add(opContext);
-			}
-			if (cacheOperation instanceof CacheEvictOperation) {
-				evicts.add(opContext);
-			}
-			if (cacheOperation instanceof CachePutOperation) {
-				updates.add(opContext);
-			}
+		if (metadataList.isEmpty()) {
+			return Collections.emptyList();
 		}
-
-		result.put(CACHEABLE, cacheables);
-		result.put(EVICT, evicts);
-		result.put(UPDATE, updates);
-		return result;
+		Collection<CacheOperationContext> contexts = new ArrayList<CacheOperationContext>(metadataList.size());
+		for (CacheOperationMetadata metadata : metadataList) {
+			contexts.add(getOperationContext(metadata, args, target));
+		}
+		return contexts;
 	}
 
 
@@ -343,6 +659,7 @@ public abstract class CacheAspectSupport implements InitializingBean {
 	// getter and setter ...
 	public void setCacheManager(CacheManager cacheManager) {
 		this.cacheManager = cacheManager;
+		clearMetadataCache();
 	}
 	public CacheManager getCacheManager() {
 		return this.cacheManager;
@@ -351,6 +668,7 @@ public abstract class CacheAspectSupport implements InitializingBean {
 		Assert.notEmpty(cacheOperationSources, "At least 1 CacheOperationSource needs to be specified");
 		this.cacheOperationSource = (cacheOperationSources.length > 1 ?
 			new CompositeCacheOperationSource(cacheOperationSources) : cacheOperationSources[0]);
+		clearMetadataCache();
 	}
 	public CacheOperationSource getCacheOperationSource() {
 		return this.cacheOperationSource;
@@ -361,13 +679,86 @@ public abstract class CacheAspectSupport implements InitializingBean {
 	public KeyGenerator getKeyGenerator() {
 		return this.keyGenerator;
 	}
+	/**
+	 * Set the maximum time (in milliseconds) that a caller of a
+	 * {@link CacheableOperation#isSync() synchronized} cacheable operation waits
+	 * for another caller loading the same key, before invoking the method itself.
+	 * Default is 0: wait as long as it takes.
+	 * @since 3.2.9
+	 */
+	public void setSyncTimeout(long syncTimeout) {
+		this.syncTimeout = syncTimeout;
+	}
+	public long getSyncTimeout() {
+		return this.syncTimeout;
+	}
 
 
-	// 用于封装业务方法调用的接口
+	/**
+	 * Abstraction of the invocation of the cached method.
+	 * <p>For {@link CacheableOperation#isBulk() bulk} operations, the argument
+	 * array passed to {@link #execute} is modified before {@link #invoke()} is
+	 * called, so that only the keys missing from the cache get loaded: an
+	 * implementation has to proceed with that same (live) array, as
+	 * {@link CacheInterceptor} does through {@code MethodInvocation.proceed()}.
+	 */
 	public interface Invoker {
 		Object invoke();
 	}
 
+	/**
+	 * Metadata of a cache operation on a given method and target class, resolved
+	 * once and shared by all invocations of the method: the caches to operate on,
+	 * the parsed SpEL expressions (if any) and the parameter names of the method.
+	 * @since 3.2.9
+	 */
+	protected static final class CacheOperationMetadata {
+
+		private final CacheOperation operation;
+		private final Method method;
+		private final Class<?> targetClass;
+		private final Collection<Cache> caches;
+		// 未声明对应表达式时为null
+		private final Expression keyExpression;
+		private final Expression conditionExpression;
+		private final Expression unlessExpression;
+		// 没有声明任何表达式，或者无法获取参数名（编译时没有调试信息）时为null
+		private final String[] parameterNames;
+
+		private CacheOperationMetadata(CacheOperation operation, Method method, Class<?> targetClass,
+				Collection<Cache> caches, Expression keyExpression, Expression conditionExpression,
+				Expression unlessExpression, String[] parameterNames) {
+
+			this.operation = operation;
+			this.method = method;
+			this.targetClass = targetClass;
+			this.caches = caches;
+			this.keyExpression = keyExpression;
+			this.conditionExpression = conditionExpression;
+			this.unlessExpression = unlessExpression;
+			this.parameterNames = parameterNames;
+		}
+
+		public CacheOperation getOperation() {
+			return this.operation;
+		}
+		public Method getMethod() {
+			return this.method;
+		}
+		public Class<?> getTargetClass() {
+			return this.targetClass;
+		}
+		public Collection<Cache> getCaches() {
+			return this.caches;
+		}
+		/**
+		 * Return whether any SpEL expression (key, condition or unless) is declared.
+		 */
+		public boolean hasExpressions() {
+			return (this.keyExpression != null || this.conditionExpression != null || this.unlessExpression != null);
+		}
+	}
+
 	// 该类用于封装业务方法的缓存注解配置信息及对应的目标Bean，目标方法，方法入参等信息
 	protected class CacheOperationContext {
 		// 表示当前业务方法配置的一个注解信息
@@ -382,37 +773,42 @@ public abstract class CacheAspectSupport implements InitializingBean {
 		private final Class<?> targetClass;
 		// 表示缓存对象，该Cache对象由CacheManager创建和管理
 		private final Collection<Cache> caches;
+		// 预先解析好的缓存对象、表达式及参数名
+		private final CacheOperationMetadata metadata;
 
 		public CacheOperationContext(CacheOperation operation, Method method, Object[] args, Object target, Class<?> targetClass) {
-			this.operation = operation;
-			this.method = method;
+			this(createOperationMetadata(operation, method, targetClass,
+					(hasExpressions(operation) ? evaluator.getParameterNames(method, targetClass) : null)), args, target);
+		}
+
+		/**
+		 * Create a new context for the given, pre-resolved operation metadata.
+		 * @since 3.2.9
+		 */
+		public CacheOperationContext(CacheOperationMetadata metadata, Object[] args, Object target) {
+			this.operation = metadata.operation;
+			this.method = metadata.method;
 			this.args = args;
 			this.target = target;
-			this.targetClass = targetClass;
-			this.caches = CacheAspectSupport.this.getCaches(operation);
+			this.targetClass = metadata.targetClass;
+			this.caches = metadata.caches;
+			this.metadata = metadata;
 		}
 
 		protected boolean isConditionPassing() {
 			return isConditionPassing(ExpressionEvaluator.NO_RESULT);
 		}
 		protected boolean isConditionPassing(Object result) {
-			if (StringUtils.hasText(this.operation.getCondition())) {
+			if (this.metadata.conditionExpression != null) {
 				EvaluationContext evaluationContext = createEvaluationContext(result);
-				return evaluator.condition(this.operation.getCondition(), this.method, evaluationContext);
+				return this.metadata.conditionExpression.getValue(evaluationContext, boolean.class);
 			}
 			return true;
 		}
 		protected boolean canPutToCache(Object value) {
-			String unless = "";
-			if (this.operation instanceof CacheableOperation) {
-				unless = ((CacheableOperation) this.operation).getUnless();
-			}
-			else if (this.operation instanceof CachePutOperation) {
-				unless = ((CachePutOperation) this.operation).getUnless();
-			}
-			if (StringUtils.hasText(unless)) {
+			if (this.metadata.unlessExpression != null) {
 				EvaluationContext evaluationContext = createEvaluationContext(value);
-				return !evaluator.unless(unless, this.method, evaluationContext);
+				return !this.metadata.unlessExpression.getValue(evaluationContext, boolean.class);
 			}
 			return true;
 		}
@@ -421,19 +817,70 @@ public abstract class CacheAspectSupport implements InitializingBean {
 		 * @return generated key (null if none can be generated)
 		 */
 		protected Object generateKey() {
-			if (StringUtils.hasText(this.operation.getKey())) {
+			if (this.metadata.keyExpression != null) {
 				EvaluationContext evaluationContext = createEvaluationContext(ExpressionEvaluator.NO_RESULT);
-				return evaluator.key(this.operation.getKey(), this.method, evaluationContext);
+				return this.metadata.keyExpression.getValue(evaluationContext);
 			}
 			return keyGenerator.generate(this.target, this.method, this.args);
 		}
 		private EvaluationContext createEvaluationContext(Object result) {
-			return evaluator.createEvaluationContext(this.caches, this.method, this.args, this.target, this.targetClass, result);
+			return evaluator.createEvaluationContext(this.caches, this.method, this.args, this.target,
+					this.targetClass, result, this.metadata.parameterNames);
 		}
 		protected Collection<Cache> getCaches() {
 			return this.caches;
 		}
 	}
+	// 业务方法的缓存操作执行计划：按注解类型分类的缓存操作元数据，创建之后不再改变
+	private static final class CacheOperationPlan {
+		final Collection<CacheOperationMetadata> cacheables;
+		final Collection<CacheOperationMetadata> evicts;
+		final Collection<CacheOperationMetadata> updates;
+		// 只有@Cacheable操作并且没有声明任何SpEL表达式：缓存命中时可以跳过上下文的创建
+		final boolean cacheableOnly;
+		// 批量@Cacheable时作为key集合的参数位置，否则为-1
+		final int bulkKeysIndex;
+
+		CacheOperationPlan(Collection<CacheOperationMetadata> cacheables, Collection<CacheOperationMetadata> evicts,
+				Collection<CacheOperationMetadata> updates, int bulkKeysIndex) {
+			this.cacheables = cacheables;
+			this.evicts = evicts;
+			this.updates = updates;
+			this.bulkKeysIndex = bulkKeysIndex;
+			boolean expressionFree = true;
+			for (CacheOperationMetadata metadata : cacheables) {
+				expressionFree &= !metadata.hasExpressions();
+			}
+			this.cacheableOnly = (!cacheables.isEmpty() && evicts.isEmpty() && updates.isEmpty() && expressionFree &&
+					bulkKeysIndex < 0);
+		}
+	}
+	private static final class CacheOperationCacheKey {
+		private final Method method;
+		private final Class<?> targetClass;
+
+		CacheOperationCacheKey(Method method, Class<?> targetClass) {
+			this.method = method;
+			this.targetClass = targetClass;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof CacheOperationCacheKey)) {
+				return false;
+			}
+			CacheOperationCacheKey otherKey = (CacheOperationCacheKey) other;
+			return (this.method.equals(otherKey.method) &&
+					ObjectUtils.nullSafeEquals(this.targetClass, otherKey.targetClass));
+		}
+		@Override
+		public int hashCode() {
+			return this.method.hashCode() * 29 + (this.targetClass != null ? this.targetClass.hashCode() : 0);
+		}
+	}
 	private static class CacheStatus {
 		// caches/key
 		final Map<CacheOperationContext, Object> cacheUpdates;
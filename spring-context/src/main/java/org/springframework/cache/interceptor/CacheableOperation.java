@@ -26,6 +26,10 @@ package org.springframework.cache.interceptor;
 public class CacheableOperation extends CacheOperation {
 
 	private String unless;
+	// 是否同步加载：同一个key只允许一个调用者执行业务方法，其他调用者等待其结果
+	private boolean sync;
+	// 是否批量加载：参数中的集合元素作为key，只有缓存中不存在的key才交给业务方法加载
+	private boolean bulk;
 
 	public String getUnless() {
 		return unless;
@@ -33,6 +37,30 @@ public class CacheableOperation extends CacheOperation {
 	public void setUnless(String unless) {
 		this.unless = unless;
 	}
+	/**
+	 * Set whether the value for a key is to be loaded by a single caller at a
+	 * time, with concurrent callers for the same key waiting for it.
+	 * @since 3.2.9
+	 */
+	public void setSync(boolean sync) {
+		this.sync = sync;
+	}
+	public boolean isSync() {
+		return this.sync;
+	}
+	/**
+	 * Set whether the operation applies to a collection of keys, with the
+	 * method loading the values of the keys missing from the cache in a
+	 * single invocation and returning them as a Map.
+	 * @since 3.2.9
+	 * @see org.springframework.cache.annotation.Cacheable#bulk()
+	 */
+	public void setBulk(boolean bulk) {
+		this.bulk = bulk;
+	}
+	public boolean isBulk() {
+		return this.bulk;
+	}
 
 	@Override
 	protected StringBuilder getOperationDescription() {
@@ -40,6 +68,12 @@ public class CacheableOperation extends CacheOperation {
 		sb.append(" | unless='");
 		sb.append(this.unless);
 		sb.append("'");
+		sb.append(" | sync='");
+		sb.append(this.sync);
+		sb.append("'");
+		sb.append(" | bulk='");
+		sb.append(this.bulk);
+		sb.append("'");
 		return sb;
 	}
 }
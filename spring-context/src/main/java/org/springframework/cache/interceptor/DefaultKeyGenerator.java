@@ -26,11 +26,17 @@ import java.util.Arrays;
  * Uses the constant value {@value #NULL_PARAM_KEY} for any
  * {@code null} parameters given.
  *
+ * <p>Note that different parameters may result in the same hash code, hence
+ * in the same key. This generator is no longer used by default; it remains
+ * available for compatibility with cache entries stored under its keys.
+ *
  * @author Costin Leau
  * @author Chris Beams
  * @author Juergen Hoeller
  * @since 3.1
+ * @deprecated as of 3.2.9, in favor of {@link SimpleKeyGenerator}
  */
+@Deprecated
 public class DefaultKeyGenerator implements KeyGenerator {
 
 	public static final int NO_PARAM_KEY = 0;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,9 +18,8 @@ package org.springframework.cache.interceptor;
 
 import java.lang.reflect.Method;
 import java.util.Collection;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.aop.support.AopUtils;
 import org.springframework.cache.Cache;
 import org.springframework.core.LocalVariableTableParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
@@ -32,7 +31,9 @@ import org.springframework.expression.spel.standard.SpelExpressionParser;
  * Utility class handling the SpEL expression parsing.
  * Meant to be used as a reusable, thread-safe component.
  *
- * <p>Performs internal caching for performance reasons.
+ * <p>As of 3.2.9, expressions and parameter names are not cached here anymore:
+ * {@link CacheAspectSupport} resolves them once per method and keeps them in
+ * its cache operation metadata.
  *
  * @author Costin Leau
  * @author Phillip Webb
@@ -44,19 +45,34 @@ class ExpressionEvaluator {
 	private final SpelExpressionParser parser = new SpelExpressionParser();
 	// shared param discoverer since it caches data internally
 	private final ParameterNameDiscoverer paramNameDiscoverer = new LocalVariableTableParameterNameDiscoverer();
-	private final Map<String, Expression> keyCache = new ConcurrentHashMap<String, Expression>(64);
-	private final Map<String, Expression> conditionCache = new ConcurrentHashMap<String, Expression>(64);
-	private final Map<String, Expression> unlessCache = new ConcurrentHashMap<String, Expression>(64);
-	private final Map<String, Method> targetMethodCache = new ConcurrentHashMap<String, Method>(64);
 
 
 	/**
-	 * Create an {@link EvaluationContext} without a return value.
-	 * @see #createEvaluationContext(Collection, Method, Object[], Object, Class, Object)
+	 * Parse the given expression.
+	 * @param expression the expression to parse
+	 * @return the parsed expression, to be evaluated against contexts
+	 * created by this evaluator
+	 * @since 3.2.9
 	 */
-	public EvaluationContext createEvaluationContext(
-		Collection<Cache> caches, Method method, Object[] args, Object target, Class<?> targetClass) {
-		return createEvaluationContext(caches, method, args, target, targetClass, NO_RESULT);
+	public Expression parseExpression(String expression) {
+		return this.parser.parseExpression(expression);
+	}
+
+	/**
+	 * Discover the parameter names of the given method, as declared on the
+	 * most specific implementation in the given target class.
+	 * @param method the method
+	 * @param targetClass the target class (may be {@code null})
+	 * @return the parameter names, or {@code null} if they cannot be discovered
+	 * (e.g. on classes compiled without debug info)
+	 * @since 3.2.9
+	 */
+	public String[] getParameterNames(Method method, Class<?> targetClass) {
+		Method targetMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+		if (targetMethod == null) {
+			targetMethod = method;
+		}
+		return this.paramNameDiscoverer.getParameterNames(targetMethod);
 	}
 
 	/**
@@ -69,50 +85,19 @@ class ExpressionEvaluator {
 	 * @param targetClass the target class
 	 * @param result the return value (can be {@code null}) or
 	 *        {@link #NO_RESULT} if there is no return at this time
+	 * @param parameterNames the parameter names of the method, as returned by
+	 *        {@link #getParameterNames} (may be {@code null})
 	 * @return the evalulation context
 	 */
-	public EvaluationContext createEvaluationContext(
-		Collection<Cache> caches, Method method, Object[] args, Object target, Class<?> targetClass, final Object result) {
+	public EvaluationContext createEvaluationContext(Collection<Cache> caches, Method method, Object[] args,
+			Object target, Class<?> targetClass, Object result, String[] parameterNames) {
 		CacheExpressionRootObject rootObject = new CacheExpressionRootObject(caches,
 				method, args, target, targetClass);
-		LazyParamAwareEvaluationContext evaluationContext = new LazyParamAwareEvaluationContext(rootObject,
-				this.paramNameDiscoverer, method, args, targetClass, this.targetMethodCache);
+		LazyParamAwareEvaluationContext evaluationContext =
+				new LazyParamAwareEvaluationContext(rootObject, args, parameterNames);
 		if(result != NO_RESULT) {
 			evaluationContext.setVariable("result", result);
 		}
 		return evaluationContext;
 	}
-
-	public Object key(String keyExpression, Method method, EvaluationContext evalContext) {
-		return getExpression(this.keyCache, keyExpression, method).getValue(evalContext);
-	}
-
-	public boolean condition(String conditionExpression, Method method, EvaluationContext evalContext) {
-		return getExpression(this.conditionCache, conditionExpression, method).getValue(
-				evalContext, boolean.class);
-	}
-
-	public boolean unless(String unlessExpression, Method method, EvaluationContext evalContext) {
-		return getExpression(this.unlessCache, unlessExpression, method).getValue(evalContext, boolean.class);
-	}
-
-	private Expression getExpression(Map<String, Expression> cache, String expression, Method method) {
-		String key = toString(method, expression);
-		Expression rtn = cache.get(key);
-		if (rtn == null) {
-			rtn = this.parser.parseExpression(expression);
-			cache.put(key, rtn);
-		}
-		return rtn;
-	}
-
-	private String toString(Method method, String expression) {
-		StringBuilder sb = new StringBuilder();
-		sb.append(method.getDeclaringClass().getName());
-		sb.append("#");
-		sb.append(method.toString());
-		sb.append("#");
-		sb.append(expression);
-		return sb.toString();
-	}
 }
@@ -29,9 +29,10 @@ import java.lang.reflect.Method;
 键的生成策略：键的生成策略有两种，一种是默认策略，一种是自定义策略。
 	1、默认策略
 		默认的key生成策略是通过KeyGenerator生成的，其默认策略如下：
-		n  如果方法没有参数，则使用0作为key。
-		n  如果只有一个参数的话则使用该参数作为key。
-		n  如果参数多余一个的话则使用所有参数的hashCode作为key。
+		n  如果方法没有参数，则使用SimpleKey.EMPTY作为key。
+		n  如果只有一个参数（且不为null，也不是数组）的话则使用该参数作为key。
+		n  否则使用包含所有参数的SimpleKey作为key（比较所有参数是否相等，不同的参数不会得到同一个key）。
+		3.2.9之前的默认策略DefaultKeyGenerator在参数多于一个时使用所有参数的hashCode作为key，不同的参数可能会共用一个key。
 
 		如果我们需要指定自己的默认策略的话，那么我们可以实现自己的KeyGenerator，然后指定我们的Spring Cache使用的KeyGenerator为我们自己定义的KeyGenerator。
 		使用基于注解的配置时是通过cache:annotation-driven指定的.
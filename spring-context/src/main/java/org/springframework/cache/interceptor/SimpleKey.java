@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.interceptor;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * A simple key as returned from the {@link SimpleKeyGenerator}: holds the
+ * method arguments and compares them for (deep) equality, so that different
+ * arguments never share a cache entry. The hash code is computed once, on
+ * construction.
+ *
+ * @since 3.2.9
+ * @see SimpleKeyGenerator
+ */
+@SuppressWarnings("serial")
+public final class SimpleKey implements Serializable {
+
+	/** Key for methods without arguments */
+	public static final SimpleKey EMPTY = new SimpleKey();
+
+
+	private final Object[] params;
+
+	private final int hashCode;
+
+
+	/**
+	 * Create a new SimpleKey instance.
+	 * @param elements the elements of the key (copied, since the given array
+	 * may be the argument array of an invocation that is still in progress)
+	 */
+	public SimpleKey(Object... elements) {
+		Assert.notNull(elements, "Elements must not be null");
+		this.params = new Object[elements.length];
+		System.arraycopy(elements, 0, this.params, 0, elements.length);
+		this.hashCode = Arrays.deepHashCode(this.params);
+	}
+
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof SimpleKey)) {
+			return false;
+		}
+		SimpleKey otherKey = (SimpleKey) other;
+		// 先比较哈希值，哈希值不同的key无需逐个比较参数
+		return (this.hashCode == otherKey.hashCode && Arrays.deepEquals(this.params, otherKey.params));
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hashCode;
+	}
+
+	@Override
+	public String toString() {
+		return "SimpleKey [" + StringUtils.arrayToCommaDelimitedString(this.params) + "]";
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.interceptor;
+
+import java.lang.reflect.Method;
+
+/**
+ * Simple key generator. Returns the parameter itself if a single non-null,
+ * non-array parameter is given, or a {@link SimpleKey} holding all parameters
+ * otherwise ({@link SimpleKey#EMPTY} for no parameters).
+ *
+ * <p>Unlike {@link DefaultKeyGenerator}, which returns a hash code for multiple
+ * parameters, this generator does not let different parameters collide: keys
+ * compare the actual parameters for equality. Parameters are therefore expected
+ * to implement {@code hashCode()} and {@code equals()} properly.
+ *
+ * <p>The common case of a single parameter does not allocate anything.
+ *
+ * @since 3.2.9
+ * @see SimpleKey
+ */
+public class SimpleKeyGenerator implements KeyGenerator {
+
+	public Object generate(Object target, Method method, Object... params) {
+		return generateKey(params);
+	}
+
+	/**
+	 * Generate a key based on the specified parameters.
+	 */
+	public static Object generateKey(Object... params) {
+		if (params.length == 0) {
+			return SimpleKey.EMPTY;
+		}
+		if (params.length == 1) {
+			Object param = params[0];
+			// 单个参数直接作为key（数组的equals()比较的是引用，不能直接作为key）
+			if (param != null && !param.getClass().isArray()) {
+				return param;
+			}
+		}
+		return new SimpleKey(params);
+	}
+
+}
@@ -0,0 +1,638 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cache.BulkCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.CacheInvalidationChannel;
+import org.springframework.cache.support.CacheStatistics;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.util.Assert;
+
+/**
+ * {@link Cache} implementation that keeps its values serialized outside of the
+ * Java heap, in direct {@link ByteBuffer ByteBuffers}, so that large caches do
+ * not add to garbage collection pauses. Only the keys and the locations of the
+ * values live on the heap.
+ *
+ * <p>The cache is split into a number of segments ({@link #setConcurrencyLevel}),
+ * each guarded by its own lock and owning an equal share of the
+ * {@link #setCapacity capacity}. A segment allocates its memory lazily, as
+ * slabs of {@link #setSlabSize slabSize} bytes that are divided into blocks of
+ * {@link #setBlockSize blockSize} bytes; a value occupies as many (not
+ * necessarily adjacent) blocks as its serialized form requires, so memory does
+ * not fragment. Once a segment is full, its least recently used entries are
+ * evicted to make room for new ones. Values that do not fit into a segment at
+ * all are not cached. Such evictions may be announced through a
+ * {@link #setInvalidationChannel CacheInvalidationChannel}, e.g. to drop the
+ * near copies of a {@link org.springframework.cache.support.TieredCache}.
+ *
+ * <p>Values are serialized on put and deserialized on each get, through the
+ * configured {@link Serializer} and {@link Deserializer} (standard Java
+ * serialization by default): callers therefore always receive a copy of the
+ * cached value. Keys are held on the heap and need proper {@code equals} and
+ * {@code hashCode} implementations, as for any other cache.
+ *
+ * <p>Bulk operations ({@link BulkCache}) lock each affected segment only once.
+ *
+ * <p>Configuration properties are to be set before the cache is used.
+ * The off-heap memory is released by {@link #destroy()} - or once the cache
+ * has been garbage collected.
+ *
+ * @since 3.2.9
+ * @see OffHeapCacheManager
+ */
+public class OffHeapCache implements BulkCache {
+
+	// 缓存的值为null时，在读取时使用该对象表示（按引用比较）
+	private static final byte[] NULL_VALUE = new byte[0];
+
+	private final String name;
+
+	private final boolean allowNullValues;
+
+	private long capacity;
+
+	private int blockSize = 512;
+
+	private int slabSize = 16 * 1024 * 1024;
+
+	private int concurrencyLevel = 16;
+
+	private SerializingConverter serializer = new SerializingConverter(new DefaultSerializer());
+
+	private DeserializingConverter deserializer = new DeserializingConverter(new DefaultDeserializer());
+
+	// 在第一次使用时创建，destroy()之后会重新创建
+	private volatile Segment[] segments;
+
+	private final Object segmentMonitor = new Object();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong putCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	private CacheInvalidationChannel invalidationChannel;
+
+
+	/**
+	 * Create a new OffHeapCache with the specified name.
+	 * @param name the name of the cache
+	 * @param capacity the maximum number of bytes to allocate for values
+	 */
+	public OffHeapCache(String name, long capacity) {
+		this(name, capacity, true);
+	}
+
+	/**
+	 * Create a new OffHeapCache with the specified name.
+	 * @param name the name of the cache
+	 * @param capacity the maximum number of bytes to allocate for values
+	 * @param allowNullValues whether to accept and convert {@code null} values for this cache
+	 */
+	public OffHeapCache(String name, long capacity, boolean allowNullValues) {
+		Assert.notNull(name, "Name must not be null");
+		this.name = name;
+		this.allowNullValues = allowNullValues;
+		setCapacity(capacity);
+	}
+
+
+	/**
+	 * Set the maximum number of bytes to allocate for values, shared equally by all segments.
+	 */
+	public void setCapacity(long capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.capacity = capacity;
+	}
+
+	public long getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Set the size (in bytes) of the blocks that values are stored in. Default is 512.
+	 * <p>Each value wastes less than one block; smaller blocks in turn require
+	 * more heap for the locations of the values.
+	 */
+	public void setBlockSize(int blockSize) {
+		Assert.isTrue(blockSize > 0, "Block size must be greater than 0");
+		this.blockSize = blockSize;
+	}
+
+	public int getBlockSize() {
+		return this.blockSize;
+	}
+
+	/**
+	 * Set the size (in bytes) of the direct buffers that segments allocate
+	 * as needed. Default is 16 MB.
+	 */
+	public void setSlabSize(int slabSize) {
+		Assert.isTrue(slabSize > 0, "Slab size must be greater than 0");
+		this.slabSize = slabSize;
+	}
+
+	public int getSlabSize() {
+		return this.slabSize;
+	}
+
+	/**
+	 * Set the number of independently locked segments. Default is 16.
+	 */
+	public void setConcurrencyLevel(int concurrencyLevel) {
+		Assert.isTrue(concurrencyLevel > 0, "Concurrency level must be greater than 0");
+		this.concurrencyLevel = concurrencyLevel;
+	}
+
+	/**
+	 * Set the Serializer for values. Default is standard Java serialization.
+	 */
+	public void setSerializer(Serializer<Object> serializer) {
+		this.serializer = new SerializingConverter(serializer);
+	}
+
+	/**
+	 * Set the Deserializer for values. Default is standard Java serialization.
+	 */
+	public void setDeserializer(Deserializer<Object> deserializer) {
+		this.deserializer = new DeserializingConverter(deserializer);
+	}
+
+	/**
+	 * Set the channel to announce the keys of evicted entries through, if any.
+	 * <p>Only entries evicted to make room for new ones are announced; explicit
+	 * evictions are up to the caller to announce.
+	 */
+	public void setInvalidationChannel(CacheInvalidationChannel invalidationChannel) {
+		this.invalidationChannel = invalidationChannel;
+	}
+
+	public CacheInvalidationChannel getInvalidationChannel() {
+		return this.invalidationChannel;
+	}
+
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * This implementation returns the cache itself, as there is no native store.
+	 */
+	public Object getNativeCache() {
+		return this;
+	}
+
+	public ValueWrapper get(Object key) {
+		// 在段锁内只复制字节，反序列化在锁外进行
+		byte[] data = getSegment(key).get(key);
+		if (data == null) {
+			this.missCount.incrementAndGet();
+			return null;
+		}
+		this.hitCount.incrementAndGet();
+		return new SimpleValueWrapper(data != NULL_VALUE ? this.deserializer.convert(data) : null);
+	}
+
+	public void put(Object key, Object value) {
+		byte[] data;
+		if (value != null) {
+			data = this.serializer.convert(value);
+		}
+		else {
+			Assert.isTrue(this.allowNullValues, "Cache '" + this.name + "' is configured to not allow null values");
+			data = NULL_VALUE;
+		}
+		List<Object> evictedKeys = (this.invalidationChannel != null ? new ArrayList<Object>(0) : null);
+		Segment segment = getSegment(key);
+		this.evictionCount.addAndGet(segment.put(key, data, evictedKeys));
+		this.putCount.incrementAndGet();
+		publishEvictions(evictedKeys);
+	}
+
+	public void evict(Object key) {
+		getSegment(key).remove(key);
+	}
+
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, byte[]> found = new LinkedHashMap<Object, byte[]>(keys.size());
+		for (Map.Entry<Segment, List<Object>> entry : groupBySegment(keys).entrySet()) {
+			entry.getKey().getAll(entry.getValue(), found);
+		}
+		this.hitCount.addAndGet(found.size());
+		this.missCount.addAndGet(keys.size() - found.size());
+		Map<Object, ValueWrapper> result = new LinkedHashMap<Object, ValueWrapper>(found.size());
+		for (Map.Entry<Object, byte[]> entry : found.entrySet()) {
+			byte[] data = entry.getValue();
+			result.put(entry.getKey(), new SimpleValueWrapper(data != NULL_VALUE ? this.deserializer.convert(data) : null));
+		}
+		return result;
+	}
+
+	public void putAll(Map<?, ?> entries) {
+		// 先在锁外序列化所有的值，再按段分组写入
+		Map<Segment, Map<Object, byte[]>> segmentEntries = new IdentityHashMap<Segment, Map<Object, byte[]>>();
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			Object value = entry.getValue();
+			byte[] data;
+			if (value != null) {
+				data = this.serializer.convert(value);
+			}
+			else {
+				Assert.isTrue(this.allowNullValues, "Cache '" + this.name + "' is configured to not allow null values");
+				data = NULL_VALUE;
+			}
+			Segment segment = getSegment(entry.getKey());
+			Map<Object, byte[]> dataMap = segmentEntries.get(segment);
+			if (dataMap == null) {
+				dataMap = new LinkedHashMap<Object, byte[]>();
+				segmentEntries.put(segment, dataMap);
+			}
+			dataMap.put(entry.getKey(), data);
+		}
+		List<Object> evictedKeys = (this.invalidationChannel != null ? new ArrayList<Object>() : null);
+		for (Map.Entry<Segment, Map<Object, byte[]>> entry : segmentEntries.entrySet()) {
+			this.evictionCount.addAndGet(entry.getKey().putAll(entry.getValue(), evictedKeys));
+		}
+		this.putCount.addAndGet(entries.size());
+		publishEvictions(evictedKeys);
+	}
+
+	public void evictAll(Collection<?> keys) {
+		for (Map.Entry<Segment, List<Object>> entry : groupBySegment(keys).entrySet()) {
+			entry.getKey().removeAll(entry.getValue());
+		}
+	}
+
+	public void clear() {
+		for (Segment segment : getSegments()) {
+			segment.clear();
+		}
+	}
+
+	/**
+	 * Remove all entries and release the off-heap memory. The cache may still
+	 * be used afterwards, allocating memory again as needed.
+	 */
+	public void destroy() {
+		synchronized (this.segmentMonitor) {
+			if (this.segments != null) {
+				for (Segment segment : this.segments) {
+					segment.release();
+				}
+				this.segments = null;
+			}
+		}
+	}
+
+	/**
+	 * Return the current number of entries.
+	 */
+	public long getSize() {
+		long size = 0;
+		for (Segment segment : getSegments()) {
+			size += segment.getSize();
+		}
+		return size;
+	}
+
+	/**
+	 * Return the number of off-heap bytes occupied by values (in whole blocks).
+	 */
+	public long getMemoryUsed() {
+		long used = 0;
+		for (Segment segment : getSegments()) {
+			used += segment.getMemoryUsed();
+		}
+		return used;
+	}
+
+	/**
+	 * Return the number of off-heap bytes allocated so far.
+	 */
+	public long getMemoryAllocated() {
+		long allocated = 0;
+		for (Segment segment : getSegments()) {
+			allocated += segment.getMemoryAllocated();
+		}
+		return allocated;
+	}
+
+	/**
+	 * Return a snapshot of the statistics of this cache.
+	 */
+	public CacheStatistics getStatistics() {
+		return new CacheStatistics(this.hitCount.get(), this.missCount.get(), this.putCount.get(),
+				this.evictionCount.get(), 0);
+	}
+
+
+	// 在段锁之外发布被淘汰的key，监听器可能会回调本缓存
+	private void publishEvictions(List<Object> evictedKeys) {
+		if (evictedKeys != null) {
+			for (Object key : evictedKeys) {
+				this.invalidationChannel.invalidate(this.name, key, null);
+			}
+		}
+	}
+
+	private Map<Segment, List<Object>> groupBySegment(Collection<?> keys) {
+		Map<Segment, List<Object>> segmentKeys = new IdentityHashMap<Segment, List<Object>>();
+		for (Object key : keys) {
+			Segment segment = getSegment(key);
+			List<Object> list = segmentKeys.get(segment);
+			if (list == null) {
+				list = new ArrayList<Object>();
+				segmentKeys.put(segment, list);
+			}
+			list.add(key);
+		}
+		return segmentKeys;
+	}
+
+	private Segment getSegment(Object key) {
+		Segment[] segments = getSegments();
+		int hash = key.hashCode();
+		// 将高位混入低位，避免hashCode低位分布不均时集中到少数几个段
+		hash ^= (hash >>> 16);
+		return segments[(hash & Integer.MAX_VALUE) % segments.length];
+	}
+
+	private Segment[] getSegments() {
+		Segment[] segments = this.segments;
+		if (segments == null) {
+			synchronized (this.segmentMonitor) {
+				segments = this.segments;
+				if (segments == null) {
+					Assert.isTrue(this.slabSize >= this.blockSize, "Slab size must not be less than block size");
+					long blocks = this.capacity / this.concurrencyLevel / this.blockSize;
+					Assert.isTrue(blocks > 0, "Capacity of OffHeapCache '" + this.name +
+							"' is too small for " + this.concurrencyLevel + " segments of at least one block each");
+					segments = new Segment[this.concurrencyLevel];
+					for (int i = 0; i < segments.length; i++) {
+						segments[i] = new Segment(this.blockSize, this.slabSize / this.blockSize,
+								(int) Math.min(blocks, Integer.MAX_VALUE));
+					}
+					this.segments = segments;
+				}
+			}
+		}
+		return segments;
+	}
+
+
+	/**
+	 * Location of a value: the blocks it is stored in, and its length.
+	 */
+	private static final class Entry {
+
+		private static final int[] NO_BLOCKS = new int[0];
+
+		// 值为null时使用的长度
+		static final int NULL_LENGTH = -1;
+
+		final int[] blocks;
+
+		final int length;
+
+		Entry(int[] blocks, int length) {
+			this.blocks = blocks;
+			this.length = length;
+		}
+	}
+
+
+	/**
+	 * A part of the cache, with its own lock, memory and LRU order of entries.
+	 */
+	private static final class Segment {
+
+		private final int blockSize;
+
+		private final int blocksPerSlab;
+
+		private final int maxBlocks;
+
+		// 按访问顺序排列，第一个为最近最少使用的缓存项
+		private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true);
+
+		private final List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+
+		// 已分配的内存中被占用的块
+		private final BitSet usedBlocks = new BitSet();
+
+		private int allocatedBlocks = 0;
+
+		private int freeBlocks = 0;
+
+		// 查找空闲块的起始位置：在它之前的块都已被占用
+		private int freeSearchStart = 0;
+
+		Segment(int blockSize, int blocksPerSlab, int maxBlocks) {
+			this.blockSize = blockSize;
+			this.blocksPerSlab = blocksPerSlab;
+			this.maxBlocks = maxBlocks;
+		}
+
+		/**
+		 * Return a copy of the stored bytes, {@link #NULL_VALUE} for a {@code null}
+		 * value, or {@code null} if there is no entry for the given key.
+		 */
+		synchronized byte[] get(Object key) {
+			Entry entry = this.entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.length == Entry.NULL_LENGTH) {
+				return NULL_VALUE;
+			}
+			byte[] data = new byte[entry.length];
+			for (int i = 0; i < entry.blocks.length; i++) {
+				int offset = i * this.blockSize;
+				slabFor(entry.blocks[i]).get(data, offset, Math.min(this.blockSize, data.length - offset));
+			}
+			return data;
+		}
+
+		/**
+		 * Add a copy of the stored bytes for each of the given keys that has an
+		 * entry to the given map.
+		 */
+		synchronized void getAll(List<Object> keys, Map<Object, byte[]> found) {
+			for (Object key : keys) {
+				byte[] data = get(key);
+				if (data != null) {
+					found.put(key, data);
+				}
+			}
+		}
+
+		/**
+		 * Store the given bytes for each key.
+		 * @param evictedKeys the list to add the keys of evicted entries to (may be {@code null})
+		 * @return the number of evicted entries
+		 */
+		synchronized int putAll(Map<Object, byte[]> entries, List<Object> evictedKeys) {
+			int evicted = 0;
+			for (Map.Entry<Object, byte[]> entry : entries.entrySet()) {
+				evicted += put(entry.getKey(), entry.getValue(), evictedKeys);
+			}
+			return evicted;
+		}
+
+		/**
+		 * Store the given bytes, evicting least recently used entries as necessary.
+		 * @param evictedKeys the list to add the keys of evicted entries to (may be {@code null})
+		 * @return the number of evicted entries
+		 */
+		synchronized int put(Object key, byte[] data, List<Object> evictedKeys) {
+			Entry previous = this.entries.remove(key);
+			if (previous != null) {
+				freeBlocks(previous);
+			}
+			if (data == NULL_VALUE) {
+				this.entries.put(key, new Entry(Entry.NO_BLOCKS, Entry.NULL_LENGTH));
+				return 0;
+			}
+			int requiredBlocks = (data.length + this.blockSize - 1) / this.blockSize;
+			if (requiredBlocks > this.maxBlocks) {
+				// 超过整个段容量的值不缓存
+				return 0;
+			}
+			int evicted = 0;
+			while (!ensureFreeBlocks(requiredBlocks)) {
+				Iterator<Map.Entry<Object, Entry>> it = this.entries.entrySet().iterator();
+				Map.Entry<Object, Entry> eldest = it.next();
+				it.remove();
+				freeBlocks(eldest.getValue());
+				if (evictedKeys != null) {
+					evictedKeys.add(eldest.getKey());
+				}
+				evicted++;
+			}
+			int[] blocks = new int[requiredBlocks];
+			for (int i = 0; i < requiredBlocks; i++) {
+				int block = this.usedBlocks.nextClearBit(this.freeSearchStart);
+				this.usedBlocks.set(block);
+				this.freeSearchStart = block + 1;
+				blocks[i] = block;
+				int offset = i * this.blockSize;
+				slabFor(block).put(data, offset, Math.min(this.blockSize, data.length - offset));
+			}
+			this.freeBlocks -= requiredBlocks;
+			this.entries.put(key, new Entry(blocks, data.length));
+			return evicted;
+		}
+
+		synchronized void remove(Object key) {
+			Entry entry = this.entries.remove(key);
+			if (entry != null) {
+				freeBlocks(entry);
+			}
+		}
+
+		synchronized void removeAll(List<Object> keys) {
+			for (Object key : keys) {
+				remove(key);
+			}
+		}
+
+		synchronized void clear() {
+			this.entries.clear();
+			this.usedBlocks.clear();
+			this.freeBlocks = this.allocatedBlocks;
+			this.freeSearchStart = 0;
+		}
+
+		synchronized void release() {
+			clear();
+			this.slabs.clear();
+			this.allocatedBlocks = 0;
+			this.freeBlocks = 0;
+		}
+
+		synchronized int getSize() {
+			return this.entries.size();
+		}
+
+		synchronized long getMemoryUsed() {
+			return (long) (this.allocatedBlocks - this.freeBlocks) * this.blockSize;
+		}
+
+		synchronized long getMemoryAllocated() {
+			return (long) this.allocatedBlocks * this.blockSize;
+		}
+
+		/**
+		 * Allocate further slabs, within the capacity, until the given number of blocks is free.
+		 * @return whether enough blocks are free now
+		 */
+		private boolean ensureFreeBlocks(int requiredBlocks) {
+			while (this.freeBlocks < requiredBlocks && this.allocatedBlocks < this.maxBlocks) {
+				// 最后一个slab可能小于slabSize，但之前的slab都是完整的，所以块号与slab的对应关系不变
+				int blocks = Math.min(this.blocksPerSlab, this.maxBlocks - this.allocatedBlocks);
+				this.slabs.add(ByteBuffer.allocateDirect(blocks * this.blockSize));
+				this.allocatedBlocks += blocks;
+				this.freeBlocks += blocks;
+			}
+			return (this.freeBlocks >= requiredBlocks);
+		}
+
+		private void freeBlocks(Entry entry) {
+			for (int block : entry.blocks) {
+				this.usedBlocks.clear(block);
+				if (block < this.freeSearchStart) {
+					this.freeSearchStart = block;
+				}
+			}
+			this.freeBlocks += entry.blocks.length;
+		}
+
+		/**
+		 * Return the slab containing the given block, positioned at the start of the block.
+		 */
+		private ByteBuffer slabFor(int block) {
+			ByteBuffer slab = this.slabs.get(block / this.blocksPerSlab);
+			slab.position((block % this.blocksPerSlab) * this.blockSize);
+			return slab;
+		}
+	}
+
+}
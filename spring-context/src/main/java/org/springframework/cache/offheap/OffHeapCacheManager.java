@@ -0,0 +1,223 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.offheap;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.CacheInvalidationChannel;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheManager} implementation that lazily builds {@link OffHeapCache}
+ * instances for each {@link #getCache} request. Also supports a 'static' mode where
+ * the set of cache names is pre-defined through {@link #setCacheNames}, with no
+ * dynamic creation of further cache regions at runtime.
+ *
+ * <p>All caches share the same configuration; in particular, each cache may
+ * allocate up to {@link #setCapacity capacity} bytes of off-heap memory.
+ * The memory of all caches is released when the cache manager is destroyed.
+ * All configuration properties need to be set before the first cache is obtained;
+ * existing caches are never rebuilt.
+ *
+ * @since 3.2.9
+ * @see OffHeapCache
+ */
+public class OffHeapCacheManager implements CacheManager, DisposableBean {
+
+	private final ConcurrentMap<String, Cache> cacheMap = new ConcurrentHashMap<String, Cache>(16);
+	// 'static' 模式下预定义的缓存名，对应的缓存在第一次访问时才创建
+	private final Set<String> cacheNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>(16));
+	private boolean dynamic = true;
+	private boolean allowNullValues = true;
+	private long capacity = 64 * 1024 * 1024;
+	private int blockSize = 512;
+	private int slabSize = 16 * 1024 * 1024;
+	private int concurrencyLevel = 16;
+	private Serializer<Object> serializer;
+	private Deserializer<Object> deserializer;
+	private CacheInvalidationChannel invalidationChannel;
+
+
+	public OffHeapCacheManager() {
+	}
+	public OffHeapCacheManager(String... cacheNames) {
+		setCacheNames(Arrays.asList(cacheNames));
+	}
+
+
+	/**
+	 * Specify the set of cache names for this CacheManager's 'static' mode.
+	 * <p>The number of caches and their names will be fixed after a call to this method,
+	 * with no creation of further cache regions at runtime.
+	 * <p>The caches themselves are created on first access, so that the other
+	 * configuration properties apply to them regardless of the order of calls.
+	 */
+	public void setCacheNames(Collection<String> cacheNames) {
+		if (cacheNames != null) {
+			this.cacheNames.addAll(cacheNames);
+			this.dynamic = false;
+		}
+	}
+
+	/**
+	 * Specify whether to accept and convert {@code null} values for all caches
+	 * in this cache manager. Default is "true".
+	 * @throws IllegalStateException if caches have already been created
+	 */
+	public void setAllowNullValues(boolean allowNullValues) {
+		assertNoCachesCreated();
+		this.allowNullValues = allowNullValues;
+	}
+
+	/**
+	 * Set the maximum number of bytes that each cache allocates for values.
+	 * Default is 64 MB.
+	 * @throws IllegalStateException if caches have already been created
+	 * @see OffHeapCache#setCapacity
+	 */
+	public void setCapacity(long capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		assertNoCachesCreated();
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Set the size (in bytes) of the blocks that values are stored in. Default is 512.
+	 * @throws IllegalStateException if caches have already been created
+	 * @see OffHeapCache#setBlockSize
+	 */
+	public void setBlockSize(int blockSize) {
+		assertNoCachesCreated();
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Set the size (in bytes) of the direct buffers that caches allocate as needed.
+	 * Default is 16 MB.
+	 * @throws IllegalStateException if caches have already been created
+	 * @see OffHeapCache#setSlabSize
+	 */
+	public void setSlabSize(int slabSize) {
+		assertNoCachesCreated();
+		this.slabSize = slabSize;
+	}
+
+	/**
+	 * Set the number of independently locked segments per cache. Default is 16.
+	 * @throws IllegalStateException if caches have already been created
+	 * @see OffHeapCache#setConcurrencyLevel
+	 */
+	public void setConcurrencyLevel(int concurrencyLevel) {
+		assertNoCachesCreated();
+		this.concurrencyLevel = concurrencyLevel;
+	}
+
+	/**
+	 * Set the Serializer for values. Default is standard Java serialization.
+	 * @throws IllegalStateException if caches have already been created
+	 */
+	public void setSerializer(Serializer<Object> serializer) {
+		assertNoCachesCreated();
+		this.serializer = serializer;
+	}
+
+	/**
+	 * Set the Deserializer for values. Default is standard Java serialization.
+	 * @throws IllegalStateException if caches have already been created
+	 */
+	public void setDeserializer(Deserializer<Object> deserializer) {
+		assertNoCachesCreated();
+		this.deserializer = deserializer;
+	}
+
+	/**
+	 * Set the channel to announce the keys of entries evicted from the caches
+	 * through, if any.
+	 * @throws IllegalStateException if caches have already been created
+	 * @see OffHeapCache#setInvalidationChannel
+	 */
+	public void setInvalidationChannel(CacheInvalidationChannel invalidationChannel) {
+		assertNoCachesCreated();
+		this.invalidationChannel = invalidationChannel;
+	}
+
+	public Collection<String> getCacheNames() {
+		return Collections.unmodifiableSet(this.dynamic ? this.cacheMap.keySet() : this.cacheNames);
+	}
+
+	public Cache getCache(String name) {
+		Cache cache = this.cacheMap.get(name);
+		if (cache == null && (this.dynamic || this.cacheNames.contains(name))) {
+			synchronized (this.cacheMap) {
+				cache = this.cacheMap.get(name);
+				if (cache == null) {
+					cache = createOffHeapCache(name);
+					this.cacheMap.put(name, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Release the off-heap memory of all caches.
+	 */
+	public void destroy() {
+		for (Cache cache : this.cacheMap.values()) {
+			if (cache instanceof OffHeapCache) {
+				((OffHeapCache) cache).destroy();
+			}
+		}
+	}
+
+	/**
+	 * Create a new OffHeapCache instance for the specified cache name.
+	 * @param name the name of the cache
+	 * @return the OffHeapCache (or a decorator thereof)
+	 */
+	protected Cache createOffHeapCache(String name) {
+		OffHeapCache cache = new OffHeapCache(name, this.capacity, this.allowNullValues);
+		cache.setBlockSize(this.blockSize);
+		cache.setSlabSize(this.slabSize);
+		cache.setConcurrencyLevel(this.concurrencyLevel);
+		if (this.serializer != null) {
+			cache.setSerializer(this.serializer);
+		}
+		if (this.deserializer != null) {
+			cache.setDeserializer(this.deserializer);
+		}
+		cache.setInvalidationChannel(this.invalidationChannel);
+		return cache;
+	}
+
+	// 已有缓存不会被重新创建（那样会丢失其中的数据），因此缓存创建之后不允许再修改配置
+	private void assertNoCachesCreated() {
+		Assert.state(this.cacheMap.isEmpty(), "Cache configuration cannot be changed once caches have been created");
+	}
+
+}
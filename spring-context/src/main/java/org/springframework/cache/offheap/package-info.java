@@ -0,0 +1,7 @@
+/**
+ * Implementation package for caches that store their values outside of the
+ * Java heap. Provides a {@link org.springframework.cache.CacheManager CacheManager}
+ * and {@link org.springframework.cache.Cache Cache} implementation keeping
+ * serialized values in direct byte buffers.
+ */
+package org.springframework.cache.offheap;
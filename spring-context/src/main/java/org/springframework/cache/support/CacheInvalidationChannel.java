@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.support;
+
+/**
+ * Channel that announces changed or removed cache entries to all registered
+ * {@link CacheInvalidationListener listeners}, typically in order to drop
+ * local copies of those entries.
+ *
+ * <p>Implementations may deliver invalidations within the JVM only (see
+ * {@link SimpleCacheInvalidationChannel}) or to other processes sharing the
+ * same backing cache, e.g. via messaging. Delivery may be asynchronous.
+ * An invalidation is not delivered back to the listener that published it
+ * (which has applied it already); invalidations without such a publisher,
+ * e.g. evictions announced by a cache implementation itself, are delivered
+ * to all listeners.
+ *
+ * @since 3.2.9
+ * @see TieredCache
+ */
+public interface CacheInvalidationChannel {
+
+	/**
+	 * Announce that the entry for the given key has been changed or removed.
+	 * @param cacheName the name of the cache
+	 * @param key the key of the entry
+	 * @param publisher the local listener that published the invalidation and
+	 * is not to receive it (may be {@code null})
+	 */
+	void invalidate(String cacheName, Object key, CacheInvalidationListener publisher);
+
+	/**
+	 * Announce that all entries of the given cache have been removed.
+	 * @param cacheName the name of the cache
+	 * @param publisher the local listener that published the invalidation and
+	 * is not to receive it (may be {@code null})
+	 */
+	void invalidateAll(String cacheName, CacheInvalidationListener publisher);
+
+	/**
+	 * Register a listener for the invalidations published through this channel.
+	 */
+	void addListener(CacheInvalidationListener listener);
+
+	/**
+	 * Unregister a previously registered listener.
+	 */
+	void removeListener(CacheInvalidationListener listener);
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.support;
+
+/**
+ * Callback interface for invalidations published through a
+ * {@link CacheInvalidationChannel}.
+ *
+ * @since 3.2.9
+ * @see TieredCache
+ */
+public interface CacheInvalidationListener {
+
+	/**
+	 * The entry for the given key of the given cache has been changed or removed.
+	 * @param cacheName the name of the cache
+	 * @param key the key of the entry
+	 */
+	void onInvalidate(String cacheName, Object key);
+
+	/**
+	 * All entries of the given cache have been removed.
+	 * @param cacheName the name of the cache
+	 */
+	void onInvalidateAll(String cacheName);
+
+}
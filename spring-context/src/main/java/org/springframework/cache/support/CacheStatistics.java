@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.support;
+
+import java.io.Serializable;
+
+/**
+ * Immutable snapshot of the statistics of a cache: the number of hits, misses,
+ * puts, evictions (due to size bounds) and expirations since its creation.
+ *
+ * @since 3.2.9
+ */
+@SuppressWarnings("serial")
+public class CacheStatistics implements Serializable {
+
+	private final long hitCount;
+
+	private final long missCount;
+
+	private final long putCount;
+
+	private final long evictionCount;
+
+	private final long expirationCount;
+
+
+	public CacheStatistics(long hitCount, long missCount, long putCount, long evictionCount, long expirationCount) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.putCount = putCount;
+		this.evictionCount = evictionCount;
+		this.expirationCount = expirationCount;
+	}
+
+
+	public long getHitCount() {
+		return this.hitCount;
+	}
+
+	public long getMissCount() {
+		return this.missCount;
+	}
+
+	/**
+	 * Return the number of lookups, i.e. hits plus misses.
+	 */
+	public long getRequestCount() {
+		return this.hitCount + this.missCount;
+	}
+
+	/**
+	 * Return the ratio of lookups that were hits, or 1.0 if there were no lookups.
+	 */
+	public double getHitRatio() {
+		long requestCount = getRequestCount();
+		return (requestCount > 0 ? (double) this.hitCount / requestCount : 1.0);
+	}
+
+	public long getPutCount() {
+		return this.putCount;
+	}
+
+	/**
+	 * Return the number of entries removed to keep the cache within its bounds.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+	/**
+	 * Return the number of entries removed because they had expired.
+	 */
+	public long getExpirationCount() {
+		return this.expirationCount;
+	}
+
+
+	@Override
+	public String toString() {
+		return "CacheStatistics: hits=" + this.hitCount + ", misses=" + this.missCount + ", puts=" + this.putCount +
+				", evictions=" + this.evictionCount + ", expirations=" + this.expirationCount;
+	}
+
+}
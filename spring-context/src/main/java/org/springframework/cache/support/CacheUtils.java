@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.support;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.cache.BulkCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+
+/**
+ * Utility methods for bulk operations on any {@link Cache}: delegating to the
+ * cache's own implementation if it is a {@link BulkCache}, and falling back to
+ * single-key operations otherwise.
+ *
+ * @since 3.2.9
+ */
+public abstract class CacheUtils {
+
+	/**
+	 * Return the values to which the given cache maps the given keys.
+	 * @param cache the cache to read
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a map from each key that has a mapping in the cache to its
+	 * {@link ValueWrapper}, in the order of the given keys for non-bulk caches
+	 * @see BulkCache#getAll
+	 */
+	public static Map<Object, ValueWrapper> getAll(Cache cache, Collection<?> keys) {
+		if (cache instanceof BulkCache) {
+			return ((BulkCache) cache).getAll(keys);
+		}
+		Map<Object, ValueWrapper> result = new LinkedHashMap<Object, ValueWrapper>(keys.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = cache.get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Associate the given values with their keys in the given cache.
+	 * @param cache the cache to write
+	 * @param entries the keys and values to store
+	 * @see BulkCache#putAll
+	 */
+	public static void putAll(Cache cache, Map<?, ?> entries) {
+		if (cache instanceof BulkCache) {
+			((BulkCache) cache).putAll(entries);
+			return;
+		}
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			cache.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Evict the mappings for the given keys from the given cache, if present.
+	 * @param cache the cache to evict the keys from
+	 * @param keys the keys whose mappings are to be removed
+	 * @see BulkCache#evictAll
+	 */
+	public static void evictAll(Cache cache, Collection<?> keys) {
+		if (cache instanceof BulkCache) {
+			((BulkCache) cache).evictAll(keys);
+			return;
+		}
+		for (Object key : keys) {
+			cache.evict(key);
+		}
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Registry of the values currently being loaded for individual keys of any
+ * {@link org.springframework.cache.Cache}, letting concurrent callers for the
+ * same key wait for a single load instead of loading the value themselves.
+ *
+ * <p>Only callers for the very same cache and key wait for each other, and
+ * no lock is held while a value is loaded: a load that needs other keys (of
+ * the same or another cache) does not block unrelated callers. A load that
+ * needs its own key again in the same thread invokes the loader directly.
+ *
+ * @since 3.2.9
+ * @see org.springframework.cache.interceptor.CacheableOperation#isSync()
+ */
+public class InFlightCacheLoads {
+
+	private final ConcurrentMap<LoadKey, Load> loads = new ConcurrentHashMap<LoadKey, Load>(64);
+
+
+	/**
+	 * Return the value for the given key of the given cache, either by invoking
+	 * the given loader or, if another caller is loading the same key already,
+	 * by waiting for the result of that caller.
+	 * @param cacheName the name of the cache
+	 * @param key the cache key
+	 * @param loader the loader to invoke if nobody is loading the key yet
+	 * @param timeout the maximum time to wait for another caller (in milliseconds),
+	 * after which the loader is invoked directly; 0 to wait as long as it takes
+	 * @return the loaded value (of this or of the other caller)
+	 * @throws Exception any exception thrown by the loader
+	 */
+	public Object load(String cacheName, Object key, Callable<?> loader, long timeout) throws Exception {
+		LoadKey loadKey = new LoadKey(cacheName, key);
+		Load load = new Load(loader);
+		Load existing = this.loads.putIfAbsent(loadKey, load);
+		if (existing == null) {
+			try {
+				load.run();
+			}
+			finally {
+				this.loads.remove(loadKey, load);
+			}
+			return getResult(load);
+		}
+		if (existing.owner == Thread.currentThread()) {
+			// 同一个线程在加载过程中再次需要这个key：不能等待自己，直接加载
+			return loader.call();
+		}
+		try {
+			return (timeout > 0 ? getResult(existing, timeout) : getResult(existing));
+		}
+		catch (TimeoutException ex) {
+			return loader.call();
+		}
+		catch (InterruptedException ex) {
+			// 等待被中断：保留中断状态，自己加载
+			Thread.currentThread().interrupt();
+			return loader.call();
+		}
+	}
+
+	/**
+	 * Return the number of keys that are currently being loaded.
+	 */
+	public int getLoadCount() {
+		return this.loads.size();
+	}
+
+	private static Object getResult(Load load) throws Exception {
+		try {
+			return load.get();
+		}
+		catch (ExecutionException ex) {
+			throw unwrap(ex);
+		}
+	}
+
+	private static Object getResult(Load load, long timeout) throws Exception {
+		try {
+			return load.get(timeout, TimeUnit.MILLISECONDS);
+		}
+		catch (ExecutionException ex) {
+			throw unwrap(ex);
+		}
+	}
+
+	// 把加载时抛出的异常原样交给调用者
+	private static Exception unwrap(ExecutionException ex) {
+		Throwable cause = ex.getCause();
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return (cause instanceof Exception ? (Exception) cause : ex);
+	}
+
+
+	@SuppressWarnings("unchecked")
+	private static class Load extends FutureTask<Object> {
+
+		private final Thread owner = Thread.currentThread();
+
+		public Load(Callable<?> loader) {
+			super((Callable<Object>) loader);
+		}
+	}
+
+
+	private static class LoadKey {
+
+		private final String cacheName;
+
+		private final Object key;
+
+		public LoadKey(String cacheName, Object key) {
+			this.cacheName = cacheName;
+			this.key = key;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof LoadKey)) {
+				return false;
+			}
+			LoadKey otherKey = (LoadKey) other;
+			return (ObjectUtils.nullSafeEquals(this.cacheName, otherKey.cacheName) &&
+					ObjectUtils.nullSafeEquals(this.key, otherKey.key));
+		}
+
+		@Override
+		public int hashCode() {
+			return ObjectUtils.nullSafeHashCode(this.cacheName) * 31 + ObjectUtils.nullSafeHashCode(this.key);
+		}
+	}
+
+}
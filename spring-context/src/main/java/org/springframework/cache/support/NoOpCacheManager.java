@@ -19,10 +19,12 @@ package org.springframework.cache.support;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import org.springframework.cache.BulkCache;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 
@@ -70,7 +72,7 @@ public class NoOpCacheManager implements CacheManager {
 	}
 
 
-	private static class NoOpCache implements Cache {
+	private static class NoOpCache implements BulkCache {
 
 		private final String name;
 
@@ -98,6 +100,16 @@ public class NoOpCacheManager implements CacheManager {
 
 		public void put(Object key, Object value) {
 		}
+
+		public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+			return Collections.emptyMap();
+		}
+
+		public void putAll(Map<?, ?> entries) {
+		}
+
+		public void evictAll(Collection<?> keys) {
+		}
 	}
 
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheInvalidationChannel} that delivers invalidations synchronously
+ * to the listeners registered in the same JVM. Useful for tests, or for
+ * several tiered caches sharing a far cache within one process.
+ *
+ * @since 3.2.9
+ */
+public class SimpleCacheInvalidationChannel implements CacheInvalidationChannel {
+
+	private final List<CacheInvalidationListener> listeners = new CopyOnWriteArrayList<CacheInvalidationListener>();
+
+
+	public void invalidate(String cacheName, Object key, CacheInvalidationListener publisher) {
+		for (CacheInvalidationListener listener : this.listeners) {
+			if (listener != publisher) {
+				listener.onInvalidate(cacheName, key);
+			}
+		}
+	}
+
+	public void invalidateAll(String cacheName, CacheInvalidationListener publisher) {
+		for (CacheInvalidationListener listener : this.listeners) {
+			if (listener != publisher) {
+				listener.onInvalidateAll(cacheName);
+			}
+		}
+	}
+
+	public void addListener(CacheInvalidationListener listener) {
+		Assert.notNull(listener, "CacheInvalidationListener must not be null");
+		this.listeners.add(listener);
+	}
+
+	public void removeListener(CacheInvalidationListener listener) {
+		this.listeners.remove(listener);
+	}
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cache.BulkCache;
+import org.springframework.cache.Cache;
+import org.springframework.util.Assert;
+
+/**
+ * Two-level {@link Cache} that reads through a small, local near cache
+ * (e.g. a bounded {@link org.springframework.cache.concurrent.ConcurrentMapCache})
+ * to a larger far cache (e.g. an EhCache or
+ * {@link org.springframework.cache.offheap.OffHeapCache off-heap} cache).
+ *
+ * <p>Values found in the far cache are promoted to the near cache, so that
+ * repeated reads of hot entries do not touch the far cache (nor deserialize
+ * its values) at all. Writes go to the far cache only and invalidate the near
+ * copy; the next read promotes the new value. A promotion that races with an
+ * invalidation of the same cache is undone, so the near cache never keeps a
+ * value that the far cache has since replaced.
+ *
+ * <p>If a {@link CacheInvalidationChannel} is given, invalidations are also
+ * published through it, and received invalidations for this cache's name drop
+ * the near copies: this keeps the near caches of several processes that share
+ * a far cache consistent, and lets far cache implementations propagate their
+ * own evictions and expirations to the near caches (see
+ * {@link org.springframework.cache.offheap.OffHeapCache#setInvalidationChannel}
+ * and {@code org.springframework.cache.ehcache.EhCacheInvalidationPublisher}).
+ * A tiered cache drops its own near copies directly, without waiting for the
+ * channel, and does not receive its own invalidations back.
+ *
+ * <p>Bulk operations ({@link BulkCache}) read the near cache for all keys first
+ * and then the far cache for the missing keys only, using the bulk operations
+ * of the underlying caches where available.
+ *
+ * <p>The near cache must accept {@code null} values if the far cache may return them.
+ *
+ * @since 3.2.9
+ * @see TieredCacheManager
+ */
+public class TieredCache implements BulkCache, CacheInvalidationListener {
+
+	private final Cache nearCache;
+
+	private final Cache farCache;
+
+	private final CacheInvalidationChannel invalidationChannel;
+
+	// 每次近端缓存失效时递增：读取远端缓存期间如果发生了失效，则撤销这次提升，以免在近端缓存中保留过期的值
+	private final AtomicLong invalidationCount = new AtomicLong();
+
+
+	/**
+	 * Create a new TieredCache without an invalidation channel.
+	 * @param nearCache the local cache to read first
+	 * @param farCache the cache that holds all entries
+	 */
+	public TieredCache(Cache nearCache, Cache farCache) {
+		this(nearCache, farCache, null);
+	}
+
+	/**
+	 * Create a new TieredCache, registering it with the given invalidation channel.
+	 * @param nearCache the local cache to read first
+	 * @param farCache the cache that holds all entries
+	 * @param invalidationChannel the channel to publish and receive invalidations
+	 * through (may be {@code null})
+	 */
+	public TieredCache(Cache nearCache, Cache farCache, CacheInvalidationChannel invalidationChannel) {
+		Assert.notNull(nearCache, "Near cache must not be null");
+		Assert.notNull(farCache, "Far cache must not be null");
+		this.nearCache = nearCache;
+		this.farCache = farCache;
+		this.invalidationChannel = invalidationChannel;
+		if (invalidationChannel != null) {
+			invalidationChannel.addListener(this);
+		}
+	}
+
+
+	public Cache getNearCache() {
+		return this.nearCache;
+	}
+
+	public Cache getFarCache() {
+		return this.farCache;
+	}
+
+	public CacheInvalidationChannel getInvalidationChannel() {
+		return this.invalidationChannel;
+	}
+
+	/**
+	 * Return the name of the far cache.
+	 */
+	public String getName() {
+		return this.farCache.getName();
+	}
+
+	/**
+	 * Return the native cache of the far cache.
+	 */
+	public Object getNativeCache() {
+		return this.farCache.getNativeCache();
+	}
+
+	public ValueWrapper get(Object key) {
+		ValueWrapper wrapper = this.nearCache.get(key);
+		if (wrapper != null) {
+			return wrapper;
+		}
+		long count = this.invalidationCount.get();
+		wrapper = this.farCache.get(key);
+		if (wrapper != null && this.invalidationCount.get() == count) {
+			this.nearCache.put(key, wrapper.get());
+			// 写入近端缓存之前可能刚好发生了失效，此时撤销提升
+			if (this.invalidationCount.get() != count) {
+				this.nearCache.evict(key);
+			}
+		}
+		return wrapper;
+	}
+
+	public void put(Object key, Object value) {
+		this.farCache.put(key, value);
+		invalidateNear(key);
+		if (this.invalidationChannel != null) {
+			this.invalidationChannel.invalidate(getName(), key, this);
+		}
+	}
+
+	public void evict(Object key) {
+		this.farCache.evict(key);
+		invalidateNear(key);
+		if (this.invalidationChannel != null) {
+			this.invalidationChannel.invalidate(getName(), key, this);
+		}
+	}
+
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> nearValues = CacheUtils.getAll(this.nearCache, keys);
+		if (nearValues.size() == keys.size()) {
+			return nearValues;
+		}
+		List<Object> missingKeys = new ArrayList<Object>(keys.size() - nearValues.size());
+		for (Object key : keys) {
+			if (!nearValues.containsKey(key)) {
+				missingKeys.add(key);
+			}
+		}
+		long count = this.invalidationCount.get();
+		Map<Object, ValueWrapper> farValues = CacheUtils.getAll(this.farCache, missingKeys);
+		if (!farValues.isEmpty() && this.invalidationCount.get() == count) {
+			Map<Object, Object> promoted = new LinkedHashMap<Object, Object>(farValues.size());
+			for (Map.Entry<Object, ValueWrapper> entry : farValues.entrySet()) {
+				promoted.put(entry.getKey(), entry.getValue().get());
+			}
+			CacheUtils.putAll(this.nearCache, promoted);
+			if (this.invalidationCount.get() != count) {
+				CacheUtils.evictAll(this.nearCache, promoted.keySet());
+			}
+		}
+		// 按给定key的顺序合并近端和远端缓存的结果
+		Map<Object, ValueWrapper> result = new LinkedHashMap<Object, ValueWrapper>(nearValues.size() + farValues.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = nearValues.get(key);
+			if (wrapper == null) {
+				wrapper = farValues.get(key);
+			}
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	public void putAll(Map<?, ?> entries) {
+		CacheUtils.putAll(this.farCache, entries);
+		invalidateKeys(entries.keySet());
+	}
+
+	public void evictAll(Collection<?> keys) {
+		CacheUtils.evictAll(this.farCache, keys);
+		invalidateKeys(keys);
+	}
+
+	public void clear() {
+		this.farCache.clear();
+		invalidateNearAll();
+		if (this.invalidationChannel != null) {
+			this.invalidationChannel.invalidateAll(getName(), this);
+		}
+	}
+
+	public void onInvalidate(String cacheName, Object key) {
+		if (getName().equals(cacheName)) {
+			invalidateNear(key);
+		}
+	}
+
+	public void onInvalidateAll(String cacheName) {
+		if (getName().equals(cacheName)) {
+			invalidateNearAll();
+		}
+	}
+
+	private void invalidateNear(Object key) {
+		// 先递增计数，再移除近端缓存项（与get()中的检查顺序相对应）
+		this.invalidationCount.incrementAndGet();
+		this.nearCache.evict(key);
+	}
+
+	// 使近端缓存中的这些key失效，并通过失效通道发布
+	private void invalidateKeys(Collection<?> keys) {
+		this.invalidationCount.incrementAndGet();
+		CacheUtils.evictAll(this.nearCache, keys);
+		if (this.invalidationChannel != null) {
+			for (Object key : keys) {
+				this.invalidationChannel.invalidate(getName(), key, this);
+			}
+		}
+	}
+
+	private void invalidateNearAll() {
+		this.invalidationCount.incrementAndGet();
+		this.nearCache.clear();
+	}
+
+}
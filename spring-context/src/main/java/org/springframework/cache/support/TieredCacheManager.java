@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cache.support;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * {@link CacheManager} implementation that combines the caches of a near and
+ * a far {@link CacheManager} of the same name into {@link TieredCache TieredCaches}.
+ *
+ * <p>Unlike {@link CompositeCacheManager}, which picks the first delegate that
+ * knows a cache name, every cache is read through both levels. The far cache
+ * manager determines the available caches; if the near cache manager has no
+ * cache of a given name, the far cache is returned as is.
+ *
+ * @since 3.2.9
+ * @see TieredCache
+ * @see CacheInvalidationChannel
+ */
+public class TieredCacheManager implements CacheManager, InitializingBean, DisposableBean {
+
+	private final ConcurrentMap<String, Cache> cacheMap = new ConcurrentHashMap<String, Cache>(16);
+	private CacheManager nearCacheManager;
+	private CacheManager farCacheManager;
+	private CacheInvalidationChannel invalidationChannel;
+
+
+	public TieredCacheManager() {
+	}
+	public TieredCacheManager(CacheManager nearCacheManager, CacheManager farCacheManager) {
+		this.nearCacheManager = nearCacheManager;
+		this.farCacheManager = farCacheManager;
+	}
+
+
+	/**
+	 * Set the CacheManager for the local caches that are read first,
+	 * e.g. a bounded {@link org.springframework.cache.concurrent.ConcurrentMapCacheManager}.
+	 */
+	public void setNearCacheManager(CacheManager nearCacheManager) {
+		this.nearCacheManager = nearCacheManager;
+	}
+
+	/**
+	 * Set the CacheManager for the caches that hold all entries.
+	 */
+	public void setFarCacheManager(CacheManager farCacheManager) {
+		this.farCacheManager = farCacheManager;
+	}
+
+	/**
+	 * Set the channel to publish and receive invalidations through, if any.
+	 */
+	public void setInvalidationChannel(CacheInvalidationChannel invalidationChannel) {
+		this.invalidationChannel = invalidationChannel;
+	}
+
+	public void afterPropertiesSet() {
+		if (this.nearCacheManager == null) {
+			throw new IllegalStateException("Property 'nearCacheManager' is required");
+		}
+		if (this.farCacheManager == null) {
+			throw new IllegalStateException("Property 'farCacheManager' is required");
+		}
+	}
+
+
+	public Cache getCache(String name) {
+		Cache cache = this.cacheMap.get(name);
+		if (cache == null) {
+			Cache farCache = this.farCacheManager.getCache(name);
+			if (farCache == null) {
+				return null;
+			}
+			Cache nearCache = this.nearCacheManager.getCache(name);
+			if (nearCache == null) {
+				return farCache;
+			}
+			synchronized (this.cacheMap) {
+				cache = this.cacheMap.get(name);
+				if (cache == null) {
+					cache = new TieredCache(nearCache, farCache, this.invalidationChannel);
+					this.cacheMap.put(name, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	public Collection<String> getCacheNames() {
+		return this.farCacheManager.getCacheNames();
+	}
+
+	/**
+	 * Unregister the tiered caches from the invalidation channel.
+	 */
+	public void destroy() {
+		if (this.invalidationChannel != null) {
+			for (Cache cache : this.cacheMap.values()) {
+				this.invalidationChannel.removeListener((TieredCache) cache);
+			}
+		}
+	}
+
+}
@@ -22,17 +22,21 @@ import java.util.Set;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.support.AbstractAutowireCapableBeanFactory;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionDefaults;
 import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanNameGenerator;
+import org.springframework.beans.factory.support.StartupTimeline;
+import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.util.Assert;
 import org.springframework.util.PatternMatchUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * A bean definition scanner that detects bean candidates on the classpath,
@@ -131,29 +135,51 @@ public class ClassPathBeanDefinitionScanner extends ClassPathScanningCandidateCo
 	// 核心方法，扫描指定包路径下的注解，并注册BeanDefinition
 	protected Set<BeanDefinitionHolder> doScan(String... basePackages) {
 		Assert.notEmpty(basePackages, "At least one base package must be specified");
+		StartupTimeline timeline = getStartupTimeline();
+		StartupTimeline.Phase phase = (timeline != null ?
+				timeline.startPhase("scan", StringUtils.arrayToCommaDelimitedString(basePackages)) : null);
 		Set<BeanDefinitionHolder> beanDefinitions = new LinkedHashSet<BeanDefinitionHolder>();
-		for (String basePackage : basePackages) {
-			Set<BeanDefinition> candidates = findCandidateComponents(basePackage);
-			for (BeanDefinition candidate : candidates) {
-				ScopeMetadata scopeMetadata = this.scopeMetadataResolver.resolveScopeMetadata(candidate);
-				candidate.setScope(scopeMetadata.getScopeName());
-				String beanName = this.beanNameGenerator.generateBeanName(candidate, this.registry);
-				if (candidate instanceof AbstractBeanDefinition) {
-					postProcessBeanDefinition((AbstractBeanDefinition) candidate, beanName);
-				}
-				if (candidate instanceof AnnotatedBeanDefinition) {
-					AnnotationConfigUtils.processCommonDefinitionAnnotations((AnnotatedBeanDefinition) candidate);
-				}
-				if (checkCandidate(beanName, candidate)) {
-					BeanDefinitionHolder definitionHolder = new BeanDefinitionHolder(candidate, beanName);
-					definitionHolder = AnnotationConfigUtils.applyScopedProxyMode(scopeMetadata, definitionHolder, this.registry);
-					beanDefinitions.add(definitionHolder);
-					registerBeanDefinition(definitionHolder, this.registry);
+		try {
+			for (String basePackage : basePackages) {
+				Set<BeanDefinition> candidates = findCandidateComponents(basePackage);
+				for (BeanDefinition candidate : candidates) {
+					ScopeMetadata scopeMetadata = this.scopeMetadataResolver.resolveScopeMetadata(candidate);
+					candidate.setScope(scopeMetadata.getScopeName());
+					String beanName = this.beanNameGenerator.generateBeanName(candidate, this.registry);
+					if (candidate instanceof AbstractBeanDefinition) {
+						postProcessBeanDefinition((AbstractBeanDefinition) candidate, beanName);
+					}
+					if (candidate instanceof AnnotatedBeanDefinition) {
+						AnnotationConfigUtils.processCommonDefinitionAnnotations((AnnotatedBeanDefinition) candidate);
+					}
+					if (checkCandidate(beanName, candidate)) {
+						BeanDefinitionHolder definitionHolder = new BeanDefinitionHolder(candidate, beanName);
+						definitionHolder = AnnotationConfigUtils.applyScopedProxyMode(scopeMetadata, definitionHolder, this.registry);
+						beanDefinitions.add(definitionHolder);
+						registerBeanDefinition(definitionHolder, this.registry);
+					}
 				}
 			}
 		}
+		finally {
+			// 并行扫描的线程池只在一次扫描内共用，不在扫描之间保留线程
+			releaseScanPool();
+			if (phase != null) {
+				phase.end();
+			}
+		}
 		return beanDefinitions;
 	}
+	// 返回注册表所属BeanFactory上正在记录的启动时间线，没有时返回null
+	private StartupTimeline getStartupTimeline() {
+		if (this.registry instanceof GenericApplicationContext) {
+			return ((GenericApplicationContext) this.registry).getDefaultListableBeanFactory().getStartupTimeline();
+		}
+		if (this.registry instanceof AbstractAutowireCapableBeanFactory) {
+			return ((AbstractAutowireCapableBeanFactory) this.registry).getStartupTimeline();
+		}
+		return null;
+	}
 
 	/**
 	 * Apply further settings to the given bean definition,
@@ -18,10 +18,15 @@ package org.springframework.context.annotation;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,6 +35,10 @@ import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.ResourceLoaderAware;
+import org.springframework.context.classreading.ConcurrentMetadataReaderFactory;
+import org.springframework.context.index.CandidateComponentsIndex;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.annotation.AnnotationAttributes;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
@@ -72,13 +81,32 @@ import org.springframework.util.ClassUtils;
 public class ClassPathScanningCandidateComponentProvider implements EnvironmentCapable, ResourceLoaderAware {
 
 	static final String DEFAULT_RESOURCE_PATTERN = "**/*.class";
+
+	/**
+	 * System property that specifies the default number of threads used for
+	 * reading and evaluating class files during scanning: {@code 1} (the default)
+	 * means sequential scanning. Applies to XML-configured and
+	 * {@code @ComponentScan}-driven scanning alike.
+	 * @see #setScanParallelism
+	 */
+	public static final String SCAN_PARALLELISM_PROPERTY_NAME = "spring.componentscan.parallelism";
+
+	/** Number of class files below which a scan task is not split any further */
+	private static final int SCAN_TASK_THRESHOLD = 32;
+
 	protected final Log logger = LogFactory.getLog(getClass());
 	private Environment environment;
 	private ResourcePatternResolver resourcePatternResolver = new PathMatchingResourcePatternResolver();
-	private MetadataReaderFactory metadataReaderFactory = new CachingMetadataReaderFactory(this.resourcePatternResolver);
+	private MetadataReaderFactory metadataReaderFactory = new ConcurrentMetadataReaderFactory(this.resourcePatternResolver);
 	private String resourcePattern = DEFAULT_RESOURCE_PATTERN;
 	private final List<TypeFilter> includeFilters = new LinkedList<TypeFilter>();
 	private final List<TypeFilter> excludeFilters = new LinkedList<TypeFilter>();
+	// 默认注册的stereotype过滤器及其注解类型，只有这些过滤器可以由组件索引来满足
+	private final Map<TypeFilter, String> stereotypeFilters = new IdentityHashMap<TypeFilter, String>(4);
+	private boolean useComponentsIndex = true;
+	private int scanParallelism = getDefaultScanParallelism();
+	// 并行扫描使用的线程池：按需创建，同一个扫描器的多次扫描共用，由releaseScanPool关闭
+	private ForkJoinPool scanPool;
 
 
 	// 构造器
@@ -103,7 +131,7 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	 */
 	public void setResourceLoader(ResourceLoader resourceLoader) {
 		this.resourcePatternResolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
-		this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
+		this.metadataReaderFactory = new ConcurrentMetadataReaderFactory(resourceLoader);
 	}
 	/**
 	 * Return the ResourceLoader that this component provider uses.
@@ -114,7 +142,7 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	/**
 	 * Set the {@link MetadataReaderFactory} to use.
-	 * <p>Default is a {@link CachingMetadataReaderFactory} for the specified
+	 * <p>Default is a {@link ConcurrentMetadataReaderFactory} for the specified
 	 * {@linkplain #setResourceLoader resource loader}.
 	 * <p>Call this setter method <i>after</i> {@link #setResourceLoader} in order
 	 * for the given MetadataReaderFactory to override the default factory.
@@ -176,6 +204,7 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	public void resetFilters(boolean useDefaultFilters) {
 		this.includeFilters.clear();
 		this.excludeFilters.clear();
+		this.stereotypeFilters.clear();
 		if (useDefaultFilters) {
 			registerDefaultFilters();
 		}
@@ -193,19 +222,19 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	 */
 	@SuppressWarnings("unchecked")
 	protected void registerDefaultFilters() {
-		this.includeFilters.add(new AnnotationTypeFilter(Component.class));
+		addStereotypeFilter(Component.class, true);
 		ClassLoader cl = ClassPathScanningCandidateComponentProvider.class.getClassLoader();
 		try {
-			this.includeFilters.add(new AnnotationTypeFilter(
-					((Class<? extends Annotation>) ClassUtils.forName("javax.annotation.ManagedBean", cl)), false));
+			addStereotypeFilter(
+					((Class<? extends Annotation>) ClassUtils.forName("javax.annotation.ManagedBean", cl)), false);
 			logger.debug("JSR-250 'javax.annotation.ManagedBean' found and supported for component scanning");
 		}
 		catch (ClassNotFoundException ex) {
 			// JSR-250 1.1 API (as included in Java EE 6) not available - simply skip.
 		}
 		try {
-			this.includeFilters.add(new AnnotationTypeFilter(
-					((Class<? extends Annotation>) ClassUtils.forName("javax.inject.Named", cl)), false));
+			addStereotypeFilter(
+					((Class<? extends Annotation>) ClassUtils.forName("javax.inject.Named", cl)), false);
 			logger.debug("JSR-330 'javax.inject.Named' annotation found and supported for component scanning");
 		}
 		catch (ClassNotFoundException ex) {
@@ -213,63 +242,265 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		}
 	}
 
+	private void addStereotypeFilter(Class<? extends Annotation> annotationType, boolean considerMetaAnnotations) {
+		TypeFilter filter = new AnnotationTypeFilter(annotationType, considerMetaAnnotations);
+		this.includeFilters.add(filter);
+		this.stereotypeFilters.put(filter, annotationType.getName());
+	}
+
 
 	// 查询指定包路径下符合条件的Bean
 	public Set<BeanDefinition> findCandidateComponents(String basePackage) {
+		String packagePath = resolveBasePackage(basePackage);
+		CandidateComponentsIndex index = getComponentsIndex(packagePath);
+		if (this.scanParallelism > 1) {
+			// 多线程扫描：按jar或目录拆分，并行读取和解析class文件
+			return scanCandidateComponentsInParallel(index, packagePath);
+		}
+		if (index != null) {
+			// 存在构建期生成的组件索引：有索引的jar直接读取索引，其余的jar照常扫描
+			return scanCandidateComponentsWithIndex(index, packagePath);
+		}
+		return scanCandidateComponents(packagePath);
+	}
+
+	/**
+	 * Set the number of threads to use for enumerating class files and for
+	 * reading and evaluating them through the {@link MetadataReaderFactory}.
+	 * <p>Default is {@code 1}, i.e. sequential scanning, unless specified
+	 * otherwise through the {@value #SCAN_PARALLELISM_PROPERTY_NAME} property.
+	 * For higher values, base packages are scanned on a fork-join pool with
+	 * that many threads, shared by all scans of this provider until
+	 * {@link #releaseScanPool()}: classpath roots are traversed concurrently
+	 * and their class files are parsed in parallel chunks. Candidates are
+	 * still returned in the same order as with sequential scanning.
+	 * <p>Parallel scanning requires the configured {@link TypeFilter TypeFilters}
+	 * and {@link MetadataReaderFactory} to be thread-safe, as the default ones are:
+	 * the default {@link ConcurrentMetadataReaderFactory} parses class files outside
+	 * of its cache lock. A custom factory that serializes access (such as a
+	 * {@link CachingMetadataReaderFactory}) is safe but limits the parallelism.
+	 */
+	public void setScanParallelism(int scanParallelism) {
+		Assert.isTrue(scanParallelism > 0, "'scanParallelism' must be 1 or higher");
+		if (scanParallelism != this.scanParallelism) {
+			releaseScanPool();
+		}
+		this.scanParallelism = scanParallelism;
+	}
+
+	/**
+	 * Shut down the thread pool used for parallel scanning, if any. A later
+	 * scan creates a new pool on demand.
+	 * <p>{@link ClassPathBeanDefinitionScanner} calls this at the end of each
+	 * {@link ClassPathBeanDefinitionScanner#doScan scan}; code that invokes
+	 * {@link #findCandidateComponents} directly should call it once it is done.
+	 * @since 3.2.9
+	 * @see #setScanParallelism
+	 */
+	public synchronized void releaseScanPool() {
+		if (this.scanPool != null) {
+			this.scanPool.shutdown();
+			this.scanPool = null;
+		}
+	}
+
+	private synchronized ForkJoinPool getScanPool() {
+		if (this.scanPool == null) {
+			this.scanPool = new ForkJoinPool(this.scanParallelism);
+		}
+		return this.scanPool;
+	}
+
+	private int getDefaultScanParallelism() {
+		String value = SpringProperties.getProperty(SCAN_PARALLELISM_PROPERTY_NAME);
+		if (value != null) {
+			try {
+				return Math.max(Integer.parseInt(value.trim()), 1);
+			}
+			catch (NumberFormatException ex) {
+				logger.warn("Ignoring invalid value for '" + SCAN_PARALLELISM_PROPERTY_NAME + "': " + value);
+			}
+		}
+		return 1;
+	}
+
+	/**
+	 * Set whether to use the build-time index of candidate components for
+	 * classpath roots that come with one, instead of traversing them.
+	 * <p>Default is "true". The index is only consulted for the default
+	 * {@link #setResourcePattern resource pattern}, for base packages without
+	 * wildcards and if the include filters are the
+	 * {@link #registerDefaultFilters() default stereotype filters}: any include
+	 * filter added through {@link #addIncludeFilter} bypasses the index.
+	 * @see CandidateComponentsIndexLoader#COMPONENTS_RESOURCE_LOCATION
+	 * @see org.springframework.context.index.CandidateComponentsIndexer
+	 */
+	public void setUseComponentsIndex(boolean useComponentsIndex) {
+		this.useComponentsIndex = useComponentsIndex;
+	}
+
+	/**
+	 * Return the components index applicable to the given package path,
+	 * or {@code null} if the classpath needs to be scanned as usual.
+	 */
+	private CandidateComponentsIndex getComponentsIndex(String packagePath) {
+		if (!this.useComponentsIndex || !DEFAULT_RESOURCE_PATTERN.equals(this.resourcePattern) ||
+				packagePath.indexOf('*') != -1 || packagePath.indexOf('?') != -1 || getIndexedStereotypes() == null) {
+			return null;
+		}
+		return CandidateComponentsIndexLoader.loadIndex(this.resourcePatternResolver.getClassLoader());
+	}
+
+	/**
+	 * Determine the annotation types to look up in the components index, or
+	 * {@code null} if the include filters cannot be served from the index.
+	 */
+	private Set<String> getIndexedStereotypes() {
+		Set<String> stereotypes = new LinkedHashSet<String>();
+		for (TypeFilter filter : this.includeFilters) {
+			String stereotype = this.stereotypeFilters.get(filter);
+			if (stereotype == null) {
+				return null;
+			}
+			stereotypes.add(stereotype);
+		}
+		return (!stereotypes.isEmpty() ? stereotypes : null);
+	}
+
+	private Set<BeanDefinition> scanCandidateComponentsWithIndex(CandidateComponentsIndex index, String packagePath) {
+		Set<BeanDefinition> candidates = new LinkedHashSet<BeanDefinition>();
+		try {
+			for (Resource packageRoot : getPackageRoots(packagePath)) {
+				for (Resource resource : getCandidateResources(packageRoot, packagePath, index)) {
+					ScannedGenericBeanDefinition sbd = readCandidateComponent(resource);
+					if (sbd != null) {
+						candidates.add(sbd);
+					}
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		}
+		return candidates;
+	}
+
+	private Set<BeanDefinition> scanCandidateComponentsInParallel(CandidateComponentsIndex index, String packagePath) {
+		Resource[] packageRoots;
+		try {
+			packageRoots = getPackageRoots(packagePath);
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		}
+		return new LinkedHashSet<BeanDefinition>(
+				getScanPool().invoke(new ScanPackageRootsTask(packageRoots, packagePath, index)));
+	}
+
+	/**
+	 * Return the directories and jar entries that the given package resolves
+	 * to, one per classpath root.
+	 */
+	private Resource[] getPackageRoots(String packagePath) throws IOException {
+		// 例如：classpath*:com/whz/test/，每个jar或目录各对应一个根路径
+		return this.resourcePatternResolver.getResources(
+				ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + packagePath + "/");
+	}
+
+	/**
+	 * Return the class files to check below the given package root: the indexed
+	 * candidates if its classpath root comes with an index, or else all class
+	 * files matching the resource pattern.
+	 */
+	private Resource[] getCandidateResources(Resource packageRoot, String packagePath, CandidateComponentsIndex index)
+			throws IOException {
+
+		String packageSuffix = packagePath + "/";
+		String packageUrl = packageRoot.getURL().toString();
+		String root = (packageUrl.endsWith(packageSuffix) ?
+				packageUrl.substring(0, packageUrl.length() - packageSuffix.length()) : null);
+		if (index != null && root != null && index.hasIndex(root)) {
+			Set<String> typeNames = index.getCandidateTypes(root, packagePath.replace('/', '.'), getIndexedStereotypes());
+			List<Resource> resources = new ArrayList<Resource>(typeNames.size());
+			for (String typeName : typeNames) {
+				resources.add(this.resourcePatternResolver.getResource(
+						root + ClassUtils.convertClassNameToResourcePath(typeName) + ClassUtils.CLASS_FILE_SUFFIX));
+			}
+			return resources.toArray(new Resource[resources.size()]);
+		}
+		if (index != null && logger.isDebugEnabled()) {
+			logger.debug("No components index for " + packageRoot + " - scanning it");
+		}
+		return this.resourcePatternResolver.getResources(packageUrl + this.resourcePattern);
+	}
+
+	private Set<BeanDefinition> scanCandidateComponents(String packagePath) {
 		Set<BeanDefinition> candidates = new LinkedHashSet<BeanDefinition>();
 		try {
 			// 例如：classpath*:com.whz.test/**/*.class
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
-					resolveBasePackage(basePackage) + "/" + this.resourcePattern;
+					packagePath + "/" + this.resourcePattern;
 			// 这里resources表示一个个.class文件
 			Resource[] resources = this.resourcePatternResolver.getResources(packageSearchPath);
-			boolean traceEnabled = logger.isTraceEnabled();
-			boolean debugEnabled = logger.isDebugEnabled();
 			for (Resource resource : resources) {
-				if (traceEnabled) {
-					logger.trace("Scanning " + resource);
+				ScannedGenericBeanDefinition sbd = readCandidateComponent(resource);
+				if (sbd != null) {
+					candidates.add(sbd);
 				}
-				if (resource.isReadable()) {
-					try {
-						MetadataReader metadataReader = this.metadataReaderFactory.getMetadataReader(resource);
-						if (isCandidateComponent(metadataReader)) {
-							ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
-							sbd.setResource(resource);
-							sbd.setSource(resource);
-							if (isCandidateComponent(sbd)) {
-								if (debugEnabled) {
-									logger.debug("Identified candidate component class: " + resource);
-								}
-								candidates.add(sbd);
-							}
-							else {
-								if (debugEnabled) {
-									logger.debug("Ignored because not a concrete top-level class: " + resource);
-								}
-							}
-						}
-						else {
-							if (traceEnabled) {
-								logger.trace("Ignored because not matching any filter: " + resource);
-							}
+			}
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Read the given class file and return a bean definition for it if it
+	 * qualifies as a candidate component, or {@code null} otherwise.
+	 */
+	private ScannedGenericBeanDefinition readCandidateComponent(Resource resource) {
+		boolean traceEnabled = logger.isTraceEnabled();
+		boolean debugEnabled = logger.isDebugEnabled();
+		if (traceEnabled) {
+			logger.trace("Scanning " + resource);
+		}
+		if (resource.isReadable()) {
+			try {
+				MetadataReader metadataReader = this.metadataReaderFactory.getMetadataReader(resource);
+				if (isCandidateComponent(metadataReader)) {
+					ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
+					sbd.setResource(resource);
+					sbd.setSource(resource);
+					if (isCandidateComponent(sbd)) {
+						if (debugEnabled) {
+							logger.debug("Identified candidate component class: " + resource);
 						}
+						return sbd;
 					}
-					catch (Throwable ex) {
-						throw new BeanDefinitionStoreException(
-								"Failed to read candidate component class: " + resource, ex);
+					else {
+						if (debugEnabled) {
+							logger.debug("Ignored because not a concrete top-level class: " + resource);
+						}
 					}
 				}
 				else {
 					if (traceEnabled) {
-						logger.trace("Ignored because not readable: " + resource);
+						logger.trace("Ignored because not matching any filter: " + resource);
 					}
 				}
 			}
+			catch (Throwable ex) {
+				throw new BeanDefinitionStoreException(
+						"Failed to read candidate component class: " + resource, ex);
+			}
 		}
-		catch (IOException ex) {
-			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		else {
+			if (traceEnabled) {
+				logger.trace("Ignored because not readable: " + resource);
+			}
 		}
-		return candidates;
+		return null;
 	}
 	/**
 	 * Resolve the specified base package into a pattern specification for
@@ -325,9 +556,124 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	 * Clear the underlying metadata cache, removing all cached class metadata.
 	 */
 	public void clearCache() {
-		if (this.metadataReaderFactory instanceof CachingMetadataReaderFactory) {
+		if (this.metadataReaderFactory instanceof ConcurrentMetadataReaderFactory) {
+			((ConcurrentMetadataReaderFactory) this.metadataReaderFactory).clearCache();
+		}
+		else if (this.metadataReaderFactory instanceof CachingMetadataReaderFactory) {
 			((CachingMetadataReaderFactory) this.metadataReaderFactory).clearCache();
 		}
 	}
 
+
+
+	/**
+	 * Scans the given package roots concurrently, collecting their candidates
+	 * in the order of the roots.
+	 */
+	@SuppressWarnings("serial")
+	private class ScanPackageRootsTask extends RecursiveTask<List<BeanDefinition>> {
+
+		private final Resource[] packageRoots;
+
+		private final String packagePath;
+
+		private final CandidateComponentsIndex index;
+
+		public ScanPackageRootsTask(Resource[] packageRoots, String packagePath, CandidateComponentsIndex index) {
+			this.packageRoots = packageRoots;
+			this.packagePath = packagePath;
+			this.index = index;
+		}
+
+		@Override
+		protected List<BeanDefinition> compute() {
+			List<ScanPackageRootTask> tasks = new ArrayList<ScanPackageRootTask>(this.packageRoots.length);
+			for (Resource packageRoot : this.packageRoots) {
+				ScanPackageRootTask task = new ScanPackageRootTask(packageRoot, this.packagePath, this.index);
+				task.fork();
+				tasks.add(task);
+			}
+			List<BeanDefinition> candidates = new ArrayList<BeanDefinition>();
+			for (ScanPackageRootTask task : tasks) {
+				candidates.addAll(task.join());
+			}
+			return candidates;
+		}
+	}
+
+
+	/**
+	 * Enumerates the class files below a single package root and reads them.
+	 */
+	@SuppressWarnings("serial")
+	private class ScanPackageRootTask extends RecursiveTask<List<BeanDefinition>> {
+
+		private final Resource packageRoot;
+
+		private final String packagePath;
+
+		private final CandidateComponentsIndex index;
+
+		public ScanPackageRootTask(Resource packageRoot, String packagePath, CandidateComponentsIndex index) {
+			this.packageRoot = packageRoot;
+			this.packagePath = packagePath;
+			this.index = index;
+		}
+
+		@Override
+		protected List<BeanDefinition> compute() {
+			Resource[] resources;
+			try {
+				resources = getCandidateResources(this.packageRoot, this.packagePath, this.index);
+			}
+			catch (IOException ex) {
+				throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+			}
+			return new ReadCandidatesTask(resources, 0, resources.length).compute();
+		}
+	}
+
+
+	/**
+	 * Reads a range of class files, splitting it up while it is large enough,
+	 * and returns the candidates in the original order of the class files.
+	 */
+	@SuppressWarnings("serial")
+	private class ReadCandidatesTask extends RecursiveTask<List<BeanDefinition>> {
+
+		private final Resource[] resources;
+
+		private final int from;
+
+		private final int to;
+
+		public ReadCandidatesTask(Resource[] resources, int from, int to) {
+			this.resources = resources;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<BeanDefinition> compute() {
+			if (this.to - this.from > SCAN_TASK_THRESHOLD) {
+				int middle = (this.from + this.to) >>> 1;
+				ReadCandidatesTask first = new ReadCandidatesTask(this.resources, this.from, middle);
+				ReadCandidatesTask second = new ReadCandidatesTask(this.resources, middle, this.to);
+				first.fork();
+				List<BeanDefinition> secondCandidates = second.compute();
+				List<BeanDefinition> candidates = first.join();
+				candidates.addAll(secondCandidates);
+				return candidates;
+			}
+			List<BeanDefinition> candidates = new ArrayList<BeanDefinition>();
+			for (int i = this.from; i < this.to; i++) {
+				ScannedGenericBeanDefinition sbd = readCandidateComponent(this.resources[i]);
+				if (sbd != null) {
+					candidates.add(sbd);
+				}
+			}
+			return candidates;
+		}
+	}
+
 }
@@ -49,6 +49,8 @@ import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.EnvironmentAware;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.annotation.ConfigurationClassParser.ImportRegistry;
+import org.springframework.context.classreading.ConcurrentMetadataReaderFactory;
+import org.springframework.core.Conventions;
 import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
 import org.springframework.core.env.ConfigurableEnvironment;
@@ -60,6 +62,7 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 
@@ -90,13 +93,15 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	private static final String IMPORT_AWARE_PROCESSOR_BEAN_NAME = ConfigurationClassPostProcessor.class.getName() + ".importAwareProcessor";
 	// importRegistryBeanName
 	private static final String IMPORT_REGISTRY_BEAN_NAME = ConfigurationClassPostProcessor.class.getName() + ".importRegistry";
+	// 被导入的配置类的BeanDefinition上记录导入它的类名，BeanDefinition从快照恢复时（没有ImportRegistry）用于支持ImportAware
+	private static final String IMPORTING_CLASS_ATTRIBUTE = Conventions.getQualifiedAttributeName(ConfigurationClassPostProcessor.class, "importingClass");
 
 	private SourceExtractor sourceExtractor = new PassThroughSourceExtractor();
 	private ProblemReporter problemReporter = new FailFastProblemReporter();
 	private Environment environment;
 	private ResourceLoader resourceLoader = new DefaultResourceLoader();
 	private ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
-	private MetadataReaderFactory metadataReaderFactory = new CachingMetadataReaderFactory();
+	private MetadataReaderFactory metadataReaderFactory = new ConcurrentMetadataReaderFactory();
 	private boolean setMetadataReaderFactoryCalled = false;
 	private final Set<Integer> registriesPostProcessed = new HashSet<Integer>();
 	private final Set<Integer> factoriesPostProcessed = new HashSet<Integer>();
@@ -148,7 +153,7 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	public void setBeanClassLoader(ClassLoader beanClassLoader) {
 		this.beanClassLoader = beanClassLoader;
 		if (!this.setMetadataReaderFactoryCalled) {
-			this.metadataReaderFactory = new CachingMetadataReaderFactory(beanClassLoader);
+			this.metadataReaderFactory = new ConcurrentMetadataReaderFactory(beanClassLoader);
 		}
 	}
 
@@ -179,7 +184,10 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 					"postProcessBeanFactory already called for this post-processor against " + beanFactory);
 		}
 		this.factoriesPostProcessed.add(factoryId);
-		if (!this.registriesPostProcessed.contains(factoryId)) {
+		// 注册表中已经有postProcessBeanDefinitionRegistry注册的BeanDefinition，却没有对它调用过该方法：
+		// BeanDefinition是从快照恢复的，其中已经包含了由配置类派生的BeanDefinition，不再重新解析
+		if (!this.registriesPostProcessed.contains(factoryId) &&
+				!beanFactory.containsBeanDefinition(IMPORT_AWARE_PROCESSOR_BEAN_NAME)) {
 			// BeanDefinitionRegistryPostProcessor hook apparently not supported...
 			// Simply call processConfigurationClasses lazily at this point then.
 			processConfigBeanDefinitions((BeanDefinitionRegistry) beanFactory);
@@ -255,15 +263,29 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 					this.resourceLoader, this.environment, this.importBeanNameGenerator);
 		}
 		this.reader.loadBeanDefinitions(parser.getConfigurationClasses());
+		ImportRegistry importRegistry = parser.getImportRegistry();
+		for (ConfigurationClass configClass : parser.getConfigurationClasses()) {
+			String beanName = configClass.getBeanName();
+			// 也可能是同时被扫描到的类，因此不只看isImported()
+			if (beanName != null && registry.containsBeanDefinition(beanName)) {
+				AnnotationMetadata importingClass = importRegistry.getImportingClassFor(configClass.getMetadata().getClassName());
+				if (importingClass != null) {
+					registry.getBeanDefinition(beanName).setAttribute(IMPORTING_CLASS_ATTRIBUTE, importingClass.getClassName());
+				}
+			}
+		}
 
 		// Register the ImportRegistry as a bean in order to support ImportAware @Configuration classes
 		if (singletonRegistry != null) {
 			if (!singletonRegistry.containsSingleton(IMPORT_REGISTRY_BEAN_NAME)) {
-				singletonRegistry.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, parser.getImportRegistry());
+				singletonRegistry.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, importRegistry);
 			}
 		}
 
-		if (this.metadataReaderFactory instanceof CachingMetadataReaderFactory) {
+		if (this.metadataReaderFactory instanceof ConcurrentMetadataReaderFactory) {
+			((ConcurrentMetadataReaderFactory) this.metadataReaderFactory).clearCache();
+		}
+		else if (this.metadataReaderFactory instanceof CachingMetadataReaderFactory) {
 			((CachingMetadataReaderFactory) this.metadataReaderFactory).clearCache();
 		}
 	}
@@ -332,8 +354,14 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		@Override
 		public Object postProcessBeforeInitialization(Object bean, String beanName)  {
 			if (bean instanceof ImportAware) {
-				ImportRegistry importRegistry = this.beanFactory.getBean(IMPORT_REGISTRY_BEAN_NAME, ImportRegistry.class);
-				AnnotationMetadata importingClass = importRegistry.getImportingClassFor(bean.getClass().getSuperclass().getName());
+				AnnotationMetadata importingClass;
+				if (this.beanFactory.containsBean(IMPORT_REGISTRY_BEAN_NAME)) {
+					ImportRegistry importRegistry = this.beanFactory.getBean(IMPORT_REGISTRY_BEAN_NAME, ImportRegistry.class);
+					importingClass = importRegistry.getImportingClassFor(bean.getClass().getSuperclass().getName());
+				}
+				else {
+					importingClass = getImportingClassFromBeanDefinition(beanName);
+				}
 				if (importingClass != null) {
 					((ImportAware) bean).setImportMetadata(importingClass);
 				}
@@ -344,6 +372,28 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		public Object postProcessAfterInitialization(Object bean, String beanName) {
 			return bean;
 		}
+
+		// BeanDefinition从快照恢复时没有ImportRegistry：按BeanDefinition上记录的类名重新读取导入类的元数据
+		private AnnotationMetadata getImportingClassFromBeanDefinition(String beanName) {
+			if (!(this.beanFactory instanceof ConfigurableListableBeanFactory)) {
+				return null;
+			}
+			ConfigurableListableBeanFactory clbf = (ConfigurableListableBeanFactory) this.beanFactory;
+			if (!clbf.containsBeanDefinition(beanName)) {
+				return null;
+			}
+			Object className = clbf.getBeanDefinition(beanName).getAttribute(IMPORTING_CLASS_ATTRIBUTE);
+			if (!(className instanceof String)) {
+				return null;
+			}
+			try {
+				MetadataReaderFactory metadataReaderFactory = new SimpleMetadataReaderFactory(clbf.getBeanClassLoader());
+				return metadataReaderFactory.getMetadataReader((String) className).getAnnotationMetadata();
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Cannot read importing class [" + className + "] for bean '" + beanName + "'", ex);
+			}
+		}
 	}
 
 }
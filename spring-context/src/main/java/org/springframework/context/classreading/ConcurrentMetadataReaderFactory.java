@@ -0,0 +1,219 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.classreading;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Caching {@link org.springframework.core.type.classreading.MetadataReaderFactory}
+ * that is safe and non-blocking for concurrent readers, caching a
+ * {@link MetadataReader} per Spring {@link Resource} handle (i.e. per ".class" file).
+ *
+ * <p>In contrast to {@link org.springframework.core.type.classreading.CachingMetadataReaderFactory},
+ * class files are parsed outside of the cache lock, so that threads reading
+ * different class files (e.g. during parallel component scanning) do not wait
+ * for each other. A class file that happens to be parsed by two threads at the
+ * same time is cached once; the duplicate is simply dropped.
+ *
+ * <p>The in-memory cache is a {@link MetadataReaderCache} that may be shared
+ * between factories, e.g. between parent and child contexts or the contexts of
+ * a test suite, and may be backed by a persistent {@link MetadataReaderDiskCache}.
+ * Both are off by default; they can be enabled programmatically or through the
+ * {@link #SHARED_CACHE_PROPERTY_NAME} and {@link #DISK_CACHE_DIRECTORY_PROPERTY_NAME}
+ * properties.
+ *
+ * @since 3.2.9
+ * @see org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider#setScanParallelism
+ */
+public class ConcurrentMetadataReaderFactory extends SimpleMetadataReaderFactory {
+
+	/** Default maximum number of entries for the MetadataReader cache: 256 */
+	public static final int DEFAULT_CACHE_LIMIT = MetadataReaderCache.DEFAULT_CACHE_LIMIT;
+
+	/**
+	 * System property that instructs factories created without an explicit cache
+	 * to use the {@link MetadataReaderCache#getSharedInstance shared cache} for their
+	 * ClassLoader instead of a private one: "spring.metadatareader.cache.shared".
+	 * <p>The default is "false".
+	 */
+	public static final String SHARED_CACHE_PROPERTY_NAME = "spring.metadatareader.cache.shared";
+
+	/**
+	 * System property that specifies a directory for a
+	 * {@link MetadataReaderDiskCache#getSharedInstance shared disk cache}
+	 * behind every factory: "spring.metadatareader.cache.dir".
+	 * <p>By default, no disk cache is used.
+	 */
+	public static final String DISK_CACHE_DIRECTORY_PROPERTY_NAME = "spring.metadatareader.cache.dir";
+
+
+	private final MetadataReaderCache metadataReaderCache;
+
+	private final boolean sharedCache;
+
+	private volatile MetadataReaderDiskCache diskCache = getDefaultDiskCache();
+
+
+	/**
+	 * Create a new ConcurrentMetadataReaderFactory for the default class loader.
+	 */
+	public ConcurrentMetadataReaderFactory() {
+		super();
+		this.sharedCache = SpringProperties.getFlag(SHARED_CACHE_PROPERTY_NAME);
+		this.metadataReaderCache = createDefaultCache(this.sharedCache);
+	}
+
+	/**
+	 * Create a new ConcurrentMetadataReaderFactory for the given resource loader.
+	 * @param resourceLoader the Spring ResourceLoader to use
+	 * (also determines the ClassLoader to use)
+	 */
+	public ConcurrentMetadataReaderFactory(ResourceLoader resourceLoader) {
+		super(resourceLoader);
+		this.sharedCache = SpringProperties.getFlag(SHARED_CACHE_PROPERTY_NAME);
+		this.metadataReaderCache = createDefaultCache(this.sharedCache);
+	}
+
+	/**
+	 * Create a new ConcurrentMetadataReaderFactory for the given class loader.
+	 * @param classLoader the ClassLoader to use
+	 */
+	public ConcurrentMetadataReaderFactory(ClassLoader classLoader) {
+		super(classLoader);
+		this.sharedCache = SpringProperties.getFlag(SHARED_CACHE_PROPERTY_NAME);
+		this.metadataReaderCache = createDefaultCache(this.sharedCache);
+	}
+
+	/**
+	 * Create a new ConcurrentMetadataReaderFactory for the given resource loader,
+	 * using the given (potentially shared) cache.
+	 * @param resourceLoader the Spring ResourceLoader to use
+	 * (also determines the ClassLoader to use)
+	 * @param metadataReaderCache the cache to use, e.g. the
+	 * {@link MetadataReaderCache#getSharedInstance shared cache} for the ClassLoader
+	 */
+	public ConcurrentMetadataReaderFactory(ResourceLoader resourceLoader, MetadataReaderCache metadataReaderCache) {
+		super(resourceLoader);
+		this.sharedCache = true;
+		this.metadataReaderCache = metadataReaderCache;
+	}
+
+	private MetadataReaderCache createDefaultCache(boolean shared) {
+		return (shared ? MetadataReaderCache.getSharedInstance(getResourceLoader().getClassLoader()) :
+				new MetadataReaderCache());
+	}
+
+	private static MetadataReaderDiskCache getDefaultDiskCache() {
+		String directory = SpringProperties.getProperty(DISK_CACHE_DIRECTORY_PROPERTY_NAME);
+		return (directory != null ? MetadataReaderDiskCache.getSharedInstance(new File(directory)) : null);
+	}
+
+
+	/**
+	 * Specify the maximum number of entries for the MetadataReader cache.
+	 * <p>Default is 256 for a private cache, 4096 for a shared cache;
+	 * a value of 0 switches caching off. Note that this applies to all
+	 * factories that share the cache.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		this.metadataReaderCache.setCacheLimit(cacheLimit);
+	}
+
+	/**
+	 * Return the maximum number of entries for the MetadataReader cache.
+	 */
+	public int getCacheLimit() {
+		return this.metadataReaderCache.getCacheLimit();
+	}
+
+	/**
+	 * Return the in-memory cache used by this factory.
+	 */
+	public MetadataReaderCache getMetadataReaderCache() {
+		return this.metadataReaderCache;
+	}
+
+	/**
+	 * Set a persistent cache to consult before parsing a class file.
+	 * <p>Default is none, unless the {@link #DISK_CACHE_DIRECTORY_PROPERTY_NAME}
+	 * property is set.
+	 */
+	public void setDiskCache(MetadataReaderDiskCache diskCache) {
+		this.diskCache = diskCache;
+	}
+
+	/**
+	 * Return the persistent cache consulted before parsing a class file, if any.
+	 */
+	public MetadataReaderDiskCache getDiskCache() {
+		return this.diskCache;
+	}
+
+
+	@Override
+	public MetadataReader getMetadataReader(Resource resource) throws IOException {
+		if (getCacheLimit() <= 0) {
+			return super.getMetadataReader(resource);
+		}
+		MetadataReader metadataReader = this.metadataReaderCache.get(resource);
+		if (metadataReader != null) {
+			return metadataReader;
+		}
+		// 在锁外解析class文件，多个扫描线程互不等待；并发解析出的重复结果直接丢弃
+		MetadataReaderDiskCache diskCache = this.diskCache;
+		if (diskCache != null) {
+			ClassLoader classLoader = getClassLoader();
+			metadataReader = diskCache.get(resource, classLoader);
+			if (metadataReader == null) {
+				metadataReader = super.getMetadataReader(resource);
+				diskCache.put(resource, metadataReader, classLoader);
+			}
+		}
+		else {
+			metadataReader = super.getMetadataReader(resource);
+		}
+		return this.metadataReaderCache.putIfAbsent(resource, metadataReader);
+	}
+
+	private ClassLoader getClassLoader() {
+		ClassLoader classLoader = getResourceLoader().getClassLoader();
+		return (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+	}
+
+	/**
+	 * Clear the in-memory cache, unless it is shared with other factories,
+	 * and write pending entries to the disk cache, if any.
+	 */
+	public void clearCache() {
+		if (!this.sharedCache) {
+			this.metadataReaderCache.clear();
+		}
+		MetadataReaderDiskCache diskCache = this.diskCache;
+		if (diskCache != null) {
+			diskCache.flush();
+		}
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.classreading;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Bounded, thread-safe LRU cache of {@link MetadataReader} instances
+ * per Spring {@link Resource} handle (i.e. per ".class" file).
+ *
+ * <p>A cache may be shared by several {@link ConcurrentMetadataReaderFactory}
+ * instances, e.g. by parent and child application contexts or by all contexts
+ * of a test suite, as long as they use the same ClassLoader: see
+ * {@link #getSharedInstance(ClassLoader)}.
+ *
+ * @since 3.2.9
+ * @see ConcurrentMetadataReaderFactory#ConcurrentMetadataReaderFactory(org.springframework.core.io.ResourceLoader, MetadataReaderCache)
+ */
+public class MetadataReaderCache {
+
+	/** Default maximum number of entries for the MetadataReader cache: 256 */
+	public static final int DEFAULT_CACHE_LIMIT = 256;
+
+	/** Default maximum number of entries for a shared MetadataReader cache: 4096 */
+	public static final int DEFAULT_SHARED_CACHE_LIMIT = 4096;
+
+	private static final Map<ClassLoader, MetadataReaderCache> sharedInstances =
+			new ConcurrentReferenceHashMap<ClassLoader, MetadataReaderCache>(16);
+
+
+	private volatile int cacheLimit;
+
+	@SuppressWarnings("serial")
+	private final Map<Resource, MetadataReader> metadataReaderCache =
+			new LinkedHashMap<Resource, MetadataReader>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Resource, MetadataReader> eldest) {
+					return size() > getCacheLimit();
+				}
+			};
+
+
+	/**
+	 * Create a new cache with the {@link #DEFAULT_CACHE_LIMIT default limit}.
+	 */
+	public MetadataReaderCache() {
+		this(DEFAULT_CACHE_LIMIT);
+	}
+
+	/**
+	 * Create a new cache with the given limit.
+	 * @param cacheLimit the maximum number of entries to keep
+	 */
+	public MetadataReaderCache(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
+	}
+
+
+	/**
+	 * Return the JVM-wide cache for metadata read through the given ClassLoader,
+	 * creating it with the {@link #DEFAULT_SHARED_CACHE_LIMIT} if necessary.
+	 * <p>The cache is softly referenced per ClassLoader: it may be released
+	 * under memory pressure (and then rebuilt on demand), and it does not keep
+	 * a discarded ClassLoader (e.g. of an undeployed web application) alive
+	 * beyond that.
+	 * @param classLoader the ClassLoader that class metadata gets resolved
+	 * against (may be {@code null} to use the default ClassLoader)
+	 */
+	public static MetadataReaderCache getSharedInstance(ClassLoader classLoader) {
+		ClassLoader classLoaderToUse = (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+		MetadataReaderCache cache = sharedInstances.get(classLoaderToUse);
+		if (cache == null) {
+			synchronized (sharedInstances) {
+				cache = sharedInstances.get(classLoaderToUse);
+				if (cache == null) {
+					cache = new MetadataReaderCache(DEFAULT_SHARED_CACHE_LIMIT);
+					sharedInstances.put(classLoaderToUse, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+
+	/**
+	 * Specify the maximum number of entries for the MetadataReader cache.
+	 * <p>Default is 256 for a local cache, 4096 for a shared cache.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		Assert.isTrue(cacheLimit >= 0, "'cacheLimit' must not be negative");
+		this.cacheLimit = cacheLimit;
+	}
+
+	/**
+	 * Return the maximum number of entries for the MetadataReader cache.
+	 */
+	public int getCacheLimit() {
+		return this.cacheLimit;
+	}
+
+	/**
+	 * Return the cached MetadataReader for the given resource, if any.
+	 */
+	public MetadataReader get(Resource resource) {
+		synchronized (this.metadataReaderCache) {
+			return this.metadataReaderCache.get(resource);
+		}
+	}
+
+	/**
+	 * Cache the given MetadataReader unless another thread has cached a reader
+	 * for the same resource in the meantime.
+	 * @return the MetadataReader that is cached for the resource now
+	 */
+	public MetadataReader putIfAbsent(Resource resource, MetadataReader metadataReader) {
+		synchronized (this.metadataReaderCache) {
+			MetadataReader existing = this.metadataReaderCache.get(resource);
+			if (existing != null) {
+				return existing;
+			}
+			this.metadataReaderCache.put(resource, metadataReader);
+			return metadataReader;
+		}
+	}
+
+	/**
+	 * Return the number of currently cached entries.
+	 */
+	public int size() {
+		synchronized (this.metadataReaderCache) {
+			return this.metadataReaderCache.size();
+		}
+	}
+
+	/**
+	 * Remove all cached entries.
+	 */
+	public void clear() {
+		synchronized (this.metadataReaderCache) {
+			this.metadataReaderCache.clear();
+		}
+	}
+
+}
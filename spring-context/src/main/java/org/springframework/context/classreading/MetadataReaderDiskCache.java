@@ -0,0 +1,390 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.classreading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Persistent second-level cache for {@link ConcurrentMetadataReaderFactory},
+ * keeping the metadata of parsed class files in a local directory so that
+ * subsequent JVM runs (e.g. repeated test runs or application restarts)
+ * do not have to parse unchanged class files again.
+ *
+ * <p>Entries are grouped in one segment file per jar or class directory and
+ * validated per class file: jar entries against their CRC, timestamp and size,
+ * files in directories against their timestamp and length. Class files that
+ * have changed in the meantime are simply parsed again; resources that are
+ * neither in a jar nor in the file system are not cached at all.
+ *
+ * <p>Modified segments are written back on {@link #flush()}, which is also
+ * triggered through a JVM shutdown hook for instances obtained from
+ * {@link #getSharedInstance(File)}.
+ *
+ * @since 3.2.9
+ * @see ConcurrentMetadataReaderFactory#setDiskCache
+ */
+public class MetadataReaderDiskCache {
+
+	private static final String SEGMENT_FILE_SUFFIX = ".metadata";
+
+	private static final Log logger = LogFactory.getLog(MetadataReaderDiskCache.class);
+
+	private static final Map<File, MetadataReaderDiskCache> sharedInstances =
+			new HashMap<File, MetadataReaderDiskCache>();
+
+
+	private final File directory;
+
+	private final ConcurrentMap<String, Segment> segments = new ConcurrentHashMap<String, Segment>(64);
+
+
+	/**
+	 * Create a new disk cache in the given directory.
+	 * @param directory the directory to keep the segment files in
+	 * (will be created on first flush if it does not exist yet)
+	 */
+	public MetadataReaderDiskCache(File directory) {
+		Assert.notNull(directory, "Directory must not be null");
+		this.directory = directory;
+	}
+
+
+	/**
+	 * Return the JVM-wide disk cache for the given directory, flushed
+	 * automatically on JVM shutdown.
+	 * @param directory the directory to keep the segment files in
+	 */
+	public static MetadataReaderDiskCache getSharedInstance(File directory) {
+		Assert.notNull(directory, "Directory must not be null");
+		File key = directory.getAbsoluteFile();
+		synchronized (sharedInstances) {
+			MetadataReaderDiskCache diskCache = sharedInstances.get(key);
+			if (diskCache == null) {
+				final MetadataReaderDiskCache newCache = new MetadataReaderDiskCache(key);
+				Runtime.getRuntime().addShutdownHook(new Thread("MetadataReaderDiskCache flush") {
+					@Override
+					public void run() {
+						newCache.flush();
+					}
+				});
+				sharedInstances.put(key, newCache);
+				diskCache = newCache;
+			}
+			return diskCache;
+		}
+	}
+
+
+	/**
+	 * Return the directory that this cache keeps its segment files in.
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Restore the metadata for the given class file resource, if cached
+	 * for the current version of the class file.
+	 * @param resource the class file resource
+	 * @param classLoader the ClassLoader to resolve class values against
+	 * @return the restored MetadataReader, or {@code null} if not cached
+	 */
+	MetadataReader get(Resource resource, ClassLoader classLoader) {
+		EntryKey key = getEntryKey(resource);
+		if (key == null) {
+			return null;
+		}
+		StoredEntry entry = getSegment(key.segmentKey).get(key.entryName);
+		if (entry == null || !entry.version.equals(key.version)) {
+			return null;
+		}
+		try {
+			ObjectInputStream ois =
+					new ConfigurableObjectInputStream(new ByteArrayInputStream(entry.data), classLoader);
+			try {
+				return ((MetadataSnapshot) ois.readObject()).restore(resource, classLoader);
+			}
+			finally {
+				ois.close();
+			}
+		}
+		catch (Exception ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to restore cached metadata for " + resource + " - parsing class file", ex);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Store the metadata for the given class file resource.
+	 * @param resource the class file resource
+	 * @param metadataReader the MetadataReader that was obtained for it
+	 * @param classLoader the ClassLoader that the metadata was read with
+	 */
+	void put(Resource resource, MetadataReader metadataReader, ClassLoader classLoader) {
+		EntryKey key = getEntryKey(resource);
+		if (key == null) {
+			return;
+		}
+		try {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+			ObjectOutputStream oos = new ObjectOutputStream(baos);
+			oos.writeObject(new MetadataSnapshot(metadataReader, classLoader));
+			oos.close();
+			getSegment(key.segmentKey).put(key.entryName, new StoredEntry(key.version, baos.toByteArray()));
+		}
+		catch (NotSerializableException ex) {
+			// Some annotation attribute value cannot be serialized - keep it in memory only.
+			if (logger.isTraceEnabled()) {
+				logger.trace("Not caching metadata for " + resource + " on disk: " + ex.getMessage());
+			}
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to serialize metadata for " + resource, ex);
+			}
+		}
+	}
+
+	/**
+	 * Write all modified segments to the cache directory.
+	 * <p>Failures are logged but not propagated: the cache is purely an optimization.
+	 */
+	public void flush() {
+		for (Map.Entry<String, Segment> entry : this.segments.entrySet()) {
+			Segment segment = entry.getValue();
+			Map<String, StoredEntry> entries = segment.getEntriesIfDirty();
+			if (entries != null) {
+				try {
+					writeSegment(entry.getKey(), entries);
+				}
+				catch (IOException ex) {
+					logger.warn("Failed to write metadata cache segment for " + entry.getKey(), ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove all segment files from the cache directory.
+	 */
+	public void clear() {
+		this.segments.clear();
+		File[] files = this.directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().endsWith(SEGMENT_FILE_SUFFIX)) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+
+	private Segment getSegment(String segmentKey) {
+		Segment segment = this.segments.get(segmentKey);
+		if (segment == null) {
+			segment = new Segment(readSegment(segmentKey));
+			Segment existing = this.segments.putIfAbsent(segmentKey, segment);
+			if (existing != null) {
+				segment = existing;
+			}
+		}
+		return segment;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, StoredEntry> readSegment(String segmentKey) {
+		File file = getSegmentFile(segmentKey);
+		if (!file.isFile()) {
+			return new HashMap<String, StoredEntry>();
+		}
+		try {
+			ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				return (Map<String, StoredEntry>) ois.readObject();
+			}
+			finally {
+				ois.close();
+			}
+		}
+		catch (Exception ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Discarding unreadable metadata cache segment " + file, ex);
+			}
+			return new HashMap<String, StoredEntry>();
+		}
+	}
+
+	private void writeSegment(String segmentKey, Map<String, StoredEntry> entries) throws IOException {
+		if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+			throw new IOException("Cannot create metadata cache directory " + this.directory);
+		}
+		File file = getSegmentFile(segmentKey);
+		// Write to a temporary file first, so that concurrent JVMs never read a partially written segment.
+		File tempFile = File.createTempFile(file.getName(), ".tmp", this.directory);
+		ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			oos.writeObject(entries);
+		}
+		finally {
+			oos.close();
+		}
+		if (!tempFile.renameTo(file)) {
+			file.delete();
+			if (!tempFile.renameTo(file)) {
+				tempFile.delete();
+				throw new IOException("Cannot rename " + tempFile + " to " + file);
+			}
+		}
+	}
+
+	private File getSegmentFile(String segmentKey) {
+		return new File(this.directory, DigestUtils.md5DigestAsHex(segmentKey.getBytes()) + SEGMENT_FILE_SUFFIX);
+	}
+
+	/**
+	 * Determine the segment, entry name and version of the given class file,
+	 * or {@code null} if the resource does not support version checks.
+	 */
+	private EntryKey getEntryKey(Resource resource) {
+		try {
+			URL url = resource.getURL();
+			if (ResourceUtils.isJarURL(url)) {
+				URLConnection con = url.openConnection();
+				if (con instanceof JarURLConnection) {
+					JarURLConnection jarCon = (JarURLConnection) con;
+					ResourceUtils.useCachesIfNecessary(jarCon);
+					JarEntry jarEntry = jarCon.getJarEntry();
+					if (jarEntry != null) {
+						return new EntryKey(jarCon.getJarFileURL().toString(), jarEntry.getName(),
+								jarEntry.getCrc() + ":" + jarEntry.getTime() + ":" + jarEntry.getSize());
+					}
+				}
+			}
+			else if (ResourceUtils.URL_PROTOCOL_FILE.equals(url.getProtocol())) {
+				File file = resource.getFile();
+				long lastModified = file.lastModified();
+				if (lastModified != 0) {
+					return new EntryKey(file.getParentFile().getAbsolutePath(), file.getName(),
+							lastModified + ":" + file.length());
+				}
+			}
+		}
+		catch (IOException ex) {
+			// Not resolvable in the file system - don't cache.
+		}
+		return null;
+	}
+
+
+	private static class EntryKey {
+
+		private final String segmentKey;
+
+		private final String entryName;
+
+		private final String version;
+
+		public EntryKey(String segmentKey, String entryName, String version) {
+			this.segmentKey = segmentKey;
+			this.entryName = entryName;
+			this.version = version;
+		}
+	}
+
+
+	/**
+	 * The serialized metadata of a class file, along with the version of the
+	 * class file that it was read from.
+	 */
+	@SuppressWarnings("serial")
+	private static class StoredEntry implements Serializable {
+
+		private final String version;
+
+		private final byte[] data;
+
+		public StoredEntry(String version, byte[] data) {
+			this.version = version;
+			this.data = data;
+		}
+	}
+
+
+	/**
+	 * The cached entries of a single jar or directory.
+	 */
+	private static class Segment {
+
+		private final Map<String, StoredEntry> entries;
+
+		private boolean dirty;
+
+		public Segment(Map<String, StoredEntry> entries) {
+			this.entries = entries;
+		}
+
+		public synchronized StoredEntry get(String entryName) {
+			return this.entries.get(entryName);
+		}
+
+		public synchronized void put(String entryName, StoredEntry entry) {
+			this.entries.put(entryName, entry);
+			this.dirty = true;
+		}
+
+		public synchronized Map<String, StoredEntry> getEntriesIfDirty() {
+			if (!this.dirty) {
+				return null;
+			}
+			this.dirty = false;
+			return new HashMap<String, StoredEntry>(this.entries);
+		}
+	}
+
+}
@@ -0,0 +1,645 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.classreading;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Serializable copy of the class metadata exposed by a {@link MetadataReader},
+ * used by {@link MetadataReaderDiskCache} to restore a MetadataReader without
+ * parsing the class file again.
+ *
+ * <p>The snapshot is taken through the public {@link AnnotationMetadata} and
+ * {@link MethodMetadata} contracts. Since those cannot enumerate the annotated
+ * methods of a class, the class file is additionally scanned for the annotation
+ * types declared on its methods. Class-level attributes are kept with their
+ * class values as names, resolved against the ClassLoader on access; method-level
+ * attributes keep their raw form, with class values as ASM {@link Type} descriptors,
+ * just like freshly read metadata. All other attribute values (enums, default
+ * values obtained through reflection) must be serializable.
+ *
+ * @since 3.2.9
+ */
+@SuppressWarnings("serial")
+final class MetadataSnapshot implements Serializable {
+
+	private final String className;
+
+	private final boolean isInterface;
+
+	private final boolean isAbstract;
+
+	private final boolean isFinal;
+
+	private final boolean isIndependent;
+
+	private final String enclosingClassName;
+
+	private final String superClassName;
+
+	private final String[] interfaceNames;
+
+	private final String[] memberClassNames;
+
+	private final Set<String> annotationTypes;
+
+	private final Map<String, Set<String>> metaAnnotationTypes = new LinkedHashMap<String, Set<String>>(4);
+
+	private final Map<String, AnnotationAttributes> attributes = new LinkedHashMap<String, AnnotationAttributes>(4);
+
+	private final List<MethodSnapshot> methods = new ArrayList<MethodSnapshot>();
+
+
+	/**
+	 * Take a snapshot of the metadata exposed by the given MetadataReader.
+	 * @param metadataReader the MetadataReader to copy
+	 * @param classLoader the ClassLoader that the metadata was read with
+	 * @throws IOException if the class file could not be scanned for method annotations
+	 */
+	public MetadataSnapshot(MetadataReader metadataReader, ClassLoader classLoader) throws IOException {
+		AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
+		this.className = metadata.getClassName();
+		this.isInterface = metadata.isInterface();
+		this.isAbstract = metadata.isAbstract();
+		this.isFinal = metadata.isFinal();
+		this.isIndependent = metadata.isIndependent();
+		this.enclosingClassName = metadata.getEnclosingClassName();
+		this.superClassName = metadata.getSuperClassName();
+		this.interfaceNames = metadata.getInterfaceNames();
+		this.memberClassNames = metadata.getMemberClassNames();
+		this.annotationTypes = new LinkedHashSet<String>(metadata.getAnnotationTypes());
+
+		Set<String> attributeTypes = new LinkedHashSet<String>(this.annotationTypes);
+		for (String annotationType : this.annotationTypes) {
+			Set<String> metaTypes = metadata.getMetaAnnotationTypes(annotationType);
+			if (metaTypes != null) {
+				this.metaAnnotationTypes.put(annotationType, new LinkedHashSet<String>(metaTypes));
+				attributeTypes.addAll(metaTypes);
+			}
+		}
+		for (String attributeType : attributeTypes) {
+			Map<String, Object> attributes = metadata.getAnnotationAttributes(attributeType, true);
+			if (attributes != null) {
+				// 只有直接声明的注解才带有需要按需加载的Class值，元注解的属性值本来就是字符串
+				Class<?> annotationClass =
+						(this.annotationTypes.contains(attributeType) ? loadClass(attributeType, classLoader) : null);
+				this.attributes.put(attributeType, encodeClassLevelAttributes(attributes, annotationClass));
+			}
+		}
+
+		Set<MethodMetadata> matchedMethods =
+				Collections.newSetFromMap(new IdentityHashMap<MethodMetadata, Boolean>());
+		for (DeclaredMethod declaredMethod : readAnnotatedMethods(metadataReader.getResource())) {
+			MethodMetadata methodMetadata = findMethodMetadata(metadata, declaredMethod, matchedMethods);
+			if (methodMetadata != null) {
+				Map<String, AnnotationAttributes> methodAttributes = new LinkedHashMap<String, AnnotationAttributes>(2);
+				for (String attributeType : getAttributeTypes(declaredMethod.annotationTypes, classLoader)) {
+					if (methodMetadata.isAnnotated(attributeType)) {
+						methodAttributes.put(attributeType,
+								encodeRawAttributes(methodMetadata.getAnnotationAttributes(attributeType)));
+					}
+				}
+				this.methods.add(new MethodSnapshot(methodMetadata, methodAttributes));
+			}
+		}
+	}
+
+
+	/**
+	 * Create a {@link MetadataReader} for the given resource from this snapshot.
+	 * @param resource the resource that the snapshot was taken for
+	 * @param classLoader the ClassLoader to resolve class values against
+	 */
+	public MetadataReader restore(Resource resource, ClassLoader classLoader) {
+		return new RestoredMetadataReader(resource, new RestoredAnnotationMetadata(this, classLoader));
+	}
+
+
+	/**
+	 * Scan the given class file for the methods that declare annotations,
+	 * in declaration order, skipping bridge methods just like the metadata does.
+	 */
+	private static List<DeclaredMethod> readAnnotatedMethods(Resource resource) throws IOException {
+		InputStream is = new BufferedInputStream(resource.getInputStream());
+		ClassReader classReader;
+		try {
+			classReader = new ClassReader(is);
+		}
+		finally {
+			is.close();
+		}
+		final List<DeclaredMethod> annotatedMethods = new ArrayList<DeclaredMethod>();
+		classReader.accept(new ClassVisitor(SpringAsmInfo.ASM_VERSION) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+				if ((access & Opcodes.ACC_BRIDGE) != 0) {
+					return null;
+				}
+				final DeclaredMethod method = new DeclaredMethod(name);
+				return new MethodVisitor(SpringAsmInfo.ASM_VERSION) {
+					@Override
+					public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+						if (method.annotationTypes.isEmpty()) {
+							annotatedMethods.add(method);
+						}
+						method.annotationTypes.add(Type.getType(desc).getClassName());
+						return null;
+					}
+				};
+			}
+		}, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		return annotatedMethods;
+	}
+
+	/**
+	 * Find the method metadata for the given declared method: the first one
+	 * with the same name that is annotated with one of its annotation types and
+	 * has not been matched yet. Annotated methods are returned in declaration order,
+	 * so overloaded methods are matched in the same order as they are declared.
+	 */
+	private static MethodMetadata findMethodMetadata(AnnotationMetadata metadata, DeclaredMethod declaredMethod,
+			Set<MethodMetadata> matchedMethods) {
+
+		for (String annotationType : declaredMethod.annotationTypes) {
+			for (MethodMetadata methodMetadata : metadata.getAnnotatedMethods(annotationType)) {
+				if (methodMetadata.getMethodName().equals(declaredMethod.name) && matchedMethods.add(methodMetadata)) {
+					return methodMetadata;
+				}
+			}
+		}
+		// 注解类型都无法加载：元数据中也没有这个方法的注解信息
+		return null;
+	}
+
+	/**
+	 * Determine the given annotation types plus the annotation types that
+	 * they are annotated with, as registered by the metadata for a method.
+	 */
+	private static Set<String> getAttributeTypes(Collection<String> annotationTypes, ClassLoader classLoader) {
+		Set<String> attributeTypes = new LinkedHashSet<String>(annotationTypes);
+		for (String annotationType : annotationTypes) {
+			Class<?> annotationClass = loadClass(annotationType, classLoader);
+			if (annotationClass != null) {
+				for (Annotation metaAnnotation : annotationClass.getAnnotations()) {
+					attributeTypes.add(metaAnnotation.annotationType().getName());
+				}
+			}
+		}
+		return attributeTypes;
+	}
+
+	private static Class<?> loadClass(String className, ClassLoader classLoader) {
+		try {
+			return classLoader.loadClass(className);
+		}
+		catch (Throwable ex) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * Encode class-level attributes, as obtained with class values as Strings:
+	 * class values are marked as {@link ClassReference ClassReferences}, based on
+	 * the attribute types declared by the given annotation type (if known).
+	 * <p>嵌套注解的属性在 3.2 的读取实现中始终以类名字符串保存，因此保持原样。
+	 */
+	private static AnnotationAttributes encodeClassLevelAttributes(Map<String, Object> attributes, Class<?> annotationClass) {
+		AnnotationAttributes result = new AnnotationAttributes(attributes.size());
+		for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+			Class<?> attributeType = null;
+			if (annotationClass != null) {
+				Method attributeMethod = ReflectionUtils.findMethod(annotationClass, entry.getKey());
+				if (attributeMethod != null) {
+					attributeType = attributeMethod.getReturnType();
+				}
+			}
+			result.put(entry.getKey(), encodeClassLevelValue(entry.getValue(), attributeType));
+		}
+		return result;
+	}
+
+	private static Object encodeClassLevelValue(Object value, Class<?> attributeType) {
+		if (value instanceof String && Class.class.equals(attributeType)) {
+			return new ClassReference((String) value);
+		}
+		if (value instanceof String[] && Class[].class.equals(attributeType)) {
+			String[] classNames = (String[]) value;
+			ClassReference[] result = new ClassReference[classNames.length];
+			for (int i = 0; i < classNames.length; i++) {
+				result[i] = new ClassReference(classNames[i]);
+			}
+			return result;
+		}
+		return value;
+	}
+
+	/**
+	 * Encode raw method-level attributes: ASM {@link Type} values are
+	 * replaced by serializable {@link TypeReference TypeReferences}.
+	 */
+	private static AnnotationAttributes encodeRawAttributes(Map<String, Object> attributes) {
+		AnnotationAttributes result = new AnnotationAttributes(attributes.size());
+		for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+			Object value = entry.getValue();
+			if (value instanceof Type) {
+				value = new TypeReference(((Type) value).getDescriptor());
+			}
+			else if (value instanceof Type[]) {
+				Type[] types = (Type[]) value;
+				TypeReference[] references = new TypeReference[types.length];
+				for (int i = 0; i < types.length; i++) {
+					references[i] = new TypeReference(types[i].getDescriptor());
+				}
+				value = references;
+			}
+			else if (value instanceof AnnotationAttributes) {
+				value = encodeRawAttributes((AnnotationAttributes) value);
+			}
+			else if (value instanceof AnnotationAttributes[]) {
+				AnnotationAttributes[] nested = (AnnotationAttributes[]) value;
+				AnnotationAttributes[] encoded = new AnnotationAttributes[nested.length];
+				for (int i = 0; i < nested.length; i++) {
+					encoded[i] = encodeRawAttributes(nested[i]);
+				}
+				value = encoded;
+			}
+			result.put(entry.getKey(), value);
+		}
+		return result;
+	}
+
+	private static AnnotationAttributes decodeRawAttributes(AnnotationAttributes attributes) {
+		AnnotationAttributes result = new AnnotationAttributes(attributes.size());
+		for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+			Object value = entry.getValue();
+			if (value instanceof TypeReference) {
+				value = Type.getType(((TypeReference) value).descriptor);
+			}
+			else if (value instanceof TypeReference[]) {
+				TypeReference[] references = (TypeReference[]) value;
+				Type[] types = new Type[references.length];
+				for (int i = 0; i < references.length; i++) {
+					types[i] = Type.getType(references[i].descriptor);
+				}
+				value = types;
+			}
+			else if (value instanceof AnnotationAttributes) {
+				value = decodeRawAttributes((AnnotationAttributes) value);
+			}
+			else if (value instanceof AnnotationAttributes[]) {
+				AnnotationAttributes[] nested = (AnnotationAttributes[]) value;
+				AnnotationAttributes[] decoded = new AnnotationAttributes[nested.length];
+				for (int i = 0; i < nested.length; i++) {
+					decoded[i] = decodeRawAttributes(nested[i]);
+				}
+				value = decoded;
+			}
+			result.put(entry.getKey(), value);
+		}
+		return result;
+	}
+
+
+	/**
+	 * A method that declares annotations, as found in the class file.
+	 */
+	private static class DeclaredMethod {
+
+		private final String name;
+
+		private final List<String> annotationTypes = new ArrayList<String>(2);
+
+		public DeclaredMethod(String name) {
+			this.name = name;
+		}
+	}
+
+
+	/**
+	 * Serializable stand-in for a class-level class value.
+	 */
+	private static class ClassReference implements Serializable {
+
+		private final String className;
+
+		public ClassReference(String className) {
+			this.className = className;
+		}
+	}
+
+
+	/**
+	 * Serializable stand-in for an ASM {@link Type} class value.
+	 */
+	private static class TypeReference implements Serializable {
+
+		private final String descriptor;
+
+		public TypeReference(String descriptor) {
+			this.descriptor = descriptor;
+		}
+	}
+
+
+	/**
+	 * Metadata of a single annotated method.
+	 */
+	private static class MethodSnapshot implements Serializable {
+
+		private final String name;
+
+		private final boolean isStatic;
+
+		private final boolean isFinal;
+
+		private final boolean isOverridable;
+
+		private final Map<String, AnnotationAttributes> attributes;
+
+		public MethodSnapshot(MethodMetadata methodMetadata, Map<String, AnnotationAttributes> attributes) {
+			this.name = methodMetadata.getMethodName();
+			this.isStatic = methodMetadata.isStatic();
+			this.isFinal = methodMetadata.isFinal();
+			this.isOverridable = methodMetadata.isOverridable();
+			this.attributes = attributes;
+		}
+	}
+
+
+	private static class RestoredMetadataReader implements MetadataReader {
+
+		private final Resource resource;
+
+		private final AnnotationMetadata metadata;
+
+		public RestoredMetadataReader(Resource resource, AnnotationMetadata metadata) {
+			this.resource = resource;
+			this.metadata = metadata;
+		}
+
+		public Resource getResource() {
+			return this.resource;
+		}
+
+		public ClassMetadata getClassMetadata() {
+			return this.metadata;
+		}
+
+		public AnnotationMetadata getAnnotationMetadata() {
+			return this.metadata;
+		}
+	}
+
+
+	/**
+	 * {@link AnnotationMetadata} view of a snapshot, resolving class values
+	 * against the given ClassLoader on access.
+	 */
+	private static class RestoredAnnotationMetadata implements AnnotationMetadata {
+
+		private final MetadataSnapshot snapshot;
+
+		private final ClassLoader classLoader;
+
+		private final Set<MethodMetadata> methodMetadataSet = new LinkedHashSet<MethodMetadata>(4);
+
+		public RestoredAnnotationMetadata(MetadataSnapshot snapshot, ClassLoader classLoader) {
+			this.snapshot = snapshot;
+			this.classLoader = classLoader;
+			for (MethodSnapshot method : snapshot.methods) {
+				this.methodMetadataSet.add(new RestoredMethodMetadata(method, snapshot.className));
+			}
+		}
+
+		public String getClassName() {
+			return this.snapshot.className;
+		}
+
+		public boolean isInterface() {
+			return this.snapshot.isInterface;
+		}
+
+		public boolean isAbstract() {
+			return this.snapshot.isAbstract;
+		}
+
+		public boolean isConcrete() {
+			return !(this.snapshot.isInterface || this.snapshot.isAbstract);
+		}
+
+		public boolean isFinal() {
+			return this.snapshot.isFinal;
+		}
+
+		public boolean isIndependent() {
+			return this.snapshot.isIndependent;
+		}
+
+		public boolean hasEnclosingClass() {
+			return (this.snapshot.enclosingClassName != null);
+		}
+
+		public String getEnclosingClassName() {
+			return this.snapshot.enclosingClassName;
+		}
+
+		public boolean hasSuperClass() {
+			return (this.snapshot.superClassName != null);
+		}
+
+		public String getSuperClassName() {
+			return this.snapshot.superClassName;
+		}
+
+		public String[] getInterfaceNames() {
+			return this.snapshot.interfaceNames;
+		}
+
+		public String[] getMemberClassNames() {
+			return this.snapshot.memberClassNames;
+		}
+
+		public Set<String> getAnnotationTypes() {
+			return this.snapshot.annotationTypes;
+		}
+
+		public Set<String> getMetaAnnotationTypes(String annotationType) {
+			return this.snapshot.metaAnnotationTypes.get(annotationType);
+		}
+
+		public boolean hasAnnotation(String annotationType) {
+			return this.snapshot.annotationTypes.contains(annotationType);
+		}
+
+		public boolean hasMetaAnnotation(String metaAnnotationType) {
+			for (Set<String> metaTypes : this.snapshot.metaAnnotationTypes.values()) {
+				if (metaTypes.contains(metaAnnotationType)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public boolean isAnnotated(String annotationType) {
+			return this.snapshot.attributes.containsKey(annotationType);
+		}
+
+		public Map<String, Object> getAnnotationAttributes(String annotationType) {
+			return getAnnotationAttributes(annotationType, false);
+		}
+
+		public Map<String, Object> getAnnotationAttributes(String annotationType, boolean classValuesAsString) {
+			AnnotationAttributes attributes = this.snapshot.attributes.get(annotationType);
+			return (attributes != null ? resolveClassValues(attributes, classValuesAsString) : null);
+		}
+
+		private AnnotationAttributes resolveClassValues(AnnotationAttributes attributes, boolean classValuesAsString) {
+			AnnotationAttributes result = new AnnotationAttributes(attributes.size());
+			for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+				try {
+					Object value = entry.getValue();
+					if (value instanceof ClassReference) {
+						String className = ((ClassReference) value).className;
+						value = (classValuesAsString ? className : this.classLoader.loadClass(className));
+					}
+					else if (value instanceof ClassReference[]) {
+						ClassReference[] references = (ClassReference[]) value;
+						Object[] resolved = (classValuesAsString ? new String[references.length] : new Class<?>[references.length]);
+						for (int i = 0; i < references.length; i++) {
+							resolved[i] = (classValuesAsString ? references[i].className :
+									this.classLoader.loadClass(references[i].className));
+						}
+						value = resolved;
+					}
+					else if (value instanceof AnnotationAttributes) {
+						value = resolveClassValues((AnnotationAttributes) value, classValuesAsString);
+					}
+					else if (value instanceof AnnotationAttributes[]) {
+						AnnotationAttributes[] nested = (AnnotationAttributes[]) value;
+						AnnotationAttributes[] resolved = new AnnotationAttributes[nested.length];
+						for (int i = 0; i < nested.length; i++) {
+							resolved[i] = resolveClassValues(nested[i], classValuesAsString);
+						}
+						value = resolved;
+					}
+					result.put(entry.getKey(), value);
+				}
+				catch (ClassNotFoundException ex) {
+					// Class not found - can't resolve class reference in annotation attribute.
+				}
+			}
+			return result;
+		}
+
+		public boolean hasAnnotatedMethods(String annotationType) {
+			for (MethodMetadata methodMetadata : this.methodMetadataSet) {
+				if (methodMetadata.isAnnotated(annotationType)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public Set<MethodMetadata> getAnnotatedMethods(String annotationType) {
+			Set<MethodMetadata> annotatedMethods = new LinkedHashSet<MethodMetadata>(4);
+			for (MethodMetadata methodMetadata : this.methodMetadataSet) {
+				if (methodMetadata.isAnnotated(annotationType)) {
+					annotatedMethods.add(methodMetadata);
+				}
+			}
+			return annotatedMethods;
+		}
+	}
+
+
+	private static class RestoredMethodMetadata implements MethodMetadata {
+
+		private final MethodSnapshot method;
+
+		private final String declaringClassName;
+
+		private final Map<String, AnnotationAttributes> attributes;
+
+		public RestoredMethodMetadata(MethodSnapshot method, String declaringClassName) {
+			this.method = method;
+			this.declaringClassName = declaringClassName;
+			this.attributes = new LinkedHashMap<String, AnnotationAttributes>(method.attributes.size());
+			for (Map.Entry<String, AnnotationAttributes> entry : method.attributes.entrySet()) {
+				this.attributes.put(entry.getKey(), decodeRawAttributes(entry.getValue()));
+			}
+		}
+
+		public String getMethodName() {
+			return this.method.name;
+		}
+
+		public String getDeclaringClassName() {
+			return this.declaringClassName;
+		}
+
+		public boolean isStatic() {
+			return this.method.isStatic;
+		}
+
+		public boolean isFinal() {
+			return this.method.isFinal;
+		}
+
+		public boolean isOverridable() {
+			return this.method.isOverridable;
+		}
+
+		public boolean isAnnotated(String annotationType) {
+			return this.attributes.containsKey(annotationType);
+		}
+
+		public Map<String, Object> getAnnotationAttributes(String annotationType) {
+			return this.attributes.get(annotationType);
+		}
+	}
+
+}
@@ -0,0 +1,7 @@
+/**
+ *
+ * Thread-safe, caching support for reading class metadata during
+ * component scanning and configuration class processing.
+ *
+ */
+package org.springframework.context.classreading;
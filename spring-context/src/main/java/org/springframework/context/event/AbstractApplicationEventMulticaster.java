@@ -16,9 +16,12 @@
 
 package org.springframework.context.event;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -47,6 +50,11 @@ import org.springframework.util.ObjectUtils;
  * all events to all registered listeners, invoking them in the calling thread.
  * Alternative implementations could be more sophisticated in those respects.
  *
+ * <p>The listeners for each event type and source type are determined once and
+ * cached until the set of registered listeners changes. As of 3.2.9, if all of
+ * them are singletons, the cache holds the resolved and sorted listeners, so
+ * that looking them up for an event is a single map access.
+ *
  * @author Juergen Hoeller
  * @since 1.2.3
  * @see #getApplicationListeners(ApplicationEvent)
@@ -158,6 +166,10 @@ public abstract class AbstractApplicationEventMulticaster implements Application
 				}
 			}
 			OrderComparator.sort(allListeners);
+			if (isSingletonListenerBeans(retriever.applicationListenerBeans)) {
+				// 监听器Bean都是单例：直接缓存排好序的监听器，之后的事件无需再遍历、获取Bean和排序
+				retriever.resolvedListeners = Collections.unmodifiableList(new ArrayList<ApplicationListener>(allListeners));
+			}
 			if (this.beanClassLoader == null ||
 					(ClassUtils.isCacheSafe(eventType, this.beanClassLoader) && (sourceType == null || ClassUtils.isCacheSafe(sourceType, this.beanClassLoader)))) {
 				this.retrieverCache.put(cacheKey, retriever);
@@ -166,6 +178,20 @@ public abstract class AbstractApplicationEventMulticaster implements Application
 		}
 	}
 
+	// 判断监听器Bean是否都是单例（这样它们对应的监听器实例就不会再改变）
+	private boolean isSingletonListenerBeans(Set<String> listenerBeans) {
+		if (listenerBeans.isEmpty()) {
+			return true;
+		}
+		BeanFactory beanFactory = getBeanFactory();
+		for (String listenerBeanName : listenerBeans) {
+			if (!beanFactory.isSingleton(listenerBeanName)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	// 判断给定的监听器是否支持给定的事件
 	protected boolean supportsEvent(ApplicationListener listener, Class<? extends ApplicationEvent> eventType, Class sourceType) {
 		SmartApplicationListener smartListener = (listener instanceof SmartApplicationListener ?
@@ -208,6 +234,8 @@ public abstract class AbstractApplicationEventMulticaster implements Application
 		public final Set<String> applicationListenerBeans;
 		// 标识是否允许重复添加 applicationListenerBean
 		private final boolean preFiltered;
+		// 预先解析并排好序的监听器（仅当监听器Bean都是单例时），为null表示每次都需要重新获取
+		private volatile List<ApplicationListener> resolvedListeners;
 
 		public ListenerRetriever(boolean preFiltered) {
 			this.applicationListeners = new LinkedHashSet<ApplicationListener>();
@@ -217,6 +245,10 @@ public abstract class AbstractApplicationEventMulticaster implements Application
 
 		// 返回所有已经注册的监听器
 		public Collection<ApplicationListener> getApplicationListeners() {
+			List<ApplicationListener> resolved = this.resolvedListeners;
+			if (resolved != null) {
+				return resolved;
+			}
 			LinkedList<ApplicationListener> allListeners = new LinkedList<ApplicationListener>();
 			for (ApplicationListener listener : this.applicationListeners) {
 				allListeners.add(listener);
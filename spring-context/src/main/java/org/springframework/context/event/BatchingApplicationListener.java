@@ -0,0 +1,46 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.context.event;
+
+import java.util.EventListener;
+import java.util.List;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Listener for application events that are delivered in batches rather than
+ * one at a time, for listeners whose work can be shared across events -
+ * e.g. cache invalidation or search indexing.
+ *
+ * <p>Needs to be registered through a {@link BatchingApplicationListenerAdapter},
+ * which determines batch size and maximum latency. The event type is declared
+ * through the generic type parameter, as with {@code ApplicationListener}.
+ *
+ * @since 3.2.9
+ * @param <E> the specific ApplicationEvent subclass to listen to
+ * @see BatchingApplicationListenerAdapter
+ */
+public interface BatchingApplicationListener<E extends ApplicationEvent> extends EventListener {
+
+	// 处理一批事件（按发布顺序，已去重）
+	void onApplicationEvents(List<E> events);
+
+	// 返回用于去重的key：同一批次中key相同的事件只保留最后一个，返回null表示不去重
+	Object getEventKey(E event);
+
+}
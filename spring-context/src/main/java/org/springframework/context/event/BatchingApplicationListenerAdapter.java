@@ -0,0 +1,276 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * {@link SmartApplicationListener} adapter that collects the events for a
+ * {@link BatchingApplicationListener} and delivers them in batches: as soon as
+ * the {@link #setBatchSize batch size} has been reached, or once the first event
+ * of a batch has been waiting for the {@link #setMaxLatency maximum latency}.
+ * Events with the same {@link BatchingApplicationListener#getEventKey key} are
+ * coalesced within a batch, keeping the latest one.
+ *
+ * <p>Batches are delivered one at a time, in order. Pending events are delivered
+ * on {@link #flush()} and when the adapter is destroyed.
+ *
+ * <p>Register the adapter as a bean (or with the event multicaster) in place of
+ * the target listener:
+ *
+ * <pre class="code">
+ * &lt;bean class="org.springframework.context.event.BatchingApplicationListenerAdapter"&gt;
+ *   &lt;constructor-arg&gt;&lt;bean class="example.SearchIndexer"/&gt;&lt;/constructor-arg&gt;
+ *   &lt;property name="batchSize" value="500"/&gt;
+ *   &lt;property name="maxLatency" value="1000"/&gt;
+ * &lt;/bean&gt;</pre>
+ *
+ * @since 3.2.9
+ * @see BatchingApplicationListener
+ */
+public class BatchingApplicationListenerAdapter implements SmartApplicationListener, DisposableBean {
+
+	private final BatchingApplicationListener delegate;
+
+	private final Class<?> eventType;
+
+	private int batchSize = 0;
+
+	private long maxLatency = 0;
+
+	private TaskScheduler taskScheduler;
+
+	// 未指定TaskScheduler时内部创建的定时线程池，销毁时关闭
+	private ScheduledExecutorService internalScheduler;
+
+	// 当前批次中等待投递的事件，按key去重（不去重的事件使用唯一的key）
+	private Map<Object, ApplicationEvent> pendingEvents = new LinkedHashMap<Object, ApplicationEvent>();
+
+	private ScheduledFuture<?> scheduledFlush;
+
+	private final Object pendingMonitor = new Object();
+
+	// 保证批次逐个按顺序投递
+	private final Object deliveryMonitor = new Object();
+
+
+	/**
+	 * Create a new BatchingApplicationListenerAdapter for the given delegate.
+	 * @param delegate the batching listener to deliver the events to
+	 */
+	public BatchingApplicationListenerAdapter(BatchingApplicationListener<?> delegate) {
+		Assert.notNull(delegate, "Delegate listener must not be null");
+		this.delegate = delegate;
+		this.eventType = resolveEventType(delegate);
+	}
+
+	private static Class<?> resolveEventType(BatchingApplicationListener<?> delegate) {
+		Class<?> typeArg = GenericTypeResolver.resolveTypeArgument(delegate.getClass(), BatchingApplicationListener.class);
+		if (typeArg == null || typeArg.equals(ApplicationEvent.class)) {
+			Class<?> targetClass = AopUtils.getTargetClass(delegate);
+			if (targetClass != delegate.getClass()) {
+				typeArg = GenericTypeResolver.resolveTypeArgument(targetClass, BatchingApplicationListener.class);
+			}
+		}
+		return typeArg;
+	}
+
+
+	/**
+	 * Set the number of events that triggers the delivery of a batch.
+	 * <p>Default is 0: no limit, i.e. batches are only delivered once the
+	 * {@link #setMaxLatency maximum latency} has elapsed or on {@link #flush()}.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Set the maximum time (in milliseconds) that an event may wait for the
+	 * delivery of its batch.
+	 * <p>Default is 0: no time limit, i.e. batches are only delivered once the
+	 * {@link #setBatchSize batch size} has been reached or on {@link #flush()}.
+	 */
+	public void setMaxLatency(long maxLatency) {
+		this.maxLatency = maxLatency;
+	}
+
+	public long getMaxLatency() {
+		return this.maxLatency;
+	}
+
+	/**
+	 * Set the TaskScheduler to deliver batches with once the maximum latency has
+	 * elapsed. Default is a single daemon thread, created on demand.
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		this.taskScheduler = taskScheduler;
+	}
+
+	/**
+	 * Return the target listener that batches are delivered to.
+	 */
+	public BatchingApplicationListener<?> getDelegate() {
+		return this.delegate;
+	}
+
+
+	public void onApplicationEvent(ApplicationEvent event) {
+		addEvent(event);
+	}
+
+	/**
+	 * Add the given event to the current batch, delivering the batch
+	 * if the batch size has been reached.
+	 */
+	protected void addEvent(ApplicationEvent event) {
+		boolean full;
+		synchronized (this.pendingMonitor) {
+			addEvent(this.pendingEvents, event);
+			full = (this.batchSize > 0 && this.pendingEvents.size() >= this.batchSize);
+			if (!full && this.maxLatency > 0 && this.scheduledFlush == null) {
+				// 批次中的第一个事件：安排在最大延迟之后投递
+				this.scheduledFlush = getTaskScheduler().schedule(new Runnable() {
+					public void run() {
+						flush();
+					}
+				}, new Date(System.currentTimeMillis() + this.maxLatency));
+			}
+		}
+		if (full) {
+			flush();
+		}
+	}
+
+	/**
+	 * Add the given event to the given batch, coalescing it with a previous event
+	 * for the same {@link BatchingApplicationListener#getEventKey key}.
+	 * <p>Allows subclasses to collect events in a batch of their own.
+	 * @param batch the batch to add the event to
+	 * @param event the event to add
+	 */
+	@SuppressWarnings("unchecked")
+	protected void addEvent(Map<Object, ApplicationEvent> batch, ApplicationEvent event) {
+		Object key = this.delegate.getEventKey(event);
+		if (key == null) {
+			key = new Object();
+		}
+		else {
+			// 先移除再添加：合并后的事件位于最后一次发布的位置
+			batch.remove(key);
+		}
+		batch.put(key, event);
+	}
+
+	/**
+	 * Add the given events to the current batch, delivering batches as the
+	 * batch size is reached.
+	 */
+	protected void addEvents(Collection<ApplicationEvent> events) {
+		for (ApplicationEvent event : events) {
+			addEvent(event);
+		}
+	}
+
+	/**
+	 * Deliver the current batch right away, if there are pending events.
+	 */
+	@SuppressWarnings("unchecked")
+	public void flush() {
+		synchronized (this.deliveryMonitor) {
+			Map<Object, ApplicationEvent> batch;
+			synchronized (this.pendingMonitor) {
+				if (this.scheduledFlush != null) {
+					this.scheduledFlush.cancel(false);
+					this.scheduledFlush = null;
+				}
+				if (this.pendingEvents.isEmpty()) {
+					return;
+				}
+				batch = this.pendingEvents;
+				this.pendingEvents = new LinkedHashMap<Object, ApplicationEvent>();
+			}
+			this.delegate.onApplicationEvents(new ArrayList<ApplicationEvent>(batch.values()));
+		}
+	}
+
+	/**
+	 * Return the number of events in the current batch.
+	 */
+	public int getPendingEventCount() {
+		synchronized (this.pendingMonitor) {
+			return this.pendingEvents.size();
+		}
+	}
+
+	private TaskScheduler getTaskScheduler() {
+		if (this.taskScheduler == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("batching-listener-");
+			threadFactory.setDaemon(true);
+			this.internalScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+			this.taskScheduler = new ConcurrentTaskScheduler(this.internalScheduler);
+		}
+		return this.taskScheduler;
+	}
+
+	/**
+	 * Deliver pending events and shut down the internal scheduler, if any.
+	 */
+	public void destroy() {
+		flush();
+		if (this.internalScheduler != null) {
+			this.internalScheduler.shutdown();
+		}
+	}
+
+
+	public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+		return (this.eventType == null || this.eventType.isAssignableFrom(eventType));
+	}
+
+	public boolean supportsSourceType(Class<?> sourceType) {
+		return true;
+	}
+
+	public int getOrder() {
+		return (this.delegate instanceof Ordered ? ((Ordered) this.delegate).getOrder() : Ordered.LOWEST_PRECEDENCE);
+	}
+
+}
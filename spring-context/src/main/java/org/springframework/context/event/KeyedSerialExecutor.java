@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.springframework.util.Assert;
+
+/**
+ * Executes tasks on a target {@link Executor}, one at a time and in submission
+ * order per key - while tasks for different keys still run concurrently.
+ *
+ * <p>Tasks for a key are queued while a task for the same key is running;
+ * each queued task is handed to the target executor as soon as its predecessor
+ * has completed (whether successfully or not). Exceptions thrown by a task
+ * propagate to the target executor's thread, as with direct submission.
+ * Queues are discarded as soon as they have been drained, so the number of
+ * distinct keys does not need to be bounded.
+ *
+ * <p>Used by {@link SimpleApplicationEventMulticaster} to deliver events in
+ * publication order per source when it is ordered per source.
+ *
+ * @since 3.2.9
+ */
+class KeyedSerialExecutor {
+
+	private final Executor targetExecutor;
+
+	// 每个key上等待执行的任务，正在执行的任务也在队列头部（执行完毕后才移除）
+	private final Map<Object, LinkedList<Runnable>> queues = new HashMap<Object, LinkedList<Runnable>>();
+
+
+	/**
+	 * Create a new KeyedSerialExecutor for the given target executor.
+	 * @param targetExecutor the executor to run the tasks on
+	 */
+	public KeyedSerialExecutor(Executor targetExecutor) {
+		Assert.notNull(targetExecutor, "Target Executor must not be null");
+		this.targetExecutor = targetExecutor;
+	}
+
+
+	/**
+	 * Return the executor that the tasks are run on.
+	 */
+	public Executor getTargetExecutor() {
+		return this.targetExecutor;
+	}
+
+	/**
+	 * Execute the given task after all tasks previously submitted for the same key.
+	 * @param key the key to serialize the task on (must not be {@code null})
+	 * @param task the task to execute
+	 * @throws java.util.concurrent.RejectedExecutionException if the target executor
+	 * rejected the task (in which case it has not been queued either)
+	 */
+	public void execute(Object key, Runnable task) {
+		Assert.notNull(key, "Key must not be null");
+		Assert.notNull(task, "Task must not be null");
+		synchronized (this.queues) {
+			LinkedList<Runnable> queue = this.queues.get(key);
+			if (queue != null) {
+				queue.add(task);
+				return;
+			}
+			queue = new LinkedList<Runnable>();
+			queue.add(task);
+			this.queues.put(key, queue);
+		}
+		submit(key, task);
+	}
+
+	/**
+	 * Return the number of tasks that have been submitted but not completed yet.
+	 */
+	public int getPendingTaskCount() {
+		synchronized (this.queues) {
+			int count = 0;
+			for (LinkedList<Runnable> queue : this.queues.values()) {
+				count += queue.size();
+			}
+			return count;
+		}
+	}
+
+	private void submit(Object key, Runnable task) {
+		try {
+			this.targetExecutor.execute(new SerialTask(key, task));
+		}
+		catch (RuntimeException ex) {
+			// 被拒绝的任务不算提交过：移除它，继续执行同一个key上的后续任务（如果有的话）
+			next(key);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Remove the head (completed or rejected) task and submit the next task for the given key.
+	 */
+	private void next(Object key) {
+		Runnable next;
+		synchronized (this.queues) {
+			LinkedList<Runnable> queue = this.queues.get(key);
+			queue.removeFirst();
+			if (queue.isEmpty()) {
+				this.queues.remove(key);
+				return;
+			}
+			next = queue.getFirst();
+		}
+		submit(key, next);
+	}
+
+
+	private class SerialTask implements Runnable {
+
+		private final Object key;
+
+		private final Runnable task;
+
+		public SerialTask(Object key, Runnable task) {
+			this.key = key;
+			this.task = task;
+		}
+
+		public void run() {
+			try {
+				this.task.run();
+			}
+			finally {
+				next(this.key);
+			}
+		}
+	}
+
+}
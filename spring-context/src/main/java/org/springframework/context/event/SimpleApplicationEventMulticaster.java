@@ -16,11 +16,22 @@
 
 package org.springframework.context.event;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
+import org.springframework.util.Assert;
 
 /**
  * Simple implementation of the {@link ApplicationEventMulticaster} interface.
@@ -35,15 +46,36 @@ import org.springframework.context.ApplicationListener;
  * but adds minimal overhead. Specify an alternative TaskExecutor to have
  * listeners executed in different threads, for example from a thread pool.
  *
+ * <p>As of 3.2.9, specific listener types may be assigned executors of their
+ * own, asynchronous events may be delivered to each listener in publication
+ * order per event source, the number of pending asynchronous invocations may be
+ * bounded (blocking publishers once the limit has been reached), and
+ * {@link #submitEvent} allows the publisher to wait for all listeners.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @see #setTaskExecutor
+ * @see #setListenerExecutors
+ * @see #setOrderedPerSource
+ * @see #setMaxPendingInvocations
  */
 public class SimpleApplicationEventMulticaster extends AbstractApplicationEventMulticaster {
 
+	// 标识某个监听器类型没有单独指定的线程池（ConcurrentHashMap中不能存放null）
+	private static final Object NO_LISTENER_EXECUTOR = new Object();
+
+
 	// 线程池服务，Spring默认监听机制默认是同步的，我们可以通过声明一个事件广播器Bean，并注入一个Executor的形式
 	// 来实现异步事件监听
 	private Executor taskExecutor;
+	// 按监听器类型单独指定的线程池
+	private Map<Class<?>, Executor> listenerExecutors;
+	private final Map<Class<?>, Object> listenerExecutorCache = new ConcurrentHashMap<Class<?>, Object>(64);
+	// 是否对每个监听器按事件源顺序地异步投递事件
+	private boolean orderedPerSource = false;
+	private final Map<Executor, KeyedSerialExecutor> serialExecutors = new ConcurrentHashMap<Executor, KeyedSerialExecutor>(8);
+	// 限制尚未完成的异步调用数量，为null表示不限制
+	private Semaphore pendingInvocations;
 
 	public SimpleApplicationEventMulticaster() {}
 	public SimpleApplicationEventMulticaster(BeanFactory beanFactory) {
@@ -51,23 +83,123 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	}
 
 	// 根据这个事件给所有相应的事件监听进行广播，并调用相应的处理方法，这里通过使用线程池来实现异步的处理方式
-	@SuppressWarnings("unchecked")
-	public void multicastEvent(final ApplicationEvent event) {
-		for (final ApplicationListener listener : getApplicationListeners(event)) {
-			Executor executor = getTaskExecutor();
+	public void multicastEvent(ApplicationEvent event) {
+		multicastEvent(event, getApplicationListeners(event), null);
+	}
+
+	/**
+	 * Multicast the given event to all appropriate listeners, returning a
+	 * Future that completes once every listener has processed the event -
+	 * including listeners that are invoked asynchronously.
+	 * <p>{@link Future#get()} throws an {@link ExecutionException} with the first
+	 * exception thrown by an asynchronously invoked listener, if any. Exceptions
+	 * thrown by listeners invoked in the calling thread propagate right away.
+	 * @param event the event to multicast
+	 * @return the Future for the completion of all listener invocations
+	 * @since 3.2.9
+	 */
+	public Future<Void> submitEvent(ApplicationEvent event) {
+		Collection<ApplicationListener> listeners = getApplicationListeners(event);
+		MulticastFuture future = new MulticastFuture(listeners.size());
+		multicastEvent(event, listeners, future);
+		return future;
+	}
+
+	private void multicastEvent(ApplicationEvent event, Collection<ApplicationListener> listeners, MulticastFuture future) {
+		Object orderingKey = (this.orderedPerSource ? determineOrderingKey(event) : null);
+		Semaphore semaphore = this.pendingInvocations;
+		for (ApplicationListener listener : listeners) {
+			Executor executor = determineExecutor(listener);
 			if (executor != null) {
-				executor.execute(new Runnable() {
-					public void run() {
-						listener.onApplicationEvent(event);
+				Runnable invocation = new ListenerInvocation(listener, event, semaphore, future);
+				if (semaphore != null) {
+					// 达到上限时阻塞发布者，直到有异步调用完成（背压）
+					semaphore.acquireUninterruptibly();
+				}
+				try {
+					if (orderingKey != null) {
+						getSerialExecutor(executor).execute(new OrderingKey(listener, orderingKey), invocation);
+					}
+					else {
+						executor.execute(invocation);
+					}
+				}
+				catch (RuntimeException ex) {
+					if (semaphore != null) {
+						semaphore.release();
 					}
-				});
+					throw ex;
+				}
 			}
 			else {
-				listener.onApplicationEvent(event);
+				invokeListener(listener, event);
+				if (future != null) {
+					future.invocationCompleted(null);
+				}
 			}
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private void invokeListener(ApplicationListener listener, ApplicationEvent event) {
+		listener.onApplicationEvent(event);
+	}
+
+	/**
+	 * Determine the executor to invoke the given listener with: the executor
+	 * {@link #setListenerExecutors registered} for its type, if any, or the
+	 * general {@link #setTaskExecutor task executor} otherwise.
+	 * @param listener the listener to invoke
+	 * @return the executor, or {@code null} to invoke the listener in the calling thread
+	 * @since 3.2.9
+	 */
+	protected Executor determineExecutor(ApplicationListener listener) {
+		if (this.listenerExecutors == null) {
+			return getTaskExecutor();
+		}
+		Class<?> listenerClass = listener.getClass();
+		Object executor = this.listenerExecutorCache.get(listenerClass);
+		if (executor == null) {
+			executor = NO_LISTENER_EXECUTOR;
+			for (Map.Entry<Class<?>, Executor> entry : this.listenerExecutors.entrySet()) {
+				if (entry.getKey().isAssignableFrom(listenerClass)) {
+					executor = entry.getValue();
+					break;
+				}
+			}
+			this.listenerExecutorCache.put(listenerClass, executor);
+		}
+		return (executor != NO_LISTENER_EXECUTOR ? (Executor) executor : getTaskExecutor());
+	}
+
+	/**
+	 * Determine the key that asynchronous deliveries of the given event are
+	 * ordered by, if {@link #setOrderedPerSource ordered per source}: each
+	 * listener receives the events with equal keys in publication order.
+	 * <p>The default implementation returns the event's source, e.g. the
+	 * aggregate that a domain event refers to.
+	 * @param event the event to deliver
+	 * @return the ordering key, or {@code null} for no ordering
+	 * @since 3.2.9
+	 */
+	protected Object determineOrderingKey(ApplicationEvent event) {
+		return event.getSource();
+	}
+
+	private KeyedSerialExecutor getSerialExecutor(Executor executor) {
+		KeyedSerialExecutor serialExecutor = this.serialExecutors.get(executor);
+		if (serialExecutor == null) {
+			synchronized (this.serialExecutors) {
+				serialExecutor = this.serialExecutors.get(executor);
+				if (serialExecutor == null) {
+					serialExecutor = new KeyedSerialExecutor(executor);
+					this.serialExecutors.put(executor, serialExecutor);
+				}
+			}
+		}
+		return serialExecutor;
+	}
+
 	// getter and setter
 	public void setTaskExecutor(Executor taskExecutor) {
 		this.taskExecutor = taskExecutor;
@@ -75,8 +207,180 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	protected Executor getTaskExecutor() {
 		return this.taskExecutor;
 	}
+	/**
+	 * Assign executors to specific listener types, overriding the general
+	 * {@link #setTaskExecutor task executor} for listeners of those types:
+	 * e.g. a separate thread pool for slow listeners, or a
+	 * {@link org.springframework.core.task.SyncTaskExecutor} for listeners
+	 * that need to be invoked in the publishing thread.
+	 * <p>The first matching entry (in map order) applies.
+	 * @since 3.2.9
+	 */
+	public void setListenerExecutors(Map<Class<?>, Executor> listenerExecutors) {
+		this.listenerExecutors = (listenerExecutors != null ? new LinkedHashMap<Class<?>, Executor>(listenerExecutors) : null);
+		this.listenerExecutorCache.clear();
+	}
+	/**
+	 * Set whether asynchronously invoked listeners should receive events with
+	 * the same {@link #determineOrderingKey ordering key} (by default: the same
+	 * source) one at a time, in publication order. Events with different keys
+	 * are still processed concurrently.
+	 * <p>Default is "false": each invocation is handed to the executor
+	 * independently, without any ordering guarantee.
+	 * @since 3.2.9
+	 */
+	public void setOrderedPerSource(boolean orderedPerSource) {
+		this.orderedPerSource = orderedPerSource;
+	}
+	public boolean isOrderedPerSource() {
+		return this.orderedPerSource;
+	}
+	/**
+	 * Set the maximum number of asynchronous listener invocations that may be
+	 * pending (queued or running) at any time. Publishers block once the limit
+	 * has been reached, until invocations have completed.
+	 * <p>Default is unbounded. Note that a listener must not publish events
+	 * itself when bounded, since it might block on a limit that only its own
+	 * completion would free up.
+	 * @since 3.2.9
+	 */
+	public void setMaxPendingInvocations(int maxPendingInvocations) {
+		Assert.isTrue(maxPendingInvocations > 0, "'maxPendingInvocations' must be positive");
+		this.pendingInvocations = new Semaphore(maxPendingInvocations);
+	}
+
+
+	/**
+	 * Asynchronous invocation of a single listener.
+	 */
+	private class ListenerInvocation implements Runnable {
+
+		private final ApplicationListener listener;
+
+		private final ApplicationEvent event;
+
+		// 提交时获取许可的信号量，调用结束后释放
+		private final Semaphore semaphore;
+
+		private final MulticastFuture future;
+
+		public ListenerInvocation(ApplicationListener listener, ApplicationEvent event,
+				Semaphore semaphore, MulticastFuture future) {
+
+			this.listener = listener;
+			this.event = event;
+			this.semaphore = semaphore;
+			this.future = future;
+		}
+
+		public void run() {
+			Throwable failure = null;
+			try {
+				invokeListener(this.listener, this.event);
+			}
+			catch (RuntimeException ex) {
+				failure = ex;
+				throw ex;
+			}
+			catch (Error err) {
+				failure = err;
+				throw err;
+			}
+			finally {
+				if (this.semaphore != null) {
+					this.semaphore.release();
+				}
+				if (this.future != null) {
+					this.future.invocationCompleted(failure);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Key for ordered delivery: a listener (by identity) and an ordering key.
+	 */
+	private static class OrderingKey {
+
+		private final ApplicationListener listener;
+
+		private final Object key;
+
+		public OrderingKey(ApplicationListener listener, Object key) {
+			this.listener = listener;
+			this.key = key;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof OrderingKey)) {
+				return false;
+			}
+			OrderingKey otherKey = (OrderingKey) other;
+			return (this.listener == otherKey.listener && this.key.equals(otherKey.key));
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.listener) * 29 + this.key.hashCode();
+		}
+	}
+
+
+	/**
+	 * Future for the completion of all listener invocations for an event.
+	 */
+	private static class MulticastFuture implements Future<Void> {
 
+		private final CountDownLatch pendingInvocations;
 
+		private volatile Throwable failure;
 
+		public MulticastFuture(int invocationCount) {
+			this.pendingInvocations = new CountDownLatch(invocationCount);
+		}
+
+		public void invocationCompleted(Throwable failure) {
+			if (failure != null && this.failure == null) {
+				this.failure = failure;
+			}
+			this.pendingInvocations.countDown();
+		}
+
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			return false;
+		}
+
+		public boolean isCancelled() {
+			return false;
+		}
+
+		public boolean isDone() {
+			return (this.pendingInvocations.getCount() == 0);
+		}
+
+		public Void get() throws InterruptedException, ExecutionException {
+			this.pendingInvocations.await();
+			return result();
+		}
+
+		public Void get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			if (!this.pendingInvocations.await(timeout, unit)) {
+				throw new TimeoutException("Event not processed by all listeners within " + timeout + " " + unit);
+			}
+			return result();
+		}
+
+		private Void result() throws ExecutionException {
+			if (this.failure != null) {
+				throw new ExecutionException(this.failure);
+			}
+			return null;
+		}
+	}
 
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Provide access to the candidates that are defined in
+ * {@value CandidateComponentsIndexLoader#COMPONENTS_RESOURCE_LOCATION} files.
+ *
+ * <p>Each index file belongs to the classpath root (directory or jar) that
+ * contains it and lists the candidate types of that root along with the
+ * annotation types present on them, including meta-annotations and
+ * annotations declared on supertypes. Classpath roots without an index
+ * file are not covered and have to be scanned as usual.
+ *
+ * @since 3.2.9
+ * @see CandidateComponentsIndexLoader
+ * @see CandidateComponentsIndexer
+ */
+public class CandidateComponentsIndex {
+
+	/** Indexed types per classpath root: type name -> annotation type names */
+	private final Map<String, Map<String, Set<String>>> typesByRoot =
+			new LinkedHashMap<String, Map<String, Set<String>>>();
+
+
+	/**
+	 * Create a new index from the given index file contents.
+	 * @param indexByRoot the parsed index files, keyed by the URL of the
+	 * classpath root they were found in
+	 */
+	CandidateComponentsIndex(Map<String, Properties> indexByRoot) {
+		for (Map.Entry<String, Properties> entry : indexByRoot.entrySet()) {
+			Map<String, Set<String>> types = new LinkedHashMap<String, Set<String>>();
+			for (Map.Entry<Object, Object> indexEntry : entry.getValue().entrySet()) {
+				String typeName = ((String) indexEntry.getKey()).trim();
+				Set<String> annotationTypes = new HashSet<String>(
+						StringUtils.commaDelimitedListToSet((String) indexEntry.getValue()));
+				types.put(typeName, annotationTypes);
+			}
+			this.typesByRoot.put(entry.getKey(), types);
+		}
+	}
+
+
+	/**
+	 * Return whether this index does not cover any classpath root.
+	 */
+	public boolean isEmpty() {
+		return this.typesByRoot.isEmpty();
+	}
+
+	/**
+	 * Return whether the given classpath root comes with an index.
+	 * @param root the URL of the classpath root, ending with "/"
+	 */
+	public boolean hasIndex(String root) {
+		return this.typesByRoot.containsKey(root);
+	}
+
+	/**
+	 * Return the candidate types of the given classpath root that reside in
+	 * the given package (or one of its sub-packages) and are annotated with
+	 * at least one of the given annotation types.
+	 * @param root the URL of the classpath root, ending with "/"
+	 * @param basePackage the package to check for candidates
+	 * @param annotationTypes the names of the annotation types to match
+	 * @return the names of the candidate types, sorted for a stable
+	 * registration order (never {@code null})
+	 */
+	public Set<String> getCandidateTypes(String root, String basePackage, Collection<String> annotationTypes) {
+		Map<String, Set<String>> types = this.typesByRoot.get(root);
+		if (types == null) {
+			return Collections.emptySet();
+		}
+		String packagePrefix = (StringUtils.hasLength(basePackage) ? basePackage + "." : "");
+		Set<String> result = new TreeSet<String>();
+		for (Map.Entry<String, Set<String>> entry : types.entrySet()) {
+			if (entry.getKey().startsWith(packagePrefix)) {
+				for (String annotationType : annotationTypes) {
+					if (entry.getValue().contains(annotationType)) {
+						result.add(entry.getKey());
+						break;
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+}
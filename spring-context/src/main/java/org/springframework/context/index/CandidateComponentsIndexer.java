@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Annotation processor that writes a {@value CandidateComponentsIndexLoader#COMPONENTS_RESOURCE_LOCATION}
+ * file for the classes being compiled, to be picked up by component scanning
+ * instead of traversing the containing jar or directory at runtime.
+ *
+ * <p>Every class carrying a stereotype is indexed: {@code @Component} or any
+ * annotation meta-annotated with it, JSR-250's {@code @ManagedBean} and
+ * JSR-330's {@code @Named}. Its index entry lists all annotation types present
+ * on the class, its supertypes and, transitively, on those annotations.
+ *
+ * <p>The processor is not registered as a service, so it does not kick in for
+ * every compilation that happens to have spring-context on the classpath. Enable
+ * it explicitly, e.g. through {@code javac -processor} or the
+ * {@code annotationProcessors} setting of the maven-compiler-plugin. Entries
+ * from a previous (incremental) compilation are kept as long as their types
+ * can still be resolved.
+ *
+ * @since 3.2.9
+ * @see CandidateComponentsIndex
+ */
+public class CandidateComponentsIndexer extends AbstractProcessor {
+
+	private static final String COMPONENT_ANNOTATION = "org.springframework.stereotype.Component";
+
+	private static final String[] STEREOTYPE_ANNOTATIONS = new String[] {
+			COMPONENT_ANNOTATION, "javax.annotation.ManagedBean", "javax.inject.Named"};
+
+
+	private final Map<String, Set<String>> entries = new TreeMap<String, Set<String>>();
+
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton("*");
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			writeIndex();
+		}
+		else {
+			for (Element element : roundEnv.getRootElements()) {
+				processElement(element);
+			}
+		}
+		return false;
+	}
+
+	private void processElement(Element element) {
+		if (element.getKind() == ElementKind.CLASS) {
+			TypeElement type = (TypeElement) element;
+			Set<String> annotationTypes = new LinkedHashSet<String>();
+			collectTypeAnnotations(type.asType(), annotationTypes, new LinkedHashSet<String>());
+			for (String stereotype : STEREOTYPE_ANNOTATIONS) {
+				if (annotationTypes.contains(stereotype)) {
+					this.entries.put(this.processingEnv.getElementUtils().getBinaryName(type).toString(),
+							annotationTypes);
+					break;
+				}
+			}
+		}
+		for (Element enclosed : element.getEnclosedElements()) {
+			if (enclosed.getKind() == ElementKind.CLASS) {
+				processElement(enclosed);
+			}
+		}
+	}
+
+	private void collectTypeAnnotations(TypeMirror typeMirror, Set<String> annotationTypes, Set<String> visitedTypes) {
+		if (typeMirror.getKind() != TypeKind.DECLARED) {
+			return;
+		}
+		TypeElement type = (TypeElement) ((DeclaredType) typeMirror).asElement();
+		if (!visitedTypes.add(type.getQualifiedName().toString())) {
+			return;
+		}
+		collectAnnotations(type.getAnnotationMirrors(), annotationTypes);
+		collectTypeAnnotations(type.getSuperclass(), annotationTypes, visitedTypes);
+		for (TypeMirror interfaceType : type.getInterfaces()) {
+			collectTypeAnnotations(interfaceType, annotationTypes, visitedTypes);
+		}
+	}
+
+	private void collectAnnotations(List<? extends AnnotationMirror> mirrors, Set<String> annotationTypes) {
+		for (AnnotationMirror mirror : mirrors) {
+			TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+			String annotationName = annotationType.getQualifiedName().toString();
+			if (!annotationName.startsWith("java.lang.annotation.") && annotationTypes.add(annotationName)) {
+				collectAnnotations(annotationType.getAnnotationMirrors(), annotationTypes);
+			}
+		}
+	}
+
+	private void writeIndex() {
+		try {
+			Properties index = readExistingIndex();
+			for (Map.Entry<String, Set<String>> entry : this.entries.entrySet()) {
+				index.setProperty(entry.getKey(), StringUtils.collectionToCommaDelimitedString(entry.getValue()));
+			}
+			if (index.isEmpty()) {
+				return;
+			}
+			FileObject file = this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+					CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION);
+			OutputStream out = file.openOutputStream();
+			try {
+				index.store(out, null);
+			}
+			finally {
+				out.close();
+			}
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to write candidate components index", ex);
+		}
+	}
+
+	/**
+	 * Read the index written by a previous compilation into the same output
+	 * location, dropping entries for types that no longer exist.
+	 */
+	private Properties readExistingIndex() {
+		Properties index = new Properties();
+		try {
+			FileObject file = this.processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+					CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION);
+			InputStream in = file.openInputStream();
+			try {
+				index.load(in);
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException ex) {
+			// No previous index - simply start from scratch.
+		}
+		for (String typeName : index.stringPropertyNames()) {
+			if (this.processingEnv.getElementUtils().getTypeElement(typeName.replace('$', '.')) == null) {
+				index.remove(typeName);
+			}
+		}
+		return index;
+	}
+
+}
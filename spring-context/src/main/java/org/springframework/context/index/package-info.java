@@ -0,0 +1,7 @@
+/**
+ *
+ * Support for a build-time index of candidate components, allowing
+ * component scanning to skip classpath traversal for indexed jars.
+ *
+ */
+package org.springframework.context.index;
@@ -1,8 +1,16 @@
 
 package org.springframework.context.support;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.OutputStream;
 import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
@@ -14,6 +22,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -28,8 +37,12 @@ import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.AbstractAutowireCapableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionSnapshot;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
 import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.beans.factory.support.StartupTimeline;
 import org.springframework.beans.support.ResourceEditorRegistrar;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -58,6 +71,7 @@ import org.springframework.context.weaving.LoadTimeWeaverAwareProcessor;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.Environment;
@@ -68,7 +82,10 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
 
 // ApplicationContext接口的默认实现，即Spring容器抽象父类
 public abstract class AbstractApplicationContext extends DefaultResourceLoader implements ConfigurableApplicationContext, DisposableBean {
@@ -87,6 +104,17 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 	public static final String LIFECYCLE_PROCESSOR_BEAN_NAME = "lifecycleProcessor";
 	// ApplicationEventMulticaster bean在工厂的名称。如果没有提供,使用一个默认SimpleApplicationEventMulticaster。
 	public static final String APPLICATION_EVENT_MULTICASTER_BEAN_NAME = "applicationEventMulticaster";
+	// 用于并行预实例化单例bean的Executor在工厂中的bean名称（仅对 DefaultListableBeanFactory 生效）。如果没有提供，所有单例bean在当前线程中依次实例化。
+	public static final String BOOTSTRAP_EXECUTOR_BEAN_NAME = "bootstrapExecutor";
+	/**
+	 * System property that instructs Spring to record a {@link StartupTimeline}
+	 * for every context refresh: {@code "spring.context.startupTimeline"}.
+	 * <p>The default is "false", not recording anything unless a timeline has
+	 * been specified through {@link #setStartupTimeline}.
+	 */
+	public static final String STARTUP_TIMELINE_PROPERTY_NAME = "spring.context.startupTimeline";
+
+	private static final boolean startupTimelineEnabled = SpringProperties.getFlag(STARTUP_TIMELINE_PROPERTY_NAME);
 
 
 	// 以“org.springframework.context.support.AbstractApplicationContext + @ + 16进制哈希值串” 作为Spring容器的id
@@ -133,6 +161,14 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 
 	// 初始化时使用标准的Envirionment实现类 StandardEnvironment
 	private ConfigurableEnvironment environment;
+	// Bean定义快照文件，为null表示不使用快照
+	private File beanDefinitionSnapshotFile;
+	// 本次刷新结束注册阶段后需要写出的快照（快照文件不存在或者与当前配置不匹配时）
+	private BeanDefinitionSnapshot pendingBeanDefinitionSnapshot;
+	// 本次刷新中BeanDefinition从中恢复的快照，为null表示BeanDefinition是从配置源加载的
+	private BeanDefinitionSnapshot restoredBeanDefinitionSnapshot;
+	// 记录刷新各阶段及bean创建耗时的启动时间线，为null表示不记录
+	private StartupTimeline startupTimeline;
 
 
 	// 构造器
@@ -217,13 +253,24 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 
 	public void refresh() throws BeansException, IllegalStateException {
 		synchronized (this.startupShutdownMonitor) {
+			if (this.startupTimeline == null && startupTimelineEnabled) {
+				this.startupTimeline = new StartupTimeline();
+			}
 			// 1、准备刷新的上下文环境：例如对系统属性及环境变量的初始化及验证，在某种情况下项目的使用需要读取某些系统变
 			// 量，而这个变量的设置很可能会影响着系统的正确性，那么 ClassPathXMLApplicationContext 为我们提供的这个准备
 			// 函数就显得非常必要，他可以在Spring启动的时候提前对必须的变量存在性验证
 			prepareRefresh();
 
 			// 2、初始化BeanFactory，执行obtainFreshBeanFactory()方法后ApplicationContext就拥有BeanFactory的功能
-			ConfigurableListableBeanFactory beanFactory = obtainFreshBeanFactory();
+			// 各阶段在finally中结束，失败（包括RuntimeException和Error）时也不会留下未结束的阶段
+			StartupTimeline.Phase phase = startPhase("obtainFreshBeanFactory");
+			ConfigurableListableBeanFactory beanFactory;
+			try {
+				beanFactory = obtainFreshBeanFactory();
+			}
+			finally {
+				endPhase(phase);
+			}
 
 			// 3、注意，程序至此时，配置的Bean还没有进行实例化，只是以BeanDefinition 的形式存储的注册表中，对BeanFactory
 			// 进行各种功能模式填充，@Qualifier和@Autowired应该是大家非常熟悉的注解，那么这两个注解正是在这一步骤中增加
@@ -242,14 +289,26 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 				// ②BeanFactoryProcess 是工厂后处理器，spring容器解析完配置文件（注册了所有的BeanDefinition）之后，并在所有
 				// bean实例化之前被调用的
 				// 另外，BeanDefinitionRegistryPostProcessor 继承自 BeanFactoryPostProcessor
-				invokeBeanFactoryPostProcessors(beanFactory);
+				phase = startPhase("invokeBeanFactoryPostProcessors");
+				try {
+					invokeBeanFactoryPostProcessors(beanFactory);
+				}
+				finally {
+					endPhase(phase);
+				}
 
 				// 6、注册拦截Bean创建的Bean处理器，这里只是注册处理器，处理器执行是在getBean时候
 				// BeanPostProcessor 处理器是Bean调用构造函数实例化前和实例化后执行的处理器，还有MergedBeanDefinitionPostProcessor
 				// 类型的处理器（该处理器在BeanDefinition 被包装为 BeanWrapper 后，会调用该处理器，将类型为beanType和beanName
 				// 对应的bean注入到beanDefinition；
 				// MergedBeanDefinitionPostProcessor 继承自 BeanPostProcessor
-				registerBeanPostProcessors(beanFactory);
+				phase = startPhase("registerBeanPostProcessors");
+				try {
+					registerBeanPostProcessors(beanFactory);
+				}
+				finally {
+					endPhase(phase);
+				}
 
 				// 7、为上下文初始化Message源，即不同语言的消息体，国际化处理
 				initMessageSource();
@@ -265,10 +324,27 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 
 				// 11、初始化剩下的单实例（非惰性）：完成BeanFactoryBean的初始化工作，其中包括ConversionService的设置，
 				// 配置冻结以及非延迟加载的bean的初始化工作。
-				finishBeanFactoryInitialization(beanFactory);
+				phase = startPhase("finishBeanFactoryInitialization");
+				try {
+					finishBeanFactoryInitialization(beanFactory);
+				}
+				finally {
+					endPhase(phase);
+				}
 
 				// 12、完成刷新过程，通知生命周期处理器lifecycleProcessor 刷新过程，同时发出ContextRefreshEvent通知别人
-				finishRefresh();
+				phase = startPhase("finishRefresh");
+				try {
+					finishRefresh();
+				}
+				finally {
+					endPhase(phase);
+				}
+				// 启动时间线只记录启动过程：之后按需创建的bean（例如prototype）不再记录
+				if (this.startupTimeline != null && beanFactory instanceof AbstractAutowireCapableBeanFactory &&
+						((AbstractAutowireCapableBeanFactory) beanFactory).getStartupTimeline() == this.startupTimeline) {
+					((AbstractAutowireCapableBeanFactory) beanFactory).setStartupTimeline(null);
+				}
 			}
 
 			catch (BeansException ex) {
@@ -283,6 +359,18 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 			}
 		}
 	}
+	// 在启动时间线上开始记录一个阶段，没有启动时间线时返回null
+	private StartupTimeline.Phase startPhase(String name) {
+		return startPhase(name, null);
+	}
+	private StartupTimeline.Phase startPhase(String name, String detail) {
+		return (this.startupTimeline != null ? this.startupTimeline.startPhase(name, detail) : null);
+	}
+	private void endPhase(StartupTimeline.Phase phase) {
+		if (phase != null) {
+			phase.end();
+		}
+	}
 	// 1、准备刷新的上下文环境：例如对系统属性及环境变量的初始化及验证
 	protected void prepareRefresh() {
 		// 记录容器开始时间，并将容器标志为正在启动的状态
@@ -340,6 +428,10 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 		beanFactory.setBeanExpressionResolver(new StandardBeanExpressionResolver());
 		// 添加属性编辑器
 		beanFactory.addPropertyEditorRegistrar(new ResourceEditorRegistrar(this, getEnvironment()));
+		// 记录bean创建的启动时间线
+		if (this.startupTimeline != null && beanFactory instanceof AbstractAutowireCapableBeanFactory) {
+			((AbstractAutowireCapableBeanFactory) beanFactory).setStartupTimeline(this.startupTimeline);
+		}
 
 		// 添加 BeanPostProcessor 后处理器
 		beanFactory.addBeanPostProcessor(new ApplicationContextAwareProcessor(this));
@@ -390,6 +482,10 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 		Set<String> processedBeans = new HashSet<String>();
 		if (beanFactory instanceof BeanDefinitionRegistry) {
 			BeanDefinitionRegistry registry = (BeanDefinitionRegistry) beanFactory;
+			// BeanDefinition从快照中恢复时，BeanDefinitionRegistryPostProcessor对注册表的处理结果已经包含在快照中了
+			boolean snapshotRestored = (this.restoredBeanDefinitionSnapshot != null);
+			this.restoredBeanDefinitionSnapshot = null;
+			int propertySourceCount = getEnvironment().getPropertySources().size();
 
 			// 保存Spring容器中非BeanDefinitionRegistryPostProcessor类型的处理器
 			List<BeanFactoryPostProcessor> regularPostProcessors = new LinkedList<BeanFactoryPostProcessor>();
@@ -401,7 +497,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 				if (postProcessor instanceof BeanDefinitionRegistryPostProcessor) {
 					BeanDefinitionRegistryPostProcessor registryPostProcessor = (BeanDefinitionRegistryPostProcessor) postProcessor;
 					// 执行BeanDefinitionRegistryPostProcessor类型的处理器
-					registryPostProcessor.postProcessBeanDefinitionRegistry(registry);
+					if (!snapshotRestored) {
+						invokeBeanDefinitionRegistryPostProcessor(registryPostProcessor, registry);
+					}
 					registryPostProcessors.add(registryPostProcessor);
 				}
 				else {
@@ -414,7 +512,16 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 			List<BeanDefinitionRegistryPostProcessor> registryPostProcessorBeans = new ArrayList<BeanDefinitionRegistryPostProcessor>(beanMap.values());
 			OrderComparator.sort(registryPostProcessorBeans);
 			for (BeanDefinitionRegistryPostProcessor postProcessor : registryPostProcessorBeans) {
-				postProcessor.postProcessBeanDefinitionRegistry(registry);
+				if (!snapshotRestored) {
+					invokeBeanDefinitionRegistryPostProcessor(postProcessor, registry);
+				}
+			}
+
+			// 至此所有的BeanDefinition都已注册完毕（尚未经过占位符替换等BeanFactoryPostProcessor的处理），写出快照
+			if (this.pendingBeanDefinitionSnapshot != null) {
+				writeBeanDefinitionSnapshot(this.pendingBeanDefinitionSnapshot, registry,
+						getEnvironment().getPropertySources().size() != propertySourceCount);
+				this.pendingBeanDefinitionSnapshot = null;
 			}
 
 
@@ -498,9 +605,180 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 	private void invokeBeanFactoryPostProcessors(Collection<? extends BeanFactoryPostProcessor> postProcessors, ConfigurableListableBeanFactory beanFactory) {
 
 		for (BeanFactoryPostProcessor postProcessor : postProcessors) {
-			postProcessor.postProcessBeanFactory(beanFactory);
+			StartupTimeline.Phase phase = startPhase("postProcessBeanFactory", postProcessor.getClass().getName());
+			try {
+				postProcessor.postProcessBeanFactory(beanFactory);
+			}
+			finally {
+				endPhase(phase);
+			}
+		}
+	}
+	// 执行BeanDefinitionRegistryPostProcessor处理器，例如@Configuration配置类的解析和组件扫描
+	private void invokeBeanDefinitionRegistryPostProcessor(BeanDefinitionRegistryPostProcessor postProcessor, BeanDefinitionRegistry registry) {
+		StartupTimeline.Phase phase = startPhase("postProcessBeanDefinitionRegistry", postProcessor.getClass().getName());
+		try {
+			postProcessor.postProcessBeanDefinitionRegistry(registry);
+		}
+		finally {
+			endPhase(phase);
 		}
 	}
+	/**
+	 * Populate the given bean factory from the {@link #setBeanDefinitionSnapshotFile
+	 * bean definition snapshot}, if one has been specified and matches the current
+	 * configuration. To be called by subclasses instead of loading the bean
+	 * definitions from their sources.
+	 * @param beanFactory the fresh bean factory to populate
+	 * @return {@code true} if the bean definitions have been restored from the
+	 * snapshot, {@code false} if they need to be loaded from their sources
+	 * @since 3.2.9
+	 */
+	protected boolean loadBeanDefinitionSnapshot(ConfigurableListableBeanFactory beanFactory) {
+		this.pendingBeanDefinitionSnapshot = null;
+		this.restoredBeanDefinitionSnapshot = null;
+		File snapshotFile = this.beanDefinitionSnapshotFile;
+		if (snapshotFile == null || !(beanFactory instanceof BeanDefinitionRegistry)) {
+			return false;
+		}
+		BeanDefinitionSnapshot snapshot;
+		try {
+			snapshot = new BeanDefinitionSnapshot(computeBeanDefinitionSnapshotFingerprint());
+		}
+		catch (IOException ex) {
+			logger.warn("Could not compute configuration fingerprint for bean definition snapshot", ex);
+			return false;
+		}
+		if (snapshotFile.isFile()) {
+			try {
+				InputStream in = new FileInputStream(snapshotFile);
+				try {
+					if (snapshot.read(in, (BeanDefinitionRegistry) beanFactory, getClassLoader())) {
+						this.restoredBeanDefinitionSnapshot = snapshot;
+						if (logger.isInfoEnabled()) {
+							logger.info("Restored " + beanFactory.getBeanDefinitionCount() +
+									" bean definitions for " + getDisplayName() + " from snapshot [" + snapshotFile + "]");
+						}
+						return true;
+					}
+				}
+				finally {
+					in.close();
+				}
+				if (logger.isInfoEnabled()) {
+					logger.info("Bean definition snapshot [" + snapshotFile + "] is out of date - loading bean definitions");
+				}
+			}
+			catch (IOException ex) {
+				logger.warn("Could not read bean definition snapshot [" + snapshotFile + "] - loading bean definitions", ex);
+			}
+		}
+		this.pendingBeanDefinitionSnapshot = snapshot;
+		return false;
+	}
+
+	private void writeBeanDefinitionSnapshot(BeanDefinitionSnapshot snapshot, BeanDefinitionRegistry registry,
+			boolean environmentModified) {
+
+		File snapshotFile = this.beanDefinitionSnapshotFile;
+		if (environmentModified) {
+			// 例如@PropertySource添加的属性源：不包含在快照中，从快照恢复后就会缺失
+			if (logger.isInfoEnabled()) {
+				logger.info("Not writing bean definition snapshot [" + snapshotFile +
+						"] since registry post-processing added property sources to the Environment");
+			}
+			snapshotFile.delete();
+			return;
+		}
+		// 先写到临时文件再重命名，避免其他进程读到写了一半的快照
+		File tempFile = new File(snapshotFile.getPath() + ".tmp");
+		try {
+			OutputStream out = new FileOutputStream(tempFile);
+			try {
+				snapshot.write(registry, out);
+			}
+			finally {
+				out.close();
+			}
+			snapshotFile.delete();
+			if (!tempFile.renameTo(snapshotFile)) {
+				throw new IOException("Could not rename [" + tempFile + "] to [" + snapshotFile + "]");
+			}
+			if (logger.isInfoEnabled()) {
+				logger.info("Wrote " + registry.getBeanDefinitionCount() + " bean definitions for " +
+						getDisplayName() + " to snapshot [" + snapshotFile + "]");
+			}
+		}
+		catch (NotSerializableException ex) {
+			if (logger.isInfoEnabled()) {
+				logger.info("Not writing bean definition snapshot [" + snapshotFile + "]: " + ex.getMessage());
+			}
+			tempFile.delete();
+			snapshotFile.delete();
+		}
+		catch (IOException ex) {
+			logger.warn("Could not write bean definition snapshot [" + snapshotFile + "]", ex);
+			tempFile.delete();
+		}
+	}
+
+	/**
+	 * Compute the fingerprint that a bean definition snapshot needs to match
+	 * in order to be used: a digest of the {@link #getBeanDefinitionSnapshotResources()
+	 * configuration resources}, the entries of the classpath (including the
+	 * last-modified timestamps of jar files) and the active and default profiles.
+	 * <p>The resources that individual bean definitions have been loaded from
+	 * are verified by the {@link BeanDefinitionSnapshot} itself.
+	 * @since 3.2.9
+	 */
+	protected String computeBeanDefinitionSnapshotFingerprint() throws IOException {
+		StringBuilder sb = new StringBuilder(getClass().getName());
+		sb.append("|profiles:").append(StringUtils.arrayToCommaDelimitedString(getEnvironment().getActiveProfiles()));
+		sb.append("|defaults:").append(StringUtils.arrayToCommaDelimitedString(getEnvironment().getDefaultProfiles()));
+		for (Resource resource : getBeanDefinitionSnapshotResources()) {
+			sb.append('|').append(resource.getDescription());
+			if (resource.exists()) {
+				sb.append(':').append(resource.lastModified()).append(':').append(resource.contentLength());
+			}
+		}
+		Set<String> classPathEntries = new LinkedHashSet<String>();
+		for (ClassLoader cl = getClassLoader(); cl != null; cl = cl.getParent()) {
+			if (cl instanceof URLClassLoader) {
+				for (URL url : ((URLClassLoader) cl).getURLs()) {
+					if (ResourceUtils.isFileURL(url)) {
+						classPathEntries.add(ResourceUtils.getFile(url).getAbsolutePath());
+					}
+				}
+			}
+		}
+		for (String entry : StringUtils.delimitedListToStringArray(
+				System.getProperty("java.class.path"), File.pathSeparator)) {
+			if (entry.length() > 0) {
+				classPathEntries.add(new File(entry).getAbsolutePath());
+			}
+		}
+		for (String entry : classPathEntries) {
+			sb.append('|').append(entry);
+			// 只记录jar文件的时间戳：遍历类路径下的目录代价太高，定义来源的资源由快照自己检查
+			File file = new File(entry);
+			if (file.isFile()) {
+				sb.append(':').append(file.lastModified()).append(':').append(file.length());
+			}
+		}
+		return DigestUtils.md5DigestAsHex(sb.toString().getBytes("UTF-8"));
+	}
+
+	/**
+	 * Return the resources that this context's bean definitions are loaded from,
+	 * to be included in the {@link #computeBeanDefinitionSnapshotFingerprint()
+	 * fingerprint} of a bean definition snapshot, so that added or removed
+	 * resources are detected as well. Default is none.
+	 * @since 3.2.9
+	 */
+	protected Resource[] getBeanDefinitionSnapshotResources() throws IOException {
+		return new Resource[0];
+	}
+
 	// 6、注册拦截Bean创建的Bean处理器，这里只是注册，真正的调用是在getBean时候
 	protected void registerBeanPostProcessors(ConfigurableListableBeanFactory beanFactory) {
 		// 获取所有处理器bean的名字
@@ -698,6 +976,13 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 			getBean(weaverAwareName);
 		}
 
+		// Initialize bootstrap executor for parallel singleton pre-instantiation, if any.
+		if (beanFactory instanceof DefaultListableBeanFactory && beanFactory.containsBean(BOOTSTRAP_EXECUTOR_BEAN_NAME) &&
+				beanFactory.isTypeMatch(BOOTSTRAP_EXECUTOR_BEAN_NAME, Executor.class)) {
+			((DefaultListableBeanFactory) beanFactory).setBootstrapExecutor(
+					beanFactory.getBean(BOOTSTRAP_EXECUTOR_BEAN_NAME, Executor.class));
+		}
+
 		// Stop using the temporary ClassLoader for type matching.
 		beanFactory.setTempClassLoader(null);
 
@@ -895,6 +1180,51 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 	public List<BeanFactoryPostProcessor> getBeanFactoryPostProcessors() {
 		return this.beanFactoryPostProcessors;
 	}
+	/**
+	 * Specify a file to keep a {@link BeanDefinitionSnapshot} of this context's
+	 * bean definitions in, as they are after the readers and
+	 * BeanDefinitionRegistryPostProcessors have been applied.
+	 * <p>On refresh, a snapshot that matches the fingerprint of the current
+	 * configuration resources, classpath and active profiles - and whose
+	 * bean definition sources have not been modified - is loaded instead of
+	 * loading the bean definitions from their sources, and
+	 * BeanDefinitionRegistryPostProcessors are not invoked for the registry
+	 * again; in particular, components are not scanned and
+	 * {@code @Configuration} classes are not parsed again. Otherwise the
+	 * snapshot is (re-)written once the definitions have been registered -
+	 * unless they cannot be represented in a snapshot (e.g. definitions of
+	 * {@code @Bean} methods), or registry post-processing modified the
+	 * Environment (e.g. through {@code @PropertySource}).
+	 * <p>Only applies to contexts that load their bean definitions on refresh,
+	 * such as {@link AbstractRefreshableApplicationContext} subclasses.
+	 * Default is none.
+	 * @since 3.2.9
+	 * @see #getBeanDefinitionSnapshotResources()
+	 */
+	public void setBeanDefinitionSnapshotFile(File beanDefinitionSnapshotFile) {
+		this.beanDefinitionSnapshotFile = beanDefinitionSnapshotFile;
+	}
+	public File getBeanDefinitionSnapshotFile() {
+		return this.beanDefinitionSnapshotFile;
+	}
+	/**
+	 * Specify a {@link StartupTimeline} to record the phases of the refresh
+	 * (such as bean factory post-processing and component scanning, the
+	 * registration of bean post-processors and the instantiation of
+	 * singletons) as well as the creation of each bean in, until the context
+	 * has been refreshed.
+	 * <p>Default is none, unless the {@value #STARTUP_TIMELINE_PROPERTY_NAME}
+	 * system property is set to "true" - in which case a timeline is created
+	 * on refresh. Exposed through {@link LiveBeansView} as well.
+	 * @since 3.2.9
+	 * @see StartupTimeline#toJson()
+	 */
+	public void setStartupTimeline(StartupTimeline startupTimeline) {
+		this.startupTimeline = startupTimeline;
+	}
+	public StartupTimeline getStartupTimeline() {
+		return this.startupTimeline;
+	}
 	public void addApplicationListener(ApplicationListener<?> listener) {
 		if (this.applicationEventMulticaster != null) {
 			this.applicationEventMulticaster.addApplicationListener(listener);
@@ -106,8 +106,15 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
 			// 3、定制BeanFactory，设置相关属性，包括是否允许覆盖同名称的不同定义的对象以及循环依赖，以及设置@Autowired
 			// 和@Qualifier注解的解析器 QualifierAnnotationAutowireCandidateResolver
 			customizeBeanFactory(beanFactory);
+			// 记录启动时间线的话，在加载BeanDefinition之前就交给BeanFactory（组件扫描等步骤也会记录在内）
+			if (getStartupTimeline() != null) {
+				beanFactory.setStartupTimeline(getStartupTimeline());
+			}
 			// 4、加载BeanDefinition，初始化DocumentReader，并进行XML文件读取及解析和注册BeanDefinition
-			loadBeanDefinitions(beanFactory);
+			// （如果设置了Bean定义快照并且与当前配置匹配，则直接从快照中恢复）
+			if (!loadBeanDefinitionSnapshot(beanFactory)) {
+				loadBeanDefinitions(beanFactory);
+			}
 			synchronized (this.beanFactoryMonitor) {
 				// 5、使用全局变量记录BeanFactory类实例，因为DefaultListableBeanFactory类型的变量BeanFactory是函数内的
 				// 局部变量，所以要使用全局变量记录解析结果
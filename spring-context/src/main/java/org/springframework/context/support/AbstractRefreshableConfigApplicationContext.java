@@ -16,9 +16,15 @@
 
 package org.springframework.context.support;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.Resource;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
@@ -73,6 +79,20 @@ public abstract class AbstractRefreshableConfigApplicationContext extends Abstra
 		return null;
 	}
 
+	// Bean定义快照的指纹包含所有的配置文件（支持通配符路径）
+	@Override
+	protected Resource[] getBeanDefinitionSnapshotResources() throws IOException {
+		String[] configLocations = getConfigLocations();
+		if (configLocations == null) {
+			return super.getBeanDefinitionSnapshotResources();
+		}
+		List<Resource> resources = new ArrayList<Resource>();
+		for (String location : configLocations) {
+			resources.addAll(Arrays.asList(getResources(location)));
+		}
+		return resources.toArray(new Resource[resources.size()]);
+	}
+
 	/**
 	 * Resolve the given path, replacing placeholders with corresponding
 	 * environment property values if necessary. Applied to config locations.
@@ -21,6 +21,7 @@ import java.io.IOException;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.xml.ResourceEntityResolver;
+import org.springframework.beans.factory.xml.StaxXmlBeanDefinitionReader;
 import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.io.Resource;
@@ -46,6 +47,8 @@ public abstract class AbstractXmlApplicationContext extends AbstractRefreshableC
 
 	private boolean validating = true;
 
+	private boolean streaming = false;
+
 	public AbstractXmlApplicationContext() {}
 	public AbstractXmlApplicationContext(ApplicationContext parent) {
 		super(parent);
@@ -57,6 +60,11 @@ public abstract class AbstractXmlApplicationContext extends AbstractRefreshableC
 		this.validating = validating;
 	}
 
+	// 设置是否使用基于StAX的流式解析（StaxXmlBeanDefinitionReader）来加载XML配置，默认false；适用于非常大的XML配置
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
 	// 通过 XmlBeanDefinitionReader 加载 BeanDefinition
 	@Override
 	protected void loadBeanDefinitions(DefaultListableBeanFactory beanFactory) throws BeansException, IOException {
@@ -64,7 +72,8 @@ public abstract class AbstractXmlApplicationContext extends AbstractRefreshableC
 		// 内部的 FactoryBean 依赖了一个 XMLBeanDefinitionReader（作用是从xml配置文件中解析并加载bean），而 XMLBeanDefinitionReader 实例化时必须
 		// 注入一个BeanFactoryRegistry接口(Bean注册表)，XmlBeanDefinitionReader 不仅仅是完成解析，同时也是一个IOC容器（Bean的注册表）
 		// 这里的ApplicationContext 也是依赖 XmlBeanDefinitionReader 来完成bean的加载，它通过将内部的 BeanFactory 来创建一个 XmlBeanDefinitionReader 对象
-		XmlBeanDefinitionReader beanDefinitionReader = new XmlBeanDefinitionReader(beanFactory);
+		XmlBeanDefinitionReader beanDefinitionReader = (this.streaming ?
+				new StaxXmlBeanDefinitionReader(beanFactory) : new XmlBeanDefinitionReader(beanFactory));
 
 		// Configure the bean definition reader with this context's resource loading environment.
 		beanDefinitionReader.setEnvironment(this.getEnvironment());
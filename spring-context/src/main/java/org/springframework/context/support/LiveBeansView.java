@@ -27,6 +27,7 @@ import javax.management.ObjectName;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.StartupTimeline;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.ApplicationContextException;
@@ -117,6 +118,58 @@ public class LiveBeansView implements LiveBeansViewMBean, ApplicationContextAwar
 		return generateJson(contexts);
 	}
 
+	/**
+	 * Generate a JSON document with the {@link StartupTimeline} of each context,
+	 * finding all active ApplicationContexts through {@link #findApplicationContexts()}.
+	 * <p>Produces an array of objects with a context attribute and a timeline
+	 * attribute containing the {@link StartupTimeline#toJson() timeline document},
+	 * or {@code null} for a context that did not record a startup timeline.
+	 * @see AbstractApplicationContext#setStartupTimeline
+	 */
+	public String getStartupTimelineAsJson() {
+		Set<ConfigurableApplicationContext> contexts;
+		if (this.applicationContext != null) {
+			contexts = Collections.singleton(this.applicationContext);
+		}
+		else {
+			contexts = findApplicationContexts();
+		}
+		StringBuilder result = new StringBuilder("[\n");
+		for (Iterator<ConfigurableApplicationContext> it = contexts.iterator(); it.hasNext();) {
+			ConfigurableApplicationContext context = it.next();
+			// 上下文id需转义；时间线中的bean名称等由StartupTimeline.toJson()转义
+			result.append("{\n\"context\": ").append(quote(context.getId())).append(",\n");
+			StartupTimeline timeline = (context instanceof AbstractApplicationContext ?
+					((AbstractApplicationContext) context).getStartupTimeline() : null);
+			result.append("\"timeline\": ").append(timeline != null ? timeline.toJson() : null).append("\n}");
+			if (it.hasNext()) {
+				result.append(",\n");
+			}
+		}
+		result.append("]");
+		return result.toString();
+	}
+
+	private static String quote(String value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+
 	/**
 	 * Find all applicable ApplicationContexts for the current application.
 	 * <p>Called if no specific ApplicationContext has been set for this LiveBeansView.
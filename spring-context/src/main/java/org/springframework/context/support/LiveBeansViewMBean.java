@@ -29,4 +29,11 @@ public interface LiveBeansViewMBean {
 	 */
 	String getSnapshotAsJson();
 
+	/**
+	 * Generate a JSON document with the startup timeline of each context,
+	 * as far as it has been recorded.
+	 * @since 3.2.9
+	 */
+	String getStartupTimelineAsJson();
+
 }
@@ -49,6 +49,8 @@ public class BeanPropertyBindingResult extends AbstractPropertyBindingResult imp
 
 	private final int autoGrowCollectionLimit;
 
+	private final boolean fastPropertyAccess;
+
 	private transient BeanWrapper beanWrapper;
 
 
@@ -69,10 +71,27 @@ public class BeanPropertyBindingResult extends AbstractPropertyBindingResult imp
 	 * @param autoGrowCollectionLimit the limit for array and collection auto-growing
 	 */
 	public BeanPropertyBindingResult(Object target, String objectName, boolean autoGrowNestedPaths, int autoGrowCollectionLimit) {
+		this(target, objectName, autoGrowNestedPaths, autoGrowCollectionLimit, false);
+	}
+
+	/**
+	 * Creates a new instance of the {@link BeanPropertyBindingResult} class.
+	 * @param target the target bean to bind onto
+	 * @param objectName the name of the target object
+	 * @param autoGrowNestedPaths whether to "auto-grow" a nested path that contains a null value
+	 * @param autoGrowCollectionLimit the limit for array and collection auto-growing
+	 * @param fastPropertyAccess whether to use a {@link org.springframework.beans.FastBeanWrapperImpl}
+	 * instead of the standard BeanWrapper
+	 * @since 3.2.9
+	 */
+	public BeanPropertyBindingResult(Object target, String objectName, boolean autoGrowNestedPaths,
+			int autoGrowCollectionLimit, boolean fastPropertyAccess) {
+
 		super(objectName);
 		this.target = target;
 		this.autoGrowNestedPaths = autoGrowNestedPaths;
 		this.autoGrowCollectionLimit = autoGrowCollectionLimit;
+		this.fastPropertyAccess = fastPropertyAccess;
 	}
 
 
@@ -103,7 +122,8 @@ public class BeanPropertyBindingResult extends AbstractPropertyBindingResult imp
 	 */
 	protected BeanWrapper createBeanWrapper() {
 		Assert.state(this.target != null, "Cannot access properties on null bean instance '" + getObjectName() + "'!");
-		return PropertyAccessorFactory.forBeanPropertyAccess(this.target);
+		return (this.fastPropertyAccess ? PropertyAccessorFactory.forFastBeanPropertyAccess(this.target) :
+				PropertyAccessorFactory.forBeanPropertyAccess(this.target));
 	}
 
 }
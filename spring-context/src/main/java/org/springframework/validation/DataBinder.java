@@ -137,6 +137,8 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 
 	private int autoGrowCollectionLimit = DEFAULT_AUTO_GROW_COLLECTION_LIMIT;
 
+	private boolean fastPropertyAccess = false;
+
 	private String[] allowedFields;
 
 	private String[] disallowedFields;
@@ -225,6 +227,29 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 		return this.autoGrowCollectionLimit;
 	}
 
+	/**
+	 * Set whether this binder should use a {@link org.springframework.beans.FastBeanWrapperImpl}
+	 * for bean property access, invoking top-level setters directly and skipping type
+	 * conversion for values that already match the property type.
+	 * <p>Default is "false", unless the "spring.beanwrapper.fast" system property is set.
+	 * @since 3.2.9
+	 * @see #initBeanPropertyAccess()
+	 * @see org.springframework.beans.PropertyAccessorFactory#FAST_PROPERTY_ACCESS_PROPERTY_NAME
+	 */
+	public void setFastPropertyAccess(boolean fastPropertyAccess) {
+		Assert.state(this.bindingResult == null,
+				"DataBinder is already initialized - call setFastPropertyAccess before other configuration methods");
+		this.fastPropertyAccess = fastPropertyAccess;
+	}
+
+	/**
+	 * Return whether fast bean property access has been activated for this binder.
+	 * @since 3.2.9
+	 */
+	public boolean isFastPropertyAccess() {
+		return this.fastPropertyAccess;
+	}
+
 	/**
 	 * Initialize standard JavaBean property access for this DataBinder.
 	 * <p>This is the default; an explicit call just leads to eager initialization.
@@ -233,8 +258,8 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 	public void initBeanPropertyAccess() {
 		Assert.state(this.bindingResult == null,
 				"DataBinder is already initialized - call initBeanPropertyAccess before other configuration methods");
-		this.bindingResult = new BeanPropertyBindingResult(
-				getTarget(), getObjectName(), isAutoGrowNestedPaths(), getAutoGrowCollectionLimit());
+		this.bindingResult = new BeanPropertyBindingResult(getTarget(), getObjectName(),
+				isAutoGrowNestedPaths(), getAutoGrowCollectionLimit(), isFastPropertyAccess());
 		if (this.conversionService != null) {
 			this.bindingResult.initConversion(this.conversionService);
 		}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.transaction.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.BatchingApplicationListener;
+import org.springframework.context.event.BatchingApplicationListenerAdapter;
+
+/**
+ * {@link BatchingApplicationListenerAdapter} that ties the delivery of events
+ * published within a transaction to the transaction's completion: they are
+ * collected (and coalesced) separately for the transaction, and delivered right
+ * after commit - or discarded on rollback, since nothing they refer to has been
+ * changed then. Events published outside of a transaction are batched as usual.
+ *
+ * <p>Relies on {@link TransactionSynchronizationManager}, i.e. on transaction
+ * synchronization being active for the current thread.
+ *
+ * @since 3.2.9
+ */
+public class TransactionAwareBatchingApplicationListenerAdapter extends BatchingApplicationListenerAdapter {
+
+	/**
+	 * Create a new TransactionAwareBatchingApplicationListenerAdapter for the given delegate.
+	 * @param delegate the batching listener to deliver the events to
+	 */
+	public TransactionAwareBatchingApplicationListenerAdapter(BatchingApplicationListener<?> delegate) {
+		super(delegate);
+	}
+
+
+	@Override
+	public void onApplicationEvent(ApplicationEvent event) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			addEvent(event);
+			return;
+		}
+		// 当前事务中的事件单独收集，事务提交后再投递
+		TransactionalEvents transactionalEvents =
+				(TransactionalEvents) TransactionSynchronizationManager.getResource(this);
+		if (transactionalEvents == null) {
+			transactionalEvents = new TransactionalEvents();
+			TransactionSynchronizationManager.bindResource(this, transactionalEvents);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionalEventsSynchronization(transactionalEvents));
+		}
+		addEvent(transactionalEvents.events, event);
+	}
+
+
+	/**
+	 * Holder for the events published within the current transaction.
+	 */
+	private static class TransactionalEvents {
+
+		public final Map<Object, ApplicationEvent> events = new LinkedHashMap<Object, ApplicationEvent>();
+	}
+
+
+	/**
+	 * Synchronization that delivers the transaction's events after commit.
+	 */
+	private class TransactionalEventsSynchronization extends TransactionSynchronizationAdapter {
+
+		private final TransactionalEvents transactionalEvents;
+
+		public TransactionalEventsSynchronization(TransactionalEvents transactionalEvents) {
+			this.transactionalEvents = transactionalEvents;
+		}
+
+		@Override
+		public void suspend() {
+			TransactionSynchronizationManager.unbindResource(TransactionAwareBatchingApplicationListenerAdapter.this);
+		}
+
+		@Override
+		public void resume() {
+			TransactionSynchronizationManager.bindResource(
+					TransactionAwareBatchingApplicationListenerAdapter.this, this.transactionalEvents);
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(TransactionAwareBatchingApplicationListenerAdapter.this);
+			if (status == STATUS_COMMITTED && !this.transactionalEvents.events.isEmpty()) {
+				addEvents(this.transactionalEvents.events.values());
+				// 注意：这里的flush()需要显式指定外部类，否则调用的是TransactionSynchronization#flush
+				TransactionAwareBatchingApplicationListenerAdapter.this.flush();
+			}
+		}
+	}
+
+}
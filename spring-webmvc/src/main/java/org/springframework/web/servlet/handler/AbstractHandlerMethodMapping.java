@@ -31,6 +31,7 @@ import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -62,6 +63,11 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	//key表示有效的请求URL串，urlMap用于映射URL和处理器的映射关系
 	private final MultiValueMap<String, T> urlMap = new LinkedMultiValueMap<String, T>();
 
+	// 按路径分段建立的模式索引，用于在非直接匹配时缩小候选映射的范围
+	private final PathPatternIndex<T> patternIndex = new PathPatternIndex<T>();
+
+	private boolean usePatternIndex = true;
+
 
 	/**
 	 * Whether to detect handler methods in beans in ancestor ApplicationContexts.
@@ -75,6 +81,19 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		this.detectHandlerMethodsInAncestorContexts = detectHandlerMethodsInAncestorContexts;
 	}
 
+	/**
+	 * Whether to narrow down the mappings checked for a non-literal lookup path
+	 * through a segment-based index built from the mappings' URL patterns.
+	 * <p>Default is "true". The index assumes "/"-separated Ant-style patterns
+	 * and is only consulted when the configured {@link #getPathMatcher() PathMatcher}
+	 * is an {@link AntPathMatcher}. Switch this flag off for custom mapping types
+	 * or path separators that do not follow these semantics, in which case all
+	 * registered mappings are checked for every non-literal lookup path.
+	 */
+	public void setUsePatternIndex(boolean usePatternIndex) {
+		this.usePatternIndex = usePatternIndex;
+	}
+
 	// Return a map with all handler methods and their mappings.
 	public Map<T, HandlerMethod> getHandlerMethods() {
 		return Collections.unmodifiableMap(this.handlerMethods);
@@ -172,6 +191,9 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		}
 
 		Set<String> patterns = getMappingPathPatterns(mapping);
+		if (oldHandlerMethod == null) {
+			this.patternIndex.add(mapping, patterns);
+		}
 		for (String pattern : patterns) {
 			if (!getPathMatcher().isPattern(pattern)) {
 				this.urlMap.add(pattern, mapping);
@@ -246,8 +268,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, request);
 		}
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...
-			addMatchingMappings(this.handlerMethods.keySet(), matches, request);
+			// 只检查URL模式可能匹配当前路径的映射，而不是遍历所有映射
+			addMatchingMappings(getCandidateMappings(lookupPath), matches, request);
 		}
 
 		if (!matches.isEmpty()) {
@@ -275,6 +297,21 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		}
 	}
 
+	/**
+	 * Return the mappings whose URL patterns may match the given lookup path,
+	 * in registration order. Falls back to all registered mappings if the
+	 * pattern index is switched off or not applicable to the PathMatcher.
+	 * @param lookupPath mapping lookup path within the current servlet mapping
+	 * @see #setUsePatternIndex
+	 */
+	protected Collection<T> getCandidateMappings(String lookupPath) {
+		if (this.usePatternIndex && getPathMatcher() instanceof AntPathMatcher) {
+			return this.patternIndex.getCandidates(lookupPath);
+		}
+		// No choice but to go through all mappings...
+		return this.handlerMethods.keySet();
+	}
+
 	private void addMatchingMappings(Collection<T> mappings, List<Match> matches, HttpServletRequest request) {
 		for (T mapping : mappings) {
 			T match = getMatchingMapping(mapping, request);
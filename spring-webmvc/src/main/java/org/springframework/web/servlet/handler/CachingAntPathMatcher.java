@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * {@link AntPathMatcher} variant that tokenizes each pattern only once,
+ * as the default {@link org.springframework.util.PathMatcher} of the handler mappings.
+ *
+ * <p>The actual matching is left to {@link AntPathMatcher#doMatch}; this class
+ * only saves it work. The tokens of every pattern are cached, along with the
+ * positions of its literal segments, so that a path whose leading segments
+ * do not equal the pattern's literal ones is rejected without any regex
+ * matching. The tokens of the last path are cached per thread, since a handler
+ * mapping matches the same lookup path against all of its patterns in turn.
+ *
+ * <p>Matching semantics are the same as {@link AntPathMatcher}'s. Caching of
+ * patterns turns itself off above {@value #CACHE_TURNOFF_THRESHOLD} distinct
+ * patterns, assuming that patterns are then arbitrary input rather than a
+ * fixed set of mappings.
+ *
+ * <p>Static resources are served through a
+ * {@link org.springframework.web.servlet.resource.ResourceHttpRequestHandler}
+ * that is mapped by a {@link SimpleUrlHandlerMapping}: that handler mapping
+ * uses this matcher by default, while the handler itself does not match patterns.
+ *
+ * @since 3.2.9
+ * @see AbstractHandlerMapping#setPathMatcher
+ */
+public class CachingAntPathMatcher extends AntPathMatcher {
+
+	/**
+	 * Number of distinct patterns beyond which tokenized patterns are no longer cached.
+	 */
+	public static final int CACHE_TURNOFF_THRESHOLD = 65536;
+
+
+	private String pathSeparator = DEFAULT_PATH_SEPARATOR;
+
+	private final Map<String, TokenizedPattern> patternCache =
+			new ConcurrentHashMap<String, TokenizedPattern>(256);
+
+	private volatile boolean cachePatterns = true;
+
+	// 每个线程最近一次分解的路径：[0]为路径，[1]为分解结果（只使用JDK类型，避免线程池中的类加载器泄漏）
+	private final ThreadLocal<Object[]> lastTokenizedPath = new ThreadLocal<Object[]>();
+
+
+	@Override
+	public void setPathSeparator(String pathSeparator) {
+		super.setPathSeparator(pathSeparator);
+		this.pathSeparator = (pathSeparator != null ? pathSeparator : DEFAULT_PATH_SEPARATOR);
+		this.patternCache.clear();
+	}
+
+	@Override
+	public void setTrimTokens(boolean trimTokens) {
+		super.setTrimTokens(trimTokens);
+		this.patternCache.clear();
+	}
+
+
+	@Override
+	protected boolean doMatch(String pattern, String path, boolean fullMatch, Map<String, String> uriTemplateVariables) {
+		if (path.startsWith(this.pathSeparator) != pattern.startsWith(this.pathSeparator)) {
+			return false;
+		}
+		TokenizedPattern tokenized = getTokenizedPattern(pattern);
+		if (tokenized.rejects(tokenizePath(path))) {
+			return false;
+		}
+		return super.doMatch(pattern, path, fullMatch, uriTemplateVariables);
+	}
+
+	/**
+	 * Return the cached tokens of a pattern, or of the last path tokenized by
+	 * the current thread, if the given String is one of them.
+	 * <p>The returned array must not be modified.
+	 */
+	@Override
+	protected String[] tokenizePath(String path) {
+		TokenizedPattern tokenized = (this.cachePatterns ? this.patternCache.get(path) : null);
+		if (tokenized != null) {
+			return tokenized.tokens;
+		}
+		Object[] last = this.lastTokenizedPath.get();
+		if (last != null && path.equals(last[0])) {
+			return (String[]) last[1];
+		}
+		String[] tokens = super.tokenizePath(path);
+		this.lastTokenizedPath.set(new Object[] {path, tokens});
+		return tokens;
+	}
+
+	/**
+	 * Return the tokenized form of the given pattern, building and caching it on first access.
+	 */
+	private TokenizedPattern getTokenizedPattern(String pattern) {
+		TokenizedPattern tokenized = null;
+		if (this.cachePatterns) {
+			tokenized = this.patternCache.get(pattern);
+		}
+		if (tokenized == null) {
+			tokenized = new TokenizedPattern(super.tokenizePath(pattern));
+			if (this.cachePatterns) {
+				if (this.patternCache.size() >= CACHE_TURNOFF_THRESHOLD) {
+					// 模式数量过多，说明模式来自外部输入：关闭缓存，避免无限增长
+					this.cachePatterns = false;
+					this.patternCache.clear();
+				}
+				else {
+					this.patternCache.put(pattern, tokenized);
+				}
+			}
+		}
+		return tokenized;
+	}
+
+
+	/**
+	 * The tokens of a pattern, plus what is needed to reject paths early.
+	 */
+	private static class TokenizedPattern {
+
+		private final String[] tokens;
+
+		/** Number of leading segments before the first "**" (all segments if there is none) */
+		private final int leadingSegments;
+
+		private final boolean[] literals;
+
+		public TokenizedPattern(String[] tokens) {
+			this.tokens = tokens;
+			this.literals = new boolean[tokens.length];
+			int leadingSegments = tokens.length;
+			for (int i = 0; i < tokens.length; i++) {
+				String token = tokens[i];
+				if ("**".equals(token)) {
+					leadingSegments = i;
+					break;
+				}
+				this.literals[i] = (token.indexOf('*') == -1 && token.indexOf('?') == -1 && token.indexOf('{') == -1);
+			}
+			this.leadingSegments = leadingSegments;
+		}
+
+		/**
+		 * Whether {@link AntPathMatcher#doMatch} is bound to reject the given path
+		 * (for full as well as start matches): it matches the segments before the
+		 * first "**" one by one against the leading path segments, and without
+		 * "**" a path with more segments than the pattern never matches.
+		 */
+		public boolean rejects(String[] pathDirs) {
+			if (this.leadingSegments == this.tokens.length && pathDirs.length > this.tokens.length) {
+				return true;
+			}
+			int count = Math.min(this.leadingSegments, pathDirs.length);
+			for (int i = 0; i < count; i++) {
+				if (this.literals[i] && !this.tokens[i].equals(pathDirs[i])) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * Segment-based prefix tree over Ant-style URL patterns, used by
+ * {@link AbstractHandlerMethodMapping} to narrow down the mappings that
+ * have to be checked for a given lookup path.
+ *
+ * <p>Each pattern is split on "/" at registration time: literal segments
+ * become keyed children, segments containing wildcards or URI template
+ * variables share a single "pattern" child, and a "**" segment terminates
+ * the pattern in a catch-all bucket of its parent node. A lookup therefore
+ * costs time proportional to the depth of the path rather than to the
+ * number of registered mappings.
+ *
+ * <p>The index is deliberately conservative: it returns a <i>superset</i>
+ * of the mappings that can match, including suffix pattern (".*" or
+ * registered file extension) and trailing slash variants. The actual
+ * matching is still left to the mapping's own conditions.
+ *
+ * <p>Not thread-safe for registration; lookups are safe once all
+ * mappings have been added, just like the mapping registry itself.
+ *
+ * @since 3.2.9
+ * @param <T> the mapping type
+ */
+class PathPatternIndex<T> {
+
+	private static final String PATH_SEPARATOR = AntPathMatcher.DEFAULT_PATH_SEPARATOR;
+
+	private static final String DOUBLE_WILDCARD = "**";
+
+	private static final Comparator<Entry<?>> REGISTRATION_ORDER = new Comparator<Entry<?>>() {
+		public int compare(Entry<?> entry1, Entry<?> entry2) {
+			return (entry1.order < entry2.order ? -1 : (entry1.order > entry2.order ? 1 : 0));
+		}
+	};
+
+
+	private final Node<T> root = new Node<T>();
+
+	/** Mappings without any path pattern: candidates for every lookup path */
+	private final List<Entry<T>> unconditionalEntries = new ArrayList<Entry<T>>();
+
+	private int count = 0;
+
+
+	/**
+	 * Register the given mapping under each of its URL patterns.
+	 * @param mapping the mapping
+	 * @param patterns the URL patterns of the mapping; if empty, the
+	 * mapping is considered a candidate for every lookup path
+	 */
+	public void add(T mapping, Collection<String> patterns) {
+		Entry<T> entry = new Entry<T>(mapping, this.count++);
+		if (patterns.isEmpty()) {
+			this.unconditionalEntries.add(entry);
+			return;
+		}
+		for (String pattern : patterns) {
+			Node<T> node = this.root;
+			boolean catchAll = false;
+			for (String segment : tokenize(pattern)) {
+				if (DOUBLE_WILDCARD.equals(segment)) {
+					node.catchAllEntries.add(entry);
+					catchAll = true;
+					break;
+				}
+				node = (isPatternSegment(segment) ? node.getOrCreatePatternChild() : node.getOrCreateLiteralChild(segment));
+			}
+			if (!catchAll) {
+				node.entries.add(entry);
+			}
+		}
+	}
+
+	/**
+	 * Return the mappings that may match the given lookup path, in
+	 * registration order.
+	 * @param lookupPath the lookup path within the current servlet mapping
+	 * @return the candidate mappings (never {@code null})
+	 */
+	public List<T> getCandidates(String lookupPath) {
+		Set<Entry<T>> found = new LinkedHashSet<Entry<T>>(this.unconditionalEntries);
+		collect(this.root, tokenize(lookupPath), 0, found);
+		if (found.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<Entry<T>> entries = new ArrayList<Entry<T>>(found);
+		Collections.sort(entries, REGISTRATION_ORDER);
+		List<T> result = new ArrayList<T>(entries.size());
+		for (Entry<T> entry : entries) {
+			result.add(entry.mapping);
+		}
+		return result;
+	}
+
+	private void collect(Node<T> node, String[] segments, int index, Set<Entry<T>> found) {
+		// "**" matches zero or more segments, including the remainder of the path
+		found.addAll(node.catchAllEntries);
+		if (index == segments.length) {
+			collectExhausted(node, found);
+			return;
+		}
+		String segment = segments[index];
+		if (node.literalChildren != null) {
+			Node<T> child = node.literalChildren.get(segment);
+			if (child != null) {
+				collect(child, segments, index + 1, found);
+			}
+			if (index == segments.length - 1) {
+				// Suffix pattern match: "/users" also serves "/users.json"
+				int dotIndex = segment.indexOf('.');
+				while (dotIndex != -1) {
+					child = node.literalChildren.get(segment.substring(0, dotIndex));
+					if (child != null) {
+						collectExhausted(child, found);
+					}
+					dotIndex = segment.indexOf('.', dotIndex + 1);
+				}
+			}
+		}
+		if (node.patternChild != null) {
+			collect(node.patternChild, segments, index + 1, found);
+		}
+	}
+
+	private void collectExhausted(Node<T> node, Set<Entry<T>> found) {
+		found.addAll(node.catchAllEntries);
+		found.addAll(node.entries);
+		if (node.patternChild != null) {
+			// "/path/*" matches "/path/" with a trailing separator
+			found.addAll(node.patternChild.entries);
+			found.addAll(node.patternChild.catchAllEntries);
+		}
+	}
+
+	private static String[] tokenize(String path) {
+		return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, true, true);
+	}
+
+	private static boolean isPatternSegment(String segment) {
+		return (segment.indexOf('*') != -1 || segment.indexOf('?') != -1 || segment.indexOf('{') != -1);
+	}
+
+
+	/**
+	 * A registered mapping along with its registration order.
+	 */
+	private static class Entry<T> {
+
+		private final T mapping;
+
+		private final int order;
+
+		public Entry(T mapping, int order) {
+			this.mapping = mapping;
+			this.order = order;
+		}
+	}
+
+
+	/**
+	 * A node in the tree, corresponding to one path segment.
+	 */
+	private static class Node<T> {
+
+		private Map<String, Node<T>> literalChildren;
+
+		private Node<T> patternChild;
+
+		private final List<Entry<T>> entries = new ArrayList<Entry<T>>(1);
+
+		private final List<Entry<T>> catchAllEntries = new ArrayList<Entry<T>>(0);
+
+		public Node<T> getOrCreateLiteralChild(String segment) {
+			if (this.literalChildren == null) {
+				this.literalChildren = new HashMap<String, Node<T>>();
+			}
+			Node<T> child = this.literalChildren.get(segment);
+			if (child == null) {
+				child = new Node<T>();
+				this.literalChildren.put(segment, child);
+			}
+			return child;
+		}
+
+		public Node<T> getOrCreatePatternChild() {
+			if (this.patternChild == null) {
+				this.patternChild = new Node<T>();
+			}
+			return this.patternChild;
+		}
+	}
+
+}